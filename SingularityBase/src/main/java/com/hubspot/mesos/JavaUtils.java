@@ -28,6 +28,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import org.apache.commons.lang3.time.DateFormatUtils;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 
@@ -46,6 +47,8 @@ public final class JavaUtils {
 
   public static final Joiner SPACE_JOINER = Joiner.on(" ");
 
+  private static final Pattern METRIC_NAME_UNSAFE = Pattern.compile("[^A-Za-z0-9_-]");
+
   public static String obfuscateValue(String value) {
     if (value == null) {
       return value;
@@ -210,4 +213,12 @@ public final class JavaUtils {
   public static String getReplaceHyphensWithUnderscores(String string) {
     return string.replace("-", "_");
   }
+
+  /**
+   * Replaces anything but letters, digits, hyphens and underscores, so that a value
+   * such as a hostname or url can be used as a single segment of a dotted metric name
+   */
+  public static String getMetricNameSegment(String string) {
+    return METRIC_NAME_UNSAFE.matcher(string).replaceAll("_");
+  }
 }
@@ -43,6 +43,12 @@ public class SingularityClusterUtilization {
   private final double totalCpuUsed;
   private final double totalCpuAvailable;
 
+  private final int numSlavesTracked;
+  private final int numSlavesReported;
+  private final int numSlavesTimedOut;
+  private final int numSlavesFailed;
+  private final int numSlavesSkipped;
+
   private final long timestamp;
 
   @JsonCreator
@@ -85,6 +91,11 @@ public class SingularityClusterUtilization {
     @JsonProperty("totalDiskBytesAvailable") long totalDiskBytesAvailable,
     @JsonProperty("totalCpuUsed") double totalCpuUsed,
     @JsonProperty("totalCpuAvailable") double totalCpuAvailable,
+    @JsonProperty("numSlavesTracked") int numSlavesTracked,
+    @JsonProperty("numSlavesReported") int numSlavesReported,
+    @JsonProperty("numSlavesTimedOut") int numSlavesTimedOut,
+    @JsonProperty("numSlavesFailed") int numSlavesFailed,
+    @JsonProperty("numSlavesSkipped") int numSlavesSkipped,
     @JsonProperty("timestamp") long timestamp
   ) {
     this.numRequestsWithUnderUtilizedCpu = numRequestsWithUnderUtilizedCpu;
@@ -117,6 +128,11 @@ public class SingularityClusterUtilization {
     this.totalDiskBytesAvailable = totalDiskBytesAvailable;
     this.totalCpuUsed = totalCpuUsed;
     this.totalCpuAvailable = totalCpuAvailable;
+    this.numSlavesTracked = numSlavesTracked;
+    this.numSlavesReported = numSlavesReported;
+    this.numSlavesTimedOut = numSlavesTimedOut;
+    this.numSlavesFailed = numSlavesFailed;
+    this.numSlavesSkipped = numSlavesSkipped;
     this.timestamp = timestamp;
   }
 
@@ -240,6 +256,26 @@ public class SingularityClusterUtilization {
     return totalCpuAvailable;
   }
 
+  public int getNumSlavesTracked() {
+    return numSlavesTracked;
+  }
+
+  public int getNumSlavesReported() {
+    return numSlavesReported;
+  }
+
+  public int getNumSlavesTimedOut() {
+    return numSlavesTimedOut;
+  }
+
+  public int getNumSlavesFailed() {
+    return numSlavesFailed;
+  }
+
+  public int getNumSlavesSkipped() {
+    return numSlavesSkipped;
+  }
+
   public long getTimestamp() {
     return timestamp;
   }
@@ -292,6 +328,16 @@ public class SingularityClusterUtilization {
       totalCpuUsed +
       ", totalCpuAvailable=" +
       totalCpuAvailable +
+      ", numSlavesTracked=" +
+      numSlavesTracked +
+      ", numSlavesReported=" +
+      numSlavesReported +
+      ", numSlavesTimedOut=" +
+      numSlavesTimedOut +
+      ", numSlavesFailed=" +
+      numSlavesFailed +
+      ", numSlavesSkipped=" +
+      numSlavesSkipped +
       ", timestamp=" +
       timestamp +
       "]"
@@ -0,0 +1,155 @@
+package com.hubspot.singularity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.Optional;
+
+@Schema(
+  description = "A change to a request, task or deploy, as sent to webhooks, with its position in the event feed"
+)
+public class SingularityEvent {
+  private final long sequence;
+  private final long timestamp;
+  private final WebhookType type;
+  private final Optional<SingularityRequestHistory> requestUpdate;
+  private final Optional<SingularityTaskWebhook> taskUpdate;
+  private final Optional<SingularityDeployUpdate> deployUpdate;
+  private final Optional<CrashLoopInfo> crashLoopUpdate;
+
+  public static SingularityEvent requestEvent(
+    long sequence,
+    SingularityRequestHistory requestUpdate
+  ) {
+    return new SingularityEvent(
+      sequence,
+      System.currentTimeMillis(),
+      WebhookType.REQUEST,
+      Optional.of(requestUpdate),
+      Optional.empty(),
+      Optional.empty(),
+      Optional.empty()
+    );
+  }
+
+  public static SingularityEvent taskEvent(
+    long sequence,
+    SingularityTaskWebhook taskUpdate
+  ) {
+    return new SingularityEvent(
+      sequence,
+      System.currentTimeMillis(),
+      WebhookType.TASK,
+      Optional.empty(),
+      Optional.of(taskUpdate),
+      Optional.empty(),
+      Optional.empty()
+    );
+  }
+
+  public static SingularityEvent deployEvent(
+    long sequence,
+    SingularityDeployUpdate deployUpdate
+  ) {
+    return new SingularityEvent(
+      sequence,
+      System.currentTimeMillis(),
+      WebhookType.DEPLOY,
+      Optional.empty(),
+      Optional.empty(),
+      Optional.of(deployUpdate),
+      Optional.empty()
+    );
+  }
+
+  public static SingularityEvent crashLoopEvent(
+    long sequence,
+    CrashLoopInfo crashLoopUpdate
+  ) {
+    return new SingularityEvent(
+      sequence,
+      System.currentTimeMillis(),
+      WebhookType.CRASHLOOP,
+      Optional.empty(),
+      Optional.empty(),
+      Optional.empty(),
+      Optional.of(crashLoopUpdate)
+    );
+  }
+
+  @JsonCreator
+  public SingularityEvent(
+    @JsonProperty("sequence") long sequence,
+    @JsonProperty("timestamp") long timestamp,
+    @JsonProperty("type") WebhookType type,
+    @JsonProperty("requestUpdate") Optional<SingularityRequestHistory> requestUpdate,
+    @JsonProperty("taskUpdate") Optional<SingularityTaskWebhook> taskUpdate,
+    @JsonProperty("deployUpdate") Optional<SingularityDeployUpdate> deployUpdate,
+    @JsonProperty("crashLoopUpdate") Optional<CrashLoopInfo> crashLoopUpdate
+  ) {
+    this.sequence = sequence;
+    this.timestamp = timestamp;
+    this.type = type;
+    this.requestUpdate = requestUpdate;
+    this.taskUpdate = taskUpdate;
+    this.deployUpdate = deployUpdate;
+    this.crashLoopUpdate = crashLoopUpdate;
+  }
+
+  @Schema(description = "Position of this event in the feed, increases by one per event")
+  public long getSequence() {
+    return sequence;
+  }
+
+  @Schema(description = "Time at which the event was added to the feed")
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  @Schema(description = "Which of the update fields is set for this event")
+  public WebhookType getType() {
+    return type;
+  }
+
+  @Schema(description = "The request history entry for a REQUEST event", nullable = true)
+  public Optional<SingularityRequestHistory> getRequestUpdate() {
+    return requestUpdate;
+  }
+
+  @Schema(description = "The task and its new state for a TASK event", nullable = true)
+  public Optional<SingularityTaskWebhook> getTaskUpdate() {
+    return taskUpdate;
+  }
+
+  @Schema(description = "The deploy update for a DEPLOY event", nullable = true)
+  public Optional<SingularityDeployUpdate> getDeployUpdate() {
+    return deployUpdate;
+  }
+
+  @Schema(description = "The crash loop for a CRASHLOOP event", nullable = true)
+  public Optional<CrashLoopInfo> getCrashLoopUpdate() {
+    return crashLoopUpdate;
+  }
+
+  @Override
+  public String toString() {
+    return (
+      "SingularityEvent{" +
+      "sequence=" +
+      sequence +
+      ", timestamp=" +
+      timestamp +
+      ", type=" +
+      type +
+      ", requestUpdate=" +
+      requestUpdate +
+      ", taskUpdate=" +
+      taskUpdate +
+      ", deployUpdate=" +
+      deployUpdate +
+      ", crashLoopUpdate=" +
+      crashLoopUpdate +
+      '}'
+    );
+  }
+}
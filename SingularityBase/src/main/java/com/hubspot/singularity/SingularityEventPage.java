@@ -0,0 +1,57 @@
+package com.hubspot.singularity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+@Schema(description = "Events from the event feed after a given sequence number")
+public class SingularityEventPage {
+  private final List<SingularityEvent> events;
+  private final long lastSequence;
+  private final boolean resetRequired;
+
+  @JsonCreator
+  public SingularityEventPage(
+    @JsonProperty("events") List<SingularityEvent> events,
+    @JsonProperty("lastSequence") long lastSequence,
+    @JsonProperty("resetRequired") boolean resetRequired
+  ) {
+    this.events = events;
+    this.lastSequence = lastSequence;
+    this.resetRequired = resetRequired;
+  }
+
+  @Schema(description = "Events in sequence order")
+  public List<SingularityEvent> getEvents() {
+    return events;
+  }
+
+  @Schema(
+    description = "Sequence of the last event in this page, or the latest sequence in the feed if there were no new events. Pass this as after to get the next page"
+  )
+  public long getLastSequence() {
+    return lastSequence;
+  }
+
+  @Schema(
+    description = "True if events after the requested sequence were already dropped from the feed. Clients should reload their data and continue from lastSequence"
+  )
+  public boolean isResetRequired() {
+    return resetRequired;
+  }
+
+  @Override
+  public String toString() {
+    return (
+      "SingularityEventPage{" +
+      "events=" +
+      events +
+      ", lastSequence=" +
+      lastSequence +
+      ", resetRequired=" +
+      resetRequired +
+      '}'
+    );
+  }
+}
@@ -10,17 +10,29 @@ public class SingularityPaginatedResponse<Q> {
   private final Optional<Integer> pageCount;
   private final int page;
   private final List<Q> objects;
+  private final Optional<String> nextCursor;
 
   public SingularityPaginatedResponse(
     final Optional<Integer> dataCount,
     final Optional<Integer> pageCount,
     final Optional<Integer> page,
     final List<Q> objects
+  ) {
+    this(dataCount, pageCount, page, objects, Optional.empty());
+  }
+
+  public SingularityPaginatedResponse(
+    final Optional<Integer> dataCount,
+    final Optional<Integer> pageCount,
+    final Optional<Integer> page,
+    final List<Q> objects,
+    final Optional<String> nextCursor
   ) {
     this.dataCount = dataCount;
     this.pageCount = pageCount;
     this.page = page.orElse(1);
     this.objects = objects;
+    this.nextCursor = nextCursor;
   }
 
   @Schema(description = "The total number of rows on all pages", nullable = true)
@@ -43,6 +55,14 @@ public class SingularityPaginatedResponse<Q> {
     return objects;
   }
 
+  @Schema(
+    description = "Pass as the cursor parameter to fetch the page after this one, absent on the last page",
+    nullable = true
+  )
+  public Optional<String> getNextCursor() {
+    return nextCursor;
+  }
+
   @Override
   public String toString() {
     return (
@@ -55,6 +75,8 @@ public class SingularityPaginatedResponse<Q> {
       page +
       ", objects=" +
       objects +
+      ", nextCursor=" +
+      nextCursor +
       '}'
     );
   }
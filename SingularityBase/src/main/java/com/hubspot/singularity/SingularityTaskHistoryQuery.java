@@ -3,6 +3,7 @@ package com.hubspot.singularity;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ComparisonChain;
 import java.util.Comparator;
+import java.util.Objects;
 import java.util.Optional;
 
 public class SingularityTaskHistoryQuery {
@@ -159,19 +160,63 @@ public class SingularityTaskHistoryQuery {
       public int compare(SingularityTaskIdHistory o1, SingularityTaskIdHistory o2) {
         ComparisonChain chain = ComparisonChain.start();
 
+        // Same order as the history queries use, so a page can be continued from its last item
         if (localOrderDirection == OrderDirection.ASC) {
-          chain = chain.compare(o1.getUpdatedAt(), o2.getUpdatedAt());
+          chain =
+            chain
+              .compare(o1.getUpdatedAt(), o2.getUpdatedAt())
+              .compare(o1.getTaskId().getId(), o2.getTaskId().getId());
         } else {
-          chain = chain.compare(o2.getUpdatedAt(), o1.getUpdatedAt());
+          chain =
+            chain
+              .compare(o2.getUpdatedAt(), o1.getUpdatedAt())
+              .compare(o2.getTaskId().getId(), o1.getTaskId().getId());
         }
 
-        return chain
-          .compare(o1.getTaskId().getRequestId(), o2.getTaskId().getRequestId())
-          .result();
+        return chain.result();
       }
     };
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SingularityTaskHistoryQuery that = (SingularityTaskHistoryQuery) o;
+    return (
+      Objects.equals(requestId, that.requestId) &&
+      Objects.equals(deployId, that.deployId) &&
+      Objects.equals(runId, that.runId) &&
+      Objects.equals(host, that.host) &&
+      Objects.equals(lastTaskStatus, that.lastTaskStatus) &&
+      Objects.equals(startedBefore, that.startedBefore) &&
+      Objects.equals(startedAfter, that.startedAfter) &&
+      Objects.equals(updatedBefore, that.updatedBefore) &&
+      Objects.equals(updatedAfter, that.updatedAfter) &&
+      Objects.equals(orderDirection, that.orderDirection)
+    );
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+      requestId,
+      deployId,
+      runId,
+      host,
+      lastTaskStatus,
+      startedBefore,
+      startedAfter,
+      updatedBefore,
+      updatedAfter,
+      orderDirection
+    );
+  }
+
   @Override
   public String toString() {
     return (
@@ -13,19 +13,31 @@ public class SingularityWebhook {
   private final Optional<String> user;
   private final long timestamp;
   private final String id;
+  private final Optional<Integer> batchSize;
+
+  public SingularityWebhook(
+    String uri,
+    Optional<Long> timestamp,
+    Optional<String> user,
+    WebhookType type
+  ) {
+    this(uri, timestamp, user, type, Optional.empty());
+  }
 
   @JsonCreator
   public SingularityWebhook(
     @JsonProperty("uri") String uri,
     @JsonProperty("timestamp") Optional<Long> timestamp,
     @JsonProperty("user") Optional<String> user,
-    @JsonProperty("type") WebhookType type
+    @JsonProperty("type") WebhookType type,
+    @JsonProperty("batchSize") Optional<Integer> batchSize
   ) {
     this.uri = uri;
     this.timestamp = timestamp.orElse(System.currentTimeMillis());
     this.user = user;
     this.id = type.name() + "-" + JavaUtils.urlEncode(uri);
     this.type = type;
+    this.batchSize = batchSize;
   }
 
   @Schema(description = "Unique ID for webhook")
@@ -53,6 +65,14 @@ public class SingularityWebhook {
     return type;
   }
 
+  @Schema(
+    description = "If set, up to this many updates are POSTed together as a JSON array instead of one update per request",
+    nullable = true
+  )
+  public Optional<Integer> getBatchSize() {
+    return batchSize;
+  }
+
   @Override
   public String toString() {
     return (
@@ -69,6 +89,8 @@ public class SingularityWebhook {
       ", id='" +
       id +
       '\'' +
+      ", batchSize=" +
+      batchSize +
       '}'
     );
   }
@@ -29,6 +29,7 @@ CREATE TABLE taskHistory (
   lastTaskStatus ENUM('TASK_LAUNCHED', 'TASK_STAGING', 'TASK_STARTING', 'TASK_RUNNING', 'TASK_CLEANING', 'TASK_KILLING', 'TASK_FINISHED', 'TASK_FAILED', 'TASK_KILLED', 'TASK_LOST', 'TASK_LOST_WHILE_DOWN', 'TASK_ERROR', 'TASK_DROPPED', 'TASK_GONE', 'TASK_UNREACHABLE', 'TASK_GONE_BY_OPERATOR', 'TASK_UNKNOWN') NOT NULL,
   bytes BLOB DEFAULT NULL,
   json TEXT NULL,
+  compressedJson BLOB DEFAULT NULL,
   runId VARCHAR(100) NULL,
   deployId VARCHAR(100) NULL,
   host VARCHAR(100) NULL,
@@ -36,3 +37,19 @@ CREATE TABLE taskHistory (
   purged BOOLEAN NOT NULL DEFAULT false,
   PRIMARY KEY (taskId),
 );
+
+CREATE TABLE webhookUpdates (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  type VARCHAR(25) NOT NULL,
+  createdAt TIMESTAMP NOT NULL DEFAULT '1971-01-01 00:00:01',
+  bytes BLOB NOT NULL,
+  PRIMARY KEY (id),
+);
+
+CREATE INDEX webhookUpdatesType ON webhookUpdates (type, id);
+
+CREATE TABLE webhookOffsets (
+  webhookId VARCHAR(500) NOT NULL,
+  lastId BIGINT NOT NULL,
+  PRIMARY KEY (webhookId),
+);
@@ -34,6 +34,7 @@ import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.config.SingularityTaskMetadataConfiguration;
 import com.hubspot.singularity.config.UIConfiguration;
 import com.hubspot.singularity.config.ZooKeeperConfiguration;
+import com.hubspot.singularity.data.SingularityWebCacheWatcher;
 import com.hubspot.singularity.guice.DropwizardMetricRegistryProvider;
 import com.hubspot.singularity.helpers.SingularityS3Service;
 import com.hubspot.singularity.helpers.SingularityS3Services;
@@ -139,6 +140,7 @@ public class SingularityMainModule implements Module {
       .addBinding()
       .to(SingularityLeaderController.class)
       .in(Scopes.SINGLETON);
+    leaderLatchListeners.addBinding().to(SingularityWebCacheWatcher.class);
 
     binder.bind(SingularityLeaderController.class).in(Scopes.SINGLETON);
     if (configuration.getSmtpConfigurationOptional().isPresent()) {
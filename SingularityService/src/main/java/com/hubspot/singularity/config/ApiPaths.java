@@ -5,6 +5,7 @@ public class ApiPaths {
 
   public static final String AUTH_RESOURCE_PATH = API_BASE_PATH + "/auth";
   public static final String DEPLOY_RESOURCE_PATH = API_BASE_PATH + "/deploys";
+  public static final String EVENT_RESOURCE_PATH = API_BASE_PATH + "/events";
   public static final String DISASTERS_RESOURCE_PATH = API_BASE_PATH + "/disasters";
   public static final String HISTORY_RESOURCE_PATH = API_BASE_PATH + "/history";
   public static final String INACTIVE_SLAVES_RESOURCE_PATH = API_BASE_PATH + "/inactive";
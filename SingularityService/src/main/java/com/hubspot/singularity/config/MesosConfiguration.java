@@ -54,6 +54,10 @@ public class MesosConfiguration {
   private long rxEventBufferSize = 10000;
   private int statusUpdateConcurrencyLimit = 50;
   private int maxStatusUpdateQueueSize = 5000;
+  private StatusUpdateOverflowType statusUpdateOverflowType =
+    StatusUpdateOverflowType.TAPE;
+  private Optional<String> statusUpdateOverflowDirectory = Optional.empty();
+  private int statusUpdateOverflowSegmentSizeBytes = 8 * 1024 * 1024;
   private int offersConcurrencyLimit = 10;
   private MachineLoadMetric scoreUsingSystemLoad = MachineLoadMetric.LOAD_5;
   private double allocatedResourceWeight = 0.5;
@@ -66,6 +70,7 @@ public class MesosConfiguration {
   private double load5OverloadedThreshold = 1.0;
   private double load1OverloadedThreshold = 1.5;
   private double goodEnoughScoreThreshold = 0.4;
+  private boolean parallelOfferScoring = true;
 
   private double recheckMetricsLoad1Threshold = 0.75;
   private double recheckMetricsLoad5Threshold = 0.8;
@@ -281,6 +286,36 @@ public class MesosConfiguration {
     this.maxStatusUpdateQueueSize = maxStatusUpdateQueueSize;
   }
 
+  public StatusUpdateOverflowType getStatusUpdateOverflowType() {
+    return statusUpdateOverflowType;
+  }
+
+  public void setStatusUpdateOverflowType(
+    StatusUpdateOverflowType statusUpdateOverflowType
+  ) {
+    this.statusUpdateOverflowType = statusUpdateOverflowType;
+  }
+
+  public Optional<String> getStatusUpdateOverflowDirectory() {
+    return statusUpdateOverflowDirectory;
+  }
+
+  public void setStatusUpdateOverflowDirectory(
+    Optional<String> statusUpdateOverflowDirectory
+  ) {
+    this.statusUpdateOverflowDirectory = statusUpdateOverflowDirectory;
+  }
+
+  public int getStatusUpdateOverflowSegmentSizeBytes() {
+    return statusUpdateOverflowSegmentSizeBytes;
+  }
+
+  public void setStatusUpdateOverflowSegmentSizeBytes(
+    int statusUpdateOverflowSegmentSizeBytes
+  ) {
+    this.statusUpdateOverflowSegmentSizeBytes = statusUpdateOverflowSegmentSizeBytes;
+  }
+
   public int getOffersConcurrencyLimit() {
     return offersConcurrencyLimit;
   }
@@ -448,4 +483,12 @@ public class MesosConfiguration {
   public void setGoodEnoughScoreThreshold(double goodEnoughScoreThreshold) {
     this.goodEnoughScoreThreshold = goodEnoughScoreThreshold;
   }
+
+  public boolean isParallelOfferScoring() {
+    return parallelOfferScoring;
+  }
+
+  public void setParallelOfferScoring(boolean parallelOfferScoring) {
+    this.parallelOfferScoring = parallelOfferScoring;
+  }
 }
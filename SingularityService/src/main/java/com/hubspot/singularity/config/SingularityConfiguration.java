@@ -38,6 +38,12 @@ public class SingularityConfiguration extends Configuration {
 
   private long cacheForWebForMillis = TimeUnit.SECONDS.toMillis(30);
 
+  private boolean watchZkForWebCache = true;
+
+  private long leaderHeartbeatIntervalMillis = TimeUnit.SECONDS.toMillis(1);
+
+  private long followerReadsMaxStalenessMillis = TimeUnit.SECONDS.toMillis(10);
+
   private int cacheTasksMaxSize = 5000;
 
   private int cacheTasksInitialSize = 100;
@@ -81,6 +87,9 @@ public class SingularityConfiguration extends Configuration {
 
   private int maxConcurrentUsageCollections = 15;
 
+  // Agents that have not responded this long after their usage fetch starts are left out of that round
+  private long usageCollectionTimeoutMillis = TimeUnit.SECONDS.toMillis(20);
+
   private boolean shuffleTasksForOverloadedSlaves = false; // recommended 'true' when oversubscribing resources for larger clusters
 
   private double shuffleTasksWhenSlaveMemoryUtilizationPercentageExceeds = 0.82;
@@ -98,6 +107,9 @@ public class SingularityConfiguration extends Configuration {
 
   private int numUsageToKeep = 15;
 
+  // Task usage samples are kept in memory on the leader, only one per interval is written to zk/sql
+  private long taskUsageCheckpointIntervalMillis = TimeUnit.MINUTES.toMillis(5);
+
   private long cleanupEverySeconds = 5;
 
   private long checkQueuedMailsEveryMillis = TimeUnit.SECONDS.toMillis(15);
@@ -177,6 +189,12 @@ public class SingularityConfiguration extends Configuration {
 
   private int healthcheckTimeoutSeconds = 5;
 
+  // Healthchecks beyond this many to the same agent wait for one to finish
+  private int maxConcurrentHealthchecksPerAgent = 10;
+
+  // Checks that could not get a slot on their agent this many times in a row count as failed
+  private int maxHealthcheckNotSentRetries = 5;
+
   private Optional<Integer> startupDelaySeconds = Optional.empty();
 
   private int startupTimeoutSeconds = 45;
@@ -245,6 +263,10 @@ public class SingularityConfiguration extends Configuration {
 
   private boolean sqlFallBackToBytesFields = true;
 
+  private boolean sqlCompressTaskHistory = false;
+
+  private long historyCountCacheMillis = 30000;
+
   @JsonProperty("mesos")
   @Valid
   private MesosConfiguration mesosConfiguration;
@@ -263,6 +285,10 @@ public class SingularityConfiguration extends Configuration {
 
   private int maxPendingImmediatePersists = 200;
 
+  private int taskPersistBatchSize = 100;
+
+  private int taskPersistParallelism = 4;
+
   private long reconcileSlavesEveryMinutes = TimeUnit.HOURS.toMinutes(1);
 
   private long cleanInactiveHostListEveryHours = 24;
@@ -297,6 +323,10 @@ public class SingularityConfiguration extends Configuration {
   /** If true, the event system waits for all listeners having processed an event. */
   private boolean waitForListeners = true;
 
+  private int eventFeedSize = 10000;
+
+  private long eventFeedMaxWaitMillis = TimeUnit.SECONDS.toMillis(25);
+
   private long warnIfScheduledJobIsRunningForAtLeastMillis = TimeUnit.DAYS.toMillis(1);
 
   @JsonProperty("taskExecutionTimeLimitMillis")
@@ -306,6 +336,14 @@ public class SingularityConfiguration extends Configuration {
 
   private long zookeeperAsyncTimeout = 5000;
 
+  /** Max outstanding background requests per batched zk read, <= 0 for no limit */
+  private int zookeeperAsyncMaxInFlight = 1000;
+
+  /** Group task state writes that queue up behind an in-flight commit into one zk transaction */
+  private boolean zookeeperWriteBatchingEnabled = false;
+
+  private int zookeeperWriteBatchMaxOps = 100;
+
   private int coreThreadpoolSize = 8;
 
   private long threadpoolShutdownDelayInSeconds = 10;
@@ -339,6 +377,12 @@ public class SingularityConfiguration extends Configuration {
 
   private int maxConcurrentWebhooks = 100;
 
+  private int maxConcurrentWebhooksPerEndpoint = 10;
+
+  private int maxUpdatesPerWebhookCheck = 500;
+
+  private long maxWebhookRetryBackoffMillis = TimeUnit.MINUTES.toMillis(5);
+
   @JsonProperty("auth")
   @NotNull
   @Valid
@@ -513,6 +557,30 @@ public class SingularityConfiguration extends Configuration {
     this.cacheForWebForMillis = cacheForWebForMillis;
   }
 
+  public boolean isWatchZkForWebCache() {
+    return watchZkForWebCache;
+  }
+
+  public void setWatchZkForWebCache(boolean watchZkForWebCache) {
+    this.watchZkForWebCache = watchZkForWebCache;
+  }
+
+  public long getLeaderHeartbeatIntervalMillis() {
+    return leaderHeartbeatIntervalMillis;
+  }
+
+  public void setLeaderHeartbeatIntervalMillis(long leaderHeartbeatIntervalMillis) {
+    this.leaderHeartbeatIntervalMillis = leaderHeartbeatIntervalMillis;
+  }
+
+  public long getFollowerReadsMaxStalenessMillis() {
+    return followerReadsMaxStalenessMillis;
+  }
+
+  public void setFollowerReadsMaxStalenessMillis(long followerReadsMaxStalenessMillis) {
+    this.followerReadsMaxStalenessMillis = followerReadsMaxStalenessMillis;
+  }
+
   public void setPendingDeployHoldTaskDuringDecommissionMillis(
     long pendingDeployHoldTaskDuringDecommissionMillis
   ) {
@@ -680,6 +748,14 @@ public class SingularityConfiguration extends Configuration {
     return healthcheckTimeoutSeconds;
   }
 
+  public int getMaxConcurrentHealthchecksPerAgent() {
+    return maxConcurrentHealthchecksPerAgent;
+  }
+
+  public int getMaxHealthcheckNotSentRetries() {
+    return maxHealthcheckNotSentRetries;
+  }
+
   public Optional<Integer> getHealthcheckMaxRetries() {
     return healthcheckMaxRetries;
   }
@@ -887,6 +963,30 @@ public class SingularityConfiguration extends Configuration {
     return zookeeperAsyncTimeout;
   }
 
+  public int getZookeeperAsyncMaxInFlight() {
+    return zookeeperAsyncMaxInFlight;
+  }
+
+  public void setZookeeperAsyncMaxInFlight(int zookeeperAsyncMaxInFlight) {
+    this.zookeeperAsyncMaxInFlight = zookeeperAsyncMaxInFlight;
+  }
+
+  public boolean isZookeeperWriteBatchingEnabled() {
+    return zookeeperWriteBatchingEnabled;
+  }
+
+  public void setZookeeperWriteBatchingEnabled(boolean zookeeperWriteBatchingEnabled) {
+    this.zookeeperWriteBatchingEnabled = zookeeperWriteBatchingEnabled;
+  }
+
+  public int getZookeeperWriteBatchMaxOps() {
+    return zookeeperWriteBatchMaxOps;
+  }
+
+  public void setZookeeperWriteBatchMaxOps(int zookeeperWriteBatchMaxOps) {
+    this.zookeeperWriteBatchMaxOps = zookeeperWriteBatchMaxOps;
+  }
+
   public ZooKeeperConfiguration getZooKeeperConfiguration() {
     return zooKeeperConfiguration;
   }
@@ -1103,6 +1203,16 @@ public class SingularityConfiguration extends Configuration {
     this.healthcheckTimeoutSeconds = healthcheckTimeoutSeconds;
   }
 
+  public void setMaxConcurrentHealthchecksPerAgent(
+    int maxConcurrentHealthchecksPerAgent
+  ) {
+    this.maxConcurrentHealthchecksPerAgent = maxConcurrentHealthchecksPerAgent;
+  }
+
+  public void setMaxHealthcheckNotSentRetries(int maxHealthcheckNotSentRetries) {
+    this.maxHealthcheckNotSentRetries = maxHealthcheckNotSentRetries;
+  }
+
   public void setHealthcheckMaxRetries(Optional<Integer> healthcheckMaxRetries) {
     this.healthcheckMaxRetries = healthcheckMaxRetries;
   }
@@ -1226,6 +1336,22 @@ public class SingularityConfiguration extends Configuration {
     this.maxPendingImmediatePersists = maxPendingImmediatePersists;
   }
 
+  public int getTaskPersistBatchSize() {
+    return taskPersistBatchSize;
+  }
+
+  public void setTaskPersistBatchSize(int taskPersistBatchSize) {
+    this.taskPersistBatchSize = taskPersistBatchSize;
+  }
+
+  public int getTaskPersistParallelism() {
+    return taskPersistParallelism;
+  }
+
+  public void setTaskPersistParallelism(int taskPersistParallelism) {
+    this.taskPersistParallelism = taskPersistParallelism;
+  }
+
   public void setS3Configuration(S3Configuration s3Configuration) {
     this.s3Configuration = s3Configuration;
   }
@@ -1262,6 +1388,22 @@ public class SingularityConfiguration extends Configuration {
     this.waitForListeners = waitForListeners;
   }
 
+  public int getEventFeedSize() {
+    return eventFeedSize;
+  }
+
+  public void setEventFeedSize(int eventFeedSize) {
+    this.eventFeedSize = eventFeedSize;
+  }
+
+  public long getEventFeedMaxWaitMillis() {
+    return eventFeedMaxWaitMillis;
+  }
+
+  public void setEventFeedMaxWaitMillis(long eventFeedMaxWaitMillis) {
+    this.eventFeedMaxWaitMillis = eventFeedMaxWaitMillis;
+  }
+
   public void setWarnIfScheduledJobIsRunningForAtLeastMillis(
     long warnIfScheduledJobIsRunningForAtLeastMillis
   ) {
@@ -1384,6 +1526,30 @@ public class SingularityConfiguration extends Configuration {
     this.maxConcurrentWebhooks = maxConcurrentWebhooks;
   }
 
+  public int getMaxConcurrentWebhooksPerEndpoint() {
+    return maxConcurrentWebhooksPerEndpoint;
+  }
+
+  public void setMaxConcurrentWebhooksPerEndpoint(int maxConcurrentWebhooksPerEndpoint) {
+    this.maxConcurrentWebhooksPerEndpoint = maxConcurrentWebhooksPerEndpoint;
+  }
+
+  public int getMaxUpdatesPerWebhookCheck() {
+    return maxUpdatesPerWebhookCheck;
+  }
+
+  public void setMaxUpdatesPerWebhookCheck(int maxUpdatesPerWebhookCheck) {
+    this.maxUpdatesPerWebhookCheck = maxUpdatesPerWebhookCheck;
+  }
+
+  public long getMaxWebhookRetryBackoffMillis() {
+    return maxWebhookRetryBackoffMillis;
+  }
+
+  public void setMaxWebhookRetryBackoffMillis(long maxWebhookRetryBackoffMillis) {
+    this.maxWebhookRetryBackoffMillis = maxWebhookRetryBackoffMillis;
+  }
+
   public void setLdapConfiguration(LDAPConfiguration ldapConfiguration) {
     this.ldapConfiguration = ldapConfiguration;
   }
@@ -1600,6 +1766,14 @@ public class SingularityConfiguration extends Configuration {
     this.maxConcurrentUsageCollections = maxConcurrentUsageCollections;
   }
 
+  public long getUsageCollectionTimeoutMillis() {
+    return usageCollectionTimeoutMillis;
+  }
+
+  public void setUsageCollectionTimeoutMillis(long usageCollectionTimeoutMillis) {
+    this.usageCollectionTimeoutMillis = usageCollectionTimeoutMillis;
+  }
+
   public int getMaxTasksToShufflePerHost() {
     return maxTasksToShufflePerHost;
   }
@@ -1671,6 +1845,16 @@ public class SingularityConfiguration extends Configuration {
     this.numUsageToKeep = numUsageToKeep;
   }
 
+  public long getTaskUsageCheckpointIntervalMillis() {
+    return taskUsageCheckpointIntervalMillis;
+  }
+
+  public void setTaskUsageCheckpointIntervalMillis(
+    long taskUsageCheckpointIntervalMillis
+  ) {
+    this.taskUsageCheckpointIntervalMillis = taskUsageCheckpointIntervalMillis;
+  }
+
   public long getCacheOffersForMillis() {
     return cacheOffersForMillis;
   }
@@ -1822,6 +2006,22 @@ public class SingularityConfiguration extends Configuration {
     this.sqlFallBackToBytesFields = sqlFallBackToBytesFields;
   }
 
+  public boolean isSqlCompressTaskHistory() {
+    return sqlCompressTaskHistory;
+  }
+
+  public void setSqlCompressTaskHistory(boolean sqlCompressTaskHistory) {
+    this.sqlCompressTaskHistory = sqlCompressTaskHistory;
+  }
+
+  public long getHistoryCountCacheMillis() {
+    return historyCountCacheMillis;
+  }
+
+  public void setHistoryCountCacheMillis(long historyCountCacheMillis) {
+    this.historyCountCacheMillis = historyCountCacheMillis;
+  }
+
   public double getPreferredSlaveScaleFactor() {
     return preferredSlaveScaleFactor;
   }
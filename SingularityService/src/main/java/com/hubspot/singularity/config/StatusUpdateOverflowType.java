@@ -0,0 +1,6 @@
+package com.hubspot.singularity.config;
+
+public enum StatusUpdateOverflowType {
+  TAPE,
+  MAPPED_SEGMENTS
+}
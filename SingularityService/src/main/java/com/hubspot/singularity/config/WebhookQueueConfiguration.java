@@ -41,6 +41,9 @@ public class WebhookQueueConfiguration {
   // Protection for zookeeper so large list children calls will not take it down
   private int maxZkQueuedWebhooksPerParentNode = 3000;
 
+  // Longest an update appended to the sql queue can take to become visible to readers
+  private long sqlVisibilityGraceMillis = 30000;
+
   public WebhookQueueType getQueueType() {
     return queueType;
   }
@@ -120,4 +123,12 @@ public class WebhookQueueConfiguration {
   public void setMaxZkQueuedWebhooksPerParentNode(int maxZkQueuedWebhooksPerParentNode) {
     this.maxZkQueuedWebhooksPerParentNode = maxZkQueuedWebhooksPerParentNode;
   }
+
+  public long getSqlVisibilityGraceMillis() {
+    return sqlVisibilityGraceMillis;
+  }
+
+  public void setSqlVisibilityGraceMillis(long sqlVisibilityGraceMillis) {
+    this.sqlVisibilityGraceMillis = sqlVisibilityGraceMillis;
+  }
 }
@@ -1,5 +1,6 @@
 package com.hubspot.singularity.data;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -18,6 +19,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.curator.framework.CuratorFramework;
@@ -32,12 +34,18 @@ import org.slf4j.LoggerFactory;
 public abstract class CuratorAsyncManager extends CuratorManager {
   private static final Logger LOG = LoggerFactory.getLogger(CuratorAsyncManager.class);
 
+  private final Map<CuratorQueryMethod, BatchMetrics> methodToBatchMetrics;
+
   public CuratorAsyncManager(
     CuratorFramework curator,
     SingularityConfiguration configuration,
     MetricRegistry metricRegistry
   ) {
     super(curator, configuration, metricRegistry);
+    this.methodToBatchMetrics = Maps.newEnumMap(CuratorQueryMethod.class);
+    for (CuratorQueryMethod method : CuratorQueryMethod.values()) {
+      methodToBatchMetrics.put(method, new BatchMetrics(metricRegistry, method));
+    }
   }
 
   private enum CuratorQueryMethod {
@@ -52,6 +60,21 @@ public abstract class CuratorAsyncManager extends CuratorManager {
     }
   }
 
+  private static class BatchMetrics {
+    private final Histogram latency;
+    private final Histogram size;
+    private final Histogram windowWaitMillis;
+    private final Histogram peakInFlight;
+
+    BatchMetrics(MetricRegistry registry, CuratorQueryMethod method) {
+      String prefix = String.format("zk.async.%s", method.name().toLowerCase());
+      this.latency = registry.histogram(prefix + ".batch.latency");
+      this.size = registry.histogram(prefix + ".batch.size");
+      this.windowWaitMillis = registry.histogram(prefix + ".window.wait");
+      this.peakInFlight = registry.histogram(prefix + ".window.peak");
+    }
+  }
+
   private <T> List<T> getAsyncChildrenThrows(
     final String parent,
     final Transcoder<T> transcoder
@@ -139,6 +162,25 @@ public abstract class CuratorAsyncManager extends CuratorManager {
     );
   }
 
+  private void acquireInFlightPermit(Semaphore inFlight, String path)
+    throws InterruptedException {
+    if (
+      !inFlight.tryAcquire(
+        configuration.getZookeeperAsyncTimeout(),
+        TimeUnit.MILLISECONDS
+      )
+    ) {
+      throw new IllegalStateException(
+        String.format(
+          "Timed out waiting for in-flight requests for %s to complete, waited %s millis",
+          path,
+          configuration.getZookeeperAsyncTimeout()
+        ),
+        KeeperException.create(Code.OPERATIONTIMEOUT, path)
+      );
+    }
+  }
+
   private void checkLatch(CountDownLatch latch, String path) throws InterruptedException {
     if (!latch.await(configuration.getZookeeperAsyncTimeout(), TimeUnit.MILLISECONDS)) {
       throw new IllegalStateException(
@@ -588,25 +630,58 @@ public abstract class CuratorAsyncManager extends CuratorManager {
   )
     throws Exception {
     final long start = System.currentTimeMillis();
+    final BatchMetrics batchMetrics = methodToBatchMetrics.get(method);
+
+    // Bound the number of outstanding requests so that large batches are pipelined through
+    // the session instead of being queued on it all at once. Results are still handled by
+    // the callback as each response arrives. The timeout applies to each wait for a free
+    // slot, so a large batch only times out if zk stops making progress on it
+    final int maxInFlight = configuration.getZookeeperAsyncMaxInFlight();
+    final Optional<Semaphore> inFlight = maxInFlight > 0 && paths.size() > maxInFlight
+      ? Optional.of(new Semaphore(maxInFlight))
+      : Optional.empty();
+    final AtomicInteger outstanding = new AtomicInteger();
+    final AtomicInteger peakOutstanding = new AtomicInteger();
+    final BackgroundCallback windowedCallback = (client, event) -> {
+      try {
+        callback.processResult(client, event);
+      } finally {
+        // Leave the window before freeing the slot so the peak never overcounts
+        outstanding.decrementAndGet();
+        inFlight.ifPresent(Semaphore::release);
+      }
+    };
+
+    long windowWaitMillis = 0;
 
     try {
       for (String path : paths) {
+        if (inFlight.isPresent()) {
+          final long waitStart = System.currentTimeMillis();
+          acquireInFlightPermit(inFlight.get(), pathNameForLogs);
+          windowWaitMillis += System.currentTimeMillis() - waitStart;
+        }
+        peakOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
         switch (method) {
           case GET_DATA:
-            curator.getData().inBackground(callback).forPath(path);
+            curator.getData().inBackground(windowedCallback).forPath(path);
             break;
           case GET_CHILDREN:
-            curator.getChildren().inBackground(callback).forPath(path);
+            curator.getChildren().inBackground(windowedCallback).forPath(path);
             break;
           case CHECK_EXISTS:
           default:
-            curator.checkExists().inBackground(callback).forPath(path);
+            curator.checkExists().inBackground(windowedCallback).forPath(path);
             break;
         }
       }
 
       checkLatch(latch, pathNameForLogs);
     } finally {
+      batchMetrics.latency.update(System.currentTimeMillis() - start);
+      batchMetrics.size.update(paths.size());
+      batchMetrics.windowWaitMillis.update(windowWaitMillis);
+      batchMetrics.peakInFlight.update(peakOutstanding.get());
       log(
         method.operationType,
         Optional.of(paths.size()),
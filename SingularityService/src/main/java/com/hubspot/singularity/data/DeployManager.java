@@ -53,20 +53,21 @@ public class DeployManager extends CuratorAsyncManager {
 
   private final ZkCache<SingularityDeploy> deploysCache;
   private final SingularityLeaderCache leaderCache;
+  private final SingularityWebCache webCache;
 
   private static final String DEPLOY_ROOT = "/deploys";
 
-  private static final String PENDING_ROOT = DEPLOY_ROOT + "/pending";
+  static final String PENDING_ROOT = DEPLOY_ROOT + "/pending";
   private static final String CANCEL_ROOT = DEPLOY_ROOT + "/cancel";
   private static final String UPDATE_ROOT = DEPLOY_ROOT + "/update";
 
-  private static final String BY_REQUEST_ROOT = DEPLOY_ROOT + "/requests";
+  static final String BY_REQUEST_ROOT = DEPLOY_ROOT + "/requests";
 
-  private static final String REQUEST_DEPLOY_STATE_KEY = "STATE";
-  private static final String DEPLOY_LIST_KEY = "/ids";
+  static final String REQUEST_DEPLOY_STATE_KEY = "STATE";
+  static final String DEPLOY_LIST_KEY = "/ids";
 
   private static final String DEPLOY_DATA_KEY = "DEPLOY";
-  private static final String DEPLOY_MARKER_KEY = "MARKER";
+  static final String DEPLOY_MARKER_KEY = "MARKER";
   private static final String DEPLOY_STATISTICS_KEY = "STATISTICS";
   private static final String DEPLOY_RESULT_KEY = "RESULT_STATE";
 
@@ -85,7 +86,8 @@ public class DeployManager extends CuratorAsyncManager {
     IdTranscoder<SingularityDeployKey> deployKeyTranscoder,
     Transcoder<SingularityUpdatePendingDeployRequest> updateRequestTranscoder,
     ZkCache<SingularityDeploy> deploysCache,
-    SingularityLeaderCache leaderCache
+    SingularityLeaderCache leaderCache,
+    SingularityWebCache webCache
   ) {
     super(curator, configuration, metricRegistry);
     this.singularityEventListener = singularityEventListener;
@@ -99,6 +101,7 @@ public class DeployManager extends CuratorAsyncManager {
     this.updateRequestTranscoder = updateRequestTranscoder;
     this.deploysCache = deploysCache;
     this.leaderCache = leaderCache;
+    this.webCache = webCache;
   }
 
   public List<SingularityDeployKey> getDeployIdsFor(String requestId) {
@@ -123,6 +126,9 @@ public class DeployManager extends CuratorAsyncManager {
     if (leaderCache.active()) {
       return leaderCache.getRequestDeployStateByRequestId(requestIds);
     }
+    if (webCache.useMirroredDeploys()) {
+      return webCache.getRequestDeployStates(requestIds);
+    }
 
     return fetchDeployStatesByRequestIds(requestIds);
   }
@@ -153,6 +159,9 @@ public class DeployManager extends CuratorAsyncManager {
     if (leaderCache.active()) {
       return leaderCache.getRequestDeployStateByRequestId();
     }
+    if (webCache.useMirroredDeploys()) {
+      return webCache.getRequestDeployStates();
+    }
     final List<String> requestIds = getChildren(BY_REQUEST_ROOT);
     return fetchDeployStatesByRequestIds(requestIds);
   }
@@ -163,6 +172,9 @@ public class DeployManager extends CuratorAsyncManager {
 
   @Timed
   public List<SingularityPendingDeploy> getPendingDeploys() {
+    if (webCache.useMirroredDeploys()) {
+      return webCache.getPendingDeploys();
+    }
     return getAsyncChildren(PENDING_ROOT, pendingDeployTranscoder);
   }
 
@@ -298,10 +310,9 @@ public class DeployManager extends CuratorAsyncManager {
     String deployId,
     boolean loadEntireHistory
   ) {
-    Optional<SingularityDeployMarker> deployMarker = getData(
-      getDeployMarkerPath(requestId, deployId),
-      deployMarkerTranscoder
-    );
+    Optional<SingularityDeployMarker> deployMarker = webCache.useMirroredDeploys()
+      ? webCache.getDeployMarker(requestId, deployId)
+      : getData(getDeployMarkerPath(requestId, deployId), deployMarkerTranscoder);
 
     if (!deployMarker.isPresent()) {
       return Optional.empty();
@@ -387,6 +398,9 @@ public class DeployManager extends CuratorAsyncManager {
     if (leaderCache.active()) {
       return leaderCache.getRequestDeployState(requestId);
     }
+    if (webCache.useMirroredDeploys()) {
+      return webCache.getRequestDeployState(requestId);
+    }
     return getData(getRequestDeployStatePath(requestId), requestDeployStateTranscoder);
   }
 
@@ -491,6 +505,9 @@ public class DeployManager extends CuratorAsyncManager {
   }
 
   public Optional<SingularityPendingDeploy> getPendingDeploy(String requestId) {
+    if (webCache.useMirroredDeploys()) {
+      return webCache.getPendingDeploy(requestId);
+    }
     return getData(getPendingDeployPath(requestId), pendingDeployTranscoder);
   }
 
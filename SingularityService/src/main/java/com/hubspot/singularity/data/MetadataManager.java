@@ -22,6 +22,10 @@ public class MetadataManager extends CuratorManager {
     ROOT_PATH,
     "ZK_DATA_VERSION"
   );
+  static final String LEADER_HEARTBEAT_PATH = ZKPaths.makePath(
+    ROOT_PATH,
+    "LEADER_HEARTBEAT"
+  );
   private static final String MAIL_HISTORY_PATH = ROOT_PATH + "/mails";
   private static final String MAIL_HISTORY_RECORDS_KEY = "timestamps";
   private static final String MAIL_IN_COOLDOWN_MARKER_KEY = "COOLDOWN_ACTIVE";
@@ -76,6 +80,10 @@ public class MetadataManager extends CuratorManager {
     save(ZK_DATA_VERSION_PATH, Optional.of(newVersion.getBytes(UTF_8)));
   }
 
+  public void saveLeaderHeartbeat(long heartbeatAt) {
+    save(LEADER_HEARTBEAT_PATH, Optional.of(Long.toString(heartbeatAt).getBytes(UTF_8)));
+  }
+
   public void saveMailRecord(SingularityRequest request, SingularityEmailType emailType) {
     create(
       getMailRecordPathForRequestAndTypeAndTime(
@@ -16,7 +16,7 @@ import org.apache.curator.utils.ZKPaths;
 
 @Singleton
 public class RequestGroupManager extends CuratorAsyncManager {
-  private static final String REQUEST_GROUP_ROOT = "/groups";
+  static final String REQUEST_GROUP_ROOT = "/groups";
 
   private final Transcoder<SingularityRequestGroup> requestGroupTranscoder;
   private final SingularityWebCache webCache;
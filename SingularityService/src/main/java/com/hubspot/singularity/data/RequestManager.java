@@ -61,7 +61,7 @@ public class RequestManager extends CuratorAsyncManager {
 
   private static final String REQUEST_ROOT = "/requests";
 
-  private static final String NORMAL_PATH_ROOT = REQUEST_ROOT + "/all";
+  static final String NORMAL_PATH_ROOT = REQUEST_ROOT + "/all";
   private static final String PENDING_PATH_ROOT = REQUEST_ROOT + "/pending";
   private static final String CLEANUP_PATH_ROOT = REQUEST_ROOT + "/cleanup";
   private static final String HISTORY_PATH_ROOT = REQUEST_ROOT + "/history";
@@ -527,6 +527,14 @@ public class RequestManager extends CuratorAsyncManager {
         .collect(Collectors.toList());
     }
 
+    if (webCache.useMirroredRequests()) {
+      return webCache
+        .getRequests()
+        .stream()
+        .filter(r -> requestIds.contains(r.getRequest().getId()))
+        .collect(Collectors.toList());
+    }
+
     if (useWebCache) {
       if (webCache.useCachedRequests()) {
         return webCache
@@ -629,7 +637,7 @@ public class RequestManager extends CuratorAsyncManager {
       return leaderCache.getRequests();
     }
 
-    if (useWebCache && webCache.useCachedRequests()) {
+    if (webCache.useMirroredRequests() || (useWebCache && webCache.useCachedRequests())) {
       return webCache.getRequests();
     }
     List<SingularityRequestWithState> requests = fetchRequests();
@@ -664,7 +672,7 @@ public class RequestManager extends CuratorAsyncManager {
       return leaderCache.getRequest(requestId);
     }
 
-    if (useWebCache && webCache.useCachedRequests()) {
+    if (webCache.useMirroredRequests() || (useWebCache && webCache.useCachedRequests())) {
       return webCache.getRequest(requestId);
     }
 
@@ -25,6 +25,7 @@ public class SingularityDataModule extends AbstractModule {
     bind(MetadataManager.class).in(Scopes.SINGLETON);
     bind(StateManager.class).in(Scopes.SINGLETON);
     bind(TaskManager.class).in(Scopes.SINGLETON);
+    bind(ZkWriteBatcher.class).in(Scopes.SINGLETON);
     bind(DeployManager.class).in(Scopes.SINGLETON);
     bind(RackManager.class).in(Scopes.SINGLETON);
     bind(RequestManager.class).in(Scopes.SINGLETON);
@@ -42,6 +43,7 @@ public class SingularityDataModule extends AbstractModule {
     bind(NotificationsManager.class).in(Scopes.SINGLETON);
 
     bind(SingularityWebCache.class).in(Scopes.SINGLETON);
+    bind(SingularityWebCacheWatcher.class).in(Scopes.SINGLETON);
 
     bind(ExecutorIdGenerator.class).asEagerSingleton();
     bind(WebhookManager.class).in(Scopes.SINGLETON);
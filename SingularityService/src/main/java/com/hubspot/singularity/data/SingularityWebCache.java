@@ -1,213 +1,430 @@
 package com.hubspot.singularity.data;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import com.hubspot.singularity.RequestUtilization;
+import com.hubspot.singularity.SingularityDeployKey;
+import com.hubspot.singularity.SingularityDeployMarker;
+import com.hubspot.singularity.SingularityPendingDeploy;
 import com.hubspot.singularity.SingularityPendingTask;
 import com.hubspot.singularity.SingularityPendingTaskId;
+import com.hubspot.singularity.SingularityRequestDeployState;
 import com.hubspot.singularity.SingularityRequestGroup;
 import com.hubspot.singularity.SingularityRequestWithState;
 import com.hubspot.singularity.SingularityTask;
 import com.hubspot.singularity.SingularityTaskCleanup;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
 import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+
+/**
+ * Collections served to API readers when useWebCache is set. A collection that is watched
+ * by the SingularityWebCacheWatcher is kept up to date entity by entity and never expires
+ * while the watch is live. Otherwise it is a snapshot that is reloaded after cacheForMillis.
+ *
+ * On instances that are not the leader, watched requests, deploys, active tasks and task
+ * history updates are also used for reads that did not ask for the web cache, as long as the last
+ * leader heartbeat seen through the watches is at most followerReadsMaxStalenessMillis old.
+ * Staleness is measured against the leader's clock, so it includes any clock skew.
+ */
 @Singleton
 public class SingularityWebCache {
-  private volatile Map<SingularityPendingTaskId, SingularityPendingTask> cachedPendingTasks;
-  private volatile long lastPendingTaskCache;
-
-  private volatile List<SingularityTaskCleanup> cachedTaskCleanup;
-  private volatile long lastTaskCleanupCache;
-
-  private volatile Map<SingularityTaskId, SingularityTask> cachedActiveTasks;
-  private volatile long lastActiveTaskCache;
-
-  private volatile Map<String, SingularityRequestWithState> cachedRequests;
-  private volatile long lastRequestsCache;
-
-  private volatile List<SingularityRequestGroup> cachedRequestGroups;
-  private volatile long lastRequestGroupsCache;
-
-  private volatile Map<String, RequestUtilization> cachedRequestUtilizations;
-  private volatile long lastRequestUtilizationCache;
-
+  private final CachedCollection<SingularityPendingTaskId, SingularityPendingTask> pendingTasks;
+  private final CachedCollection<SingularityTaskId, SingularityTaskCleanup> cleanupTasks;
+  private final CachedCollection<SingularityTaskId, SingularityTask> activeTasks;
+  private final CachedCollection<String, SingularityRequestWithState> requests;
+  private final CachedCollection<String, SingularityRequestGroup> requestGroups;
+  private final CachedCollection<String, RequestUtilization> requestUtilizations;
+  private final CachedCollection<SingularityTaskId, List<SingularityTaskHistoryUpdate>> taskHistoryUpdates;
+  private final CachedCollection<String, SingularityRequestDeployState> requestDeployStates;
+  private final CachedCollection<String, SingularityPendingDeploy> pendingDeploys;
+  private final CachedCollection<SingularityDeployKey, SingularityDeployMarker> deployMarkers;
+
+  private final AtomicLong generation;
   private final long cacheForMillis;
 
-  private final Meter cleanupHitMeter;
-  private final Meter cleanupMissMeter;
-
-  private final Meter pendingHitMeter;
-  private final Meter pendingMissMeter;
-
-  private final Meter activeHitMeter;
-  private final Meter activeMissMeter;
-
-  private final Meter requestsHitMeter;
-  private final Meter requestsMissMeter;
-
-  private final Meter requestGroupsHitMeter;
-  private final Meter requestGroupsMissMeter;
-
-  private final Meter requestUtilizationHitMeter;
-  private final Meter requestUtilizationMissMeter;
+  private final Provider<LeaderLatch> leaderLatch;
+  private final long followerReadsMaxStalenessMillis;
+  private final Histogram leaderHeartbeatLagHistogram;
+  private volatile long lastLeaderHeartbeat;
 
   @Inject
   public SingularityWebCache(
     SingularityConfiguration configuration,
-    MetricRegistry metrics
+    MetricRegistry metrics,
+    Provider<LeaderLatch> leaderLatch
   ) {
     this.cacheForMillis = configuration.getCacheForWebForMillis();
+    this.generation = new AtomicLong();
+    this.leaderLatch = leaderLatch;
+    this.followerReadsMaxStalenessMillis =
+      configuration.getFollowerReadsMaxStalenessMillis();
+
+    this.cleanupTasks = new CachedCollection<>(metrics, "cleanup");
+    this.pendingTasks = new CachedCollection<>(metrics, "pending");
+    this.activeTasks = new CachedCollection<>(metrics, "active");
+    this.requests = new CachedCollection<>(metrics, "requests");
+    this.requestGroups = new CachedCollection<>(metrics, "groups");
+    this.requestUtilizations = new CachedCollection<>(metrics, "utilization");
+    this.taskHistoryUpdates = new CachedCollection<>(metrics, "updates");
+    this.requestDeployStates = new CachedCollection<>(metrics, "deploys.states");
+    this.pendingDeploys = new CachedCollection<>(metrics, "deploys.pending");
+    this.deployMarkers = new CachedCollection<>(metrics, "deploys.markers");
+
+    this.leaderHeartbeatLagHistogram =
+      metrics.histogram("zk.web.caches.leader.heartbeat.lag");
+    metrics.register("zk.web.caches.generation", (Gauge<Long>) generation::get);
+    metrics.register("zk.web.caches.staleness", (Gauge<Long>) this::getStalenessMillis);
+  }
 
-    this.cleanupHitMeter = metrics.meter("zk.web.caches.cleanup.hits");
-    this.cleanupMissMeter = metrics.meter("zk.web.caches.cleanup.miss");
+  /**
+   * Increases every time any cached collection changes, so callers can tell whether the
+   * data they have seen from this instance is still current.
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * @return how long ago the leader wrote the newest heartbeat seen through the watches,
+   *         or -1 if none has been seen
+   */
+  public long getStalenessMillis() {
+    long heartbeat = lastLeaderHeartbeat;
+    return heartbeat == 0 ? -1 : Math.max(0, System.currentTimeMillis() - heartbeat);
+  }
 
-    this.pendingHitMeter = metrics.meter("zk.web.caches.pending.hits");
-    this.pendingMissMeter = metrics.meter("zk.web.caches.pending.miss");
+  public boolean useMirroredRequests() {
+    return useForFollowerReads(requests);
+  }
 
-    this.activeHitMeter = metrics.meter("zk.web.caches.active.hits");
-    this.activeMissMeter = metrics.meter("zk.web.caches.active.miss");
+  public boolean useMirroredActiveTasks() {
+    return useForFollowerReads(activeTasks);
+  }
 
-    this.requestsHitMeter = metrics.meter("zk.web.caches.requests.hits");
-    this.requestsMissMeter = metrics.meter("zk.web.caches.requests.miss");
+  public boolean useMirroredTaskHistoryUpdates() {
+    return useForFollowerReads(taskHistoryUpdates);
+  }
 
-    this.requestGroupsHitMeter = metrics.meter("zk.web.caches.requests.hits");
-    this.requestGroupsMissMeter = metrics.meter("zk.web.caches.requests.miss");
+  public boolean useMirroredDeploys() {
+    return (
+      useForFollowerReads(requestDeployStates) &&
+      useForFollowerReads(pendingDeploys) &&
+      useForFollowerReads(deployMarkers)
+    );
+  }
 
-    this.requestUtilizationHitMeter = metrics.meter("zk.web.caches.utilization.hits");
-    this.requestUtilizationMissMeter = metrics.meter("zk.web.caches.utilization.miss");
+  private boolean useForFollowerReads(CachedCollection<?, ?> collection) {
+    if (followerReadsMaxStalenessMillis <= 0 || !collection.watchLive) {
+      return false;
+    }
+    long staleness = getStalenessMillis();
+    return (
+      staleness >= 0 &&
+      staleness <= followerReadsMaxStalenessMillis &&
+      !leaderLatch.get().hasLeadership()
+    );
+  }
+
+  void recordLeaderHeartbeat(long heartbeatAt) {
+    lastLeaderHeartbeat = heartbeatAt;
+    leaderHeartbeatLagHistogram.update(
+      Math.max(0, System.currentTimeMillis() - heartbeatAt)
+    );
   }
 
   public boolean useCachedPendingTasks() {
-    return useCache(lastPendingTaskCache);
+    return pendingTasks.isUsable();
   }
 
   public boolean useCachedCleanupTasks() {
-    return useCache(lastTaskCleanupCache);
+    return cleanupTasks.isUsable();
   }
 
   public boolean useCachedActiveTasks() {
-    return useCache(lastActiveTaskCache);
+    return activeTasks.isUsable();
   }
 
   public boolean useCachedRequests() {
-    return useCache(lastRequestsCache);
+    return requests.isUsable();
   }
 
   public boolean useCachedRequestGroups() {
-    return useCache(lastRequestGroupsCache);
+    return requestGroups.isUsable();
   }
 
   public boolean useCachedRequestUtilizations() {
-    return useCache(lastRequestUtilizationCache);
-  }
-
-  private boolean useCache(long lastCache) {
-    return lastCache >= 0 && (System.currentTimeMillis() - lastCache) < cacheForMillis;
+    return requestUtilizations.isUsable();
   }
 
   public List<SingularityPendingTask> getPendingTasks() {
-    pendingHitMeter.mark();
-    return new ArrayList<>(cachedPendingTasks.values());
+    return new ArrayList<>(pendingTasks.get().values());
   }
 
   public List<SingularityPendingTaskId> getPendingTaskIds() {
-    pendingHitMeter.mark();
-    return new ArrayList<>(cachedPendingTasks.keySet());
+    return new ArrayList<>(pendingTasks.get().keySet());
   }
 
   public List<SingularityTaskCleanup> getCleanupTasks() {
-    cleanupHitMeter.mark();
-    return new ArrayList<>(cachedTaskCleanup);
+    return new ArrayList<>(cleanupTasks.get().values());
   }
 
   public List<SingularityTaskId> getActiveTaskIds() {
-    activeHitMeter.mark();
-    return new ArrayList<>(cachedActiveTasks.keySet());
+    return new ArrayList<>(activeTasks.get().keySet());
   }
 
   public List<SingularityTask> getActiveTasks() {
-    activeHitMeter.mark();
-    return new ArrayList<>(cachedActiveTasks.values());
+    return new ArrayList<>(activeTasks.get().values());
   }
 
   public List<SingularityRequestWithState> getRequests() {
-    requestsHitMeter.mark();
-    return new ArrayList<>(cachedRequests.values());
+    return new ArrayList<>(requests.get().values());
   }
 
   public Map<String, RequestUtilization> getRequestUtilizations() {
-    requestUtilizationHitMeter.mark();
-    return new HashMap<>(cachedRequestUtilizations);
+    return new HashMap<>(requestUtilizations.get());
   }
 
   public Optional<SingularityRequestWithState> getRequest(String requestId) {
-    return Optional.ofNullable(cachedRequests.get(requestId));
+    return Optional.ofNullable(requests.get().get(requestId));
   }
 
   public List<SingularityRequestGroup> getRequestGroups() {
-    requestGroupsHitMeter.mark();
-    return new ArrayList<>(cachedRequestGroups);
+    return new ArrayList<>(requestGroups.get().values());
   }
 
-  public void cacheTaskCleanup(List<SingularityTaskCleanup> newTaskCleanup) {
-    cleanupMissMeter.mark();
-    cachedTaskCleanup = new ArrayList<>(newTaskCleanup);
-    lastTaskCleanupCache = System.currentTimeMillis();
+  public List<SingularityTaskHistoryUpdate> getTaskHistoryUpdates(
+    SingularityTaskId taskId
+  ) {
+    return new ArrayList<>(
+      taskHistoryUpdates.get().getOrDefault(taskId, Collections.emptyList())
+    );
   }
 
-  public void cachePendingTasks(List<SingularityPendingTask> pendingTasks) {
-    pendingMissMeter.mark();
-    Map<SingularityPendingTaskId, SingularityPendingTask> newPendingTasks = new HashMap<>(
-      pendingTasks.size()
+  public Map<SingularityTaskId, List<SingularityTaskHistoryUpdate>> getTaskHistoryUpdates(
+    Collection<SingularityTaskId> taskIds
+  ) {
+    Map<SingularityTaskId, List<SingularityTaskHistoryUpdate>> updates = taskHistoryUpdates.get();
+    Map<SingularityTaskId, List<SingularityTaskHistoryUpdate>> result = new HashMap<>(
+      taskIds.size()
     );
-    for (SingularityPendingTask pendingTask : pendingTasks) {
-      newPendingTasks.put(pendingTask.getPendingTaskId(), pendingTask);
+    for (SingularityTaskId taskId : taskIds) {
+      List<SingularityTaskHistoryUpdate> updatesForTask = updates.get(taskId);
+      if (updatesForTask != null) {
+        result.put(taskId, new ArrayList<>(updatesForTask));
+      }
     }
-    cachedPendingTasks = newPendingTasks;
-    lastPendingTaskCache = System.currentTimeMillis();
+    return result;
   }
 
-  public void cacheActiveTasks(List<SingularityTask> activeTasks) {
-    activeMissMeter.mark();
-    Map<SingularityTaskId, SingularityTask> newActiveTasks = new HashMap<>(
-      activeTasks.size()
-    );
-    for (SingularityTask activeTask : activeTasks) {
-      newActiveTasks.put(activeTask.getTaskId(), activeTask);
-    }
-    cachedActiveTasks = newActiveTasks;
-    lastActiveTaskCache = System.currentTimeMillis();
+  public Optional<SingularityRequestDeployState> getRequestDeployState(String requestId) {
+    return Optional.ofNullable(requestDeployStates.get().get(requestId));
   }
 
-  public void cacheRequests(List<SingularityRequestWithState> requests) {
-    requestsMissMeter.mark();
-    Map<String, SingularityRequestWithState> newRequests = new HashMap<>(requests.size());
-    for (SingularityRequestWithState request : requests) {
-      newRequests.put(request.getRequest().getId(), request);
+  public Map<String, SingularityRequestDeployState> getRequestDeployStates() {
+    return new HashMap<>(requestDeployStates.get());
+  }
+
+  public Map<String, SingularityRequestDeployState> getRequestDeployStates(
+    Collection<String> requestIds
+  ) {
+    Map<String, SingularityRequestDeployState> deployStates = requestDeployStates.get();
+    Map<String, SingularityRequestDeployState> result = new HashMap<>(requestIds.size());
+    for (String requestId : requestIds) {
+      SingularityRequestDeployState deployState = deployStates.get(requestId);
+      if (deployState != null) {
+        result.put(requestId, deployState);
+      }
     }
-    cachedRequests = newRequests;
-    lastRequestsCache = System.currentTimeMillis();
+    return result;
+  }
+
+  public List<SingularityPendingDeploy> getPendingDeploys() {
+    return new ArrayList<>(pendingDeploys.get().values());
+  }
+
+  public Optional<SingularityPendingDeploy> getPendingDeploy(String requestId) {
+    return Optional.ofNullable(pendingDeploys.get().get(requestId));
+  }
+
+  public Optional<SingularityDeployMarker> getDeployMarker(
+    String requestId,
+    String deployId
+  ) {
+    return Optional.ofNullable(
+      deployMarkers.get().get(new SingularityDeployKey(requestId, deployId))
+    );
+  }
+
+  public void cacheTaskCleanup(List<SingularityTaskCleanup> newTaskCleanup) {
+    cleanupTasks.cache(newTaskCleanup, SingularityTaskCleanup::getTaskId);
+  }
+
+  public void cachePendingTasks(List<SingularityPendingTask> newPendingTasks) {
+    pendingTasks.cache(newPendingTasks, SingularityPendingTask::getPendingTaskId);
+  }
+
+  public void cacheActiveTasks(List<SingularityTask> newActiveTasks) {
+    activeTasks.cache(newActiveTasks, SingularityTask::getTaskId);
   }
 
-  public void cacheRequestGroups(List<SingularityRequestGroup> requestGroups) {
-    requestGroupsMissMeter.mark();
-    cachedRequestGroups = new ArrayList<>(requestGroups);
-    lastRequestGroupsCache = System.currentTimeMillis();
+  public void cacheRequests(List<SingularityRequestWithState> newRequests) {
+    requests.cache(newRequests, r -> r.getRequest().getId());
+  }
+
+  public void cacheRequestGroups(List<SingularityRequestGroup> newRequestGroups) {
+    requestGroups.cache(newRequestGroups, SingularityRequestGroup::getId);
   }
 
   public void cacheRequestUtilizations(
-    Map<String, RequestUtilization> requestUtilizations
+    Map<String, RequestUtilization> newRequestUtilizations
   ) {
-    requestUtilizationMissMeter.mark();
-    cachedRequestUtilizations = new HashMap<>(requestUtilizations);
-    lastRequestUtilizationCache = System.currentTimeMillis();
+    requestUtilizations.cache(newRequestUtilizations);
+  }
+
+  CachedCollection<SingularityPendingTaskId, SingularityPendingTask> pendingTasks() {
+    return pendingTasks;
+  }
+
+  CachedCollection<SingularityTaskId, SingularityTaskCleanup> cleanupTasks() {
+    return cleanupTasks;
+  }
+
+  CachedCollection<SingularityTaskId, SingularityTask> activeTasks() {
+    return activeTasks;
+  }
+
+  CachedCollection<String, SingularityRequestWithState> requests() {
+    return requests;
+  }
+
+  CachedCollection<String, SingularityRequestGroup> requestGroups() {
+    return requestGroups;
+  }
+
+  CachedCollection<SingularityTaskId, List<SingularityTaskHistoryUpdate>> taskHistoryUpdates() {
+    return taskHistoryUpdates;
+  }
+
+  CachedCollection<String, SingularityRequestDeployState> requestDeployStates() {
+    return requestDeployStates;
+  }
+
+  CachedCollection<String, SingularityPendingDeploy> pendingDeploys() {
+    return pendingDeploys;
+  }
+
+  CachedCollection<SingularityDeployKey, SingularityDeployMarker> deployMarkers() {
+    return deployMarkers;
+  }
+
+  class CachedCollection<K, V> {
+    private final Meter hitMeter;
+    private final Meter missMeter;
+    private final Meter watchUpdateMeter;
+
+    private volatile Map<K, V> snapshot;
+    private volatile long lastSnapshot;
+
+    private volatile Map<K, V> watched;
+    private volatile boolean watchLive;
+
+    CachedCollection(MetricRegistry metrics, String name) {
+      this.hitMeter = metrics.meter(String.format("zk.web.caches.%s.hits", name));
+      this.missMeter = metrics.meter(String.format("zk.web.caches.%s.miss", name));
+      this.watchUpdateMeter =
+        metrics.meter(String.format("zk.web.caches.%s.watch.updates", name));
+      this.snapshot = Collections.emptyMap();
+    }
+
+    boolean isUsable() {
+      return (
+        watchLive ||
+        (
+          lastSnapshot >= 0 &&
+          (System.currentTimeMillis() - lastSnapshot) < cacheForMillis
+        )
+      );
+    }
+
+    Map<K, V> get() {
+      hitMeter.mark();
+      return watchLive ? watched : snapshot;
+    }
+
+    void cache(List<V> values, Function<V, K> keyFunction) {
+      Map<K, V> newSnapshot = new HashMap<>(values.size());
+      for (V value : values) {
+        newSnapshot.put(keyFunction.apply(value), value);
+      }
+      cache(newSnapshot);
+    }
+
+    void cache(Map<K, V> values) {
+      missMeter.mark();
+      snapshot = new HashMap<>(values);
+      lastSnapshot = System.currentTimeMillis();
+      generation.incrementAndGet();
+    }
+
+    /**
+     * Starts collecting watched entities from scratch. Readers keep using snapshots until
+     * the initial load is finished and {@link #setWatchLive(boolean)} is called.
+     */
+    void startWatching() {
+      watchLive = false;
+      watched = new ConcurrentHashMap<>();
+    }
+
+    void setWatchLive(boolean live) {
+      if (watched != null && watchLive != live) {
+        watchLive = live;
+        generation.incrementAndGet();
+      }
+    }
+
+    boolean containsWatched(K key) {
+      return watched.containsKey(key);
+    }
+
+    void put(K key, V value) {
+      watchUpdateMeter.mark();
+      watched.put(key, value);
+      generation.incrementAndGet();
+    }
+
+    /**
+     * Replaces the value for key with the result of remapping, or removes it if that
+     * returns null.
+     */
+    void compute(K key, BiFunction<K, V, V> remapping) {
+      watchUpdateMeter.mark();
+      watched.compute(key, remapping);
+      generation.incrementAndGet();
+    }
+
+    void remove(K key) {
+      watchUpdateMeter.mark();
+      if (watched.remove(key) != null) {
+        generation.incrementAndGet();
+      }
+    }
   }
 }
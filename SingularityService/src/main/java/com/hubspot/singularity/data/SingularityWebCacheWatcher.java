@@ -0,0 +1,641 @@
+package com.hubspot.singularity.data;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.hubspot.singularity.ExtendedTaskState;
+import com.hubspot.singularity.SingularityDeployKey;
+import com.hubspot.singularity.SingularityDeployMarker;
+import com.hubspot.singularity.SingularityManagedThreadPoolFactory;
+import com.hubspot.singularity.SingularityPendingDeploy;
+import com.hubspot.singularity.SingularityPendingTask;
+import com.hubspot.singularity.SingularityPendingTaskId;
+import com.hubspot.singularity.SingularityRequestDeployState;
+import com.hubspot.singularity.SingularityRequestGroup;
+import com.hubspot.singularity.SingularityRequestWithState;
+import com.hubspot.singularity.SingularityTaskCleanup;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.SingularityWebCache.CachedCollection;
+import com.hubspot.singularity.data.transcoders.Transcoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.DefaultTreeCacheSelector;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheSelector;
+import org.apache.curator.framework.recipes.leader.LeaderLatchListener;
+import org.apache.curator.utils.ZKPaths;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the watched collections of the SingularityWebCache up to date from ZooKeeper,
+ * one entity at a time, so API readers on any instance see changes as soon as they are
+ * written instead of after the next time based reload. Of the deploy tree, request deploy
+ * states, pending deploys and deploy markers are mirrored, the deploys themselves are
+ * already held by the deploy ZkCache. The leader heartbeat is watched
+ * along with them so followers know how current their copy is. Task history updates are
+ * only mirrored while this instance is a follower, the leader reads them from zk. Active
+ * tasks are loaded from zk one at a time as they appear, so their watch has its own thread
+ * and a large initial load can't hold up the heartbeat and the other watches.
+ */
+@Singleton
+public class SingularityWebCacheWatcher implements LeaderLatchListener {
+  private static final Logger LOG = LoggerFactory.getLogger(
+    SingularityWebCacheWatcher.class
+  );
+
+  private static final TreeCacheSelector ALL_NODES = new DefaultTreeCacheSelector();
+
+  private final CuratorFramework curator;
+  private final SingularityWebCache webCache;
+  private final TaskManager taskManager;
+  private final Transcoder<SingularityRequestWithState> requestTranscoder;
+  private final Transcoder<SingularityPendingTask> pendingTaskTranscoder;
+  private final Transcoder<SingularityTaskCleanup> taskCleanupTranscoder;
+  private final Transcoder<SingularityRequestGroup> requestGroupTranscoder;
+  private final Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder;
+  private final Transcoder<SingularityRequestDeployState> requestDeployStateTranscoder;
+  private final Transcoder<SingularityPendingDeploy> pendingDeployTranscoder;
+  private final Transcoder<SingularityDeployMarker> deployMarkerTranscoder;
+  private final ExecutorService watchExecutor;
+  private final ExecutorService activeTaskWatchExecutor;
+  private final boolean enabled;
+
+  private final List<Watch> watches;
+  private final AtomicBoolean started;
+
+  private Optional<Watch> taskHistoryWatch;
+  private boolean leader;
+
+  @Inject
+  public SingularityWebCacheWatcher(
+    CuratorFramework curator,
+    SingularityConfiguration configuration,
+    SingularityWebCache webCache,
+    TaskManager taskManager,
+    Transcoder<SingularityRequestWithState> requestTranscoder,
+    Transcoder<SingularityPendingTask> pendingTaskTranscoder,
+    Transcoder<SingularityTaskCleanup> taskCleanupTranscoder,
+    Transcoder<SingularityRequestGroup> requestGroupTranscoder,
+    Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder,
+    Transcoder<SingularityRequestDeployState> requestDeployStateTranscoder,
+    Transcoder<SingularityPendingDeploy> pendingDeployTranscoder,
+    Transcoder<SingularityDeployMarker> deployMarkerTranscoder,
+    SingularityManagedThreadPoolFactory threadPoolFactory
+  ) {
+    this.curator = curator;
+    this.webCache = webCache;
+    this.taskManager = taskManager;
+    this.requestTranscoder = requestTranscoder;
+    this.pendingTaskTranscoder = pendingTaskTranscoder;
+    this.taskCleanupTranscoder = taskCleanupTranscoder;
+    this.requestGroupTranscoder = requestGroupTranscoder;
+    this.taskHistoryUpdateTranscoder = taskHistoryUpdateTranscoder;
+    this.requestDeployStateTranscoder = requestDeployStateTranscoder;
+    this.pendingDeployTranscoder = pendingDeployTranscoder;
+    this.deployMarkerTranscoder = deployMarkerTranscoder;
+    this.watchExecutor = threadPoolFactory.get("web-cache-watcher", 1);
+    this.activeTaskWatchExecutor =
+      threadPoolFactory.get("web-cache-active-task-watcher", 1);
+    this.enabled = configuration.isWatchZkForWebCache();
+    this.watches = new ArrayList<>();
+    this.started = new AtomicBoolean(false);
+    this.taskHistoryWatch = Optional.empty();
+  }
+
+  public synchronized void start() throws Exception {
+    if (!enabled || started.getAndSet(true)) {
+      return;
+    }
+
+    watchEntities(
+      RequestManager.NORMAL_PATH_ROOT,
+      1,
+      webCache.requests(),
+      Function.identity(),
+      data -> Optional.of(requestTranscoder.fromBytes(data.getData())),
+      true
+    );
+    watchEntities(
+      TaskManager.PENDING_PATH_ROOT,
+      2,
+      webCache.pendingTasks(),
+      SingularityPendingTaskId::valueOf,
+      data -> Optional.of(pendingTaskTranscoder.fromBytes(data.getData())),
+      true
+    );
+    watchEntities(
+      TaskManager.CLEANUP_PATH_ROOT,
+      1,
+      webCache.cleanupTasks(),
+      SingularityTaskId::valueOf,
+      data -> Optional.of(taskCleanupTranscoder.fromBytes(data.getData())),
+      true
+    );
+    watchEntities(
+      RequestGroupManager.REQUEST_GROUP_ROOT,
+      1,
+      webCache.requestGroups(),
+      Function.identity(),
+      data -> Optional.of(requestGroupTranscoder.fromBytes(data.getData())),
+      true
+    );
+    watchDeploys();
+    // Status nodes only mark a task as active, the task itself is loaded once when it appears
+    watchEntities(
+      TaskManager.LAST_ACTIVE_TASK_STATUSES_PATH_ROOT,
+      2,
+      ALL_NODES,
+      webCache.activeTasks(),
+      path -> SingularityTaskId.valueOf(ZKPaths.getNodeFromPath(path)),
+      data ->
+        taskManager.getTask(
+          SingularityTaskId.valueOf(ZKPaths.getNodeFromPath(data.getPath()))
+        ),
+      false,
+      activeTaskWatchExecutor
+    );
+    taskHistoryWatch = Optional.of(watchTaskHistoryUpdates());
+    watches.add(taskHistoryWatch.get());
+    if (!leader) {
+      taskHistoryWatch.get().open();
+    }
+
+    watch(
+      MetadataManager.LEADER_HEARTBEAT_PATH,
+      0,
+      ALL_NODES,
+      watchExecutor,
+      () -> {},
+      live -> {},
+      (type, data) -> {
+        if (
+          type != TreeCacheEvent.Type.NODE_REMOVED &&
+          data.getData() != null &&
+          data.getData().length > 0
+        ) {
+          webCache.recordLeaderHeartbeat(
+            Long.parseLong(new String(data.getData(), UTF_8))
+          );
+        }
+      }
+    );
+  }
+
+  public synchronized void stop() {
+    if (!started.getAndSet(false)) {
+      return;
+    }
+    watches.forEach(Watch::close);
+  }
+
+  @Override
+  public synchronized void isLeader() {
+    leader = true;
+    taskHistoryWatch.ifPresent(Watch::close);
+  }
+
+  @Override
+  public synchronized void notLeader() {
+    leader = false;
+    if (started.get() && taskHistoryWatch.isPresent()) {
+      try {
+        taskHistoryWatch.get().open();
+      } catch (Exception e) {
+        LOG.warn("Could not watch task history updates for web cache", e);
+      }
+    }
+  }
+
+  /**
+   * Request deploy states live at /deploys/requests/{requestId}/STATE and deploy markers at
+   * /deploys/requests/{requestId}/ids/{deployKey}/MARKER, so only those branches of each
+   * request are traversed. Pending deploys are the children of /deploys/pending.
+   */
+  private void watchDeploys() throws Exception {
+    String root = DeployManager.BY_REQUEST_ROOT;
+    String idsNode = ZKPaths.getNodeFromPath(DeployManager.DEPLOY_LIST_KEY);
+
+    watchEntities(
+      root,
+      2,
+      new TreeCacheSelector() {
+
+        @Override
+        public boolean traverseChildren(String fullPath) {
+          return depth(root, fullPath) <= 1;
+        }
+
+        @Override
+        public boolean acceptChild(String fullPath) {
+          return (
+            depth(root, fullPath) != 2 ||
+            ZKPaths
+              .getNodeFromPath(fullPath)
+              .equals(DeployManager.REQUEST_DEPLOY_STATE_KEY)
+          );
+        }
+      },
+      webCache.requestDeployStates(),
+      path -> parentNode(path, 1),
+      data -> Optional.of(requestDeployStateTranscoder.fromBytes(data.getData())),
+      true,
+      watchExecutor
+    );
+    watchEntities(
+      root,
+      4,
+      new TreeCacheSelector() {
+
+        @Override
+        public boolean traverseChildren(String fullPath) {
+          int depth = depth(root, fullPath);
+          return (
+            depth <= 1 ||
+            depth == 3 ||
+            (depth == 2 && ZKPaths.getNodeFromPath(fullPath).equals(idsNode))
+          );
+        }
+
+        @Override
+        public boolean acceptChild(String fullPath) {
+          int depth = depth(root, fullPath);
+          String node = ZKPaths.getNodeFromPath(fullPath);
+          return (
+            (depth != 2 || node.equals(idsNode)) &&
+            (depth != 4 || node.equals(DeployManager.DEPLOY_MARKER_KEY))
+          );
+        }
+      },
+      webCache.deployMarkers(),
+      path -> SingularityDeployKey.valueOf(parentNode(path, 1)),
+      data -> Optional.of(deployMarkerTranscoder.fromBytes(data.getData())),
+      true,
+      watchExecutor
+    );
+    watchEntities(
+      DeployManager.PENDING_ROOT,
+      1,
+      webCache.pendingDeploys(),
+      Function.identity(),
+      data -> Optional.of(pendingDeployTranscoder.fromBytes(data.getData())),
+      true
+    );
+  }
+
+  private <K, V> void watchEntities(
+    String root,
+    int depth,
+    CachedCollection<K, V> collection,
+    Function<String, K> keyFunction,
+    Function<ChildData, Optional<V>> valueFunction,
+    boolean reloadOnUpdate
+  )
+    throws Exception {
+    watchEntities(
+      root,
+      depth,
+      ALL_NODES,
+      collection,
+      path -> keyFunction.apply(ZKPaths.getNodeFromPath(path)),
+      valueFunction,
+      reloadOnUpdate,
+      watchExecutor
+    );
+  }
+
+  /**
+   * @param keyFunction maps the full path of a node at the given depth to its entity's key
+   * @param executor runs the watch's events, in the order they happened
+   */
+  private <K, V> void watchEntities(
+    String root,
+    int depth,
+    TreeCacheSelector selector,
+    CachedCollection<K, V> collection,
+    Function<String, K> keyFunction,
+    Function<ChildData, Optional<V>> valueFunction,
+    boolean reloadOnUpdate,
+    ExecutorService executor
+  )
+    throws Exception {
+    watch(
+      root,
+      depth,
+      selector,
+      executor,
+      collection::startWatching,
+      collection::setWatchLive,
+      (type, data) -> {
+        if (depth(root, data.getPath()) != depth) {
+          return;
+        }
+
+        K key;
+        try {
+          key = keyFunction.apply(data.getPath());
+        } catch (Exception e) {
+          LOG.warn("Ignoring unexpected node {} in web cache watch", data.getPath());
+          return;
+        }
+
+        if (type == TreeCacheEvent.Type.NODE_REMOVED) {
+          collection.remove(key);
+          return;
+        }
+        if (
+          type == TreeCacheEvent.Type.NODE_UPDATED &&
+          !reloadOnUpdate &&
+          collection.containsWatched(key)
+        ) {
+          return;
+        }
+
+        try {
+          Optional<V> value = valueFunction.apply(data);
+          if (value.isPresent()) {
+            collection.put(key, value.get());
+          } else {
+            collection.remove(key);
+          }
+        } catch (Exception e) {
+          LOG.warn("Could not load {} for web cache, dropping it", data.getPath(), e);
+          collection.remove(key);
+        }
+      }
+    );
+  }
+
+  /**
+   * Updates live under /tasks/history/{requestId}/{taskId}/updates/{state}. Only the updates
+   * nodes are traversed, not the healthchecks, metadata or other children of a task.
+   */
+  private Watch watchTaskHistoryUpdates() {
+    String root = TaskManager.HISTORY_PATH_ROOT;
+    String updatesNode = ZKPaths.getNodeFromPath(TaskManager.UPDATES_PATH);
+    CachedCollection<SingularityTaskId, List<SingularityTaskHistoryUpdate>> collection = webCache.taskHistoryUpdates();
+
+    TreeCacheSelector updatesOnly = new TreeCacheSelector() {
+
+      @Override
+      public boolean traverseChildren(String fullPath) {
+        int depth = depth(root, fullPath);
+        return depth <= 2 || (depth == 3 && fullPath.endsWith(TaskManager.UPDATES_PATH));
+      }
+
+      @Override
+      public boolean acceptChild(String fullPath) {
+        return (
+          depth(root, fullPath) != 3 ||
+          ZKPaths.getNodeFromPath(fullPath).equals(updatesNode)
+        );
+      }
+    };
+
+    return new Watch(
+      root,
+      4,
+      updatesOnly,
+      watchExecutor,
+      collection::startWatching,
+      collection::setWatchLive,
+      (type, data) -> {
+        List<String> parts = ZKPaths.split(data.getPath());
+        if (depth(root, data.getPath()) != 4) {
+          return;
+        }
+
+        SingularityTaskId taskId;
+        ExtendedTaskState state;
+        try {
+          taskId = SingularityTaskId.valueOf(parts.get(parts.size() - 3));
+          state = ExtendedTaskState.valueOf(parts.get(parts.size() - 1));
+        } catch (Exception e) {
+          LOG.warn("Ignoring unexpected node {} in web cache watch", data.getPath());
+          return;
+        }
+
+        Optional<SingularityTaskHistoryUpdate> update = Optional.empty();
+        if (type != TreeCacheEvent.Type.NODE_REMOVED) {
+          try {
+            update = Optional.of(taskHistoryUpdateTranscoder.fromBytes(data.getData()));
+          } catch (Exception e) {
+            LOG.warn("Could not load {} for web cache, dropping it", data.getPath(), e);
+          }
+        }
+
+        Optional<SingularityTaskHistoryUpdate> newUpdate = update;
+        collection.compute(
+          taskId,
+          (id, existing) -> {
+            List<SingularityTaskHistoryUpdate> updates = existing == null
+              ? new ArrayList<>()
+              : existing
+                .stream()
+                .filter(u -> u.getTaskState() != state)
+                .collect(Collectors.toCollection(ArrayList::new));
+            newUpdate.ifPresent(updates::add);
+            if (updates.isEmpty()) {
+              return null;
+            }
+            Collections.sort(updates);
+            return Collections.unmodifiableList(updates);
+          }
+        );
+      }
+    );
+  }
+
+  private void watch(
+    String root,
+    int depth,
+    TreeCacheSelector selector,
+    ExecutorService executor,
+    Runnable reset,
+    Consumer<Boolean> setLive,
+    NodeHandler handler
+  )
+    throws Exception {
+    Watch watch = new Watch(root, depth, selector, executor, reset, setLive, handler);
+    watches.add(watch);
+    watch.open();
+  }
+
+  /**
+   * A TreeCache over one root that can be closed and opened again. Reopening resets the
+   * watched entities, which are only live again once the new cache has loaded.
+   */
+  private class Watch {
+    private final String root;
+    private final int depth;
+    private final TreeCacheSelector selector;
+    private final ExecutorService executor;
+    private final Runnable reset;
+    private final Consumer<Boolean> setLive;
+    private final NodeHandler handler;
+
+    private TreeCache treeCache;
+
+    private Watch(
+      String root,
+      int depth,
+      TreeCacheSelector selector,
+      ExecutorService executor,
+      Runnable reset,
+      Consumer<Boolean> setLive,
+      NodeHandler handler
+    ) {
+      this.root = root;
+      this.depth = depth;
+      this.selector = selector;
+      this.executor = executor;
+      this.reset = reset;
+      this.setLive = setLive;
+      this.handler = handler;
+    }
+
+    synchronized void open() throws Exception {
+      if (treeCache != null) {
+        return;
+      }
+      reset.run();
+
+      TreeCache cache = TreeCache
+        .newBuilder(curator, root)
+        .setCacheData(false)
+        .setMaxDepth(depth)
+        .setSelector(selector)
+        .setExecutor(new WatchExecutor(executor))
+        .build();
+      cache.getListenable().addListener((client, event) -> handle(cache, event));
+
+      treeCache = cache;
+      cache.start();
+    }
+
+    synchronized void close() {
+      if (treeCache == null) {
+        return;
+      }
+      setLive.accept(false);
+      try {
+        treeCache.close();
+      } catch (Throwable t) {
+        LOG.warn("Could not close web cache watch ({})", t.getMessage());
+      }
+      treeCache = null;
+    }
+
+    private synchronized void reopen(TreeCache cache) throws Exception {
+      if (treeCache == cache) {
+        close();
+        open();
+      }
+    }
+
+    private void handle(TreeCache cache, TreeCacheEvent event) throws Exception {
+      switch (event.getType()) {
+        case INITIALIZED:
+          LOG.info("Web cache watch of {} initialized", root);
+          setLive.accept(true);
+          break;
+        case CONNECTION_SUSPENDED:
+        case CONNECTION_LOST:
+          setLive.accept(false);
+          break;
+        case CONNECTION_RECONNECTED:
+          // A TreeCache resyncs after reconnecting without another INITIALIZED event, so
+          // there is no way to tell when it has caught up. Start over from a fresh load.
+          LOG.info("Reloading web cache watch of {} after reconnecting", root);
+          reopen(cache);
+          break;
+        case NODE_ADDED:
+        case NODE_UPDATED:
+        case NODE_REMOVED:
+          if (event.getData() != null) {
+            handler.handle(event.getType(), event.getData());
+          }
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * Runs a TreeCache's events on a shared watch thread. A TreeCache shuts down its
+   * executor when it is closed, which only stops events from that cache.
+   */
+  private static class WatchExecutor extends AbstractExecutorService {
+    private final ExecutorService delegate;
+    private volatile boolean shutdown;
+
+    private WatchExecutor(ExecutorService delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      if (!shutdown) {
+        delegate.execute(command);
+      }
+    }
+
+    @Override
+    public void shutdown() {
+      shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      shutdown = true;
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return shutdown;
+    }
+  }
+
+  /**
+   * @return the name of the node the given number of levels above path
+   */
+  private static String parentNode(String path, int levels) {
+    List<String> parts = ZKPaths.split(path);
+    return parts.get(parts.size() - 1 - levels);
+  }
+
+  private static int depth(String root, String path) {
+    return ZKPaths.split(path).size() - ZKPaths.split(root).size();
+  }
+
+  private interface NodeHandler {
+    void handle(TreeCacheEvent.Type type, ChildData data) throws Exception;
+  }
+}
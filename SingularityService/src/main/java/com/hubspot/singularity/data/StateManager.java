@@ -2,10 +2,12 @@ package com.hubspot.singularity.data;
 
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.hubspot.mesos.CounterMap;
+import com.hubspot.singularity.RequestState;
 import com.hubspot.singularity.RequestType;
 import com.hubspot.singularity.SingularityCreateResult;
 import com.hubspot.singularity.SingularityDeployMarker;
@@ -25,12 +27,17 @@ import com.hubspot.singularity.SingularityTaskReconciliationStatistics;
 import com.hubspot.singularity.auth.datastore.SingularityAuthDatastore;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.transcoders.Transcoder;
+import com.hubspot.singularity.scheduler.SingularityLeaderCache;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import javax.inject.Singleton;
@@ -64,6 +71,14 @@ public class StateManager extends CuratorManager {
   private final PriorityManager priorityManager;
   private final Histogram statusUpdateDeltas;
   private final AtomicLong lastHeartbeatTime;
+  private final SingularityLeaderCache leaderCache;
+  private final Timer generateStateTimer;
+  private final Histogram requestsReevaluated;
+
+  // Provisioning of each request as of the last generated state, only used while the
+  // leader cache is active. Guarded by the instance
+  private final Set<String> overProvisionedRequestIds;
+  private final Set<String> possiblyUnderProvisionedRequestIds;
 
   @Inject
   public StateManager(
@@ -84,7 +99,8 @@ public class StateManager extends CuratorManager {
     @Named(SingularityMainModule.STATUS_UPDATE_DELTAS) Histogram statusUpdateDeltas,
     @Named(
       SingularityMainModule.LAST_MESOS_MASTER_HEARTBEAT_TIME
-    ) AtomicLong lastHeartbeatTime
+    ) AtomicLong lastHeartbeatTime,
+    SingularityLeaderCache leaderCache
   ) {
     super(curatorFramework, configuration, metricRegistry);
     this.requestManager = requestManager;
@@ -100,6 +116,11 @@ public class StateManager extends CuratorManager {
     this.taskReconciliationStatisticsTranscoder = taskReconciliationStatisticsTranscoder;
     this.statusUpdateDeltas = statusUpdateDeltas;
     this.lastHeartbeatTime = lastHeartbeatTime;
+    this.leaderCache = leaderCache;
+    this.generateStateTimer = metricRegistry.timer("state.generate.time");
+    this.requestsReevaluated = metricRegistry.histogram("state.requests.reevaluated");
+    this.overProvisionedRequestIds = new HashSet<>();
+    this.possiblyUnderProvisionedRequestIds = new HashSet<>();
   }
 
   public SingularityCreateResult saveTaskReconciliationStatistics(
@@ -153,6 +174,18 @@ public class StateManager extends CuratorManager {
   }
 
   public SingularityState generateState(boolean includeRequestIds) {
+    final long start = System.currentTimeMillis();
+    try {
+      return generateStateUntimed(includeRequestIds);
+    } finally {
+      generateStateTimer.update(
+        System.currentTimeMillis() - start,
+        TimeUnit.MILLISECONDS
+      );
+    }
+  }
+
+  private SingularityState generateStateUntimed(boolean includeRequestIds) {
     final int launchingTasks = taskManager.getNumLaunchingTasks();
     final int activeTasks = taskManager.getNumActiveTasks() - launchingTasks;
     final int scheduledTasks = taskManager.getNumScheduledTasks();
@@ -162,45 +195,52 @@ public class StateManager extends CuratorManager {
 
     final SingularityScheduledTasksInfo scheduledTasksInfo = getScheduledTasksInfo();
 
-    final List<String> overProvisionedRequestIds = new ArrayList<>();
-    final Set<String> possiblyUnderProvisionedRequestIds = new HashSet<>();
+    final List<String> overProvisionedRequestIds;
+    final Set<String> possiblyUnderProvisionedRequestIds;
+    final Map<RequestState, Integer> numRequestsByState;
+
+    if (leaderCache.active()) {
+      numRequestsByState = leaderCache.getNumRequestsByState();
+      synchronized (this) {
+        updateProvisionedRequestIds();
+        overProvisionedRequestIds = new ArrayList<>(this.overProvisionedRequestIds);
+        possiblyUnderProvisionedRequestIds =
+          new HashSet<>(this.possiblyUnderProvisionedRequestIds);
+      }
+    } else {
+      overProvisionedRequestIds = new ArrayList<>();
+      possiblyUnderProvisionedRequestIds = new HashSet<>();
+      numRequestsByState = new EnumMap<>(RequestState.class);
 
-    final List<SingularityRequestWithState> requests = requestManager.getRequests();
+      final List<SingularityRequestWithState> requests = requestManager.getRequests();
 
-    final Map<String, Long> numInstances = getNumTasks(requests);
+      final Map<String, Long> numInstances = getNumTasks(requests);
 
-    int numActiveRequests = 0;
-    int numPausedRequests = 0;
-    int cooldownRequests = 0;
-    int numFinishedRequests = 0;
+      for (SingularityRequestWithState requestWithState : requests) {
+        numRequestsByState.merge(requestWithState.getState(), 1, Integer::sum);
 
-    for (SingularityRequestWithState requestWithState : requests) {
-      switch (requestWithState.getState()) {
-        case DEPLOYING_TO_UNPAUSE:
-        case ACTIVE:
-          numActiveRequests++;
-          break;
-        case FINISHED:
-          numFinishedRequests++;
-          break;
-        case PAUSED:
-          numPausedRequests++;
-          break;
-        case SYSTEM_COOLDOWN:
-          cooldownRequests++;
-          break;
-        case DELETED:
-          break;
+        updatePossiblyUnderProvisionedAndOverProvisionedIds(
+          requestWithState,
+          numInstances,
+          overProvisionedRequestIds,
+          possiblyUnderProvisionedRequestIds
+        );
       }
-
-      updatePossiblyUnderProvisionedAndOverProvisionedIds(
-        requestWithState,
-        numInstances,
-        overProvisionedRequestIds,
-        possiblyUnderProvisionedRequestIds
-      );
     }
 
+    final int numActiveRequests =
+      numRequestsByState.getOrDefault(RequestState.ACTIVE, 0) +
+      numRequestsByState.getOrDefault(RequestState.DEPLOYING_TO_UNPAUSE, 0);
+    final int numPausedRequests = numRequestsByState.getOrDefault(RequestState.PAUSED, 0);
+    final int cooldownRequests = numRequestsByState.getOrDefault(
+      RequestState.SYSTEM_COOLDOWN,
+      0
+    );
+    final int numFinishedRequests = numRequestsByState.getOrDefault(
+      RequestState.FINISHED,
+      0
+    );
+
     filterForPendingRequests(possiblyUnderProvisionedRequestIds);
     final List<String> underProvisionedRequestIds = getUnderProvisionedRequestIds(
       possiblyUnderProvisionedRequestIds
@@ -451,6 +491,62 @@ public class StateManager extends CuratorManager {
     return numTasks.toCountMap();
   }
 
+  /**
+   * Re-evaluates only the requests whose state or tasks changed in the leader cache since
+   * the last call, every other request keeps the provisioning it had before.
+   */
+  private void updateProvisionedRequestIds() {
+    Set<String> changedRequestIds = leaderCache.drainRequestIdsWithChangedInstances();
+    requestsReevaluated.update(changedRequestIds.size());
+
+    for (String requestId : changedRequestIds) {
+      overProvisionedRequestIds.remove(requestId);
+      possiblyUnderProvisionedRequestIds.remove(requestId);
+
+      Optional<SingularityRequestWithState> maybeRequest = leaderCache.getRequest(
+        requestId
+      );
+      if (!maybeRequest.isPresent()) {
+        continue;
+      }
+
+      List<SingularityTaskId> activeTaskIds = leaderCache.getActiveTaskIdsForRequest(
+        requestId
+      );
+      List<SingularityPendingTaskId> pendingTaskIds = leaderCache.getPendingTaskIdsForRequest(
+        requestId
+      );
+      // Cleaning tasks of scheduled requests still count, same as in getNumTasks
+      List<SingularityTaskId> cleaningTaskIds = maybeRequest
+          .get()
+          .getRequest()
+          .isScheduled()
+        ? Collections.emptyList()
+        : leaderCache.getCleanupTaskIdsForRequest(requestId);
+
+      Map<String, Long> numInstances = new HashMap<>(1);
+      if (
+        !activeTaskIds.isEmpty() ||
+        !pendingTaskIds.isEmpty() ||
+        !cleaningTaskIds.isEmpty()
+      ) {
+        numInstances.put(
+          requestId,
+          (long) (activeTaskIds.size() + pendingTaskIds.size() - cleaningTaskIds.size())
+        );
+      }
+
+      List<String> overProvisioned = new ArrayList<>(1);
+      updatePossiblyUnderProvisionedAndOverProvisionedIds(
+        maybeRequest.get(),
+        numInstances,
+        overProvisioned,
+        possiblyUnderProvisionedRequestIds
+      );
+      overProvisionedRequestIds.addAll(overProvisioned);
+    }
+  }
+
   private void updatePossiblyUnderProvisionedAndOverProvisionedIds(
     SingularityRequestWithState requestWithState,
     Map<String, Long> numInstances,
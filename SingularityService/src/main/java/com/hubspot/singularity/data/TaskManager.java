@@ -18,6 +18,7 @@ import com.hubspot.singularity.ExtendedTaskState;
 import com.hubspot.singularity.LoadBalancerRequestType;
 import com.hubspot.singularity.SingularityCreateResult;
 import com.hubspot.singularity.SingularityDeleteResult;
+import com.hubspot.singularity.SingularityDeployKey;
 import com.hubspot.singularity.SingularityKilledTaskIdRecord;
 import com.hubspot.singularity.SingularityLoadBalancerUpdate;
 import com.hubspot.singularity.SingularityMainModule;
@@ -66,10 +67,9 @@ public class TaskManager extends CuratorAsyncManager {
 
   private static final String TASKS_ROOT = "/tasks";
 
-  private static final String LAST_ACTIVE_TASK_STATUSES_PATH_ROOT =
-    TASKS_ROOT + "/statuses";
-  private static final String PENDING_PATH_ROOT = TASKS_ROOT + "/scheduled";
-  private static final String CLEANUP_PATH_ROOT = TASKS_ROOT + "/cleanup";
+  static final String LAST_ACTIVE_TASK_STATUSES_PATH_ROOT = TASKS_ROOT + "/statuses";
+  static final String PENDING_PATH_ROOT = TASKS_ROOT + "/scheduled";
+  static final String CLEANUP_PATH_ROOT = TASKS_ROOT + "/cleanup";
   private static final String LB_CLEANUP_PATH_ROOT = TASKS_ROOT + "/lbcleanup";
   private static final String DRIVER_KILLED_PATH_ROOT = TASKS_ROOT + "/killed";
   private static final String FINISHED_TASK_MAIL_QUEUE = TASKS_ROOT + "/mailqueue";
@@ -77,7 +77,7 @@ public class TaskManager extends CuratorAsyncManager {
   private static final String PENDING_TASKS_TO_DELETE_PATH_ROOT =
     TASKS_ROOT + "/pendingdeletes";
 
-  private static final String HISTORY_PATH_ROOT = TASKS_ROOT + "/history";
+  static final String HISTORY_PATH_ROOT = TASKS_ROOT + "/history";
 
   private static final String LAST_HEALTHCHECK_KEY = "LAST_HEALTHCHECK";
   private static final String DIRECTORY_KEY = "DIRECTORY";
@@ -97,7 +97,7 @@ public class TaskManager extends CuratorAsyncManager {
   private static final String STARTUP_HEALTHCHECK_PATH_SUFFIX = "-NOT_STARTED";
 
   private static final String METADATA_PATH = "/metadata";
-  private static final String UPDATES_PATH = "/updates";
+  static final String UPDATES_PATH = "/updates";
 
   private final Transcoder<SingularityTaskHealthcheckResult> healthcheckResultTranscoder;
   private final Transcoder<SingularityTaskCleanup> taskCleanupTranscoder;
@@ -117,6 +117,7 @@ public class TaskManager extends CuratorAsyncManager {
   private final ZkCache<SingularityTask> taskCache;
   private final SingularityWebCache webCache;
   private final SingularityLeaderCache leaderCache;
+  private final ZkWriteBatcher zkWriteBatcher;
 
   private final SingularityEventListener singularityEventListener;
   private final String serverId;
@@ -143,6 +144,7 @@ public class TaskManager extends CuratorAsyncManager {
     ZkCache<SingularityTask> taskCache,
     SingularityWebCache webCache,
     SingularityLeaderCache leaderCache,
+    ZkWriteBatcher zkWriteBatcher,
     @Named(SingularityMainModule.SERVER_ID_PROPERTY) String serverId
   ) {
     super(curator, configuration, metricRegistry);
@@ -164,6 +166,7 @@ public class TaskManager extends CuratorAsyncManager {
 
     this.webCache = webCache;
     this.leaderCache = leaderCache;
+    this.zkWriteBatcher = zkWriteBatcher;
     this.serverId = serverId;
   }
 
@@ -382,10 +385,9 @@ public class TaskManager extends CuratorAsyncManager {
 
   @Timed
   public void saveLastActiveTaskStatus(SingularityTaskStatusHolder taskStatus) {
-    save(
+    zkWriteBatcher.save(
       getLastActiveTaskStatusPath(taskStatus.getTaskId()),
-      taskStatus,
-      taskStatusTranscoder
+      taskStatusTranscoder.toBytes(taskStatus)
     );
   }
 
@@ -399,12 +401,16 @@ public class TaskManager extends CuratorAsyncManager {
 
   public void saveHealthcheckResult(SingularityTaskHealthcheckResult healthcheckResult) {
     if (canSaveNewHealthcheck(healthcheckResult)) {
-      final Optional<byte[]> bytes = Optional.of(
-        healthcheckResultTranscoder.toBytes(healthcheckResult)
-      );
+      final byte[] bytes = healthcheckResultTranscoder.toBytes(healthcheckResult);
 
-      save(getHealthcheckPath(healthcheckResult), bytes);
-      save(getLastHealthcheckPath(healthcheckResult.getTaskId()), bytes);
+      // Each result gets a new node, so only fall back to overwriting on a duplicate
+      final String healthcheckPath = getHealthcheckPath(healthcheckResult);
+      if (
+        zkWriteBatcher.create(healthcheckPath, bytes) == SingularityCreateResult.EXISTED
+      ) {
+        zkWriteBatcher.save(healthcheckPath, bytes);
+      }
+      zkWriteBatcher.save(getLastHealthcheckPath(healthcheckResult.getTaskId()), bytes);
     } else {
       LOG.warn(
         "Healthchecks have finished, could not save new result {}",
@@ -451,7 +457,10 @@ public class TaskManager extends CuratorAsyncManager {
       return leaderCache.getActiveTaskIds();
     }
 
-    if (useWebCache && webCache.useCachedActiveTasks()) {
+    if (
+      webCache.useMirroredActiveTasks() ||
+      (useWebCache && webCache.useCachedActiveTasks())
+    ) {
       return webCache.getActiveTaskIds();
     }
 
@@ -508,7 +517,10 @@ public class TaskManager extends CuratorAsyncManager {
   }
 
   public List<SingularityTask> getActiveTasks(boolean useWebCache) {
-    if (useWebCache && webCache.useCachedActiveTasks()) {
+    if (
+      webCache.useMirroredActiveTasks() ||
+      (useWebCache && webCache.useCachedActiveTasks())
+    ) {
       return webCache.getActiveTasks();
     }
 
@@ -551,21 +563,30 @@ public class TaskManager extends CuratorAsyncManager {
   public List<SingularityTask> getTasksOnSlave(
     Collection<SingularityTaskId> activeTaskIds,
     SingularitySlave slave
+  ) {
+    return getTasksOnSlave(slave, getTaskIdsOnSlave(activeTaskIds, slave));
+  }
+
+  public List<SingularityTask> getTasksOnSlave(
+    SingularitySlave slave,
+    boolean useWebCache
+  ) {
+    return getTasksOnSlave(slave, getTaskIdsOnSlave(slave, useWebCache));
+  }
+
+  private List<SingularityTask> getTasksOnSlave(
+    SingularitySlave slave,
+    List<SingularityTaskId> taskIdsOnHost
   ) {
     final List<SingularityTask> tasks = Lists.newArrayList();
-    final String sanitizedHost = JavaUtils.getReplaceHyphensWithUnderscores(
-      slave.getHost()
-    );
 
-    for (SingularityTaskId activeTaskId : activeTaskIds) {
-      if (activeTaskId.getSanitizedHost().equals(sanitizedHost)) {
-        Optional<SingularityTask> maybeTask = getTask(activeTaskId);
-        if (
-          maybeTask.isPresent() &&
-          slave.getId().equals(maybeTask.get().getAgentId().getValue())
-        ) {
-          tasks.add(maybeTask.get());
-        }
+    for (SingularityTaskId taskId : taskIdsOnHost) {
+      Optional<SingularityTask> maybeTask = getTask(taskId);
+      if (
+        maybeTask.isPresent() &&
+        slave.getId().equals(maybeTask.get().getAgentId().getValue())
+      ) {
+        tasks.add(maybeTask.get());
       }
     }
 
@@ -586,12 +607,28 @@ public class TaskManager extends CuratorAsyncManager {
       .collect(Collectors.toList());
   }
 
+  public List<SingularityTaskId> getTaskIdsOnSlave(
+    SingularitySlave slave,
+    boolean useWebCache
+  ) {
+    if (leaderCache.active()) {
+      return leaderCache.getActiveTaskIdsOnHost(
+        JavaUtils.getReplaceHyphensWithUnderscores(slave.getHost())
+      );
+    }
+
+    return getTaskIdsOnSlave(getActiveTaskIds(useWebCache), slave);
+  }
+
   public List<SingularityTaskHistoryUpdate> getTaskHistoryUpdates(
     SingularityTaskId taskId
   ) {
     if (leaderCache.active()) {
       return leaderCache.getTaskHistoryUpdates(taskId);
     }
+    if (webCache.useMirroredTaskHistoryUpdates()) {
+      return webCache.getTaskHistoryUpdates(taskId);
+    }
     List<SingularityTaskHistoryUpdate> updates = getAsyncChildren(
       getUpdatesPath(taskId),
       taskHistoryUpdateTranscoder
@@ -613,6 +650,9 @@ public class TaskManager extends CuratorAsyncManager {
     if (leaderCache.active()) {
       return leaderCache.getTaskHistoryUpdates(taskIds);
     }
+    if (webCache.useMirroredTaskHistoryUpdates()) {
+      return webCache.getTaskHistoryUpdates(taskIds);
+    }
     Map<String, SingularityTaskId> pathsMap = Maps.newHashMap();
     for (SingularityTaskId taskId : taskIds) {
       pathsMap.put(getHistoryPath(taskId), taskId);
@@ -707,6 +747,14 @@ public class TaskManager extends CuratorAsyncManager {
   public SingularityCreateResult saveTaskHistoryUpdate(
     SingularityTaskHistoryUpdate taskHistoryUpdate,
     boolean overwriteExisting
+  ) {
+    return saveTaskHistoryUpdate(taskHistoryUpdate, overwriteExisting, true);
+  }
+
+  private SingularityCreateResult saveTaskHistoryUpdate(
+    SingularityTaskHistoryUpdate taskHistoryUpdate,
+    boolean overwriteExisting,
+    boolean allowBatching
   ) {
     Optional<SingularityTask> task = getTask(taskHistoryUpdate.getTaskId());
     if (task.isPresent()) {
@@ -742,11 +790,17 @@ public class TaskManager extends CuratorAsyncManager {
       if (leaderCache.active()) {
         leaderCache.saveTaskHistoryUpdate(taskHistoryUpdate, overwriteExisting);
       }
-      return create(
-        getUpdatePath(taskHistoryUpdate.getTaskId(), taskHistoryUpdate.getTaskState()),
-        taskHistoryUpdate,
-        taskHistoryUpdateTranscoder
+      final String path = getUpdatePath(
+        taskHistoryUpdate.getTaskId(),
+        taskHistoryUpdate.getTaskState()
       );
+      if (allowBatching) {
+        return zkWriteBatcher.create(
+          path,
+          taskHistoryUpdateTranscoder.toBytes(taskHistoryUpdate)
+        );
+      }
+      return create(path, taskHistoryUpdate, taskHistoryUpdateTranscoder);
     }
   }
 
@@ -859,6 +913,10 @@ public class TaskManager extends CuratorAsyncManager {
   }
 
   public List<SingularityTaskId> getActiveTaskIdsForRequest(String requestId) {
+    if (leaderCache.active()) {
+      return new ArrayList<>(leaderCache.getActiveTaskIdsForRequest(requestId));
+    }
+
     return getTaskIdsForRequest(requestId, TaskFilter.ACTIVE);
   }
 
@@ -877,6 +935,9 @@ public class TaskManager extends CuratorAsyncManager {
   }
 
   public int getNumLaunchingTasks() {
+    if (leaderCache.active()) {
+      return leaderCache.getNumLaunchingTasks();
+    }
     List<SingularityTaskId> activeTaskIds = getActiveTaskIds();
 
     final Map<String, SingularityTaskId> paths = Maps.newHashMapWithExpectedSize(
@@ -950,6 +1011,12 @@ public class TaskManager extends CuratorAsyncManager {
     String requestId,
     final String deployId
   ) {
+    if (leaderCache.active()) {
+      return leaderCache.getActiveTaskIdsForDeploy(
+        new SingularityDeployKey(requestId, deployId)
+      );
+    }
+
     return getTaskIdsForDeploy(requestId, deployId, TaskFilter.ACTIVE);
   }
 
@@ -1255,6 +1322,8 @@ public class TaskManager extends CuratorAsyncManager {
         );
     }
 
+    // The launch update creates the task's history parents, which a batched
+    // transaction can't do, so it is always written directly
     saveTaskHistoryUpdate(
       new SingularityTaskHistoryUpdate(
         task.getTaskId(),
@@ -1262,7 +1331,9 @@ public class TaskManager extends CuratorAsyncManager {
         ExtendedTaskState.TASK_LAUNCHED,
         Optional.of(msg),
         Optional.empty()
-      )
+      ),
+      false,
+      false
     );
 
     SingularityTaskStatusHolder taskStatusHolder = new SingularityTaskStatusHolder(
@@ -27,7 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Singleton
-public class WebhookManager extends CuratorAsyncManager {
+public class WebhookManager extends CuratorAsyncManager implements WebhookQueueStore {
   private static final Logger LOG = LoggerFactory.getLogger(WebhookManager.class);
 
   private static final String ROOT_PATH = "/hooks";
@@ -95,11 +95,13 @@ public class WebhookManager extends CuratorAsyncManager {
     }
   }
 
-  private String getTaskHistoryUpdateId(SingularityTaskHistoryUpdate taskUpdate) {
+  public static String getTaskHistoryUpdateId(SingularityTaskHistoryUpdate taskUpdate) {
     return taskUpdate.getTaskId() + "-" + taskUpdate.getTaskState().name();
   }
 
-  private String getRequestHistoryUpdateId(SingularityRequestHistory requestUpdate) {
+  public static String getRequestHistoryUpdateId(
+    SingularityRequestHistory requestUpdate
+  ) {
     return (
       requestUpdate.getRequest().getId() +
       "-" +
@@ -109,7 +111,7 @@ public class WebhookManager extends CuratorAsyncManager {
     );
   }
 
-  private String getDeployUpdateId(SingularityDeployUpdate deployUpdate) {
+  public static String getDeployUpdateId(SingularityDeployUpdate deployUpdate) {
     return (
       SingularityDeployKey.fromDeployMarker(deployUpdate.getDeployMarker()) +
       "-" +
@@ -117,7 +119,7 @@ public class WebhookManager extends CuratorAsyncManager {
     );
   }
 
-  private String getCrashLoopUpdateId(CrashLoopInfo crashLoopUpdate) {
+  public static String getCrashLoopUpdateId(CrashLoopInfo crashLoopUpdate) {
     return String.format(
       "%s-%s-%s-%s",
       crashLoopUpdate.getRequestId(),
@@ -187,6 +189,7 @@ public class WebhookManager extends CuratorAsyncManager {
     return delete(path);
   }
 
+  @Override
   public SingularityDeleteResult deleteTaskUpdate(
     SingularityWebhook webhook,
     SingularityTaskHistoryUpdate taskUpdate
@@ -196,6 +199,7 @@ public class WebhookManager extends CuratorAsyncManager {
     return delete(path);
   }
 
+  @Override
   public SingularityDeleteResult deleteDeployUpdate(
     SingularityWebhook webhook,
     SingularityDeployUpdate deployUpdate
@@ -205,6 +209,7 @@ public class WebhookManager extends CuratorAsyncManager {
     return delete(path);
   }
 
+  @Override
   public SingularityDeleteResult deleteCrashLoopUpdate(
     SingularityWebhook webhook,
     CrashLoopInfo crashLoopUpdate
@@ -217,6 +222,7 @@ public class WebhookManager extends CuratorAsyncManager {
     return delete(path);
   }
 
+  @Override
   public SingularityDeleteResult deleteRequestUpdate(
     SingularityWebhook webhook,
     SingularityRequestHistory requestUpdate
@@ -226,6 +232,7 @@ public class WebhookManager extends CuratorAsyncManager {
     return delete(path);
   }
 
+  @Override
   public List<SingularityDeployUpdate> getQueuedDeployUpdatesForHook(String webhookId) {
     return getAsyncChildren(
       getEnqueuePathForWebhook(webhookId, WebhookType.DEPLOY),
@@ -233,6 +240,7 @@ public class WebhookManager extends CuratorAsyncManager {
     );
   }
 
+  @Override
   public List<CrashLoopInfo> getQueuedCrashLoopUpdatesForHook(String webhookId) {
     return getAsyncChildren(
       getEnqueuePathForWebhook(webhookId, WebhookType.CRASHLOOP),
@@ -240,6 +248,7 @@ public class WebhookManager extends CuratorAsyncManager {
     );
   }
 
+  @Override
   public List<SingularityTaskHistoryUpdate> getQueuedTaskUpdatesForHook(
     String webhookId
   ) {
@@ -249,6 +258,7 @@ public class WebhookManager extends CuratorAsyncManager {
     );
   }
 
+  @Override
   public List<SingularityRequestHistory> getQueuedRequestHistoryForHook(
     String webhookId
   ) {
@@ -258,6 +268,7 @@ public class WebhookManager extends CuratorAsyncManager {
     );
   }
 
+  @Override
   public List<SingularityWebhookSummary> getWebhooksWithQueueSize() {
     List<SingularityWebhookSummary> webhooks = new ArrayList<>();
     for (SingularityWebhook webhook : getActiveWebhooksUncached()) {
@@ -0,0 +1,52 @@
+package com.hubspot.singularity.data;
+
+import com.hubspot.singularity.CrashLoopInfo;
+import com.hubspot.singularity.SingularityDeleteResult;
+import com.hubspot.singularity.SingularityDeployUpdate;
+import com.hubspot.singularity.SingularityRequestHistory;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.SingularityWebhook;
+import com.hubspot.singularity.SingularityWebhookSummary;
+import java.util.List;
+
+/**
+ * Updates waiting to be delivered to each webhook. Deleting an update marks it as
+ * delivered (or given up on) for that webhook only.
+ */
+public interface WebhookQueueStore {
+  List<SingularityRequestHistory> getQueuedRequestHistoryForHook(String webhookId);
+
+  List<SingularityTaskHistoryUpdate> getQueuedTaskUpdatesForHook(String webhookId);
+
+  List<SingularityDeployUpdate> getQueuedDeployUpdatesForHook(String webhookId);
+
+  List<CrashLoopInfo> getQueuedCrashLoopUpdatesForHook(String webhookId);
+
+  SingularityDeleteResult deleteRequestUpdate(
+    SingularityWebhook webhook,
+    SingularityRequestHistory requestUpdate
+  );
+
+  SingularityDeleteResult deleteTaskUpdate(
+    SingularityWebhook webhook,
+    SingularityTaskHistoryUpdate taskUpdate
+  );
+
+  SingularityDeleteResult deleteDeployUpdate(
+    SingularityWebhook webhook,
+    SingularityDeployUpdate deployUpdate
+  );
+
+  SingularityDeleteResult deleteCrashLoopUpdate(
+    SingularityWebhook webhook,
+    CrashLoopInfo crashLoopUpdate
+  );
+
+  List<SingularityWebhookSummary> getWebhooksWithQueueSize();
+
+  /**
+   * Called once per webhook check, before reading the queues, to persist delivery
+   * progress and drop updates no webhook still needs.
+   */
+  default void commitDeliveredUpdates() {}
+}
@@ -0,0 +1,330 @@
+package com.hubspot.singularity.data;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.hubspot.singularity.SingularityCreateResult;
+import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorOp;
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group commit for small task state writes. A write is committed right away when no other
+ * batch is being written, and writes that queue up while a commit is in flight are
+ * committed together in a single transaction once it finishes, with repeated sets of the
+ * same path collapsed to the last value. Callers still block until their write has been
+ * committed, so read-after-write behavior and the ordering of writes issued by a single
+ * thread are unchanged. Saves are create-or-set: if a transaction fails because a node is
+ * missing or already there, each op is matched to what exists and it is retried once. If
+ * that also fails (e.g. a parent node does not exist yet) its writes are retried one at a
+ * time using the regular create/save semantics.
+ */
+@Singleton
+public class ZkWriteBatcher extends CuratorManager {
+  private static final Logger LOG = LoggerFactory.getLogger(ZkWriteBatcher.class);
+
+  private final ConcurrentLinkedQueue<PendingWrite> queue;
+  private final AtomicBoolean flushing;
+  private final ScheduledExecutorService executor;
+
+  private final Histogram batchSize;
+  private final Meter coalescedWrites;
+  private final Meter reconciledBatches;
+  private final Meter fallbackBatches;
+
+  @Inject
+  public ZkWriteBatcher(
+    CuratorFramework curator,
+    SingularityConfiguration configuration,
+    MetricRegistry metricRegistry,
+    SingularityManagedScheduledExecutorServiceFactory executorServiceFactory
+  ) {
+    super(curator, configuration, metricRegistry);
+    this.queue = new ConcurrentLinkedQueue<>();
+    this.flushing = new AtomicBoolean(false);
+    this.executor = executorServiceFactory.get("zk-write-batcher");
+    this.batchSize = metricRegistry.histogram("zk.batch.writes");
+    this.coalescedWrites = metricRegistry.meter("zk.batch.coalesced");
+    this.reconciledBatches = metricRegistry.meter("zk.batch.reconciled");
+    this.fallbackBatches = metricRegistry.meter("zk.batch.fallback");
+  }
+
+  public boolean isEnabled() {
+    return configuration.isZookeeperWriteBatchingEnabled();
+  }
+
+  /**
+   * Create the node at path, returning EXISTED if it is already there.
+   */
+  public SingularityCreateResult create(String path, byte[] data) {
+    if (!isEnabled()) {
+      return create(path, Optional.of(data));
+    }
+    return submit(new PendingWrite(WriteType.CREATE, path, data));
+  }
+
+  /**
+   * Set the data at path, creating the node if it does not exist.
+   */
+  public SingularityCreateResult save(String path, byte[] data) {
+    if (!isEnabled()) {
+      return save(path, Optional.of(data));
+    }
+    return submit(new PendingWrite(WriteType.SAVE, path, data));
+  }
+
+  private SingularityCreateResult submit(PendingWrite write) {
+    queue.add(write);
+    if (flushing.compareAndSet(false, true)) {
+      try {
+        executor.execute(this::flush);
+      } catch (RejectedExecutionException ree) {
+        // Shutting down, commit what is queued on this thread so flushing is cleared again
+        LOG.warn("Executor rejected batched write flush, writing {} directly", write.path);
+        flush();
+      }
+    }
+
+    try {
+      return write.result.get(
+        configuration.getZookeeperAsyncTimeout(),
+        TimeUnit.MILLISECONDS
+      );
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } catch (InterruptedException | TimeoutException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void flush() {
+    while (true) {
+      List<PendingWrite> drained = new ArrayList<>();
+      PendingWrite next;
+      while (
+        drained.size() < configuration.getZookeeperWriteBatchMaxOps() &&
+        (next = queue.poll()) != null
+      ) {
+        drained.add(next);
+      }
+
+      if (drained.isEmpty()) {
+        flushing.set(false);
+        // Anything queued after the drain but before the flag was cleared would otherwise wait
+        // for the next write to start a flush
+        if (queue.isEmpty() || !flushing.compareAndSet(false, true)) {
+          return;
+        }
+        continue;
+      }
+
+      try {
+        commit(drained);
+      } catch (Throwable t) {
+        drained.forEach(w -> w.fail(t));
+      }
+    }
+  }
+
+  private void commit(List<PendingWrite> writes) {
+    final long start = System.currentTimeMillis();
+    List<PendingWrite> merged = merge(writes);
+    batchSize.update(merged.size());
+
+    try {
+      try {
+        commitTransaction(merged, Optional.empty());
+      } catch (KeeperException.NoNodeException | KeeperException.NodeExistsException e) {
+        LOG.debug(
+          "Batched write of {} paths hit {}, retrying",
+          merged.size(),
+          e.getPath()
+        );
+        reconciledBatches.mark();
+        commitTransaction(merged, Optional.of(getExistingPaths(merged)));
+      }
+    } catch (Throwable t) {
+      LOG.debug(
+        "Batched write of {} paths failed, writing individually",
+        merged.size(),
+        t
+      );
+      fallbackBatches.mark();
+      writeIndividually(merged);
+    } finally {
+      log(
+        OperationType.WRITE,
+        Optional.of(merged.size()),
+        Optional.of(merged.stream().mapToInt(w -> w.data.length).sum()),
+        start,
+        "batch"
+      );
+    }
+  }
+
+  /**
+   * Without knowing which paths exist, saves are committed as setData and creates as
+   * create. Given the existing paths, saves of missing nodes become creates and creates of
+   * existing nodes are completed as EXISTED without being sent.
+   */
+  private void commitTransaction(
+    List<PendingWrite> writes,
+    Optional<Set<String>> existingPaths
+  )
+    throws Exception {
+    Set<String> existing = new HashSet<>(existingPaths.orElse(Collections.emptySet()));
+
+    List<CuratorOp> ops = new ArrayList<>(writes.size());
+    List<PendingWrite> sent = new ArrayList<>(writes.size());
+    List<SingularityCreateResult> results = new ArrayList<>(writes.size());
+    List<PendingWrite> alreadyExisted = new ArrayList<>();
+    for (PendingWrite write : writes) {
+      boolean nodeExists = existingPaths.isPresent()
+        ? existing.contains(write.path)
+        : write.type == WriteType.SAVE;
+      if (nodeExists && write.type == WriteType.CREATE) {
+        alreadyExisted.add(write);
+        continue;
+      }
+      ops.add(
+        nodeExists
+          ? curator.transactionOp().setData().forPath(write.path, write.data)
+          : curator.transactionOp().create().forPath(write.path, write.data)
+      );
+      sent.add(write);
+      results.add(
+        nodeExists ? SingularityCreateResult.EXISTED : SingularityCreateResult.CREATED
+      );
+      existing.add(write.path);
+    }
+
+    if (!ops.isEmpty()) {
+      curator.transaction().forOperations(ops);
+    }
+
+    for (int i = 0; i < sent.size(); i++) {
+      sent.get(i).complete(results.get(i));
+    }
+    alreadyExisted.forEach(w -> w.complete(SingularityCreateResult.EXISTED));
+  }
+
+  private Set<String> getExistingPaths(List<PendingWrite> writes) throws Exception {
+    Set<String> existing = ConcurrentHashMap.newKeySet();
+    Set<String> paths = writes.stream().map(w -> w.path).collect(Collectors.toSet());
+    CountDownLatch latch = new CountDownLatch(paths.size());
+    for (String path : paths) {
+      curator
+        .checkExists()
+        .inBackground(
+          (client, event) -> {
+            if (event.getStat() != null) {
+              existing.add(path);
+            }
+            latch.countDown();
+          }
+        )
+        .forPath(path);
+    }
+    if (!latch.await(configuration.getZookeeperAsyncTimeout(), TimeUnit.MILLISECONDS)) {
+      throw new TimeoutException(
+        String.format("Timed out checking which of %s paths exist", paths.size())
+      );
+    }
+    return existing;
+  }
+
+  // The whole batch commits atomically, so repeated saves of a path can collapse into the
+  // first one's slot with the last value. Creates are never merged since each caller needs
+  // to know whether its own create succeeded, and a save after a create stays after it
+  private List<PendingWrite> merge(List<PendingWrite> writes) {
+    Map<String, Integer> saveIndexByPath = new HashMap<>();
+    List<PendingWrite> merged = new ArrayList<>(writes.size());
+    for (PendingWrite write : writes) {
+      Integer previousIndex = saveIndexByPath.get(write.path);
+      if (write.type == WriteType.SAVE && previousIndex != null) {
+        PendingWrite previous = merged.get(previousIndex);
+        write.superseded.add(previous);
+        write.superseded.addAll(previous.superseded);
+        merged.set(previousIndex, write);
+        coalescedWrites.mark();
+      } else if (write.type == WriteType.SAVE) {
+        saveIndexByPath.put(write.path, merged.size());
+        merged.add(write);
+      } else {
+        saveIndexByPath.remove(write.path);
+        merged.add(write);
+      }
+    }
+    return merged;
+  }
+
+  private void writeIndividually(List<PendingWrite> writes) {
+    for (PendingWrite write : writes) {
+      try {
+        write.complete(
+          write.type == WriteType.CREATE
+            ? create(write.path, Optional.of(write.data))
+            : save(write.path, Optional.of(write.data))
+        );
+      } catch (Throwable t) {
+        write.fail(t);
+      }
+    }
+  }
+
+  private enum WriteType {
+    CREATE,
+    SAVE
+  }
+
+  private static class PendingWrite {
+    private final WriteType type;
+    private final String path;
+    private final byte[] data;
+    private final CompletableFuture<SingularityCreateResult> result;
+    private final List<PendingWrite> superseded;
+
+    PendingWrite(WriteType type, String path, byte[] data) {
+      this.type = type;
+      this.path = path;
+      this.data = data;
+      this.result = new CompletableFuture<>();
+      this.superseded = new ArrayList<>();
+    }
+
+    void complete(SingularityCreateResult createResult) {
+      result.complete(createResult);
+      superseded.forEach(w -> w.result.complete(createResult));
+    }
+
+    void fail(Throwable t) {
+      result.completeExceptionally(t);
+      superseded.forEach(w -> w.result.completeExceptionally(t));
+    }
+  }
+}
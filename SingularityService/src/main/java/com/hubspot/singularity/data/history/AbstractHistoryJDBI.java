@@ -109,6 +109,38 @@ public interface AbstractHistoryJDBI extends HistoryJDBI {
     Optional<OrderDirection> orderDirection,
     Optional<Integer> limitStart,
     Integer limitCount
+  ) {
+    return getTaskIdHistory(
+      requestId,
+      deployId,
+      runId,
+      host,
+      lastTaskStatus,
+      startedBefore,
+      startedAfter,
+      updatedBefore,
+      updatedAfter,
+      orderDirection,
+      Optional.empty(),
+      limitStart,
+      limitCount
+    );
+  }
+
+  default List<SingularityTaskIdHistory> getTaskIdHistory(
+    Optional<String> requestId,
+    Optional<String> deployId,
+    Optional<String> runId,
+    Optional<String> host,
+    Optional<ExtendedTaskState> lastTaskStatus,
+    Optional<Long> startedBefore,
+    Optional<Long> startedAfter,
+    Optional<Long> updatedBefore,
+    Optional<Long> updatedAfter,
+    Optional<OrderDirection> orderDirection,
+    Optional<SingularityTaskIdHistory> after,
+    Optional<Integer> limitStart,
+    Integer limitCount
   ) {
     final Map<String, Object> binds = new HashMap<>();
     final StringBuilder sqlBuilder = new StringBuilder(GET_TASK_ID_HISTORY_QUERY);
@@ -127,14 +159,26 @@ public interface AbstractHistoryJDBI extends HistoryJDBI {
       updatedAfter
     );
 
-    sqlBuilder.append(" ORDER BY updatedAt ");
-    sqlBuilder.append(orderDirection.orElse(OrderDirection.DESC).name());
+    final OrderDirection direction = orderDirection.orElse(OrderDirection.DESC);
 
-    if (!requestId.isPresent()) {
-      sqlBuilder.append(", requestId ");
-      sqlBuilder.append(orderDirection.orElse(OrderDirection.DESC).name());
+    // Keyset pagination, continues after the last item of the previous page instead of skipping rows
+    if (after.isPresent()) {
+      final String comparison = direction == OrderDirection.ASC ? ">" : "<";
+      addWhereOrAnd(sqlBuilder, binds.isEmpty());
+      sqlBuilder.append("(updatedAt ");
+      sqlBuilder.append(comparison);
+      sqlBuilder.append(" :afterUpdatedAt OR (updatedAt = :afterUpdatedAt AND taskId ");
+      sqlBuilder.append(comparison);
+      sqlBuilder.append(" :afterTaskId))");
+      binds.put("afterUpdatedAt", new Date(after.get().getUpdatedAt()));
+      binds.put("afterTaskId", after.get().getTaskId().getId());
     }
 
+    sqlBuilder.append(" ORDER BY updatedAt ");
+    sqlBuilder.append(direction.name());
+    sqlBuilder.append(", taskId ");
+    sqlBuilder.append(direction.name());
+
     // NOTE: PG, MySQL are both compatible with OFFSET LIMIT syntax, while only MySQL understands LIMIT offset, limit.
     if (limitCount != null) {
       sqlBuilder.append(" LIMIT :limitCount");
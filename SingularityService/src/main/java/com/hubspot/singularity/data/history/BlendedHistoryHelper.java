@@ -1,6 +1,12 @@
 package com.hubspot.singularity.data.history;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.BaseEncoding;
 import com.hubspot.singularity.SingularityTask;
 import com.hubspot.singularity.SingularityTaskHistoryUpdate;
 import com.hubspot.singularity.SingularityTaskId;
@@ -14,17 +20,33 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public abstract class BlendedHistoryHelper<T, Q> {
   private static final Logger LOG = LoggerFactory.getLogger(BlendedHistoryHelper.class);
 
+  private static final BaseEncoding CURSOR_ENCODING = BaseEncoding
+    .base64Url()
+    .omitPadding();
+
   protected final boolean sqlEnabled;
 
-  public BlendedHistoryHelper(boolean sqlEnabled) {
+  private final Cache<Map.Entry<Q, Boolean>, Optional<Integer>> countCache;
+
+  public BlendedHistoryHelper(boolean sqlEnabled, long countCacheMillis) {
     this.sqlEnabled = sqlEnabled;
+    this.countCache =
+      CacheBuilder
+        .newBuilder()
+        .expireAfterWrite(countCacheMillis, TimeUnit.MILLISECONDS)
+        .maximumSize(countCacheMillis > 0 ? 1000 : 0)
+        .build();
   }
 
   protected abstract List<T> getFromZk(Q id);
@@ -74,8 +96,80 @@ public abstract class BlendedHistoryHelper<T, Q> {
     );
   }
 
+  /**
+   * Keyset pagination support, a query that implements it reads the rows after the given
+   * item directly instead of counting past every row of the earlier pages.
+   */
+  protected List<T> getFromHistoryAfter(Q id, Optional<T> after, int limitCount) {
+    throw new IllegalStateException(
+      "Keyset pagination requested for query which doesn't implement it"
+    );
+  }
+
+  protected String toCursor(T item) {
+    throw new IllegalStateException(
+      "Cursor requested for query which doesn't implement it"
+    );
+  }
+
+  protected T fromCursor(Q id, String cursor) {
+    throw new IllegalStateException(
+      "Cursor requested for query which doesn't implement it"
+    );
+  }
+
   public Optional<Integer> getBlendedHistoryCount(Q id, boolean canSkipZk) {
-    return getTotalCount(id, canSkipZk);
+    Map.Entry<Q, Boolean> key = Maps.immutableEntry(id, canSkipZk);
+    Optional<Integer> count = countCache.getIfPresent(key);
+    if (count == null) {
+      count = getTotalCount(id, canSkipZk);
+      countCache.put(key, count);
+    }
+    return count;
+  }
+
+  public Optional<String> getNextCursor(Q id, List<T> page, int limitCount) {
+    if (page.isEmpty() || page.size() < limitCount) {
+      return Optional.empty();
+    }
+    T last = Collections.max(page, getComparator(id));
+    return Optional.of(CURSOR_ENCODING.encode(toCursor(last).getBytes(UTF_8)));
+  }
+
+  /**
+   * @throws IllegalArgumentException if the cursor was not returned by getNextCursor
+   */
+  public T parseCursor(Q id, String cursor) {
+    try {
+      return fromCursor(id, new String(CURSOR_ENCODING.decode(cursor), UTF_8));
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(String.format("Invalid cursor %s", cursor), e);
+    }
+  }
+
+  public List<T> getBlendedHistoryAfter(
+    Q id,
+    Optional<T> after,
+    Integer limitCount,
+    boolean canSkipZk
+  ) {
+    Comparator<T> comparator = getComparator(id);
+    // Items that were persisted but not yet removed from zk are in both, the set keeps one of them
+    SortedSet<T> returned = new TreeSet<>(comparator);
+
+    if (!(sqlEnabled && canSkipZk)) {
+      for (T item : getFromZk(id)) {
+        if (!after.isPresent() || comparator.compare(item, after.get()) > 0) {
+          returned.add(item);
+        }
+      }
+    }
+
+    if (sqlEnabled) {
+      returned.addAll(getFromHistoryAfter(id, after, limitCount));
+    }
+
+    return returned.stream().limit(limitCount).collect(Collectors.toList());
   }
 
   public List<T> getBlendedHistory(Q id, Integer limitStart, Integer limitCount) {
@@ -6,9 +6,11 @@ import com.google.inject.Singleton;
 import com.hubspot.singularity.SingularityDeploy;
 import com.hubspot.singularity.SingularityDeployHistory;
 import com.hubspot.singularity.SingularityDeployKey;
+import com.hubspot.singularity.SingularityDeployMarker;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DeployManager;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,7 +26,10 @@ public class DeployHistoryHelper
     HistoryManager historyManager,
     SingularityConfiguration configuration
   ) {
-    super(configuration.getDatabaseConfiguration().isPresent());
+    super(
+      configuration.getDatabaseConfiguration().isPresent(),
+      configuration.getHistoryCountCacheMillis()
+    );
     this.deployManager = deployManager;
     this.historyManager = historyManager;
   }
@@ -67,6 +72,51 @@ public class DeployHistoryHelper
     );
   }
 
+  @Override
+  protected Comparator<SingularityDeployHistory> getComparator(String requestId) {
+    return Comparator.naturalOrder();
+  }
+
+  @Override
+  protected List<SingularityDeployHistory> getFromHistoryAfter(
+    String requestId,
+    Optional<SingularityDeployHistory> after,
+    int limitCount
+  ) {
+    if (!after.isPresent()) {
+      return historyManager.getDeployHistoryForRequest(requestId, 0, limitCount);
+    }
+    return historyManager.getDeployHistoryForRequestBefore(
+      requestId,
+      after.get(),
+      limitCount
+    );
+  }
+
+  @Override
+  protected String toCursor(SingularityDeployHistory item) {
+    return (
+      item.getDeployMarker().getTimestamp() + ":" + item.getDeployMarker().getDeployId()
+    );
+  }
+
+  @Override
+  protected SingularityDeployHistory fromCursor(String requestId, String cursor) {
+    String[] parts = cursor.split(":", 2);
+    return new SingularityDeployHistory(
+      Optional.empty(),
+      new SingularityDeployMarker(
+        requestId,
+        parts[1],
+        Long.parseLong(parts[0]),
+        Optional.empty(),
+        Optional.empty()
+      ),
+      Optional.empty(),
+      Optional.empty()
+    );
+  }
+
   public boolean isDeployIdAvailable(String requestId, String deployId) {
     Optional<SingularityDeploy> deploy = deployManager.getDeploy(requestId, deployId);
 
@@ -24,7 +24,10 @@ public class DeployTaskHistoryHelper
     HistoryManager historyManager,
     SingularityConfiguration configuration
   ) {
-    super(configuration.getDatabaseConfiguration().isPresent());
+    super(
+      configuration.getDatabaseConfiguration().isPresent(),
+      configuration.getHistoryCountCacheMillis()
+    );
     this.taskManager = taskManager;
     this.historyManager = historyManager;
   }
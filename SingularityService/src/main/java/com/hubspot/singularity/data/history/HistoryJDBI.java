@@ -8,6 +8,7 @@ import com.hubspot.singularity.SingularityRequestHistory;
 import com.hubspot.singularity.SingularityTaskHistory;
 import com.hubspot.singularity.SingularityTaskIdHistory;
 import com.hubspot.singularity.data.history.SingularityMappers.SingularityRequestIdCount;
+import com.hubspot.singularity.data.history.SingularityMappers.SingularityTaskHistoryData;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -46,9 +47,40 @@ public interface HistoryJDBI extends SqlObject {
     Date startedAt
   );
 
-  SingularityTaskHistory getTaskHistoryForTask(String taskId);
+  void insertTaskHistories(
+    List<String> requestIds,
+    List<String> taskIds,
+    List<SingularityTaskHistory> taskHistories,
+    List<Date> updatedAts,
+    List<String> lastTaskStatuses,
+    List<String> runIds,
+    List<String> deployIds,
+    List<String> hosts,
+    List<Date> startedAts
+  );
+
+  List<String> getPersistedTaskIds(List<String> taskIds);
+
+  void insertCompressedTaskHistories(
+    List<String> requestIds,
+    List<String> taskIds,
+    List<byte[]> compressedTaskHistories,
+    List<Date> updatedAts,
+    List<String> lastTaskStatuses,
+    List<String> runIds,
+    List<String> deployIds,
+    List<String> hosts,
+    List<Date> startedAts
+  );
+
+  SingularityTaskHistoryData getTaskHistoryDataForTask(String taskId);
+
+  SingularityTaskHistoryData getTaskHistoryDataForTaskByRunId(
+    String requestId,
+    String runId
+  );
 
-  SingularityTaskHistory getTaskHistoryForTaskByRunId(String requestId, String runId);
+  SingularityTaskIdHistory getTaskIdHistoryByRunId(String requestId, String runId);
 
   SingularityDeployHistory getDeployHistoryForDeploy(String requestId, String deployId);
 
@@ -58,6 +90,13 @@ public interface HistoryJDBI extends SqlObject {
     Integer limitCount
   );
 
+  List<SingularityDeployHistory> getDeployHistoryForRequestBefore(
+    String requestId,
+    Date createdAtBefore,
+    String deployIdBefore,
+    Integer limitCount
+  );
+
   int getDeployHistoryForRequestCount(String requestId);
 
   List<SingularityRequestHistory> getRequestHistory(
@@ -112,6 +151,22 @@ public interface HistoryJDBI extends SqlObject {
     Integer limitCount
   );
 
+  List<SingularityTaskIdHistory> getTaskIdHistory(
+    Optional<String> requestId,
+    Optional<String> deployId,
+    Optional<String> runId,
+    Optional<String> host,
+    Optional<ExtendedTaskState> lastTaskStatus,
+    Optional<Long> startedBefore,
+    Optional<Long> startedAfter,
+    Optional<Long> updatedBefore,
+    Optional<Long> updatedAfter,
+    Optional<OrderDirection> orderDirection,
+    Optional<SingularityTaskIdHistory> after,
+    Optional<Integer> limitStart,
+    Integer limitCount
+  );
+
   int getTaskIdHistoryCount(
     Optional<String> requestId,
     Optional<String> deployId,
@@ -16,6 +16,8 @@ public interface HistoryManager {
 
   void saveTaskHistory(SingularityTaskHistory taskHistory);
 
+  void saveTaskHistories(List<SingularityTaskHistory> taskHistories);
+
   void saveDeployHistory(SingularityDeployHistory deployHistory);
 
   Optional<SingularityDeployHistory> getDeployHistory(String requestId, String deployId);
@@ -26,6 +28,12 @@ public interface HistoryManager {
     Integer limitCount
   );
 
+  List<SingularityDeployHistory> getDeployHistoryForRequestBefore(
+    String requestId,
+    SingularityDeployHistory before,
+    Integer limitCount
+  );
+
   int getDeployHistoryForRequestCount(String requestId);
 
   List<SingularityTaskIdHistory> getTaskIdHistory(
@@ -43,6 +51,21 @@ public interface HistoryManager {
     Integer limitCount
   );
 
+  List<SingularityTaskIdHistory> getTaskIdHistoryAfter(
+    Optional<String> requestId,
+    Optional<String> deployId,
+    Optional<String> runId,
+    Optional<String> host,
+    Optional<ExtendedTaskState> lastTaskStatus,
+    Optional<Long> startedBefore,
+    Optional<Long> startedAfter,
+    Optional<Long> updatedBefore,
+    Optional<Long> updatedAfter,
+    Optional<OrderDirection> orderDirection,
+    Optional<SingularityTaskIdHistory> after,
+    Integer limitCount
+  );
+
   int getTaskIdHistoryCount(
     Optional<String> requestId,
     Optional<String> deployId,
@@ -59,6 +82,22 @@ public interface HistoryManager {
 
   Optional<SingularityTaskHistory> getTaskHistoryByRunId(String requestId, String runId);
 
+  /**
+   * Like {@link #getTaskHistory(String)}, but leaves healthcheck results, load balancer
+   * updates, shell commands and task metadata empty instead of decoding them.
+   */
+  Optional<SingularityTaskHistory> getTaskHistorySummary(String taskId);
+
+  Optional<SingularityTaskHistory> getTaskHistorySummaryByRunId(
+    String requestId,
+    String runId
+  );
+
+  Optional<SingularityTaskIdHistory> getTaskIdHistoryByRunId(
+    String requestId,
+    String runId
+  );
+
   List<SingularityRequestHistory> getRequestHistory(
     String requestId,
     Optional<OrderDirection> orderDirection,
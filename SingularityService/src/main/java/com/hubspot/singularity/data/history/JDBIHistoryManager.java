@@ -1,26 +1,37 @@
 package com.hubspot.singularity.data.history;
 
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Throwables;
 import com.google.inject.Inject;
 import com.hubspot.singularity.DeployState;
 import com.hubspot.singularity.ExtendedTaskState;
 import com.hubspot.singularity.OrderDirection;
+import com.hubspot.singularity.Singularity;
 import com.hubspot.singularity.SingularityDeployHistory;
 import com.hubspot.singularity.SingularityRequestHistory;
 import com.hubspot.singularity.SingularityTaskHistory;
 import com.hubspot.singularity.SingularityTaskIdHistory;
 import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.history.SingularityMappers.SingularityTaskHistoryData;
 import com.hubspot.singularity.data.transcoders.SingularityTranscoderException;
 import com.hubspot.singularity.data.transcoders.Transcoder;
+import com.hubspot.singularity.data.transcoders.VersionedJsonTranscoder;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,9 +40,14 @@ public class JDBIHistoryManager implements HistoryManager {
 
   private final HistoryJDBI history;
   private final boolean fallBackToBytesFields;
+  private final boolean compressTaskHistory;
   private final SingularityConfiguration configuration;
   private final Transcoder<SingularityTaskHistory> taskHistoryTranscoder;
   private final Transcoder<SingularityDeployHistory> deployHistoryTranscoder;
+  private final Transcoder<SingularityTaskHistory> compressedTaskHistoryTranscoder;
+  private final Transcoder<SingularityTaskHistory> compressedTaskHistorySummaryTranscoder;
+  private final ObjectMapper objectMapper;
+  private final ObjectMapper summaryObjectMapper;
   private final AtomicBoolean historyBackfillRunning;
 
   @Inject
@@ -39,7 +55,8 @@ public class JDBIHistoryManager implements HistoryManager {
     HistoryJDBI history,
     SingularityConfiguration configuration,
     Transcoder<SingularityTaskHistory> taskHistoryTranscoder,
-    Transcoder<SingularityDeployHistory> deployHistoryTranscoder
+    Transcoder<SingularityDeployHistory> deployHistoryTranscoder,
+    @Singularity ObjectMapper objectMapper
   ) {
     this.taskHistoryTranscoder = taskHistoryTranscoder;
     this.deployHistoryTranscoder = deployHistoryTranscoder;
@@ -47,8 +64,27 @@ public class JDBIHistoryManager implements HistoryManager {
     this.historyBackfillRunning = new AtomicBoolean(false);
     this.configuration = configuration;
     this.fallBackToBytesFields = configuration.isSqlFallBackToBytesFields();
+    this.compressTaskHistory = configuration.isSqlCompressTaskHistory();
+    this.objectMapper = objectMapper;
+    this.summaryObjectMapper =
+      objectMapper
+        .copy()
+        .addMixIn(SingularityTaskHistory.class, TaskHistorySummary.class);
+    this.compressedTaskHistoryTranscoder =
+      new VersionedJsonTranscoder<>(objectMapper, SingularityTaskHistory.class);
+    this.compressedTaskHistorySummaryTranscoder =
+      new VersionedJsonTranscoder<>(summaryObjectMapper, SingularityTaskHistory.class);
   }
 
+  /**
+   * Skips the per-task lists that grow over a task's lifetime, for callers that only
+   * need the task and its updates.
+   */
+  @JsonIgnoreProperties(
+    { "healthcheckResults", "loadBalancerUpdates", "shellCommandHistory", "taskMetadata" }
+  )
+  private abstract static class TaskHistorySummary {}
+
   @Override
   @Timed
   public List<SingularityTaskIdHistory> getTaskIdHistory(
@@ -86,6 +122,48 @@ public class JDBIHistoryManager implements HistoryManager {
     return taskIdHistoryList;
   }
 
+  @Override
+  @Timed
+  public List<SingularityTaskIdHistory> getTaskIdHistoryAfter(
+    Optional<String> requestId,
+    Optional<String> deployId,
+    Optional<String> runId,
+    Optional<String> host,
+    Optional<ExtendedTaskState> lastTaskStatus,
+    Optional<Long> startedBefore,
+    Optional<Long> startedAfter,
+    Optional<Long> updatedBefore,
+    Optional<Long> updatedAfter,
+    Optional<OrderDirection> orderDirection,
+    Optional<SingularityTaskIdHistory> after,
+    Integer limitCount
+  ) {
+    List<SingularityTaskIdHistory> taskIdHistoryList = history.getTaskIdHistory(
+      requestId,
+      deployId,
+      runId,
+      host,
+      lastTaskStatus,
+      startedBefore,
+      startedAfter,
+      updatedBefore,
+      updatedAfter,
+      orderDirection,
+      after,
+      Optional.empty(),
+      limitCount
+    );
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+        "getTaskIdHistoryAfter after {} taskIdHistory {}",
+        after,
+        taskIdHistoryList
+      );
+    }
+
+    return taskIdHistoryList;
+  }
+
   @Override
   @Timed
   public int getTaskIdHistoryCount(
@@ -251,6 +329,30 @@ public class JDBIHistoryManager implements HistoryManager {
     return deployHistoryList;
   }
 
+  @Override
+  public List<SingularityDeployHistory> getDeployHistoryForRequestBefore(
+    String requestId,
+    SingularityDeployHistory before,
+    Integer limitCount
+  ) {
+    List<SingularityDeployHistory> deployHistoryList = history.getDeployHistoryForRequestBefore(
+      requestId,
+      new Date(before.getDeployMarker().getTimestamp()),
+      before.getDeployMarker().getDeployId(),
+      limitCount
+    );
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+        "getDeployHistoryForRequestBefore requestId {}, before {}, limitCount {} deployHistory {}",
+        requestId,
+        before.getDeployMarker(),
+        limitCount,
+        deployHistoryList
+      );
+    }
+    return deployHistoryList;
+  }
+
   @Override
   public int getDeployHistoryForRequestCount(String requestId) {
     int count = history.getDeployHistoryForRequestCount(requestId);
@@ -300,7 +402,7 @@ public class JDBIHistoryManager implements HistoryManager {
     if (LOG.isTraceEnabled()) {
       LOG.trace("getRequestHistoryCount requestId {}, count {}", requestId, count);
     }
-    return history.getRequestHistoryCount(requestId);
+    return count;
   }
 
   @Override
@@ -328,8 +430,18 @@ public class JDBIHistoryManager implements HistoryManager {
 
   @Override
   public void saveTaskHistory(SingularityTaskHistory taskHistory) {
+    if (compressTaskHistory) {
+      saveTaskHistories(Collections.singletonList(taskHistory));
+      return;
+    }
+
+    // Also matches rows written while compression was enabled
     if (
-      history.getTaskHistoryForTask(taskHistory.getTask().getTaskId().getId()) != null
+      !history
+        .getPersistedTaskIds(
+          Collections.singletonList(taskHistory.getTask().getTaskId().getId())
+        )
+        .isEmpty()
     ) {
       if (LOG.isTraceEnabled()) {
         LOG.trace("saveTaskHistory -- existing taskHistory {}", taskHistory);
@@ -365,10 +477,102 @@ public class JDBIHistoryManager implements HistoryManager {
     );
   }
 
+  @Override
+  public void saveTaskHistories(List<SingularityTaskHistory> taskHistories) {
+    if (taskHistories.isEmpty()) {
+      return;
+    }
+
+    Set<String> persistedTaskIds = new HashSet<>(
+      history.getPersistedTaskIds(
+        taskHistories
+          .stream()
+          .map(taskHistory -> taskHistory.getTask().getTaskId().getId())
+          .collect(Collectors.toList())
+      )
+    );
+
+    List<String> requestIds = new ArrayList<>(taskHistories.size());
+    List<String> taskIds = new ArrayList<>(taskHistories.size());
+    List<SingularityTaskHistory> toInsert = new ArrayList<>(taskHistories.size());
+    List<Date> updatedAts = new ArrayList<>(taskHistories.size());
+    List<String> lastTaskStatuses = new ArrayList<>(taskHistories.size());
+    List<String> runIds = new ArrayList<>(taskHistories.size());
+    List<String> deployIds = new ArrayList<>(taskHistories.size());
+    List<String> hosts = new ArrayList<>(taskHistories.size());
+    List<Date> startedAts = new ArrayList<>(taskHistories.size());
+
+    for (SingularityTaskHistory taskHistory : taskHistories) {
+      if (!persistedTaskIds.add(taskHistory.getTask().getTaskId().getId())) {
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("saveTaskHistories -- existing taskHistory {}", taskHistory);
+        }
+        continue;
+      }
+
+      SingularityTaskIdHistory taskIdHistory = SingularityTaskIdHistory.fromTaskIdAndTaskAndUpdates(
+        taskHistory.getTask().getTaskId(),
+        taskHistory.getTask(),
+        taskHistory.getTaskUpdates()
+      );
+
+      requestIds.add(taskIdHistory.getTaskId().getRequestId());
+      taskIds.add(taskIdHistory.getTaskId().getId());
+      toInsert.add(taskHistory);
+      updatedAts.add(new Date(taskIdHistory.getUpdatedAt()));
+      lastTaskStatuses.add(taskIdHistory.getLastTaskState().map(Enum::name).orElse(null));
+      runIds.add(
+        taskHistory.getTask().getTaskRequest().getPendingTask().getRunId().orElse(null)
+      );
+      deployIds.add(taskIdHistory.getTaskId().getDeployId());
+      hosts.add(taskIdHistory.getTaskId().getHost());
+      startedAts.add(new Date(taskIdHistory.getTaskId().getStartedAt()));
+    }
+
+    if (toInsert.isEmpty()) {
+      return;
+    }
+
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("saveTaskHistories -- will insert {} task histories", toInsert.size());
+    }
+
+    if (compressTaskHistory) {
+      history.insertCompressedTaskHistories(
+        requestIds,
+        taskIds,
+        toInsert
+          .stream()
+          .map(compressedTaskHistoryTranscoder::toBytes)
+          .collect(Collectors.toList()),
+        updatedAts,
+        lastTaskStatuses,
+        runIds,
+        deployIds,
+        hosts,
+        startedAts
+      );
+    } else {
+      history.insertTaskHistories(
+        requestIds,
+        taskIds,
+        toInsert,
+        updatedAts,
+        lastTaskStatuses,
+        runIds,
+        deployIds,
+        hosts,
+        startedAts
+      );
+    }
+  }
+
   @Override
   public Optional<SingularityTaskHistory> getTaskHistory(String taskId) {
-    Optional<SingularityTaskHistory> maybeTaskHistory = Optional.ofNullable(
-      history.getTaskHistoryForTask(taskId)
+    Optional<SingularityTaskHistory> maybeTaskHistory = fromTaskHistoryData(
+      history.getTaskHistoryDataForTask(taskId),
+      objectMapper,
+      compressedTaskHistoryTranscoder
     );
     if (!maybeTaskHistory.isPresent() && fallBackToBytesFields) {
       return fromBytes(history.getTaskHistoryBytesForTask(taskId));
@@ -381,8 +585,10 @@ public class JDBIHistoryManager implements HistoryManager {
     String requestId,
     String runId
   ) {
-    Optional<SingularityTaskHistory> maybeTaskHistory = Optional.ofNullable(
-      history.getTaskHistoryForTaskByRunId(requestId, runId)
+    Optional<SingularityTaskHistory> maybeTaskHistory = fromTaskHistoryData(
+      history.getTaskHistoryDataForTaskByRunId(requestId, runId),
+      objectMapper,
+      compressedTaskHistoryTranscoder
     );
     if (!maybeTaskHistory.isPresent() && fallBackToBytesFields) {
       return fromBytes(history.getTaskHistoryBytesForTaskByRunId(requestId, runId));
@@ -390,6 +596,67 @@ public class JDBIHistoryManager implements HistoryManager {
     return maybeTaskHistory;
   }
 
+  @Override
+  public Optional<SingularityTaskHistory> getTaskHistorySummary(String taskId) {
+    Optional<SingularityTaskHistory> maybeTaskHistory = fromTaskHistoryData(
+      history.getTaskHistoryDataForTask(taskId),
+      summaryObjectMapper,
+      compressedTaskHistorySummaryTranscoder
+    );
+    if (!maybeTaskHistory.isPresent() && fallBackToBytesFields) {
+      return fromBytes(history.getTaskHistoryBytesForTask(taskId));
+    }
+    return maybeTaskHistory;
+  }
+
+  @Override
+  public Optional<SingularityTaskHistory> getTaskHistorySummaryByRunId(
+    String requestId,
+    String runId
+  ) {
+    Optional<SingularityTaskHistory> maybeTaskHistory = fromTaskHistoryData(
+      history.getTaskHistoryDataForTaskByRunId(requestId, runId),
+      summaryObjectMapper,
+      compressedTaskHistorySummaryTranscoder
+    );
+    if (!maybeTaskHistory.isPresent() && fallBackToBytesFields) {
+      return fromBytes(history.getTaskHistoryBytesForTaskByRunId(requestId, runId));
+    }
+    return maybeTaskHistory;
+  }
+
+  @Override
+  public Optional<SingularityTaskIdHistory> getTaskIdHistoryByRunId(
+    String requestId,
+    String runId
+  ) {
+    return Optional.ofNullable(history.getTaskIdHistoryByRunId(requestId, runId));
+  }
+
+  // Rows keep the format they were written in, whatever compressTaskHistory is now
+  private Optional<SingularityTaskHistory> fromTaskHistoryData(
+    SingularityTaskHistoryData data,
+    ObjectMapper mapper,
+    Transcoder<SingularityTaskHistory> compressedTranscoder
+  ) {
+    if (data == null) {
+      return Optional.empty();
+    }
+    if (data.getCompressedJson() != null) {
+      return Optional.ofNullable(
+        compressedTranscoder.fromBytes(data.getCompressedJson())
+      );
+    }
+    if (data.getJson() == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(mapper.readValue(data.getJson(), SingularityTaskHistory.class));
+    } catch (IOException e) {
+      throw new SingularityTranscoderException(e);
+    }
+  }
+
   private Optional<SingularityTaskHistory> fromBytes(byte[] historyBytes) {
     Optional<SingularityTaskHistory> taskHistoryOptional = Optional.empty();
     if (historyBytes != null && historyBytes.length > 0) {
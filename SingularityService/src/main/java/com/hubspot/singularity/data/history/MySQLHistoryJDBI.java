@@ -4,13 +4,17 @@ import com.hubspot.singularity.SingularityDeployHistory;
 import com.hubspot.singularity.SingularityRequest;
 import com.hubspot.singularity.SingularityRequestHistory;
 import com.hubspot.singularity.SingularityTaskHistory;
+import com.hubspot.singularity.SingularityTaskIdHistory;
 import com.hubspot.singularity.data.history.SingularityMappers.SingularityRequestIdCount;
+import com.hubspot.singularity.data.history.SingularityMappers.SingularityTaskHistoryData;
 import java.util.Date;
 import java.util.List;
 import org.jdbi.v3.json.Json;
 import org.jdbi.v3.sqlobject.SingleValue;
 import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.customizer.BindList;
 import org.jdbi.v3.sqlobject.customizer.Define;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 
@@ -56,17 +60,57 @@ public interface MySQLHistoryJDBI extends AbstractHistoryJDBI {
     @Bind("startedAt") Date startedAt
   );
 
+  @SqlBatch(
+    "INSERT INTO taskHistory (requestId, taskId, json, updatedAt, lastTaskStatus, runId, deployId, host, startedAt, purged) VALUES (:requestId, :taskId, :json, :updatedAt, :lastTaskStatus, :runId, :deployId, :host, :startedAt, false)"
+  )
+  void insertTaskHistories(
+    @Bind("requestId") List<String> requestIds,
+    @Bind("taskId") List<String> taskIds,
+    @Bind("json") @Json List<SingularityTaskHistory> taskHistories,
+    @Bind("updatedAt") List<Date> updatedAts,
+    @Bind("lastTaskStatus") List<String> lastTaskStatuses,
+    @Bind("runId") List<String> runIds,
+    @Bind("deployId") List<String> deployIds,
+    @Bind("host") List<String> hosts,
+    @Bind("startedAt") List<Date> startedAts
+  );
+
+  @SqlBatch(
+    "INSERT INTO taskHistory (requestId, taskId, compressedJson, updatedAt, lastTaskStatus, runId, deployId, host, startedAt, purged) VALUES (:requestId, :taskId, :compressedJson, :updatedAt, :lastTaskStatus, :runId, :deployId, :host, :startedAt, false)"
+  )
+  void insertCompressedTaskHistories(
+    @Bind("requestId") List<String> requestIds,
+    @Bind("taskId") List<String> taskIds,
+    @Bind("compressedJson") List<byte[]> compressedTaskHistories,
+    @Bind("updatedAt") List<Date> updatedAts,
+    @Bind("lastTaskStatus") List<String> lastTaskStatuses,
+    @Bind("runId") List<String> runIds,
+    @Bind("deployId") List<String> deployIds,
+    @Bind("host") List<String> hosts,
+    @Bind("startedAt") List<Date> startedAts
+  );
+
+  @SqlQuery("SELECT taskId as id FROM taskHistory WHERE taskId IN (<taskIds>)")
+  List<String> getPersistedTaskIds(@BindList("taskIds") List<String> taskIds);
+
   @SingleValue
-  @SqlQuery("SELECT json FROM taskHistory WHERE taskId = :taskId")
-  @Json
-  SingularityTaskHistory getTaskHistoryForTask(@Bind("taskId") String taskId);
+  @SqlQuery("SELECT json, compressedJson FROM taskHistory WHERE taskId = :taskId")
+  SingularityTaskHistoryData getTaskHistoryDataForTask(@Bind("taskId") String taskId);
 
   @SingleValue
   @SqlQuery(
-    "SELECT json FROM taskHistory WHERE requestId = :requestId AND runId = :runId"
+    "SELECT json, compressedJson FROM taskHistory WHERE requestId = :requestId AND runId = :runId"
   )
-  @Json
-  SingularityTaskHistory getTaskHistoryForTaskByRunId(
+  SingularityTaskHistoryData getTaskHistoryDataForTaskByRunId(
+    @Bind("requestId") String requestId,
+    @Bind("runId") String runId
+  );
+
+  @SingleValue
+  @SqlQuery(
+    GET_TASK_ID_HISTORY_QUERY + " WHERE requestId = :requestId AND runId = :runId"
+  )
+  SingularityTaskIdHistory getTaskIdHistoryByRunId(
     @Bind("requestId") String requestId,
     @Bind("runId") String runId
   );
@@ -82,7 +126,7 @@ public interface MySQLHistoryJDBI extends AbstractHistoryJDBI {
   );
 
   @SqlQuery(
-    "SELECT requestId, deployId, createdAt, user, message, deployStateAt, deployState FROM deployHistory WHERE requestId = :requestId ORDER BY createdAt DESC LIMIT :limitStart,:limitCount"
+    "SELECT requestId, deployId, createdAt, user, message, deployStateAt, deployState FROM deployHistory WHERE requestId = :requestId ORDER BY createdAt DESC, deployId DESC LIMIT :limitStart,:limitCount"
   )
   List<SingularityDeployHistory> getDeployHistoryForRequest(
     @Bind("requestId") String requestId,
@@ -90,6 +134,16 @@ public interface MySQLHistoryJDBI extends AbstractHistoryJDBI {
     @Bind("limitCount") Integer limitCount
   );
 
+  @SqlQuery(
+    "SELECT requestId, deployId, createdAt, user, message, deployStateAt, deployState FROM deployHistory WHERE requestId = :requestId AND (createdAt \\< :createdAtBefore OR (createdAt = :createdAtBefore AND deployId \\< :deployIdBefore)) ORDER BY createdAt DESC, deployId DESC LIMIT :limitCount"
+  )
+  List<SingularityDeployHistory> getDeployHistoryForRequestBefore(
+    @Bind("requestId") String requestId,
+    @Bind("createdAtBefore") Date createdAtBefore,
+    @Bind("deployIdBefore") String deployIdBefore,
+    @Bind("limitCount") Integer limitCount
+  );
+
   @SqlQuery("SELECT COUNT(*) FROM deployHistory WHERE requestId = :requestId")
   int getDeployHistoryForRequestCount(@Bind("requestId") String requestId);
 
@@ -129,7 +183,7 @@ public interface MySQLHistoryJDBI extends AbstractHistoryJDBI {
   );
 
   @SqlUpdate(
-    "UPDATE taskHistory SET json = NULL, purged = true WHERE requestId = :requestId AND purged = false AND updatedAt \\< :updatedAtBefore LIMIT :purgeLimitPerQuery"
+    "UPDATE taskHistory SET json = NULL, compressedJson = NULL, purged = true WHERE requestId = :requestId AND purged = false AND updatedAt \\< :updatedAtBefore LIMIT :purgeLimitPerQuery"
   )
   void updateTaskHistoryNullBytesForRequestBefore(
     @Bind("requestId") String requestId,
@@ -29,6 +29,11 @@ public class NoopHistoryManager implements HistoryManager {
     throw new UnsupportedOperationException("NoopHistoryManager can not save");
   }
 
+  @Override
+  public void saveTaskHistories(List<SingularityTaskHistory> taskHistories) {
+    throw new UnsupportedOperationException("NoopHistoryManager can not save");
+  }
+
   @Override
   public void saveDeployHistory(SingularityDeployHistory deployHistory) {
     throw new UnsupportedOperationException("NoopHistoryManager can not save");
@@ -51,6 +56,15 @@ public class NoopHistoryManager implements HistoryManager {
     return Collections.emptyList();
   }
 
+  @Override
+  public List<SingularityDeployHistory> getDeployHistoryForRequestBefore(
+    String requestId,
+    SingularityDeployHistory before,
+    Integer limitCount
+  ) {
+    return Collections.emptyList();
+  }
+
   @Override
   public int getDeployHistoryForRequestCount(String requestId) {
     return 0;
@@ -74,6 +88,24 @@ public class NoopHistoryManager implements HistoryManager {
     return Collections.emptyList();
   }
 
+  @Override
+  public List<SingularityTaskIdHistory> getTaskIdHistoryAfter(
+    Optional<String> requestId,
+    Optional<String> deployId,
+    Optional<String> runId,
+    Optional<String> host,
+    Optional<ExtendedTaskState> lastTaskStatus,
+    Optional<Long> startedBefore,
+    Optional<Long> startedAfter,
+    Optional<Long> updatedBefore,
+    Optional<Long> updatedAfter,
+    Optional<OrderDirection> orderDirection,
+    Optional<SingularityTaskIdHistory> after,
+    Integer limitCount
+  ) {
+    return Collections.emptyList();
+  }
+
   @Override
   public int getTaskIdHistoryCount(
     Optional<String> requestId,
@@ -102,6 +134,27 @@ public class NoopHistoryManager implements HistoryManager {
     return Optional.empty();
   }
 
+  @Override
+  public Optional<SingularityTaskHistory> getTaskHistorySummary(String taskId) {
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<SingularityTaskHistory> getTaskHistorySummaryByRunId(
+    String requestId,
+    String runId
+  ) {
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<SingularityTaskIdHistory> getTaskIdHistoryByRunId(
+    String requestId,
+    String runId
+  ) {
+    return Optional.empty();
+  }
+
   @Override
   public List<SingularityRequestHistory> getRequestHistory(
     String requestId,
@@ -23,7 +23,10 @@ public class RequestHistoryHelper
     HistoryManager historyManager,
     SingularityConfiguration configuration
   ) {
-    super(configuration.getDatabaseConfiguration().isPresent());
+    super(
+      configuration.getDatabaseConfiguration().isPresent(),
+      configuration.getHistoryCountCacheMillis()
+    );
     this.requestManager = requestManager;
     this.historyManager = historyManager;
   }
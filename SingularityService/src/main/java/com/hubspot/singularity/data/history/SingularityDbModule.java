@@ -17,6 +17,9 @@ import com.hubspot.singularity.data.usage.PostgresTaskUsageJDBI;
 import com.hubspot.singularity.data.usage.TaskUsageJDBI;
 import com.hubspot.singularity.data.usage.TaskUsageManager;
 import com.hubspot.singularity.data.usage.ZkTaskUsageManager;
+import com.hubspot.singularity.data.webhooks.MySQLWebhookQueueJDBI;
+import com.hubspot.singularity.data.webhooks.PostgresWebhookQueueJDBI;
+import com.hubspot.singularity.data.webhooks.WebhookQueueJDBI;
 import io.dropwizard.db.DataSourceFactory;
 import io.dropwizard.jdbi3.JdbiFactory;
 import io.dropwizard.setup.Environment;
@@ -58,6 +61,9 @@ public class SingularityDbModule extends AbstractModule {
       bind(TaskUsageJDBI.class)
         .toProvider(PostgresTaskUsageJDBIProvider.class)
         .in(Scopes.SINGLETON);
+      bind(WebhookQueueJDBI.class)
+        .toProvider(PostgresWebhookQueueJDBIProvider.class)
+        .in(Scopes.SINGLETON);
       // Currently many unit tests use h2
     } else if (isMySQL(configuration) || isH2(configuration)) {
       bind(HistoryJDBI.class)
@@ -66,6 +72,9 @@ public class SingularityDbModule extends AbstractModule {
       bind(TaskUsageJDBI.class)
         .toProvider(MySQLTaskUsageJDBIProvider.class)
         .in(Scopes.SINGLETON);
+      bind(WebhookQueueJDBI.class)
+        .toProvider(MySQLWebhookQueueJDBIProvider.class)
+        .in(Scopes.SINGLETON);
     } else {
       throw new IllegalStateException(
         "Unknown driver class present " + configuration.get().getDriverClass()
@@ -183,6 +192,34 @@ public class SingularityDbModule extends AbstractModule {
     }
   }
 
+  static class MySQLWebhookQueueJDBIProvider implements Provider<WebhookQueueJDBI> {
+    private final Jdbi dbi;
+
+    @Inject
+    public MySQLWebhookQueueJDBIProvider(Jdbi dbi) {
+      this.dbi = dbi;
+    }
+
+    @Override
+    public MySQLWebhookQueueJDBI get() {
+      return dbi.onDemand(MySQLWebhookQueueJDBI.class);
+    }
+  }
+
+  static class PostgresWebhookQueueJDBIProvider implements Provider<WebhookQueueJDBI> {
+    private final Jdbi dbi;
+
+    @Inject
+    public PostgresWebhookQueueJDBIProvider(Jdbi dbi) {
+      this.dbi = dbi;
+    }
+
+    @Override
+    public PostgresWebhookQueueJDBI get() {
+      return dbi.onDemand(PostgresWebhookQueueJDBI.class);
+    }
+  }
+
   // Convenience methods for determining which database is configured
   static boolean isH2(Optional<DataSourceFactory> dataSourceFactoryOptional) {
     return driverConfigured(dataSourceFactoryOptional, "org.h2.Driver");
@@ -48,6 +48,14 @@ public class SingularityHistoryModule extends AbstractModule {
       .addBinding()
       .to(SingularityMappers.SingularityRequestWithTimeMapper.class)
       .in(Scopes.SINGLETON);
+    rowMappers
+      .addBinding()
+      .to(SingularityMappers.SingularityWebhookQueueEntryMapper.class)
+      .in(Scopes.SINGLETON);
+    rowMappers
+      .addBinding()
+      .to(SingularityMappers.SingularityTaskHistoryDataMapper.class)
+      .in(Scopes.SINGLETON);
 
     Multibinder<ColumnMapper<?>> columnMappers = Multibinder.newSetBinder(
       binder(),
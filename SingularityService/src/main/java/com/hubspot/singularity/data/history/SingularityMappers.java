@@ -275,6 +275,39 @@ public class SingularityMappers {
     }
   }
 
+  static class SingularityWebhookQueueEntryMapper
+    implements RowMapper<SingularityWebhookQueueEntry> {
+
+    @Inject
+    SingularityWebhookQueueEntryMapper() {}
+
+    @Override
+    public SingularityWebhookQueueEntry map(ResultSet r, StatementContext ctx)
+      throws SQLException {
+      return new SingularityWebhookQueueEntry(
+        r.getLong("id"),
+        r.getTimestamp("createdAt").getTime(),
+        r.getBytes("bytes")
+      );
+    }
+  }
+
+  static class SingularityTaskHistoryDataMapper
+    implements RowMapper<SingularityTaskHistoryData> {
+
+    @Inject
+    SingularityTaskHistoryDataMapper() {}
+
+    @Override
+    public SingularityTaskHistoryData map(ResultSet r, StatementContext ctx)
+      throws SQLException {
+      return new SingularityTaskHistoryData(
+        r.getString("json"),
+        r.getBytes("compressedJson")
+      );
+    }
+  }
+
   public static class SingularityRequestIdCount {
     private final int count;
     private final String requestId;
@@ -300,6 +333,72 @@ public class SingularityMappers {
     }
   }
 
+  public static class SingularityWebhookQueueEntry {
+    private final long id;
+    private final long createdAt;
+    private final byte[] bytes;
+
+    public SingularityWebhookQueueEntry(long id, long createdAt, byte[] bytes) {
+      this.id = id;
+      this.createdAt = createdAt;
+      this.bytes = bytes;
+    }
+
+    public long getId() {
+      return id;
+    }
+
+    public long getCreatedAt() {
+      return createdAt;
+    }
+
+    public byte[] getBytes() {
+      return bytes;
+    }
+
+    @Override
+    public String toString() {
+      return (
+        "SingularityWebhookQueueEntry [id=" +
+        id +
+        ", createdAt=" +
+        createdAt +
+        ", bytes=" +
+        bytes.length +
+        "]"
+      );
+    }
+  }
+
+  public static class SingularityTaskHistoryData {
+    private final String json;
+    private final byte[] compressedJson;
+
+    public SingularityTaskHistoryData(String json, byte[] compressedJson) {
+      this.json = json;
+      this.compressedJson = compressedJson;
+    }
+
+    public String getJson() {
+      return json;
+    }
+
+    public byte[] getCompressedJson() {
+      return compressedJson;
+    }
+
+    @Override
+    public String toString() {
+      return (
+        "SingularityTaskHistoryData [json=" +
+        (json == null ? null : json.length()) +
+        ", compressedJson=" +
+        (compressedJson == null ? null : compressedJson.length) +
+        "]"
+      );
+    }
+  }
+
   // In Postgres "user" is a reserved word - hence we cannot use it.
   static String getUserColumn(SingularityConfiguration singularityConfiguration) {
     return SingularityDbModule.isPostgres(
@@ -1,10 +1,17 @@
 package com.hubspot.singularity.data.history;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.hubspot.mesos.JavaUtils;
 import com.hubspot.singularity.ExtendedTaskState;
 import com.hubspot.singularity.SingularityDeleteResult;
+import com.hubspot.singularity.SingularityManagedThreadPoolFactory;
 import com.hubspot.singularity.SingularityPendingDeploy;
 import com.hubspot.singularity.SingularityTaskHistory;
 import com.hubspot.singularity.SingularityTaskHistoryUpdate;
@@ -12,12 +19,17 @@ import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DeployManager;
 import com.hubspot.singularity.data.TaskManager;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import javax.inject.Singleton;
@@ -36,6 +48,12 @@ public class SingularityTaskHistoryPersister
   private final DeployManager deployManager;
   private final HistoryManager historyManager;
   private final int agentReregisterTimeoutSeconds;
+  private final int batchSize;
+  private final ExecutorService persisterExecutor;
+  private final AtomicInteger backlog;
+  private final Meter persistedMeter;
+  private final Timer batchTimer;
+  private final Histogram persistLag;
 
   @Inject
   public SingularityTaskHistoryPersister(
@@ -43,7 +61,9 @@ public class SingularityTaskHistoryPersister
     TaskManager taskManager,
     DeployManager deployManager,
     HistoryManager historyManager,
-    @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock
+    @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock,
+    SingularityManagedThreadPoolFactory threadPoolFactory,
+    MetricRegistry metrics
   ) {
     super(configuration, persisterLock);
     this.taskManager = taskManager;
@@ -51,6 +71,17 @@ public class SingularityTaskHistoryPersister
     this.deployManager = deployManager;
     this.agentReregisterTimeoutSeconds =
       configuration.getMesosConfiguration().getAgentReregisterTimeoutSeconds();
+    this.batchSize = Math.max(1, configuration.getTaskPersistBatchSize());
+    this.persisterExecutor =
+      threadPoolFactory.get(
+        "task-history-persister",
+        Math.max(1, configuration.getTaskPersistParallelism())
+      );
+    this.backlog = new AtomicInteger();
+    this.persistedMeter = metrics.meter("history.tasks.persisted");
+    this.batchTimer = metrics.timer("history.tasks.batch");
+    this.persistLag = metrics.histogram("history.tasks.lag");
+    metrics.register("history.tasks.backlog", (Gauge<Integer>) backlog::get);
   }
 
   @Override
@@ -62,29 +93,123 @@ public class SingularityTaskHistoryPersister
 
       final long start = System.currentTimeMillis();
       Map<String, List<SingularityTaskId>> inactiveTaskIdsByRequest = getInactiveTaskIdsByRequest();
-      for (Map.Entry<String, List<SingularityTaskId>> entry : inactiveTaskIdsByRequest.entrySet()) {
-        int forRequest = 0;
-        int transferred = 0;
-        for (SingularityTaskId taskId : entry.getValue()) {
-          if (moveToHistoryOrCheckForPurge(taskId, forRequest)) {
-            LOG.debug("Transferred task {}", taskId);
-            transferred++;
-          }
+      final int inactiveTaskIds = inactiveTaskIdsByRequest
+        .values()
+        .stream()
+        .mapToInt(List::size)
+        .sum();
+      backlog.set(inactiveTaskIds);
 
-          forRequest++;
+      if (!persistsHistoryInsteadOfPurging()) {
+        for (List<SingularityTaskId> taskIds : inactiveTaskIdsByRequest.values()) {
+          int forRequest = 0;
+          for (SingularityTaskId taskId : taskIds) {
+            moveToHistoryOrCheckForPurge(taskId, forRequest);
+            forRequest++;
+          }
         }
         LOG.info(
-          "Transferred {} out of {} inactive task ids in {}",
-          transferred,
-          entry.getValue().size(),
+          "Checked {} inactive task ids for purging in {}",
+          inactiveTaskIds,
           JavaUtils.duration(start)
         );
+        return;
+      }
+
+      // Requests are independent of each other, tasks within a request are still written in order
+      List<CompletableFuture<Integer>> transfers = inactiveTaskIdsByRequest
+        .values()
+        .stream()
+        .map(
+          taskIds ->
+            CompletableFuture.supplyAsync(
+              () -> persistInBatches(taskIds),
+              persisterExecutor
+            )
+        )
+        .collect(Collectors.toList());
+
+      int transferred = 0;
+      for (CompletableFuture<Integer> transfer : transfers) {
+        try {
+          transferred += transfer.join();
+        } catch (CompletionException e) {
+          LOG.error("Failed to persist task history for a request", e.getCause());
+        }
       }
+      LOG.info(
+        "Transferred {} out of {} inactive task ids across {} requests in {}",
+        transferred,
+        inactiveTaskIds,
+        inactiveTaskIdsByRequest.size(),
+        JavaUtils.duration(start)
+      );
     } finally {
       persisterLock.unlock();
     }
   }
 
+  private int persistInBatches(List<SingularityTaskId> taskIds) {
+    int transferred = 0;
+    for (List<SingularityTaskId> batch : Lists.partition(taskIds, batchSize)) {
+      try {
+        transferred += persistBatch(batch);
+      } finally {
+        backlog.addAndGet(-batch.size());
+      }
+    }
+    return transferred;
+  }
+
+  /**
+   * Writes a batch of tasks in a single database transaction and only removes them from
+   * ZooKeeper once it has committed. If the batch fails, each task is retried on its own so
+   * one bad task cannot hold back the rest of the request.
+   */
+  private int persistBatch(List<SingularityTaskId> batch) {
+    List<SingularityTaskHistory> taskHistories = new ArrayList<>(batch.size());
+    for (SingularityTaskId taskId : batch) {
+      Optional<SingularityTaskHistory> taskHistory = taskManager.getTaskHistory(taskId);
+      if (taskHistory.isPresent()) {
+        taskHistories.add(taskHistory.get());
+      } else {
+        LOG.warn("Inactive task {} did not have a task to persist", taskId);
+      }
+    }
+
+    try (Timer.Context context = batchTimer.time()) {
+      historyManager.saveTaskHistories(taskHistories);
+    } catch (Throwable t) {
+      LOG.warn(
+        "Failed to persist batch of {} tasks starting with {}, persisting them one at a time",
+        batch.size(),
+        batch.get(0),
+        t
+      );
+      int transferred = 0;
+      for (SingularityTaskId taskId : batch) {
+        if (moveToHistoryOrCheckForPurge(taskId, 0)) {
+          transferred++;
+        }
+      }
+      return transferred;
+    }
+
+    long now = System.currentTimeMillis();
+    for (SingularityTaskHistory taskHistory : taskHistories) {
+      taskHistory
+        .getLastTaskUpdate()
+        .ifPresent(update -> persistLag.update(now - update.getTimestamp()));
+    }
+    persistedMeter.mark(taskHistories.size());
+
+    for (SingularityTaskId taskId : batch) {
+      SingularityDeleteResult deleteResult = purgeFromZk(taskId);
+      LOG.debug("Persisted {} (deleted: {})", taskId, deleteResult);
+    }
+    return batch.size();
+  }
+
   private Map<String, List<SingularityTaskId>> getInactiveTaskIdsByRequest() {
     final Set<SingularityTaskId> taskIds = new HashSet<>(taskManager.getAllTaskIds());
     taskIds.removeAll(taskManager.getActiveTaskIds());
@@ -34,7 +34,10 @@ public class TaskHistoryHelper
     RequestManager requestManager,
     SingularityConfiguration configuration
   ) {
-    super(configuration.getDatabaseConfiguration().isPresent());
+    super(
+      configuration.getDatabaseConfiguration().isPresent(),
+      configuration.getHistoryCountCacheMillis()
+    );
     this.taskManager = taskManager;
     this.historyManager = historyManager;
     this.requestManager = requestManager;
@@ -107,6 +110,47 @@ public class TaskHistoryHelper
     );
   }
 
+  @Override
+  protected List<SingularityTaskIdHistory> getFromHistoryAfter(
+    SingularityTaskHistoryQuery query,
+    Optional<SingularityTaskIdHistory> after,
+    int limitCount
+  ) {
+    return historyManager.getTaskIdHistoryAfter(
+      query.getRequestId(),
+      query.getDeployId(),
+      query.getRunId(),
+      query.getHost(),
+      query.getLastTaskStatus(),
+      query.getStartedBefore(),
+      query.getStartedAfter(),
+      query.getUpdatedBefore(),
+      query.getUpdatedAfter(),
+      query.getOrderDirection(),
+      after,
+      limitCount
+    );
+  }
+
+  @Override
+  protected String toCursor(SingularityTaskIdHistory item) {
+    return item.getUpdatedAt() + ":" + item.getTaskId().getId();
+  }
+
+  @Override
+  protected SingularityTaskIdHistory fromCursor(
+    SingularityTaskHistoryQuery query,
+    String cursor
+  ) {
+    String[] parts = cursor.split(":", 2);
+    return new SingularityTaskIdHistory(
+      SingularityTaskId.valueOf(parts[1]),
+      Long.parseLong(parts[0]),
+      Optional.empty(),
+      Optional.empty()
+    );
+  }
+
   public Optional<SingularityTask> getTask(SingularityTaskId taskId) {
     Optional<SingularityTask> maybeTask = taskManager.getTask(taskId);
 
@@ -114,7 +158,7 @@ public class TaskHistoryHelper
       return maybeTask;
     }
 
-    Optional<SingularityTaskHistory> history = historyManager.getTaskHistory(
+    Optional<SingularityTaskHistory> history = historyManager.getTaskHistorySummary(
       taskId.getId()
     );
 
@@ -134,22 +178,8 @@ public class TaskHistoryHelper
       }
     }
 
-    Optional<SingularityTaskHistory> history = historyManager.getTaskHistoryByRunId(
-      requestId,
-      runId
-    );
-
-    if (history.isPresent()) {
-      return Optional.of(
-        SingularityTaskIdHistory.fromTaskIdAndTaskAndUpdates(
-          history.get().getTask().getTaskId(),
-          history.get().getTask(),
-          history.get().getTaskUpdates()
-        )
-      );
-    }
-
-    return Optional.empty();
+    // Every field of the id history is stored in its own column, no need to decode the task
+    return historyManager.getTaskIdHistoryByRunId(requestId, runId);
   }
 
   @Override
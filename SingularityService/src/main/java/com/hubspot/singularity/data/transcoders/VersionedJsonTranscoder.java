@@ -0,0 +1,70 @@
+package com.hubspot.singularity.data.transcoders;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.iq80.snappy.CorruptionException;
+import org.iq80.snappy.Snappy;
+
+/**
+ * Stores objects as Snappy compressed JSON behind a leading format version byte, so
+ * stored values can move to a different encoding later without rewriting old ones.
+ */
+public class VersionedJsonTranscoder<T> implements Transcoder<T> {
+  static final byte SNAPPY_JSON_V1 = 1;
+
+  private static final byte[] EMPTY_BYTES = new byte[0];
+
+  private final ObjectMapper objectMapper;
+  private final Class<T> clazz;
+
+  public VersionedJsonTranscoder(final ObjectMapper objectMapper, final Class<T> clazz) {
+    this.objectMapper = checkNotNull(objectMapper, "objectMapper is null");
+    this.clazz = checkNotNull(clazz, "clazz is null");
+  }
+
+  @Override
+  public T fromBytes(@Nullable byte[] data) throws SingularityTranscoderException {
+    if (data == null || data.length == 0) {
+      return null;
+    }
+
+    switch (data[0]) {
+      case SNAPPY_JSON_V1:
+        try {
+          return objectMapper.readValue(
+            Snappy.uncompress(data, 1, data.length - 1),
+            clazz
+          );
+        } catch (CorruptionException | IOException e) {
+          throw new SingularityTranscoderException(e);
+        }
+      default:
+        throw new SingularityTranscoderException(
+          "Unknown format version %s for %s",
+          data[0],
+          clazz.getSimpleName()
+        );
+    }
+  }
+
+  @Override
+  public byte[] toBytes(@Nullable T object) throws SingularityTranscoderException {
+    if (object == null) {
+      return EMPTY_BYTES;
+    }
+
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(object);
+      byte[] compressed = new byte[1 + Snappy.maxCompressedLength(json.length)];
+      compressed[0] = SNAPPY_JSON_V1;
+      int length = Snappy.compress(json, 0, json.length, compressed, 1);
+      return Arrays.copyOf(compressed, length + 1);
+    } catch (IOException e) {
+      throw new SingularityTranscoderException(e);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package com.hubspot.singularity.data.usage;
+
+import com.hubspot.singularity.SingularityTaskUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The most recent usage samples of a single task, oldest first, kept in fixed size
+ * primitive arrays so the leader can hold a time series for every active task without
+ * an object per sample.
+ */
+class TaskUsageRingBuffer {
+  private final long[] timestamps;
+  private final long[] memoryTotalBytes;
+  private final double[] cpuSeconds;
+  private final long[] diskTotalBytes;
+  private final long[] cpusNrPeriods;
+  private final long[] cpusNrThrottled;
+  private final double[] cpusThrottledTimeSecs;
+
+  private int start;
+  private int size;
+  private long lastCheckpointTimestamp;
+
+  TaskUsageRingBuffer(int capacity) {
+    this.timestamps = new long[capacity];
+    this.memoryTotalBytes = new long[capacity];
+    this.cpuSeconds = new double[capacity];
+    this.diskTotalBytes = new long[capacity];
+    this.cpusNrPeriods = new long[capacity];
+    this.cpusNrThrottled = new long[capacity];
+    this.cpusThrottledTimeSecs = new double[capacity];
+  }
+
+  static TaskUsageRingBuffer of(int capacity, List<SingularityTaskUsage> usages) {
+    TaskUsageRingBuffer buffer = new TaskUsageRingBuffer(Math.max(capacity, 1));
+    usages
+      .stream()
+      .sorted(TaskUsageManager.TASK_USAGE_COMPARATOR_TIMESTAMP_ASC)
+      .forEach(buffer::add);
+    if (buffer.size > 0) {
+      buffer.lastCheckpointTimestamp = buffer.timestamps[buffer.index(buffer.size - 1)];
+    }
+    return buffer;
+  }
+
+  /**
+   * Samples must arrive in timestamp order. A sample with the same timestamp as the
+   * newest one replaces it, an older sample is ignored.
+   */
+  synchronized void add(SingularityTaskUsage usage) {
+    int i;
+    if (size > 0 && usage.getTimestamp() <= timestamps[index(size - 1)]) {
+      if (usage.getTimestamp() < timestamps[index(size - 1)]) {
+        return;
+      }
+      i = index(size - 1);
+    } else if (size < timestamps.length) {
+      i = index(size);
+      size++;
+    } else {
+      i = start;
+      start = (start + 1) % timestamps.length;
+    }
+
+    timestamps[i] = usage.getTimestamp();
+    memoryTotalBytes[i] = usage.getMemoryTotalBytes();
+    cpuSeconds[i] = usage.getCpuSeconds();
+    diskTotalBytes[i] = usage.getDiskTotalBytes();
+    cpusNrPeriods[i] = usage.getCpusNrPeriods();
+    cpusNrThrottled[i] = usage.getCpusNrThrottled();
+    cpusThrottledTimeSecs[i] = usage.getCpusThrottledTimeSecs();
+  }
+
+  /**
+   * @return true, and records the checkpoint, if a sample at this timestamp should be
+   * written to durable storage
+   */
+  synchronized boolean shouldCheckpoint(long timestamp, long checkpointIntervalMillis) {
+    if (
+      lastCheckpointTimestamp > 0 &&
+      timestamp - lastCheckpointTimestamp < checkpointIntervalMillis
+    ) {
+      return false;
+    }
+    lastCheckpointTimestamp = timestamp;
+    return true;
+  }
+
+  synchronized List<SingularityTaskUsage> toList() {
+    List<SingularityTaskUsage> usages = new ArrayList<>(size);
+    for (int n = 0; n < size; n++) {
+      int i = index(n);
+      usages.add(
+        new SingularityTaskUsage(
+          memoryTotalBytes[i],
+          timestamps[i],
+          cpuSeconds[i],
+          diskTotalBytes[i],
+          cpusNrPeriods[i],
+          cpusNrThrottled[i],
+          cpusThrottledTimeSecs[i]
+        )
+      );
+    }
+    return usages;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  private int index(int n) {
+    return (start + n) % timestamps.length;
+  }
+}
@@ -15,9 +15,12 @@ import com.hubspot.singularity.data.CuratorAsyncManager;
 import com.hubspot.singularity.data.SingularityWebCache;
 import com.hubspot.singularity.data.transcoders.Transcoder;
 import com.hubspot.singularity.scheduler.SingularityLeaderCache;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.curator.framework.CuratorFramework;
@@ -37,6 +40,7 @@ public class UsageManager extends CuratorAsyncManager implements TaskUsageManage
   private final SingularityWebCache webCache;
   private final SingularityLeaderCache leaderCache;
   private final TaskUsageManager taskUsageManager;
+  private final Map<SingularityTaskId, TaskUsageRingBuffer> taskUsageBuffers;
 
   @Inject
   public UsageManager(
@@ -54,12 +58,14 @@ public class UsageManager extends CuratorAsyncManager implements TaskUsageManage
     this.webCache = webCache;
     this.leaderCache = leaderCache;
     this.taskUsageManager = taskUsageManager;
+    this.taskUsageBuffers = new ConcurrentHashMap<>();
     this.slaveUsageTranscoder = slaveUsageTranscoder;
     this.clusterUtilizationTranscoder = clusterUtilizationTranscoder;
     this.requestUtilizationTranscoder = requestUtilizationTranscoder;
   }
 
   public void activateLeaderCache() {
+    taskUsageBuffers.clear();
     leaderCache.cacheRequestUtilizations(getRequestUtilizations(false));
     leaderCache.cacheSlaveUsages(getAllCurrentSlaveUsage());
   }
@@ -181,7 +187,10 @@ public class UsageManager extends CuratorAsyncManager implements TaskUsageManage
   }
 
   // Task Usage
+  // While the leader cache is active, the recent usage of each task is served from memory
+  // and durable storage only receives periodic checkpoints
   public void deleteTaskUsage(SingularityTaskId taskId) {
+    taskUsageBuffers.remove(taskId);
     taskUsageManager.deleteTaskUsage(taskId);
   }
 
@@ -193,18 +202,58 @@ public class UsageManager extends CuratorAsyncManager implements TaskUsageManage
     SingularityTaskId taskId,
     SingularityTaskUsage usage
   ) {
-    taskUsageManager.saveSpecificTaskUsage(taskId, usage);
+    if (!leaderCache.active()) {
+      taskUsageManager.saveSpecificTaskUsage(taskId, usage);
+      return;
+    }
+
+    TaskUsageRingBuffer buffer = getTaskUsageBuffer(taskId);
+    buffer.add(usage);
+    if (
+      buffer.shouldCheckpoint(
+        usage.getTimestamp(),
+        configuration.getTaskUsageCheckpointIntervalMillis()
+      )
+    ) {
+      taskUsageManager.saveSpecificTaskUsage(taskId, usage);
+    }
   }
 
   public List<SingularityTaskUsage> getTaskUsage(SingularityTaskId taskId) {
-    return taskUsageManager.getTaskUsage(taskId);
+    if (!leaderCache.active()) {
+      return taskUsageManager.getTaskUsage(taskId);
+    }
+    return getTaskUsageBuffer(taskId).toList();
+  }
+
+  private TaskUsageRingBuffer getTaskUsageBuffer(SingularityTaskId taskId) {
+    TaskUsageRingBuffer buffer = taskUsageBuffers.get(taskId);
+    if (buffer != null) {
+      return buffer;
+    }
+    buffer =
+      TaskUsageRingBuffer.of(
+        configuration.getNumUsageToKeep(),
+        taskUsageManager.getTaskUsage(taskId)
+      );
+    TaskUsageRingBuffer existing = taskUsageBuffers.putIfAbsent(taskId, buffer);
+    return existing != null ? existing : buffer;
   }
 
   public int countTasksWithUsage() {
+    if (leaderCache.active()) {
+      return (int) taskUsageBuffers
+        .values()
+        .stream()
+        .filter(buffer -> buffer.size() > 0)
+        .count();
+    }
     return taskUsageManager.countTasksWithUsage();
   }
 
   public void cleanOldUsages(List<SingularityTaskId> activeTaskIds) {
+    Set<SingularityTaskId> activeTaskIdSet = new HashSet<>(activeTaskIds);
+    taskUsageBuffers.keySet().retainAll(activeTaskIdSet);
     taskUsageManager.cleanOldUsages(activeTaskIds);
   }
 }
@@ -0,0 +1,73 @@
+package com.hubspot.singularity.data.webhooks;
+
+import com.hubspot.singularity.data.history.SingularityMappers.SingularityWebhookQueueEntry;
+import java.util.Date;
+import java.util.List;
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+public interface MySQLWebhookQueueJDBI extends WebhookQueueJDBI {
+  @SqlUpdate(
+    "INSERT INTO webhookUpdates (type, createdAt, bytes) VALUES (:type, :createdAt, :bytes)"
+  )
+  void appendUpdate(
+    @Bind("type") String type,
+    @Bind("createdAt") Date createdAt,
+    @Bind("bytes") byte[] bytes
+  );
+
+  @SqlQuery(
+    "SELECT id, createdAt, bytes FROM webhookUpdates WHERE type = :type AND id > :afterId ORDER BY id ASC LIMIT :limit"
+  )
+  List<SingularityWebhookQueueEntry> getUpdatesAfter(
+    @Bind("type") String type,
+    @Bind("afterId") long afterId,
+    @Bind("limit") int limit
+  );
+
+  @SqlQuery("SELECT COUNT(*) FROM webhookUpdates WHERE type = :type AND id > :afterId")
+  int countUpdatesAfter(@Bind("type") String type, @Bind("afterId") long afterId);
+
+  @SqlQuery(
+    "SELECT COUNT(*) FROM webhookUpdates WHERE id > :afterId AND id \\<= :throughId"
+  )
+  int countUpdatesBetween(
+    @Bind("afterId") long afterId,
+    @Bind("throughId") long throughId
+  );
+
+  @SqlQuery(
+    "SELECT COALESCE(MAX(id), 0) AS timestamp FROM webhookUpdates WHERE type = :type AND createdAt \\< :createdAt"
+  )
+  Long getLastIdCreatedBefore(
+    @Bind("type") String type,
+    @Bind("createdAt") Date createdAt
+  );
+
+  @SqlQuery("SELECT lastId AS timestamp FROM webhookOffsets WHERE webhookId = :webhookId")
+  List<Long> getOffset(@Bind("webhookId") String webhookId);
+
+  @SqlUpdate("UPDATE webhookOffsets SET lastId = :lastId WHERE webhookId = :webhookId")
+  int updateOffset(@Bind("webhookId") String webhookId, @Bind("lastId") long lastId);
+
+  @SqlUpdate(
+    "INSERT INTO webhookOffsets (webhookId, lastId) VALUES (:webhookId, :lastId)"
+  )
+  void insertOffset(@Bind("webhookId") String webhookId, @Bind("lastId") long lastId);
+
+  @SqlQuery("SELECT webhookId AS id FROM webhookOffsets")
+  List<String> getWebhookIdsWithOffsets();
+
+  @SqlUpdate("DELETE FROM webhookOffsets WHERE webhookId = :webhookId")
+  void deleteOffset(@Bind("webhookId") String webhookId);
+
+  @SqlUpdate(
+    "DELETE FROM webhookUpdates WHERE type = :type AND id \\<= :lastId LIMIT :limit"
+  )
+  int deleteUpdatesThrough(
+    @Bind("type") String type,
+    @Bind("lastId") long lastId,
+    @Bind("limit") int limit
+  );
+}
@@ -0,0 +1,492 @@
+package com.hubspot.singularity.data.webhooks;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.hubspot.singularity.CrashLoopInfo;
+import com.hubspot.singularity.SingularityDeleteResult;
+import com.hubspot.singularity.SingularityDeployUpdate;
+import com.hubspot.singularity.SingularityRequestHistory;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.SingularityTaskWebhook;
+import com.hubspot.singularity.SingularityWebhook;
+import com.hubspot.singularity.SingularityWebhookSummary;
+import com.hubspot.singularity.WebhookType;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.data.WebhookQueueStore;
+import com.hubspot.singularity.data.history.SingularityMappers.SingularityWebhookQueueEntry;
+import com.hubspot.singularity.data.transcoders.Transcoder;
+import com.hubspot.singularity.event.SingularityEventSender;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Webhook queue kept as an append-only log in the history database. Each update is
+ * written once per webhook type instead of once per webhook, and every webhook keeps
+ * the id of the last update it has consumed. Updates are purged once every webhook
+ * of their type has moved past them.
+ *
+ * Ids are assigned when an insert starts, but concurrent inserts can become visible in a
+ * different order. Every type shares one id sequence, so a webhook only reads on past an
+ * id missing from its own type once every id below the last update it read is known to
+ * exist as an update of any type or to have been purged, or once a read made after the
+ * visibility grace period has shown that nothing else will appear below it. Updates that
+ * have been read past are not read again unless an older one still needs to be resent.
+ */
+@Singleton
+public class SqlWebhookQueue implements SingularityEventSender, WebhookQueueStore {
+  private static final Logger LOG = LoggerFactory.getLogger(SqlWebhookQueue.class);
+
+  private static final int PURGE_BATCH_SIZE = 1000;
+
+  private final WebhookQueueJDBI webhookQueueJDBI;
+  private final WebhookManager webhookManager;
+  private final SingularityConfiguration configuration;
+  private final long visibilityGraceMillis;
+  private final Transcoder<SingularityRequestHistory> requestHistoryTranscoder;
+  private final Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder;
+  private final Transcoder<SingularityDeployUpdate> deployWebhookTranscoder;
+  private final Transcoder<CrashLoopInfo> crashLoopUpdateTranscoder;
+
+  private final Map<String, ConsumerOffset> offsets;
+
+  // No update above this id has been purged, so ids missing below it will never appear
+  private volatile long purgedThroughId;
+
+  @Inject
+  public SqlWebhookQueue(
+    WebhookQueueJDBI webhookQueueJDBI,
+    WebhookManager webhookManager,
+    SingularityConfiguration configuration,
+    Transcoder<SingularityRequestHistory> requestHistoryTranscoder,
+    Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder,
+    Transcoder<SingularityDeployUpdate> deployWebhookTranscoder,
+    Transcoder<CrashLoopInfo> crashLoopUpdateTranscoder
+  ) {
+    this.webhookQueueJDBI = webhookQueueJDBI;
+    this.webhookManager = webhookManager;
+    this.configuration = configuration;
+    this.visibilityGraceMillis =
+      configuration.getWebhookQueueConfiguration().getSqlVisibilityGraceMillis();
+    this.requestHistoryTranscoder = requestHistoryTranscoder;
+    this.taskHistoryUpdateTranscoder = taskHistoryUpdateTranscoder;
+    this.deployWebhookTranscoder = deployWebhookTranscoder;
+    this.crashLoopUpdateTranscoder = crashLoopUpdateTranscoder;
+    this.offsets = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public void requestHistoryEvent(SingularityRequestHistory requestUpdate) {
+    append(WebhookType.REQUEST, requestHistoryTranscoder.toBytes(requestUpdate));
+  }
+
+  @Override
+  public void taskWebhookEvent(SingularityTaskWebhook taskWebhook) {
+    append(
+      WebhookType.TASK,
+      taskHistoryUpdateTranscoder.toBytes(taskWebhook.getTaskUpdate())
+    );
+  }
+
+  @Override
+  public void deployHistoryEvent(SingularityDeployUpdate deployUpdate) {
+    append(WebhookType.DEPLOY, deployWebhookTranscoder.toBytes(deployUpdate));
+  }
+
+  @Override
+  public void crashLoopEvent(CrashLoopInfo crashLoopUpdate) {
+    append(WebhookType.CRASHLOOP, crashLoopUpdateTranscoder.toBytes(crashLoopUpdate));
+  }
+
+  private void append(WebhookType type, byte[] bytes) {
+    if (!webhookManager.getActiveWebhooksByType(type).iterator().hasNext()) {
+      return;
+    }
+    webhookQueueJDBI.appendUpdate(type.name(), new Date(), bytes);
+  }
+
+  @Override
+  public List<SingularityRequestHistory> getQueuedRequestHistoryForHook(
+    String webhookId
+  ) {
+    return getQueued(
+      webhookId,
+      requestHistoryTranscoder,
+      WebhookManager::getRequestHistoryUpdateId
+    );
+  }
+
+  @Override
+  public List<SingularityTaskHistoryUpdate> getQueuedTaskUpdatesForHook(
+    String webhookId
+  ) {
+    return getQueued(
+      webhookId,
+      taskHistoryUpdateTranscoder,
+      WebhookManager::getTaskHistoryUpdateId
+    );
+  }
+
+  @Override
+  public List<SingularityDeployUpdate> getQueuedDeployUpdatesForHook(String webhookId) {
+    return getQueued(
+      webhookId,
+      deployWebhookTranscoder,
+      WebhookManager::getDeployUpdateId
+    );
+  }
+
+  @Override
+  public List<CrashLoopInfo> getQueuedCrashLoopUpdatesForHook(String webhookId) {
+    return getQueued(
+      webhookId,
+      crashLoopUpdateTranscoder,
+      WebhookManager::getCrashLoopUpdateId
+    );
+  }
+
+  private <T> List<T> getQueued(
+    String webhookId,
+    Transcoder<T> transcoder,
+    Function<T, String> updateIdFunction
+  ) {
+    Optional<ConsumerOffset> maybeOffset = getOffset(webhookId);
+    if (!maybeOffset.isPresent()) {
+      return Collections.emptyList();
+    }
+    ConsumerOffset offset = maybeOffset.get();
+
+    long readAt = System.currentTimeMillis();
+    long readAfterId = offset.getReadAfterId();
+    List<SingularityWebhookQueueEntry> entries = webhookQueueJDBI.getUpdatesAfter(
+      offset.type.name(),
+      readAfterId,
+      configuration.getMaxUpdatesPerWebhookCheck()
+    );
+    if (entries.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<T> updates = new ArrayList<>(entries.size());
+    long settledId = readAfterId;
+    for (SingularityWebhookQueueEntry entry : entries) {
+      T update = transcoder.fromBytes(entry.getBytes());
+      if (offset.read(updateIdFunction.apply(update), entry.getId())) {
+        updates.add(update);
+      }
+      if (readAt - entry.getCreatedAt() >= visibilityGraceMillis) {
+        settledId = entry.getId();
+      }
+    }
+
+    long lastId = entries.get(entries.size() - 1).getId();
+    if (settledId < lastId && isContiguous(readAfterId, lastId)) {
+      settledId = lastId;
+    }
+    offset.readThrough(settledId);
+    return updates;
+  }
+
+  /**
+   * Whether every id after afterId through throughId belongs to an update of any type or
+   * has been purged, so no insert below throughId can still become visible
+   */
+  private boolean isContiguous(long afterId, long throughId) {
+    long from = Math.max(afterId, purgedThroughId);
+    return (
+      from >= throughId ||
+      webhookQueueJDBI.countUpdatesBetween(from, throughId) == throughId - from
+    );
+  }
+
+  @Override
+  public SingularityDeleteResult deleteRequestUpdate(
+    SingularityWebhook webhook,
+    SingularityRequestHistory requestUpdate
+  ) {
+    return ack(webhook, WebhookManager.getRequestHistoryUpdateId(requestUpdate));
+  }
+
+  @Override
+  public SingularityDeleteResult deleteTaskUpdate(
+    SingularityWebhook webhook,
+    SingularityTaskHistoryUpdate taskUpdate
+  ) {
+    return ack(webhook, WebhookManager.getTaskHistoryUpdateId(taskUpdate));
+  }
+
+  @Override
+  public SingularityDeleteResult deleteDeployUpdate(
+    SingularityWebhook webhook,
+    SingularityDeployUpdate deployUpdate
+  ) {
+    return ack(webhook, WebhookManager.getDeployUpdateId(deployUpdate));
+  }
+
+  @Override
+  public SingularityDeleteResult deleteCrashLoopUpdate(
+    SingularityWebhook webhook,
+    CrashLoopInfo crashLoopUpdate
+  ) {
+    return ack(webhook, WebhookManager.getCrashLoopUpdateId(crashLoopUpdate));
+  }
+
+  private SingularityDeleteResult ack(SingularityWebhook webhook, String updateId) {
+    ConsumerOffset offset = offsets.get(webhook.getId());
+    if (offset == null) {
+      return SingularityDeleteResult.DIDNT_EXIST;
+    }
+    return offset.ack(updateId);
+  }
+
+  @Override
+  public List<SingularityWebhookSummary> getWebhooksWithQueueSize() {
+    List<SingularityWebhookSummary> webhooks = new ArrayList<>();
+    for (SingularityWebhook webhook : webhookManager.getActiveWebhooksUncached()) {
+      // Read from the database, only the leader's offsets are kept up to date in memory
+      long committedId = loadCommittedId(webhook);
+      webhooks.add(
+        new SingularityWebhookSummary(
+          webhook,
+          webhookQueueJDBI.countUpdatesAfter(webhook.getType().name(), committedId)
+        )
+      );
+    }
+    return webhooks;
+  }
+
+  @Override
+  public void commitDeliveredUpdates() {
+    Set<String> activeWebhookIds = new HashSet<>();
+    Map<WebhookType, Long> purgeThroughIds = new HashMap<>();
+    for (WebhookType type : WebhookType.values()) {
+      for (SingularityWebhook webhook : webhookManager.getActiveWebhooksByType(type)) {
+        activeWebhookIds.add(webhook.getId());
+        ConsumerOffset offset = refreshOffset(webhook);
+        offset.commit();
+        purgeThroughIds.merge(type, offset.getCommittedId(), Math::min);
+      }
+    }
+
+    // Updates of a type without webhooks are only purged as far as the others, so no id
+    // above purgedThroughId goes missing
+    long maxPurgeThroughId = purgeThroughIds
+      .values()
+      .stream()
+      .mapToLong(Long::longValue)
+      .max()
+      .orElse(Long.MAX_VALUE);
+    if (!purgeThroughIds.isEmpty()) {
+      purgedThroughId = Math.max(purgedThroughId, maxPurgeThroughId);
+    }
+    for (WebhookType type : WebhookType.values()) {
+      purgeThrough(type, purgeThroughIds.getOrDefault(type, maxPurgeThroughId));
+    }
+
+    for (String webhookId : webhookQueueJDBI.getWebhookIdsWithOffsets()) {
+      if (!activeWebhookIds.contains(webhookId)) {
+        LOG.info("Removing offset for deleted webhook {}", webhookId);
+        webhookQueueJDBI.deleteOffset(webhookId);
+      }
+    }
+    offsets.keySet().retainAll(activeWebhookIds);
+  }
+
+  private void purgeThrough(WebhookType type, long lastId) {
+    int deleted;
+    int total = 0;
+    do {
+      deleted =
+        webhookQueueJDBI.deleteUpdatesThrough(type.name(), lastId, PURGE_BATCH_SIZE);
+      total += deleted;
+    } while (deleted == PURGE_BATCH_SIZE);
+
+    if (total > 0) {
+      LOG.debug("Purged {} delivered {} webhook updates", total, type);
+    }
+  }
+
+  private Optional<ConsumerOffset> getOffset(String webhookId) {
+    ConsumerOffset offset = offsets.get(webhookId);
+    if (offset != null) {
+      return Optional.of(offset);
+    }
+    for (WebhookType type : WebhookType.values()) {
+      for (SingularityWebhook webhook : webhookManager.getActiveWebhooksByType(type)) {
+        if (webhook.getId().equals(webhookId)) {
+          return Optional.of(getOffset(webhook));
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  private ConsumerOffset getOffset(SingularityWebhook webhook) {
+    return offsets.computeIfAbsent(webhook.getId(), id -> loadOffset(webhook));
+  }
+
+  /**
+   * Replaces the offset kept in memory if another instance has committed past it since,
+   * which happens when leadership moved away and back
+   */
+  private ConsumerOffset refreshOffset(SingularityWebhook webhook) {
+    return offsets.compute(
+      webhook.getId(),
+      (id, existing) -> {
+        if (existing == null) {
+          return loadOffset(webhook);
+        }
+        List<Long> stored = webhookQueueJDBI.getOffset(id);
+        if (!stored.isEmpty() && existing.isBehind(stored.get(0))) {
+          LOG.info("Offset for webhook {} moved to {} elsewhere", id, stored.get(0));
+          return new ConsumerOffset(id, webhook.getType(), stored.get(0), true);
+        }
+        return existing;
+      }
+    );
+  }
+
+  private ConsumerOffset loadOffset(SingularityWebhook webhook) {
+    List<Long> stored = webhookQueueJDBI.getOffset(webhook.getId());
+    if (!stored.isEmpty()) {
+      return new ConsumerOffset(webhook.getId(), webhook.getType(), stored.get(0), true);
+    }
+    return new ConsumerOffset(
+      webhook.getId(),
+      webhook.getType(),
+      getStartId(webhook),
+      false
+    );
+  }
+
+  private long loadCommittedId(SingularityWebhook webhook) {
+    List<Long> stored = webhookQueueJDBI.getOffset(webhook.getId());
+    return stored.isEmpty() ? getStartId(webhook) : stored.get(0);
+  }
+
+  private long getStartId(SingularityWebhook webhook) {
+    // A new webhook only receives updates from after it was created
+    return webhookQueueJDBI.getLastIdCreatedBefore(
+      webhook.getType().name(),
+      new Date(webhook.getTimestamp())
+    );
+  }
+
+  /**
+   * Read position of a single webhook. Reads continue after the last update that every
+   * older update is known to be visible below, or from the oldest update that has been
+   * read but not acknowledged so it is resent. Updates can be acknowledged out of order,
+   * so the offset only moves up to the oldest one that is still unacknowledged.
+   */
+  private class ConsumerOffset {
+    private final String webhookId;
+    private final WebhookType type;
+    private final Map<String, Long> pending;
+    private final TreeSet<Long> acked;
+
+    private long committedId;
+    private long readThroughId;
+    private boolean persisted;
+    private long persistedId;
+
+    ConsumerOffset(
+      String webhookId,
+      WebhookType type,
+      long committedId,
+      boolean persisted
+    ) {
+      this.webhookId = webhookId;
+      this.type = type;
+      this.pending = new HashMap<>();
+      this.acked = new TreeSet<>();
+      this.committedId = committedId;
+      this.readThroughId = committedId;
+      this.persisted = persisted;
+      this.persistedId = committedId;
+    }
+
+    synchronized long getCommittedId() {
+      return committedId;
+    }
+
+    synchronized long getReadAfterId() {
+      return Math.min(readThroughId, getOldestPendingId() - 1);
+    }
+
+    synchronized boolean isBehind(long storedId) {
+      return storedId > Math.max(committedId, persistedId);
+    }
+
+    /**
+     * @return false if this update was already acknowledged and should not be sent again
+     */
+    synchronized boolean read(String updateId, long id) {
+      if (acked.contains(id)) {
+        return false;
+      }
+      pending.put(updateId, id);
+      return true;
+    }
+
+    /**
+     * @param id an update every lower id is visible or will never appear below
+     */
+    synchronized void readThrough(long id) {
+      readThroughId = Math.max(readThroughId, id);
+    }
+
+    synchronized SingularityDeleteResult ack(String updateId) {
+      Long id = pending.remove(updateId);
+      if (id == null) {
+        return SingularityDeleteResult.DIDNT_EXIST;
+      }
+      acked.add(id);
+      return SingularityDeleteResult.DELETED;
+    }
+
+    void commit() {
+      long toPersist;
+      synchronized (this) {
+        // Every update of this type up to readThroughId has been read, and is either
+        // acknowledged or pending
+        committedId =
+          Math.max(committedId, Math.min(readThroughId, getOldestPendingId() - 1));
+        acked.headSet(committedId, true).clear();
+        if (persisted && persistedId == committedId) {
+          return;
+        }
+        toPersist = committedId;
+      }
+
+      if (webhookQueueJDBI.updateOffset(webhookId, toPersist) == 0) {
+        webhookQueueJDBI.insertOffset(webhookId, toPersist);
+      }
+
+      synchronized (this) {
+        persisted = true;
+        persistedId = toPersist;
+      }
+    }
+
+    private long getOldestPendingId() {
+      return pending
+        .values()
+        .stream()
+        .mapToLong(Long::longValue)
+        .min()
+        .orElse(Long.MAX_VALUE);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.hubspot.singularity.data.webhooks;
+
+import com.hubspot.singularity.data.history.SingularityMappers.SingularityWebhookQueueEntry;
+import java.util.Date;
+import java.util.List;
+
+public interface WebhookQueueJDBI {
+  void appendUpdate(String type, Date createdAt, byte[] bytes);
+
+  List<SingularityWebhookQueueEntry> getUpdatesAfter(
+    String type,
+    long afterId,
+    int limit
+  );
+
+  int countUpdatesAfter(String type, long afterId);
+
+  int countUpdatesBetween(long afterId, long throughId);
+
+  Long getLastIdCreatedBefore(String type, Date createdAt);
+
+  List<Long> getOffset(String webhookId);
+
+  int updateOffset(String webhookId, long lastId);
+
+  void insertOffset(String webhookId, long lastId);
+
+  List<String> getWebhookIdsWithOffsets();
+
+  void deleteOffset(String webhookId);
+
+  int deleteUpdatesThrough(String type, long lastId, int limit);
+}
@@ -28,17 +28,22 @@ public class SingularityEventController implements SingularityEventListener {
   );
 
   private final Set<SingularityEventSender> eventListeners;
+  // Appended to on the publishing thread rather than the listener pool, so the feed
+  // sequences events in the order they happened
+  private final SingularityEventFeed eventFeed;
   private final ListeningExecutorService listenerExecutorService;
   private final boolean waitForListeners;
 
   @Inject
   SingularityEventController(
     final Set<SingularityEventSender> eventListeners,
+    final SingularityEventFeed eventFeed,
     final SingularityConfiguration configuration,
     final SingularityManagedScheduledExecutorServiceFactory scheduledExecutorServiceFactory
   ) {
     this.eventListeners =
       ImmutableSet.copyOf(checkNotNull(eventListeners, "eventListeners is null"));
+    this.eventFeed = checkNotNull(eventFeed, "eventFeed is null");
     this.listenerExecutorService =
       MoreExecutors.listeningDecorator(
         checkNotNull(
@@ -56,6 +61,8 @@ public class SingularityEventController implements SingularityEventListener {
   public void requestHistoryEvent(
     final SingularityRequestHistory singularityRequestHistory
   ) {
+    eventFeed.requestHistoryEvent(singularityRequestHistory);
+
     ImmutableSet.Builder<ListenableFuture<Void>> builder = ImmutableSet.builder();
 
     for (final SingularityEventSender eventListener : eventListeners) {
@@ -80,6 +87,8 @@ public class SingularityEventController implements SingularityEventListener {
   public void taskHistoryUpdateEvent(
     final SingularityTaskWebhook singularityTaskWebhook
   ) {
+    eventFeed.taskWebhookEvent(singularityTaskWebhook);
+
     ImmutableSet.Builder<ListenableFuture<Void>> builder = ImmutableSet.builder();
 
     for (final SingularityEventSender eventListener : eventListeners) {
@@ -102,6 +111,8 @@ public class SingularityEventController implements SingularityEventListener {
 
   @Override
   public void deployHistoryEvent(final SingularityDeployUpdate singularityDeployUpdate) {
+    eventFeed.deployHistoryEvent(singularityDeployUpdate);
+
     ImmutableSet.Builder<ListenableFuture<Void>> builder = ImmutableSet.builder();
 
     for (final SingularityEventSender eventListener : eventListeners) {
@@ -124,6 +135,8 @@ public class SingularityEventController implements SingularityEventListener {
 
   @Override
   public void crashLoopEvent(final CrashLoopInfo crashLoopUpdate) {
+    eventFeed.crashLoopEvent(crashLoopUpdate);
+
     ImmutableSet.Builder<ListenableFuture<Void>> builder = ImmutableSet.builder();
 
     for (final SingularityEventSender eventListener : eventListeners) {
@@ -0,0 +1,190 @@
+package com.hubspot.singularity.event;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.hubspot.singularity.CrashLoopInfo;
+import com.hubspot.singularity.SingularityDeployUpdate;
+import com.hubspot.singularity.SingularityEvent;
+import com.hubspot.singularity.SingularityEventPage;
+import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
+import com.hubspot.singularity.SingularityManagedThreadPoolFactory;
+import com.hubspot.singularity.SingularityRequestHistory;
+import com.hubspot.singularity.SingularityTaskWebhook;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongFunction;
+
+/**
+ * Keeps the most recent eventFeedSize request, task and deploy events in a ring buffer,
+ * numbered by a sequence that increases by one per event. Clients load a snapshot of the
+ * data they care about once, then follow the feed from the sequence they started at.
+ * Sequences start from the time this instance started, so a client following a previous
+ * leader is told to reset rather than being handed unrelated events. The feed is not one
+ * of the pooled event listeners, SingularityEventController appends to it on the thread
+ * that published the event, so sequences follow the order events happened in. Waiting
+ * clients are completed on their own pool, so writing their responses never holds up the
+ * thread that published the event.
+ */
+@Singleton
+public class SingularityEventFeed implements SingularityEventSender {
+  private final SingularityEvent[] events;
+  private final List<Waiter> waiters;
+  private final ScheduledExecutorService timeoutExecutor;
+  private final ExecutorService completionExecutor;
+  private final long maxWaitMillis;
+  private final long firstSequence;
+  private long lastSequence;
+
+  @Inject
+  public SingularityEventFeed(
+    SingularityConfiguration configuration,
+    SingularityManagedScheduledExecutorServiceFactory scheduledExecutorServiceFactory,
+    SingularityManagedThreadPoolFactory threadPoolFactory
+  ) {
+    this.events = new SingularityEvent[Math.max(1, configuration.getEventFeedSize())];
+    this.waiters = new ArrayList<>();
+    this.timeoutExecutor = scheduledExecutorServiceFactory.get("event-feed", 1);
+    // Waiters completed by an event cancel their timeout, drop it rather than keep it queued
+    if (timeoutExecutor instanceof ScheduledThreadPoolExecutor) {
+      ((ScheduledThreadPoolExecutor) timeoutExecutor).setRemoveOnCancelPolicy(true);
+    }
+    this.completionExecutor =
+      threadPoolFactory.get("event-feed-waiters", configuration.getCoreThreadpoolSize());
+    this.maxWaitMillis = configuration.getEventFeedMaxWaitMillis();
+    this.lastSequence = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    this.firstSequence = lastSequence + 1;
+  }
+
+  @Override
+  public void requestHistoryEvent(SingularityRequestHistory singularityRequestHistory) {
+    append(
+      sequence -> SingularityEvent.requestEvent(sequence, singularityRequestHistory)
+    );
+  }
+
+  @Override
+  public void taskWebhookEvent(SingularityTaskWebhook taskWebhook) {
+    append(sequence -> SingularityEvent.taskEvent(sequence, taskWebhook));
+  }
+
+  @Override
+  public void deployHistoryEvent(SingularityDeployUpdate singularityDeployUpdate) {
+    append(sequence -> SingularityEvent.deployEvent(sequence, singularityDeployUpdate));
+  }
+
+  @Override
+  public void crashLoopEvent(CrashLoopInfo crashLoopUpdate) {
+    append(sequence -> SingularityEvent.crashLoopEvent(sequence, crashLoopUpdate));
+  }
+
+  /**
+   * @param after the last sequence the caller has seen, if empty only the current
+   *              sequence is returned so the caller knows where to start from
+   */
+  public synchronized SingularityEventPage getEvents(Optional<Long> after, int limit) {
+    if (!after.isPresent()) {
+      return new SingularityEventPage(Collections.emptyList(), lastSequence, false);
+    }
+
+    // Until the ring wraps, only slots from the first appended sequence on hold events
+    long oldestSequence = Math.max(firstSequence, lastSequence - events.length + 1);
+    if (after.get() + 1 < oldestSequence || after.get() > lastSequence) {
+      return new SingularityEventPage(Collections.emptyList(), lastSequence, true);
+    }
+
+    long until = Math.min(lastSequence, after.get() + Math.max(1, limit));
+    List<SingularityEvent> page = new ArrayList<>((int) (until - after.get()));
+    for (long sequence = after.get() + 1; sequence <= until; sequence++) {
+      page.add(events[index(sequence)]);
+    }
+    return new SingularityEventPage(page, until, false);
+  }
+
+  /**
+   * Completes with the events after the given sequence as soon as there are any, or with
+   * an empty page once eventFeedMaxWaitMillis have passed without a new event.
+   */
+  public CompletableFuture<SingularityEventPage> awaitEvents(long after, int limit) {
+    Waiter waiter;
+    synchronized (this) {
+      if (after != lastSequence) {
+        return CompletableFuture.completedFuture(getEvents(Optional.of(after), limit));
+      }
+      waiter = new Waiter(after, limit);
+      waiters.add(waiter);
+    }
+
+    waiter.timeout =
+      timeoutExecutor.schedule(
+        () -> {
+          synchronized (this) {
+            waiters.remove(waiter);
+          }
+          waiter.complete();
+        },
+        maxWaitMillis,
+        TimeUnit.MILLISECONDS
+      );
+    // An event may have completed the waiter before its timeout was set
+    if (waiter.completed.get()) {
+      waiter.timeout.cancel(false);
+    }
+    return waiter.future;
+  }
+
+  private void append(LongFunction<SingularityEvent> eventFunction) {
+    List<Waiter> toComplete;
+    synchronized (this) {
+      lastSequence++;
+      events[index(lastSequence)] = eventFunction.apply(lastSequence);
+      if (waiters.isEmpty()) {
+        return;
+      }
+      toComplete = new ArrayList<>(waiters);
+      waiters.clear();
+    }
+    toComplete.forEach(Waiter::complete);
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence % events.length);
+  }
+
+  private class Waiter {
+    private final long after;
+    private final int limit;
+    private final CompletableFuture<SingularityEventPage> future;
+    private final AtomicBoolean completed;
+    private volatile ScheduledFuture<?> timeout;
+
+    Waiter(long after, int limit) {
+      this.after = after;
+      this.limit = limit;
+      this.future = new CompletableFuture<>();
+      this.completed = new AtomicBoolean(false);
+    }
+
+    void complete() {
+      if (!completed.compareAndSet(false, true)) {
+        return;
+      }
+      ScheduledFuture<?> current = timeout;
+      if (current != null) {
+        current.cancel(false);
+      }
+      completionExecutor.execute(
+        () -> future.complete(getEvents(Optional.of(after), limit))
+      );
+    }
+  }
+}
@@ -5,7 +5,10 @@ import com.google.inject.Module;
 import com.google.inject.Scopes;
 import com.google.inject.multibindings.Multibinder;
 import com.hubspot.singularity.config.WebhookQueueConfiguration;
+import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.data.WebhookQueueStore;
 import com.hubspot.singularity.data.ZkWebhookQueue;
+import com.hubspot.singularity.data.webhooks.SqlWebhookQueue;
 import com.hubspot.singularity.hooks.SnsWebhookQueue;
 import com.hubspot.singularity.hooks.WebhookQueueType;
 import org.slf4j.Logger;
@@ -29,10 +32,18 @@ public class SingularityEventModule implements Module {
     if (webhookQueueConfiguration.getQueueType() == WebhookQueueType.SNS) {
       LOG.info("Binding sns webhook managed");
       eventListeners.addBinding().to(SnsWebhookQueue.class).in(Scopes.SINGLETON);
+      binder.bind(WebhookQueueStore.class).to(WebhookManager.class);
+    } else if (webhookQueueConfiguration.getQueueType() == WebhookQueueType.SQL) {
+      LOG.info("Binding sql webhook queue");
+      binder.bind(SqlWebhookQueue.class).in(Scopes.SINGLETON);
+      eventListeners.addBinding().to(SqlWebhookQueue.class);
+      binder.bind(WebhookQueueStore.class).to(SqlWebhookQueue.class);
     } else {
       LOG.info("Binding zookeeper webhook manager");
       eventListeners.addBinding().to(ZkWebhookQueue.class).in(Scopes.SINGLETON);
+      binder.bind(WebhookQueueStore.class).to(WebhookManager.class);
     }
+    binder.bind(SingularityEventFeed.class).in(Scopes.SINGLETON);
     binder
       .bind(SingularityEventListener.class)
       .to(SingularityEventController.class)
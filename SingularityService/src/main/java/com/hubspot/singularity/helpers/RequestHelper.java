@@ -1,5 +1,6 @@
 package com.hubspot.singularity.helpers;
 
+import com.google.common.collect.Iterators;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.hubspot.mesos.JavaUtils;
@@ -38,6 +39,7 @@ import com.hubspot.singularity.scheduler.SingularityDeployHealthHelper;
 import com.hubspot.singularity.smtp.SingularityMailer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -47,6 +49,8 @@ import java.util.stream.Collectors;
 
 @Singleton
 public class RequestHelper {
+  private static final int STREAMING_BATCH_SIZE = 100;
+
   private final RequestManager requestManager;
   private final SingularityMailer mailer;
   private final DeployManager deployManager;
@@ -304,21 +308,10 @@ public class RequestHelper {
     final Map<String, SingularityRequestDeployState> deployStates = deployManager.getRequestDeployStatesByRequestIds(
       requests.stream().map(r -> r.getRequest().getId()).collect(Collectors.toList())
     );
-    final Map<String, Optional<SingularityRequestHistory>> requestIdToLastHistory;
-
-    if (includeFullRequestData) {
-      requestIdToLastHistory =
-        requests
-          .parallelStream()
-          .collect(
-            Collectors.toMap(
-              r -> r.getRequest().getId(),
-              r -> getMostRecentHistoryFromZk(r.getRequest().getId())
-            )
-          );
-    } else {
-      requestIdToLastHistory = Collections.emptyMap();
-    }
+    final Map<String, Optional<SingularityRequestHistory>> requestIdToLastHistory = getLastHistories(
+      requests,
+      includeFullRequestData
+    );
 
     Optional<SingularityUserSettings> maybeUserSettings = userManager.getUserSettings(
       user.getId()
@@ -327,46 +320,17 @@ public class RequestHelper {
     return requests
       .parallelStream()
       .filter(
-        request -> {
-          if (
-            !requestTypeFilters.isEmpty() &&
-            !requestTypeFilters.contains(request.getRequest().getRequestType())
-          ) {
-            return false;
-          }
-          if (!filterRelevantForUser || user.equals(SingularityUser.DEFAULT_USER)) {
-            return true;
-          }
-          String requestId = request.getRequest().getId();
-          if (
-            maybeUserSettings.isPresent() &&
-            maybeUserSettings.get().getStarredRequestIds().contains(requestId)
-          ) {
-            // This is a starred request for the user
-            return true;
-          }
-          if (
-            request.getRequest().getGroup().isPresent() &&
-            user.getGroups().contains(request.getRequest().getGroup().get())
-          ) {
-            // The user is in the group for this request
-            return true;
-          }
-          if (includeFullRequestData) {
-            if (
-              userModifiedRequestLast(
-                requestIdToLastHistory.getOrDefault(requestId, Optional.empty()),
-                user
-              )
-            ) {
-              return true;
-            }
-          }
-          return userAssociatedWithDeploy(
-            Optional.ofNullable(deployStates.get(requestId)),
-            user
-          );
-        }
+        request ->
+          isRelevant(
+            request,
+            user,
+            filterRelevantForUser,
+            includeFullRequestData,
+            requestTypeFilters,
+            maybeUserSettings,
+            requestIdToLastHistory,
+            deployStates
+          )
       )
       .map(
         request -> {
@@ -413,75 +377,196 @@ public class RequestHelper {
       .sorted() // Sorted by last action time descending, with starred requests coming first
       .limit(limit.orElse(requests.size()))
       .map(
-        parentWithActionTime -> {
-          SingularityRequestWithState requestWithState = parentWithActionTime.getRequestWithState();
-          if (includeFullRequestData) {
-            CompletableFuture<Optional<SingularityTaskIdsByStatus>> maybeTaskIdsByStatus = CompletableFuture
-              .supplyAsync(() -> getTaskIdsByStatusForRequest(requestWithState))
-              .exceptionally(throwable -> Optional.empty());
-            CompletableFuture<Optional<SingularityExpiringBounce>> maybeExpiringBounce = CompletableFuture
-              .supplyAsync(
-                () ->
-                  requestManager.getExpiringBounce(requestWithState.getRequest().getId())
-              )
-              .exceptionally(throwable -> Optional.empty());
-            CompletableFuture<Optional<SingularityExpiringPause>> maybeExpiringPause = CompletableFuture
-              .supplyAsync(
-                () ->
-                  requestManager.getExpiringPause(requestWithState.getRequest().getId())
-              )
-              .exceptionally(throwable -> Optional.empty());
-            CompletableFuture<Optional<SingularityExpiringScale>> maybeExpiringScale = CompletableFuture
-              .supplyAsync(
-                () ->
-                  requestManager.getExpiringScale(requestWithState.getRequest().getId())
-              )
-              .exceptionally(throwable -> Optional.empty());
-            CompletableFuture<Optional<SingularityExpiringSkipHealthchecks>> maybeExpiringSkipHealthchecks = CompletableFuture
-              .supplyAsync(
-                () ->
-                  requestManager.getExpiringSkipHealthchecks(
-                    requestWithState.getRequest().getId()
-                  )
-              )
-              .exceptionally(throwable -> Optional.empty());
-            return new SingularityRequestParent(
-              requestWithState.getRequest(),
-              requestWithState.getState(),
-              Optional.ofNullable(
-                deployStates.get(requestWithState.getRequest().getId())
-              ),
-              Optional.empty(),
-              Optional.empty(),
-              Optional.empty(), // full deploy data not provided
-              maybeExpiringBounce.join(),
-              maybeExpiringPause.join(),
-              maybeExpiringScale.join(),
-              maybeExpiringSkipHealthchecks.join(),
-              maybeTaskIdsByStatus.join()
-            );
-          } else {
-            return new SingularityRequestParent(
-              requestWithState.getRequest(),
-              requestWithState.getState(),
-              Optional.ofNullable(
-                deployStates.get(requestWithState.getRequest().getId())
-              ),
-              Optional.empty(),
-              Optional.empty(),
-              Optional.empty(),
-              Optional.empty(),
-              Optional.empty(),
-              Optional.empty(),
-              Optional.empty(),
-              Optional.empty()
-            );
-          }
-        }
+        parentWithActionTime ->
+          toRequestParent(
+            parentWithActionTime.getRequestWithState(),
+            deployStates,
+            includeFullRequestData
+          )
       )
       .collect(Collectors.toList());
   }
 
+  /**
+   * Same filtering as fillDataForRequestsAndFilter, but request parents are built lazily in
+   * the order of the given requests, fetching the data they need a batch at a time. This
+   * lets callers write out each one as it is produced instead of holding all of them.
+   */
+  public Iterator<SingularityRequestParent> streamDataForRequests(
+    List<SingularityRequestWithState> requests,
+    SingularityUser user,
+    boolean filterRelevantForUser,
+    boolean includeFullRequestData,
+    List<RequestType> requestTypeFilters
+  ) {
+    Optional<SingularityUserSettings> maybeUserSettings = userManager.getUserSettings(
+      user.getId()
+    );
+
+    return Iterators.concat(
+      Iterators.transform(
+        Iterators.partition(requests.iterator(), STREAMING_BATCH_SIZE),
+        batch -> {
+          Map<String, SingularityRequestDeployState> deployStates = deployManager.getRequestDeployStatesByRequestIds(
+            batch.stream().map(r -> r.getRequest().getId()).collect(Collectors.toList())
+          );
+          Map<String, Optional<SingularityRequestHistory>> requestIdToLastHistory = getLastHistories(
+            batch,
+            includeFullRequestData && filterRelevantForUser
+          );
+          return batch
+            .stream()
+            .filter(
+              request ->
+                isRelevant(
+                  request,
+                  user,
+                  filterRelevantForUser,
+                  includeFullRequestData,
+                  requestTypeFilters,
+                  maybeUserSettings,
+                  requestIdToLastHistory,
+                  deployStates
+                )
+            )
+            .map(
+              request -> toRequestParent(request, deployStates, includeFullRequestData)
+            )
+            .iterator();
+        }
+      )
+    );
+  }
+
+  private Map<String, Optional<SingularityRequestHistory>> getLastHistories(
+    List<SingularityRequestWithState> requests,
+    boolean includeFullRequestData
+  ) {
+    if (!includeFullRequestData) {
+      return Collections.emptyMap();
+    }
+    return requests
+      .parallelStream()
+      .collect(
+        Collectors.toMap(
+          r -> r.getRequest().getId(),
+          r -> getMostRecentHistoryFromZk(r.getRequest().getId())
+        )
+      );
+  }
+
+  private boolean isRelevant(
+    SingularityRequestWithState request,
+    SingularityUser user,
+    boolean filterRelevantForUser,
+    boolean includeFullRequestData,
+    List<RequestType> requestTypeFilters,
+    Optional<SingularityUserSettings> maybeUserSettings,
+    Map<String, Optional<SingularityRequestHistory>> requestIdToLastHistory,
+    Map<String, SingularityRequestDeployState> deployStates
+  ) {
+    if (
+      !requestTypeFilters.isEmpty() &&
+      !requestTypeFilters.contains(request.getRequest().getRequestType())
+    ) {
+      return false;
+    }
+    if (!filterRelevantForUser || user.equals(SingularityUser.DEFAULT_USER)) {
+      return true;
+    }
+    String requestId = request.getRequest().getId();
+    if (
+      maybeUserSettings.isPresent() &&
+      maybeUserSettings.get().getStarredRequestIds().contains(requestId)
+    ) {
+      // This is a starred request for the user
+      return true;
+    }
+    if (
+      request.getRequest().getGroup().isPresent() &&
+      user.getGroups().contains(request.getRequest().getGroup().get())
+    ) {
+      // The user is in the group for this request
+      return true;
+    }
+    if (includeFullRequestData) {
+      if (
+        userModifiedRequestLast(
+          requestIdToLastHistory.getOrDefault(requestId, Optional.empty()),
+          user
+        )
+      ) {
+        return true;
+      }
+    }
+    return userAssociatedWithDeploy(
+      Optional.ofNullable(deployStates.get(requestId)),
+      user
+    );
+  }
+
+  private SingularityRequestParent toRequestParent(
+    SingularityRequestWithState requestWithState,
+    Map<String, SingularityRequestDeployState> deployStates,
+    boolean includeFullRequestData
+  ) {
+    if (includeFullRequestData) {
+      CompletableFuture<Optional<SingularityTaskIdsByStatus>> maybeTaskIdsByStatus = CompletableFuture
+        .supplyAsync(() -> getTaskIdsByStatusForRequest(requestWithState))
+        .exceptionally(throwable -> Optional.empty());
+      CompletableFuture<Optional<SingularityExpiringBounce>> maybeExpiringBounce = CompletableFuture
+        .supplyAsync(
+          () -> requestManager.getExpiringBounce(requestWithState.getRequest().getId())
+        )
+        .exceptionally(throwable -> Optional.empty());
+      CompletableFuture<Optional<SingularityExpiringPause>> maybeExpiringPause = CompletableFuture
+        .supplyAsync(
+          () -> requestManager.getExpiringPause(requestWithState.getRequest().getId())
+        )
+        .exceptionally(throwable -> Optional.empty());
+      CompletableFuture<Optional<SingularityExpiringScale>> maybeExpiringScale = CompletableFuture
+        .supplyAsync(
+          () -> requestManager.getExpiringScale(requestWithState.getRequest().getId())
+        )
+        .exceptionally(throwable -> Optional.empty());
+      CompletableFuture<Optional<SingularityExpiringSkipHealthchecks>> maybeExpiringSkipHealthchecks = CompletableFuture
+        .supplyAsync(
+          () ->
+            requestManager.getExpiringSkipHealthchecks(
+              requestWithState.getRequest().getId()
+            )
+        )
+        .exceptionally(throwable -> Optional.empty());
+      return new SingularityRequestParent(
+        requestWithState.getRequest(),
+        requestWithState.getState(),
+        Optional.ofNullable(deployStates.get(requestWithState.getRequest().getId())),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(), // full deploy data not provided
+        maybeExpiringBounce.join(),
+        maybeExpiringPause.join(),
+        maybeExpiringScale.join(),
+        maybeExpiringSkipHealthchecks.join(),
+        maybeTaskIdsByStatus.join()
+      );
+    } else {
+      return new SingularityRequestParent(
+        requestWithState.getRequest(),
+        requestWithState.getState(),
+        Optional.ofNullable(deployStates.get(requestWithState.getRequest().getId())),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty()
+      );
+    }
+  }
+
   public Optional<SingularityRequestHistory> getMostRecentHistoryFromZk(
     String requestId
   ) {
@@ -521,8 +606,8 @@ public class RequestHelper {
     List<SingularityPendingTaskId> pendingTaskIds = taskManager.getPendingTaskIdsForRequest(
       requestId
     );
-    List<SingularityTaskId> activeTaskIds = taskManager.getActiveTaskIdsForRequest(
-      requestId
+    List<SingularityTaskId> activeTaskIds = new ArrayList<>(
+      taskManager.getActiveTaskIdsForRequest(requestId)
     );
     activeTaskIds.removeAll(cleaningTaskIds);
 
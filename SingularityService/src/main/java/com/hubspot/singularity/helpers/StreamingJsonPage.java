@@ -0,0 +1,64 @@
+package com.hubspot.singularity.helpers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes a page of objects as {"objects": [...], "nextCursor": "..."} while pulling them
+ * from the iterator, so only the object currently being written needs to be in memory.
+ * nextCursor is the cursor of the last written object if there are more objects after
+ * it, otherwise null.
+ */
+public class StreamingJsonPage<T> implements StreamingOutput {
+  private static final int FLUSH_EVERY = 100;
+
+  private final ObjectMapper objectMapper;
+  private final Iterator<T> objects;
+  private final Function<T, String> cursorFunction;
+  private final Optional<Integer> limit;
+
+  public StreamingJsonPage(
+    ObjectMapper objectMapper,
+    Iterator<T> objects,
+    Function<T, String> cursorFunction,
+    Optional<Integer> limit
+  ) {
+    this.objectMapper = objectMapper;
+    this.objects = objects;
+    this.cursorFunction = cursorFunction;
+    this.limit = limit;
+  }
+
+  @Override
+  public void write(OutputStream output) throws IOException {
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("objects");
+
+      int written = 0;
+      T last = null;
+      while ((!limit.isPresent() || written < limit.get()) && objects.hasNext()) {
+        last = objects.next();
+        generator.writeObject(last);
+        written++;
+        if (written % FLUSH_EVERY == 0) {
+          generator.flush();
+        }
+      }
+
+      generator.writeEndArray();
+      if (last != null && objects.hasNext()) {
+        generator.writeStringField("nextCursor", cursorFunction.apply(last));
+      } else {
+        generator.writeNullField("nextCursor");
+      }
+      generator.writeEndObject();
+    }
+  }
+}
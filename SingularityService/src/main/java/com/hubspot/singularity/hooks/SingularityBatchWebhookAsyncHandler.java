@@ -0,0 +1,27 @@
+package com.hubspot.singularity.hooks;
+
+import com.hubspot.singularity.SingularityWebhook;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+public class SingularityBatchWebhookAsyncHandler<T>
+  extends AbstractSingularityWebhookAsyncHandler<List<T>> {
+  private final BiConsumer<SingularityWebhook, T> deleteUpdate;
+
+  public SingularityBatchWebhookAsyncHandler(
+    SingularityWebhook webhook,
+    List<T> updates,
+    BiConsumer<SingularityWebhook, T> deleteUpdate,
+    boolean shouldDeleteUpdateDueToQueueAboveCapacity
+  ) {
+    super(webhook, updates, shouldDeleteUpdateDueToQueueAboveCapacity);
+    this.deleteUpdate = deleteUpdate;
+  }
+
+  @Override
+  public void deleteWebhookUpdate() {
+    for (T item : update) {
+      deleteUpdate.accept(webhook, item);
+    }
+  }
+}
@@ -2,24 +2,24 @@ package com.hubspot.singularity.hooks;
 
 import com.hubspot.singularity.CrashLoopInfo;
 import com.hubspot.singularity.SingularityWebhook;
-import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.data.WebhookQueueStore;
 
 public class SingularityCrashLoopWebhookAsyncHandler
   extends AbstractSingularityWebhookAsyncHandler<CrashLoopInfo> {
-  private final WebhookManager webhookManager;
+  private final WebhookQueueStore webhookQueueStore;
 
   public SingularityCrashLoopWebhookAsyncHandler(
-    WebhookManager webhookManager,
+    WebhookQueueStore webhookQueueStore,
     SingularityWebhook webhook,
     CrashLoopInfo crashLoopUpdate,
     boolean shouldDeleteUpdateDueToQueueAboveCapacity
   ) {
     super(webhook, crashLoopUpdate, shouldDeleteUpdateDueToQueueAboveCapacity);
-    this.webhookManager = webhookManager;
+    this.webhookQueueStore = webhookQueueStore;
   }
 
   @Override
   public void deleteWebhookUpdate() {
-    webhookManager.deleteCrashLoopUpdate(webhook, update);
+    webhookQueueStore.deleteCrashLoopUpdate(webhook, update);
   }
 }
@@ -2,24 +2,24 @@ package com.hubspot.singularity.hooks;
 
 import com.hubspot.singularity.SingularityDeployUpdate;
 import com.hubspot.singularity.SingularityWebhook;
-import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.data.WebhookQueueStore;
 
 public class SingularityDeployWebhookAsyncHandler
   extends AbstractSingularityWebhookAsyncHandler<SingularityDeployUpdate> {
-  private final WebhookManager webhookManager;
+  private final WebhookQueueStore webhookQueueStore;
 
   public SingularityDeployWebhookAsyncHandler(
-    WebhookManager webhookManager,
+    WebhookQueueStore webhookQueueStore,
     SingularityWebhook webhook,
     SingularityDeployUpdate deployUpdate,
     boolean shouldDeleteUpdateDueToQueueAboveCapacity
   ) {
     super(webhook, deployUpdate, shouldDeleteUpdateDueToQueueAboveCapacity);
-    this.webhookManager = webhookManager;
+    this.webhookQueueStore = webhookQueueStore;
   }
 
   @Override
   public void deleteWebhookUpdate() {
-    webhookManager.deleteDeployUpdate(webhook, update);
+    webhookQueueStore.deleteDeployUpdate(webhook, update);
   }
 }
@@ -2,24 +2,24 @@ package com.hubspot.singularity.hooks;
 
 import com.hubspot.singularity.SingularityRequestHistory;
 import com.hubspot.singularity.SingularityWebhook;
-import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.data.WebhookQueueStore;
 
 public class SingularityRequestWebhookAsyncHandler
   extends AbstractSingularityWebhookAsyncHandler<SingularityRequestHistory> {
-  private final WebhookManager webhookManager;
+  private final WebhookQueueStore webhookQueueStore;
 
   public SingularityRequestWebhookAsyncHandler(
-    WebhookManager webhookManager,
+    WebhookQueueStore webhookQueueStore,
     SingularityWebhook webhook,
     SingularityRequestHistory requestUpdate,
     boolean shouldDeleteUpdateOnFailure
   ) {
     super(webhook, requestUpdate, shouldDeleteUpdateOnFailure);
-    this.webhookManager = webhookManager;
+    this.webhookQueueStore = webhookQueueStore;
   }
 
   @Override
   public void deleteWebhookUpdate() {
-    webhookManager.deleteRequestUpdate(webhook, update);
+    webhookQueueStore.deleteRequestUpdate(webhook, update);
   }
 }
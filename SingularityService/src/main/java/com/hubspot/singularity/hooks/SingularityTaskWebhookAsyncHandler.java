@@ -2,24 +2,24 @@ package com.hubspot.singularity.hooks;
 
 import com.hubspot.singularity.SingularityTaskHistoryUpdate;
 import com.hubspot.singularity.SingularityWebhook;
-import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.data.WebhookQueueStore;
 
 public class SingularityTaskWebhookAsyncHandler
   extends AbstractSingularityWebhookAsyncHandler<SingularityTaskHistoryUpdate> {
-  private final WebhookManager webhookManager;
+  private final WebhookQueueStore webhookQueueStore;
 
   public SingularityTaskWebhookAsyncHandler(
-    WebhookManager webhookManager,
+    WebhookQueueStore webhookQueueStore,
     SingularityWebhook webhook,
     SingularityTaskHistoryUpdate taskUpdate,
     boolean shouldDeleteUpdateDueToQueueAboveCapacity
   ) {
     super(webhook, taskUpdate, shouldDeleteUpdateDueToQueueAboveCapacity);
-    this.webhookManager = webhookManager;
+    this.webhookQueueStore = webhookQueueStore;
   }
 
   @Override
   public void deleteWebhookUpdate() {
-    webhookManager.deleteTaskUpdate(webhook, update);
+    webhookQueueStore.deleteTaskUpdate(webhook, update);
   }
 }
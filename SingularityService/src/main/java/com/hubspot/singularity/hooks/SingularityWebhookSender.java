@@ -1,7 +1,9 @@
 package com.hubspot.singularity.hooks;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.hubspot.mesos.JavaUtils;
 import com.hubspot.singularity.CrashLoopInfo;
@@ -15,18 +17,30 @@ import com.hubspot.singularity.SingularityTaskWebhook;
 import com.hubspot.singularity.SingularityWebhook;
 import com.hubspot.singularity.WebhookType;
 import com.hubspot.singularity.async.AsyncSemaphore;
-import com.hubspot.singularity.async.CompletableFutures;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.data.WebhookQueueStore;
 import com.hubspot.singularity.data.history.TaskHistoryHelper;
 import com.ning.http.client.AsyncHttpClient;
 import com.ning.http.client.AsyncHttpClient.BoundRequestBuilder;
 import com.ning.http.client.Response;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 import javax.inject.Singleton;
 import javax.ws.rs.core.HttpHeaders;
 import org.slf4j.Logger;
@@ -41,10 +55,15 @@ public class SingularityWebhookSender extends AbstractWebhookChecker {
   private final SingularityConfiguration configuration;
   private final AsyncHttpClient http;
   private final WebhookManager webhookManager;
+  private final WebhookQueueStore webhookQueueStore;
   private final TaskHistoryHelper taskHistoryHelper;
   private final ObjectMapper objectMapper;
 
+  private final MetricRegistry metrics;
+
+  private final ScheduledExecutorService semaphoreExecutor;
   private final AsyncSemaphore<Response> webhookSemaphore;
+  private final Map<String, WebhookDeliveryQueue> deliveryQueues;
 
   @Inject
   public SingularityWebhookSender(
@@ -53,69 +72,111 @@ public class SingularityWebhookSender extends AbstractWebhookChecker {
     @Singularity ObjectMapper objectMapper,
     TaskHistoryHelper taskHistoryHelper,
     WebhookManager webhookManager,
-    SingularityManagedScheduledExecutorServiceFactory executorServiceFactory
+    WebhookQueueStore webhookQueueStore,
+    SingularityManagedScheduledExecutorServiceFactory executorServiceFactory,
+    MetricRegistry metrics
   ) {
     this.configuration = configuration;
     this.http = http;
     this.webhookManager = webhookManager;
+    this.webhookQueueStore = webhookQueueStore;
     this.taskHistoryHelper = taskHistoryHelper;
     this.objectMapper = objectMapper;
+    this.metrics = metrics;
 
+    this.semaphoreExecutor = executorServiceFactory.get("webhook-semaphore", 1);
     this.webhookSemaphore =
       AsyncSemaphore
-        .newBuilder(
-          configuration::getMaxConcurrentWebhooks,
-          executorServiceFactory.get("webhook-semaphore", 1)
-        )
+        .newBuilder(configuration::getMaxConcurrentWebhooks, semaphoreExecutor)
         .build();
+    this.deliveryQueues = new ConcurrentHashMap<>();
   }
 
   public void checkWebhooks() {
     final long start = System.currentTimeMillis();
 
+    webhookQueueStore.commitDeliveredUpdates();
+
     int taskUpdates = 0;
     int requestUpdates = 0;
     int deployUpdates = 0;
     int crashLoopUpdates = 0;
+    int skippedWebhooks = 0;
 
-    List<CompletableFuture<Response>> webhookFutures = new ArrayList<>();
+    Set<String> activeWebhookIds = new HashSet<>();
 
     for (WebhookType type : WebhookType.values()) {
       for (SingularityWebhook webhook : webhookManager.getActiveWebhooksByType(type)) {
+        activeWebhookIds.add(webhook.getId());
+        WebhookDeliveryQueue queue = deliveryQueues.computeIfAbsent(
+          webhook.getId(),
+          this::newDeliveryQueue
+        );
+
+        if (!queue.isReady(start)) {
+          skippedWebhooks++;
+          continue;
+        }
+
+        List<CompletableFuture<Response>> webhookFutures = new ArrayList<>();
+        int numQueued = 0;
+
         switch (webhook.getType()) {
           case TASK:
-            taskUpdates += checkTaskUpdates(webhook, webhookFutures);
+            numQueued = checkTaskUpdates(webhook, queue, webhookFutures);
+            taskUpdates += numQueued;
             break;
           case REQUEST:
-            requestUpdates += checkRequestUpdates(webhook, webhookFutures);
+            numQueued = checkRequestUpdates(webhook, queue, webhookFutures);
+            requestUpdates += numQueued;
             break;
           case DEPLOY:
-            deployUpdates += checkDeployUpdates(webhook, webhookFutures);
+            numQueued = checkDeployUpdates(webhook, queue, webhookFutures);
+            deployUpdates += numQueued;
             break;
           case CRASHLOOP:
-            crashLoopUpdates += checkCrashLoopUpdates(webhook, webhookFutures);
+            numQueued = checkCrashLoopUpdates(webhook, queue, webhookFutures);
+            crashLoopUpdates += numQueued;
+            break;
           default:
             break;
         }
+
+        queue.startCheck(numQueued, webhookFutures);
       }
     }
 
-    CompletableFutures
-      .allOf(webhookFutures)
-      .exceptionally(
-        t -> {
-          LOG.error("Exception in webhook", t);
-          return null;
+    deliveryQueues
+      .entrySet()
+      .removeIf(
+        entry -> {
+          if (activeWebhookIds.contains(entry.getKey())) {
+            return false;
+          }
+          entry.getValue().removeMetrics();
+          return true;
         }
       );
 
     LOG.info(
-      "Sent {} task, {} request, {} crashloop, and {} deploy updates in {}",
+      "Sent {} task, {} request, {} crashloop, and {} deploy updates in {}, skipped {} busy or backing off webhooks",
       taskUpdates,
       requestUpdates,
       crashLoopUpdates,
       deployUpdates,
-      JavaUtils.duration(start)
+      JavaUtils.duration(start),
+      skippedWebhooks
+    );
+  }
+
+  private WebhookDeliveryQueue newDeliveryQueue(String webhookId) {
+    return new WebhookDeliveryQueue(
+      webhookId,
+      metrics,
+      configuration::getMaxConcurrentWebhooksPerEndpoint,
+      semaphoreExecutor,
+      configuration.getCheckWebhooksEveryMillis(),
+      configuration::getMaxWebhookRetryBackoffMillis
     );
   }
 
@@ -136,150 +197,260 @@ public class SingularityWebhookSender extends AbstractWebhookChecker {
 
   private int checkRequestUpdates(
     SingularityWebhook webhook,
+    WebhookDeliveryQueue queue,
     List<CompletableFuture<Response>> webhookFutures
   ) {
-    final List<SingularityRequestHistory> requestUpdates = webhookManager.getQueuedRequestHistoryForHook(
+    final List<SingularityRequestHistory> requestUpdates = webhookQueueStore.getQueuedRequestHistoryForHook(
       webhook.getId()
     );
 
-    int numRequestUpdates = 0;
-
-    for (SingularityRequestHistory requestUpdate : requestUpdates) {
-      String concreteUri = applyPlaceholders(webhook.getUri(), requestUpdate);
-      webhookFutures.add(
-        webhookSemaphore.call(
-          () ->
-            executeWebhookAsync(
-              concreteUri,
-              requestUpdate,
-              new SingularityRequestWebhookAsyncHandler(
-                webhookManager,
-                webhook,
-                requestUpdate,
-                shouldDeleteUpdateOnFailure(
-                  numRequestUpdates,
-                  requestUpdate.getCreatedAt()
-                )
-              )
-            )
-        )
-      );
-    }
+    deliverUpdates(
+      webhook,
+      queue,
+      requestUpdates,
+      requestUpdates.size(),
+      requestUpdate -> applyPlaceholders(webhook.getUri(), requestUpdate),
+      requestUpdate -> requestUpdate,
+      SingularityRequestHistory::getCreatedAt,
+      (requestUpdate, shouldDelete) ->
+        new SingularityRequestWebhookAsyncHandler(
+          webhookQueueStore,
+          webhook,
+          requestUpdate,
+          shouldDelete
+        ),
+      webhookQueueStore::deleteRequestUpdate,
+      webhookFutures
+    );
 
     return requestUpdates.size();
   }
 
   private int checkDeployUpdates(
     SingularityWebhook webhook,
+    WebhookDeliveryQueue queue,
     List<CompletableFuture<Response>> webhookFutures
   ) {
-    final List<SingularityDeployUpdate> deployUpdates = webhookManager.getQueuedDeployUpdatesForHook(
+    final List<SingularityDeployUpdate> deployUpdates = webhookQueueStore.getQueuedDeployUpdatesForHook(
       webhook.getId()
     );
 
-    int numDeployUpdates = 0;
-
-    for (SingularityDeployUpdate deployUpdate : deployUpdates) {
-      String concreteUri = applyPlaceholders(webhook.getUri(), deployUpdate);
-      webhookFutures.add(
-        webhookSemaphore.call(
-          () ->
-            executeWebhookAsync(
-              concreteUri,
-              deployUpdate,
-              new SingularityDeployWebhookAsyncHandler(
-                webhookManager,
-                webhook,
-                deployUpdate,
-                shouldDeleteUpdateOnFailure(
-                  numDeployUpdates,
-                  deployUpdate.getDeployMarker().getTimestamp()
-                )
-              )
-            )
-        )
-      );
-    }
+    deliverUpdates(
+      webhook,
+      queue,
+      deployUpdates,
+      deployUpdates.size(),
+      deployUpdate -> applyPlaceholders(webhook.getUri(), deployUpdate),
+      deployUpdate -> deployUpdate,
+      deployUpdate -> deployUpdate.getDeployMarker().getTimestamp(),
+      (deployUpdate, shouldDelete) ->
+        new SingularityDeployWebhookAsyncHandler(
+          webhookQueueStore,
+          webhook,
+          deployUpdate,
+          shouldDelete
+        ),
+      webhookQueueStore::deleteDeployUpdate,
+      webhookFutures
+    );
 
     return deployUpdates.size();
   }
 
   private int checkCrashLoopUpdates(
     SingularityWebhook webhook,
+    WebhookDeliveryQueue queue,
     List<CompletableFuture<Response>> webhookFutures
   ) {
-    final List<CrashLoopInfo> crashLoopUpdates = webhookManager.getQueuedCrashLoopUpdatesForHook(
+    final List<CrashLoopInfo> crashLoopUpdates = webhookQueueStore.getQueuedCrashLoopUpdatesForHook(
       webhook.getId()
     );
 
-    int numDeployUpdates = 0;
-
-    for (CrashLoopInfo crashLoopUpdate : crashLoopUpdates) {
-      String concreteUri = applyPlaceholders(webhook.getUri(), crashLoopUpdate);
-      webhookFutures.add(
-        webhookSemaphore.call(
-          () ->
-            executeWebhookAsync(
-              concreteUri,
-              crashLoopUpdate,
-              new SingularityCrashLoopWebhookAsyncHandler(
-                webhookManager,
-                webhook,
-                crashLoopUpdate,
-                shouldDeleteUpdateOnFailure(
-                  numDeployUpdates,
-                  crashLoopUpdate.getEnd().orElse(crashLoopUpdate.getStart())
-                )
-              )
-            )
-        )
-      );
-    }
+    deliverUpdates(
+      webhook,
+      queue,
+      crashLoopUpdates,
+      crashLoopUpdates.size(),
+      crashLoopUpdate -> applyPlaceholders(webhook.getUri(), crashLoopUpdate),
+      crashLoopUpdate -> crashLoopUpdate,
+      crashLoopUpdate -> crashLoopUpdate.getEnd().orElse(crashLoopUpdate.getStart()),
+      (crashLoopUpdate, shouldDelete) ->
+        new SingularityCrashLoopWebhookAsyncHandler(
+          webhookQueueStore,
+          webhook,
+          crashLoopUpdate,
+          shouldDelete
+        ),
+      webhookQueueStore::deleteCrashLoopUpdate,
+      webhookFutures
+    );
 
     return crashLoopUpdates.size();
   }
 
   private int checkTaskUpdates(
     SingularityWebhook webhook,
+    WebhookDeliveryQueue queue,
     List<CompletableFuture<Response>> webhookFutures
   ) {
-    final List<SingularityTaskHistoryUpdate> taskUpdates = webhookManager.getQueuedTaskUpdatesForHook(
+    final List<SingularityTaskHistoryUpdate> taskUpdates = webhookQueueStore.getQueuedTaskUpdatesForHook(
       webhook.getId()
     );
 
-    int numTaskUpdates = 0;
+    final Map<SingularityTaskHistoryUpdate, SingularityTask> tasks = new HashMap<>();
+    final List<SingularityTaskHistoryUpdate> deliverableUpdates = new ArrayList<>();
 
     for (SingularityTaskHistoryUpdate taskUpdate : taskUpdates) {
+      if (deliverableUpdates.size() >= configuration.getMaxUpdatesPerWebhookCheck()) {
+        break;
+      }
+
       Optional<SingularityTask> task = taskHistoryHelper.getTask(taskUpdate.getTaskId());
 
       // TODO compress
       if (!task.isPresent()) {
         LOG.warn("Couldn't find task for taskUpdate {}", taskUpdate);
-        webhookManager.deleteTaskUpdate(webhook, taskUpdate);
+        webhookQueueStore.deleteTaskUpdate(webhook, taskUpdate);
         continue;
       }
 
-      String concreteUri = applyPlaceholders(webhook.getUri(), taskUpdate);
-      webhookFutures.add(
-        webhookSemaphore.call(
-          () ->
-            executeWebhookAsync(
-              concreteUri,
-              new SingularityTaskWebhook(task.get(), taskUpdate),
-              new SingularityTaskWebhookAsyncHandler(
-                webhookManager,
-                webhook,
-                taskUpdate,
-                shouldDeleteUpdateOnFailure(numTaskUpdates, taskUpdate.getTimestamp())
-              )
-            )
-        )
-      );
+      tasks.put(taskUpdate, task.get());
+      deliverableUpdates.add(taskUpdate);
     }
 
+    deliverUpdates(
+      webhook,
+      queue,
+      deliverableUpdates,
+      taskUpdates.size(),
+      taskUpdate -> applyPlaceholders(webhook.getUri(), taskUpdate),
+      taskUpdate -> new SingularityTaskWebhook(tasks.get(taskUpdate), taskUpdate),
+      SingularityTaskHistoryUpdate::getTimestamp,
+      (taskUpdate, shouldDelete) ->
+        new SingularityTaskWebhookAsyncHandler(
+          webhookQueueStore,
+          webhook,
+          taskUpdate,
+          shouldDelete
+        ),
+      webhookQueueStore::deleteTaskUpdate,
+      webhookFutures
+    );
+
     return taskUpdates.size();
   }
 
+  /**
+   * Sends at most maxUpdatesPerWebhookCheck of the queued updates, one per request or, if
+   * the webhook has a batchSize, as JSON arrays of up to that many updates per concrete uri.
+   */
+  private <T> void deliverUpdates(
+    SingularityWebhook webhook,
+    WebhookDeliveryQueue queue,
+    List<T> updates,
+    int numQueued,
+    Function<T, String> uriFunction,
+    Function<T, Object> payloadFunction,
+    ToLongFunction<T> timestampFunction,
+    BiFunction<T, Boolean, AbstractSingularityWebhookAsyncHandler<T>> handlerFunction,
+    BiConsumer<SingularityWebhook, T> deleteFunction,
+    List<CompletableFuture<Response>> webhookFutures
+  ) {
+    List<T> toSend = updates.subList(
+      0,
+      Math.min(updates.size(), configuration.getMaxUpdatesPerWebhookCheck())
+    );
+    int batchSize = webhook.getBatchSize().orElse(1);
+
+    if (batchSize <= 1) {
+      for (T update : toSend) {
+        long timestamp = timestampFunction.applyAsLong(update);
+        webhookFutures.add(
+          deliver(
+            queue,
+            uriFunction.apply(update),
+            payloadFunction.apply(update),
+            handlerFunction.apply(
+              update,
+              shouldDeleteUpdateOnFailure(numQueued, timestamp)
+            ),
+            1,
+            timestamp
+          )
+        );
+      }
+      return;
+    }
+
+    Map<String, List<T>> updatesByUri = toSend
+      .stream()
+      .collect(
+        Collectors.groupingBy(uriFunction, LinkedHashMap::new, Collectors.toList())
+      );
+
+    for (Map.Entry<String, List<T>> entry : updatesByUri.entrySet()) {
+      for (List<T> batch : Lists.partition(entry.getValue(), batchSize)) {
+        long oldestTimestamp = batch
+          .stream()
+          .mapToLong(timestampFunction)
+          .min()
+          .getAsLong();
+        webhookFutures.add(
+          deliver(
+            queue,
+            entry.getKey(),
+            batch.stream().map(payloadFunction).collect(Collectors.toList()),
+            new SingularityBatchWebhookAsyncHandler<>(
+              webhook,
+              batch,
+              deleteFunction,
+              shouldDeleteUpdateOnFailure(numQueued, oldestTimestamp)
+            ),
+            batch.size(),
+            oldestTimestamp
+          )
+        );
+      }
+    }
+  }
+
+  private <T> CompletableFuture<Response> deliver(
+    WebhookDeliveryQueue queue,
+    String uri,
+    Object payload,
+    AbstractSingularityWebhookAsyncHandler<T> handler,
+    int numUpdates,
+    long oldestUpdateTimestamp
+  ) {
+    CompletableFuture<Response> webhookFuture = queue
+      .getSemaphore()
+      .call(
+        () -> {
+          // Don't keep sending to an endpoint that started failing while these were queued
+          if (queue.isBackingOff(System.currentTimeMillis())) {
+            return CompletableFuture.completedFuture(null);
+          }
+          return webhookSemaphore.call(() -> executeWebhookAsync(uri, payload, handler));
+        }
+      );
+
+    webhookFuture.whenComplete(
+      (response, t) -> {
+        long now = System.currentTimeMillis();
+        if (t == null && response == null) {
+          return;
+        }
+        if (t == null && JavaUtils.isHttpSuccess(response.getStatusCode())) {
+          queue.recordSuccess(numUpdates, oldestUpdateTimestamp, now);
+        } else {
+          queue.recordFailure(numUpdates, now);
+        }
+      }
+    );
+
+    return webhookFuture;
+  }
+
   private String applyPlaceholders(String uri, SingularityRequestHistory requestHistory) {
     return uri.replaceAll("\\$REQUEST_ID", requestHistory.getRequest().getId());
   }
@@ -303,7 +474,6 @@ public class SingularityWebhookSender extends AbstractWebhookChecker {
       .replaceAll("\\$TASK_ID", taskUpdate.getTaskId().getId());
   }
 
-  // TODO handle retries, errors.
   private <T> CompletableFuture<Response> executeWebhookAsync(
     String uri,
     Object payload,
@@ -0,0 +1,100 @@
+package com.hubspot.singularity.hooks;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.singularity.async.AsyncSemaphore;
+import com.ning.http.client.Response;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Delivery state of a single webhook endpoint. Each endpoint has its own concurrency
+ * limit and backs off after failed deliveries, so a slow or unreachable consumer only
+ * delays its own updates instead of holding permits every other webhook needs.
+ */
+class WebhookDeliveryQueue {
+  private final String metricPrefix;
+  private final MetricRegistry metrics;
+  private final AsyncSemaphore<Response> semaphore;
+  private final long baseBackoffMillis;
+  private final Supplier<Long> maxBackoffMillis;
+
+  private final Meter delivered;
+  private final Meter failed;
+  private final Histogram lag;
+  private final AtomicInteger queued;
+
+  private CompletableFuture<Void> currentCheck;
+  private int consecutiveFailures;
+  private long nextAttemptAt;
+
+  WebhookDeliveryQueue(
+    String webhookId,
+    MetricRegistry metrics,
+    Supplier<Integer> maxConcurrentDeliveries,
+    ScheduledExecutorService flushingExecutor,
+    long baseBackoffMillis,
+    Supplier<Long> maxBackoffMillis
+  ) {
+    this.metricPrefix =
+      String.format("webhooks.endpoints.%s.", JavaUtils.getMetricNameSegment(webhookId));
+    this.metrics = metrics;
+    this.semaphore =
+      AsyncSemaphore.newBuilder(maxConcurrentDeliveries, flushingExecutor).build();
+    this.baseBackoffMillis = baseBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+
+    this.delivered = metrics.meter(metricPrefix + "delivered");
+    this.failed = metrics.meter(metricPrefix + "failed");
+    this.lag = metrics.histogram(metricPrefix + "lag");
+    this.queued = new AtomicInteger();
+    metrics.gauge(metricPrefix + "queued", () -> (Gauge<Integer>) queued::get);
+  }
+
+  AsyncSemaphore<Response> getSemaphore() {
+    return semaphore;
+  }
+
+  /**
+   * An endpoint is checked again once every delivery of its previous check has finished
+   * and any backoff from failed deliveries has passed.
+   */
+  synchronized boolean isReady(long now) {
+    return (currentCheck == null || currentCheck.isDone()) && !isBackingOff(now);
+  }
+
+  synchronized boolean isBackingOff(long now) {
+    return now < nextAttemptAt;
+  }
+
+  synchronized void startCheck(int numQueued, List<CompletableFuture<Response>> futures) {
+    queued.set(numQueued);
+    currentCheck = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+  }
+
+  synchronized void recordSuccess(int numUpdates, long oldestUpdateTimestamp, long now) {
+    delivered.mark(numUpdates);
+    lag.update(now - oldestUpdateTimestamp);
+    queued.addAndGet(-numUpdates);
+    consecutiveFailures = 0;
+    nextAttemptAt = 0;
+  }
+
+  synchronized void recordFailure(int numUpdates, long now) {
+    failed.mark(numUpdates);
+    consecutiveFailures++;
+    long backoff = baseBackoffMillis << Math.min(consecutiveFailures - 1, 20);
+    nextAttemptAt = now + Math.min(backoff, maxBackoffMillis.get());
+  }
+
+  void removeMetrics() {
+    metrics.removeMatching(MetricFilter.startsWith(metricPrefix));
+  }
+}
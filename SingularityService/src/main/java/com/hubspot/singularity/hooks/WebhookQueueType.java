@@ -2,5 +2,6 @@ package com.hubspot.singularity.hooks;
 
 public enum WebhookQueueType {
   ZOOKEEPER,
-  SNS
+  SNS,
+  SQL
 }
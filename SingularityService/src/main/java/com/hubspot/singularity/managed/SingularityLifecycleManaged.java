@@ -9,7 +9,9 @@ import com.hubspot.singularity.SingularityLeaderController;
 import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
 import com.hubspot.singularity.SingularityManagedThreadPoolFactory;
 import com.hubspot.singularity.data.ExecutorIdGenerator;
+import com.hubspot.singularity.data.SingularityWebCacheWatcher;
 import com.hubspot.singularity.mesos.SingularityMesosExecutorInfoSupport;
+import com.hubspot.singularity.mesos.StatusUpdateQueue;
 import com.hubspot.singularity.metrics.SingularityGraphiteReporter;
 import com.hubspot.singularity.scheduler.SingularityLeaderOnlyPoller;
 import com.ning.http.client.AsyncHttpClient;
@@ -41,6 +43,8 @@ public class SingularityLifecycleManaged implements Managed {
   private final SingularityGraphiteReporter graphiteReporter;
   private final ExecutorIdGenerator executorIdGenerator;
   private final Set<SingularityLeaderOnlyPoller> leaderOnlyPollers;
+  private final SingularityWebCacheWatcher webCacheWatcher;
+  private final StatusUpdateQueue statusUpdateQueue;
 
   private final CuratorFramework curatorFramework;
   private final AtomicBoolean started = new AtomicBoolean(false);
@@ -57,7 +61,9 @@ public class SingularityLifecycleManaged implements Managed {
     SingularityMesosExecutorInfoSupport executorInfoSupport,
     SingularityGraphiteReporter graphiteReporter,
     ExecutorIdGenerator executorIdGenerator,
-    Set<SingularityLeaderOnlyPoller> leaderOnlyPollers
+    Set<SingularityLeaderOnlyPoller> leaderOnlyPollers,
+    SingularityWebCacheWatcher webCacheWatcher,
+    StatusUpdateQueue statusUpdateQueue
   ) {
     this.cachedThreadPoolFactory = cachedThreadPoolFactory;
     this.scheduledExecutorServiceFactory = scheduledExecutorServiceFactory;
@@ -69,6 +75,8 @@ public class SingularityLifecycleManaged implements Managed {
     this.graphiteReporter = graphiteReporter;
     this.executorIdGenerator = executorIdGenerator;
     this.leaderOnlyPollers = leaderOnlyPollers;
+    this.webCacheWatcher = webCacheWatcher;
+    this.statusUpdateQueue = statusUpdateQueue;
   }
 
   @Override
@@ -79,6 +87,7 @@ public class SingularityLifecycleManaged implements Managed {
       leaderController.start(); // start the state poller
       graphiteReporter.start();
       executorIdGenerator.start();
+      webCacheWatcher.start();
       if (startLeaderPollers()) {
         leaderOnlyPollers.forEach(SingularityLeaderOnlyPoller::start);
       }
@@ -95,8 +104,10 @@ public class SingularityLifecycleManaged implements Managed {
       }
       stopDirectoryFetcher(); // use http client, stop this before client
       stopStatePollerAndMesosConnection(); // Marks the scheduler as stopped
+      stopWebCacheWatcher(); // Closes zk watches before the executor delivering them
       stopHttpClients(); // Stops any additional async callbacks in healthcheck/new task check
       stopExecutors(); // Shuts down the executors for pollers and async semaphores
+      stopStatusUpdateQueue(); // Nothing drains the overflow once the executors are gone
       stopLeaderLatch(); // let go of leadership
       stopCurator(); // disconnect from zk
       stopGraphiteReporter();
@@ -119,6 +130,15 @@ public class SingularityLifecycleManaged implements Managed {
     }
   }
 
+  private void stopWebCacheWatcher() {
+    try {
+      LOG.info("Stopping web cache watcher");
+      webCacheWatcher.stop();
+    } catch (Throwable t) {
+      LOG.warn("Could not stop web cache watcher ({})}", t.getMessage());
+    }
+  }
+
   private void stopHttpClients() {
     try {
       LOG.info("Stopping http clients");
@@ -128,6 +148,15 @@ public class SingularityLifecycleManaged implements Managed {
     }
   }
 
+  private void stopStatusUpdateQueue() {
+    try {
+      LOG.info("Closing status update overflow");
+      statusUpdateQueue.close();
+    } catch (Throwable t) {
+      LOG.warn("Could not close status update overflow ({})}", t.getMessage());
+    }
+  }
+
   private void stopNewPolls() {
     LOG.info("Marking leader only pollers for shutdown");
     leaderOnlyPollers.forEach(SingularityLeaderOnlyPoller::stop);
@@ -0,0 +1,412 @@
+package com.hubspot.singularity.mesos;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.apache.mesos.v1.Protos.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Overflow storage for status updates as raw protobuf bytes in a series of memory mapped
+ * segment files. Updates are appended to the newest segment and drained from the oldest,
+ * a segment is deleted once it has been fully drained. Each segment starts with the
+ * position of its next unread record followed by length prefixed records, a zero length
+ * marks the end of the written records. Nothing is forced to disk, so updates survive a
+ * restart of the process but not of the host. Only the segments being drained from and
+ * appended to stay mapped, sealed segments are unmapped until the drain reaches them.
+ */
+class MappedStatusUpdateOverflow implements StatusUpdateOverflow {
+  private static final Logger LOG = LoggerFactory.getLogger(
+    MappedStatusUpdateOverflow.class
+  );
+
+  private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)");
+  private static final int HEADER_SIZE = Integer.BYTES;
+  private static final int DRAIN_BATCH_SIZE = 100;
+  private static final Consumer<MappedByteBuffer> UNMAPPER = unmapper();
+
+  private final File directory;
+  private final int segmentSize;
+  private final Deque<Segment> segments;
+  private int size;
+  private boolean closed;
+
+  MappedStatusUpdateOverflow(File directory, int segmentSize) throws IOException {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.segments = new ArrayDeque<>();
+
+    List<File> existing = Arrays
+      .stream(directory.listFiles((dir, name) -> SEGMENT_NAME.matcher(name).matches()))
+      .sorted(Comparator.comparingLong(MappedStatusUpdateOverflow::sequence))
+      .collect(Collectors.toList());
+    for (File file : existing) {
+      Segment segment = Segment.open(file, sequence(file), (int) file.length());
+      size += segment.unread;
+      segments.add(segment);
+    }
+    // Everything but the newest segment is sealed, drop the ones that were already drained
+    while (segments.size() > 1 && segments.peekFirst().unread == 0) {
+      segments.pollFirst().delete();
+    }
+    for (Segment segment : segments) {
+      if (segment != segments.peekFirst() && segment != segments.peekLast()) {
+        segment.release();
+      }
+    }
+    if (size > 0) {
+      LOG.info(
+        "Found {} overflowed status updates in {} segments under {}",
+        size,
+        segments.size(),
+        directory
+      );
+    }
+  }
+
+  @Override
+  public synchronized int size() {
+    return size;
+  }
+
+  @Override
+  public synchronized void add(TaskStatus update) throws IOException {
+    if (closed) {
+      throw new IOException("Status update overflow in " + directory + " is closed");
+    }
+    byte[] bytes = update.toByteArray();
+    // Always leave room for the zero length terminator after the record
+    int needed = Integer.BYTES + bytes.length + Integer.BYTES;
+    Segment tail = segments.peekLast();
+    if (tail == null || tail.writePosition + needed > tail.capacity) {
+      long nextSequence = tail == null ? 0 : tail.sequence + 1;
+      tail =
+        Segment.open(
+          new File(directory, "segment-" + nextSequence),
+          nextSequence,
+          Math.max(segmentSize, HEADER_SIZE + needed)
+        );
+      Segment sealed = segments.peekLast();
+      if (sealed != null && sealed != segments.peekFirst()) {
+        sealed.release();
+      }
+      segments.add(tail);
+    }
+    tail.append(bytes);
+    size++;
+  }
+
+  /**
+   * Reads ahead of the drained position in batches. remove() drains every update up to
+   * and including the one last returned by next().
+   */
+  @Override
+  public Iterator<TaskStatus> iterator() {
+    return new Iterator<TaskStatus>() {
+      private final Deque<Record> readAhead = new ArrayDeque<>();
+      private Segment cursorSegment;
+      private int cursorPosition;
+      private Record lastReturned;
+
+      @Override
+      public boolean hasNext() {
+        if (readAhead.isEmpty()) {
+          fill();
+        }
+        return !readAhead.isEmpty();
+      }
+
+      @Override
+      public TaskStatus next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        lastReturned = readAhead.poll();
+        return lastReturned.status;
+      }
+
+      @Override
+      public void remove() {
+        if (lastReturned == null) {
+          throw new IllegalStateException();
+        }
+        drainThrough(lastReturned);
+        lastReturned = null;
+      }
+
+      private void fill() {
+        synchronized (MappedStatusUpdateOverflow.this) {
+          if (closed) {
+            return;
+          }
+          if (cursorSegment == null || !segments.contains(cursorSegment)) {
+            cursorSegment = segments.peekFirst();
+            if (cursorSegment == null) {
+              return;
+            }
+            cursorPosition = cursorSegment.readPosition();
+          }
+          while (readAhead.size() < DRAIN_BATCH_SIZE) {
+            int length = cursorSegment.lengthAt(cursorPosition);
+            if (length == 0) {
+              Segment next = nextSegment(cursorSegment);
+              if (next == null) {
+                return;
+              }
+              cursorSegment = next;
+              cursorPosition = next.readPosition();
+              continue;
+            }
+            int end = cursorPosition + Integer.BYTES + length;
+            readAhead.add(
+              new Record(
+                cursorSegment.decode(cursorPosition + Integer.BYTES, length),
+                cursorSegment,
+                end
+              )
+            );
+            cursorPosition = end;
+          }
+        }
+      }
+    };
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    segments.forEach(Segment::release);
+  }
+
+  private synchronized void drainThrough(Record record) {
+    // Already drained by another iterator, its segment may be gone
+    if (closed || !segments.contains(record.segment)) {
+      return;
+    }
+    while (!segments.isEmpty() && segments.peekFirst() != record.segment) {
+      Segment drained = segments.pollFirst();
+      size -= drained.unread;
+      drained.delete();
+    }
+    size -= record.segment.markReadThrough(record.end);
+    if (record.segment.unread == 0 && segments.size() > 1) {
+      segments.pollFirst().delete();
+    }
+  }
+
+  private Segment nextSegment(Segment segment) {
+    boolean found = false;
+    for (Segment candidate : segments) {
+      if (found) {
+        return candidate;
+      }
+      found = candidate == segment;
+    }
+    return null;
+  }
+
+  private static long sequence(File file) {
+    Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+    matcher.matches();
+    return Long.parseLong(matcher.group(1));
+  }
+
+  private static class Record {
+    private final TaskStatus status;
+    private final Segment segment;
+    private final int end;
+
+    Record(TaskStatus status, Segment segment, int end) {
+      this.status = status;
+      this.segment = segment;
+      this.end = end;
+    }
+  }
+
+  /**
+   * Mappings are otherwise only released when the buffer is garbage collected, which can
+   * hold on to deleted segment files and their address space for a long time
+   */
+  private static Consumer<MappedByteBuffer> unmapper() {
+    try {
+      // Java 9+
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      Object unsafe = theUnsafe.get(null);
+      return buffer -> invoke(invokeCleaner, unsafe, buffer);
+    } catch (NoSuchMethodException e) {
+      try {
+        // Java 8
+        Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+        Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+        return buffer -> invoke(clean, invoke(cleaner, buffer));
+      } catch (ReflectiveOperationException inner) {
+        LOG.warn("Unable to unmap status update segments explicitly", inner);
+      }
+    } catch (ReflectiveOperationException e) {
+      LOG.warn("Unable to unmap status update segments explicitly", e);
+    }
+    return buffer -> {};
+  }
+
+  private static Object invoke(Method method, Object target, Object... args) {
+    try {
+      return method.invoke(target, args);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Unable to unmap status update segment", e);
+    }
+  }
+
+  private static class Segment {
+    private final File file;
+    private final long sequence;
+    private final int capacity;
+    private final Deque<Integer> unreadRecordEnds;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private int unread;
+
+    private Segment(File file, long sequence, int capacity, MappedByteBuffer buffer) {
+      this.file = file;
+      this.sequence = sequence;
+      this.capacity = capacity;
+      this.buffer = buffer;
+      this.unreadRecordEnds = new ArrayDeque<>();
+    }
+
+    static Segment open(File file, long sequence, int capacity) throws IOException {
+      Segment segment = new Segment(file, sequence, capacity, map(file, capacity));
+      int readPosition = segment.readPosition();
+      int position = HEADER_SIZE;
+      int length;
+      while ((length = segment.lengthAt(position)) > 0) {
+        position += Integer.BYTES + length;
+        if (position > readPosition) {
+          segment.unreadRecordEnds.add(position);
+        }
+      }
+      segment.writePosition = position;
+      segment.unread = segment.unreadRecordEnds.size();
+      return segment;
+    }
+
+    private static MappedByteBuffer map(File file, int capacity) throws IOException {
+      try (
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        FileChannel channel = raf.getChannel()
+      ) {
+        return channel.map(MapMode.READ_WRITE, 0, capacity);
+      }
+    }
+
+    /**
+     * Maps the segment again if it was released while sealed
+     */
+    private MappedByteBuffer buffer() {
+      if (buffer == null) {
+        try {
+          buffer = map(file, capacity);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return buffer;
+    }
+
+    /**
+     * Unmaps the segment, nothing may touch the old buffer after this
+     */
+    void release() {
+      if (buffer != null) {
+        MappedByteBuffer released = buffer;
+        buffer = null;
+        try {
+          UNMAPPER.accept(released);
+        } catch (RuntimeException e) {
+          LOG.warn("Unable to unmap status update segment {}", file, e);
+        }
+      }
+    }
+
+    int readPosition() {
+      int readPosition = buffer().getInt(0);
+      return readPosition < HEADER_SIZE ? HEADER_SIZE : readPosition;
+    }
+
+    int lengthAt(int position) {
+      if (position + Integer.BYTES > capacity) {
+        return 0;
+      }
+      return buffer().getInt(position);
+    }
+
+    void append(byte[] bytes) {
+      // Write the payload before its length so a partially written record is never visible
+      int payloadPosition = writePosition + Integer.BYTES;
+      ByteBuffer payload = buffer().duplicate();
+      payload.position(payloadPosition);
+      payload.put(bytes);
+      buffer().putInt(writePosition, bytes.length);
+      writePosition = payloadPosition + bytes.length;
+      unreadRecordEnds.add(writePosition);
+      unread++;
+    }
+
+    TaskStatus decode(int position, int length) {
+      byte[] bytes = new byte[length];
+      ByteBuffer payload = buffer().duplicate();
+      payload.position(position);
+      payload.get(bytes);
+      try {
+        return TaskStatus.parseFrom(bytes);
+      } catch (IOException e) {
+        throw new IllegalStateException(
+          String.format("Unable to decode status update in %s at %s", file, position),
+          e
+        );
+      }
+    }
+
+    /**
+     * @return the number of records drained
+     */
+    int markReadThrough(int end) {
+      buffer().putInt(0, end);
+      int drained = 0;
+      while (!unreadRecordEnds.isEmpty() && unreadRecordEnds.peekFirst() <= end) {
+        unreadRecordEnds.pollFirst();
+        drained++;
+      }
+      unread -= drained;
+      return drained;
+    }
+
+    void delete() {
+      release();
+      if (!file.delete()) {
+        LOG.warn("Unable to delete drained status update segment {}", file);
+      }
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package com.hubspot.singularity.mesos;
 
+import com.hubspot.mesos.Resources;
 import com.hubspot.singularity.mesos.SingularityOfferCache.CachedOffer;
 import java.util.List;
+import java.util.function.BiPredicate;
 import org.apache.mesos.v1.Protos.Offer;
 import org.apache.mesos.v1.Protos.OfferID;
 
@@ -14,6 +16,12 @@ public interface OfferCache {
 
   List<CachedOffer> checkoutOffers();
 
+  /**
+   * Check out the available offers of each agent whose combined offered resources pass
+   * the filter, offers for other agents remain available in the cache.
+   */
+  List<CachedOffer> checkoutOffers(BiPredicate<String, Resources> shouldCheckOut);
+
   void returnOffer(CachedOffer cachedOffer);
 
   List<Offer> peekOffers();
@@ -27,6 +27,7 @@ public class SingularityMesosModule extends AbstractModule {
     bind(SingularityTaskSizeOptimizer.class).in(Scopes.SINGLETON);
     bind(SingularitySlaveAndRackManager.class).in(Scopes.SINGLETON);
     bind(SingularitySlaveAndRackHelper.class).in(Scopes.SINGLETON);
+    bind(SingularitySlaveUsageInventory.class).in(Scopes.SINGLETON);
     bind(SingularityStartup.class).in(Scopes.SINGLETON);
     bind(SingularitySchedulerLock.class).in(Scopes.SINGLETON);
     bind(SingularityMesosSchedulerClient.class).in(Scopes.SINGLETON);
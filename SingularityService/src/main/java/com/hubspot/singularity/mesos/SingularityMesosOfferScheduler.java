@@ -1,5 +1,8 @@
 package com.hubspot.singularity.mesos;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
@@ -31,13 +34,17 @@ import com.hubspot.singularity.helpers.MesosUtils;
 import com.hubspot.singularity.helpers.SingularityMesosTaskHolder;
 import com.hubspot.singularity.mesos.SingularityOfferCache.CachedOffer;
 import com.hubspot.singularity.mesos.SingularitySlaveAndRackManager.CheckResult;
-import com.hubspot.singularity.mesos.SingularitySlaveUsageWithCalculatedScores.MaxProbableUsage;
+import com.hubspot.singularity.mesos.SingularitySlaveUsageInventory.RoundStats;
 import com.hubspot.singularity.scheduler.SingularityLeaderCache;
 import com.hubspot.singularity.scheduler.SingularityScheduler;
 import com.hubspot.singularity.scheduler.SingularityUsageHelper;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -45,8 +52,8 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.inject.Singleton;
@@ -81,12 +88,21 @@ public class SingularityMesosOfferScheduler {
   private final DisasterManager disasterManager;
   private final SingularityMesosSchedulerClient mesosSchedulerClient;
   private final OfferCache offerCache;
+  private final SingularitySlaveUsageInventory slaveUsageInventory;
 
   private final double normalizedCpuWeight;
   private final double normalizedMemWeight;
   private final double normalizedDiskWeight;
   private final ExecutorService offerScoringExecutor;
 
+  private final Timer offerRoundTimer;
+  private final Histogram offerRoundDueTasks;
+  private final Histogram offerRoundUnfittableTasks;
+  private final Histogram offerRoundSlavesRescored;
+  private final Histogram offerRoundSlavesReused;
+  private final Histogram offerRoundPairsScored;
+  private final Histogram offerRoundPairsRescored;
+
   @Inject
   public SingularityMesosOfferScheduler(
     MesosConfiguration mesosConfiguration,
@@ -107,7 +123,9 @@ public class SingularityMesosOfferScheduler {
     SingularityManagedThreadPoolFactory threadPoolFactory,
     DisasterManager disasterManager,
     SingularityMesosSchedulerClient mesosSchedulerClient,
-    OfferCache offerCache
+    OfferCache offerCache,
+    SingularitySlaveUsageInventory slaveUsageInventory,
+    MetricRegistry metricRegistry
   ) {
     this.defaultResources =
       new Resources(
@@ -135,6 +153,7 @@ public class SingularityMesosOfferScheduler {
     this.disasterManager = disasterManager;
     this.mesosSchedulerClient = mesosSchedulerClient;
     this.offerCache = offerCache;
+    this.slaveUsageInventory = slaveUsageInventory;
     this.usageHelper = usageHelper;
     this.slaveAndRackHelper = slaveAndRackHelper;
     this.taskPrioritizer = taskPrioritizer;
@@ -156,6 +175,16 @@ public class SingularityMesosOfferScheduler {
     }
     this.offerScoringExecutor =
       threadPoolFactory.get("offer-scoring", configuration.getCoreThreadpoolSize());
+    this.offerRoundTimer = metricRegistry.timer("offers.round.time");
+    this.offerRoundDueTasks = metricRegistry.histogram("offers.round.tasks.due");
+    this.offerRoundUnfittableTasks =
+      metricRegistry.histogram("offers.round.tasks.unfittable");
+    this.offerRoundSlavesRescored =
+      metricRegistry.histogram("offers.round.slaves.rescored");
+    this.offerRoundSlavesReused = metricRegistry.histogram("offers.round.slaves.reused");
+    this.offerRoundPairsScored = metricRegistry.histogram("offers.round.pairs.scored");
+    this.offerRoundPairsRescored =
+      metricRegistry.histogram("offers.round.pairs.rescored");
   }
 
   public void resourceOffers(List<Offer> uncached) {
@@ -209,7 +238,23 @@ public class SingularityMesosOfferScheduler {
         Collectors.toConcurrentMap(o -> o.getId().getValue(), Function.identity())
       );
 
-    List<CachedOffer> cachedOfferList = offerCache.checkoutOffers();
+    // Only check out cached offers for agents that are already being checked this round,
+    // or that have enough resources in total to fit at least one of the due tasks
+    final List<SingularityTaskRequestHolder> sortedTaskRequestHolders = getSortedDueTaskRequests();
+    final Set<Resources> dueTaskResources = sortedTaskRequestHolders
+      .stream()
+      .map(SingularityTaskRequestHolder::getTotalResources)
+      .collect(Collectors.toSet());
+    final Set<String> agentsWithNewOffers = offersToCheck
+      .values()
+      .stream()
+      .map(o -> o.getAgentId().getValue())
+      .collect(Collectors.toSet());
+    List<CachedOffer> cachedOfferList = offerCache.checkoutOffers(
+      (agentId, availableResources) ->
+        agentsWithNewOffers.contains(agentId) ||
+        dueTaskResources.stream().anyMatch(r -> couldFit(r, availableResources))
+    );
     Map<String, CachedOffer> cachedOffers = new ConcurrentHashMap<>();
     for (CachedOffer cachedOffer : cachedOfferList) {
       if (isValidOffer(cachedOffer.getOffer())) {
@@ -243,7 +288,11 @@ public class SingularityMesosOfferScheduler {
     );
 
     try {
-      Collection<SingularityOfferHolder> offerHolders = checkOffers(offersToCheck, start);
+      Collection<SingularityOfferHolder> offerHolders = checkOffers(
+        offersToCheck,
+        sortedTaskRequestHolders,
+        start
+      );
 
       for (SingularityOfferHolder offerHolder : offerHolders) {
         if (!offerHolder.getAcceptedTasks().isEmpty()) {
@@ -390,8 +439,19 @@ public class SingularityMesosOfferScheduler {
       LOG.debug("No offers to check");
       return Collections.emptyList();
     }
+    return checkOffers(offers, getSortedDueTaskRequests(), start);
+  }
+
+  private Collection<SingularityOfferHolder> checkOffers(
+    final Map<String, Offer> offers,
+    final List<SingularityTaskRequestHolder> sortedTaskRequestHolders,
+    long start
+  ) {
+    if (offers.isEmpty()) {
+      LOG.debug("No offers to check");
+      return Collections.emptyList();
+    }
 
-    final List<SingularityTaskRequestHolder> sortedTaskRequestHolders = getSortedDueTaskRequests();
     final int numDueTasks = sortedTaskRequestHolders.size();
 
     final Map<String, SingularityOfferHolder> offerHolders = offers
@@ -423,10 +483,34 @@ public class SingularityMesosOfferScheduler {
     }
 
     final AtomicInteger tasksScheduled = new AtomicInteger(0);
+    offerRoundDueTasks.update(numDueTasks);
+    // Candidates keep this order, so ties and early exits do not depend on map iteration
+    final List<SingularityOfferHolder> sortedOfferHolders = offerHolders
+      .values()
+      .stream()
+      .sorted(Comparator.comparing(SingularityOfferHolder::getSlaveId))
+      .collect(Collectors.toList());
+    final SingularityTaskRequestIndex taskRequestIndex = SingularityTaskRequestIndex.build(
+      sortedTaskRequestHolders,
+      sortedOfferHolders,
+      t -> slaveAndRackManager.getRequiredAttributes(t.getTaskRequest()),
+      slaveAndRackHelper
+    );
+    offerRoundUnfittableTasks.update(taskRequestIndex.getNumUnfittableTasks());
+    LOG.debug(
+      "{} due tasks in {} resource buckets, {} cannot fit any of {} offer holders",
+      numDueTasks,
+      taskRequestIndex.getNumBuckets(),
+      taskRequestIndex.getNumUnfittableTasks(),
+      offerHolders.size()
+    );
+    if (taskRequestIndex.getFittableTasks().isEmpty()) {
+      return offerHolders.values();
+    }
+
     Map<String, RequestUtilization> requestUtilizations = usageManager.getRequestUtilizations(
       false
     );
-    List<SingularityTaskId> activeTaskIds = taskManager.getActiveTaskIds();
 
     Map<String, SingularitySlaveUsageWithId> currentSlaveUsages = usageManager.getAllCurrentSlaveUsage();
 
@@ -444,14 +528,10 @@ public class SingularityMesosOfferScheduler {
               configuration.isReCheckMetricsForLargeNewTaskCount() &&
               maybeSlaveUsage.isPresent()
             ) {
-              long newTaskCount = taskManager
-                .getActiveTaskIds()
+              long newTaskCount = slaveUsageInventory
+                .getActiveTaskIdsOnHost(offerHolder.getSanitizedHost())
                 .stream()
-                .filter(
-                  t ->
-                    t.getStartedAt() > maybeSlaveUsage.get().getTimestamp() &&
-                    t.getSanitizedHost().equals(offerHolder.getSanitizedHost())
-                )
+                .filter(t -> t.getStartedAt() > maybeSlaveUsage.get().getTimestamp())
                 .count();
               if (newTaskCount >= maybeSlaveUsage.get().getNumTasks() / 2) {
                 try {
@@ -491,6 +571,7 @@ public class SingularityMesosOfferScheduler {
     }
     CompletableFutures.allOf(currentSlaveUsagesFutures).join();
 
+    RoundStats inventoryStats = new RoundStats();
     List<CompletableFuture<Void>> usagesWithScoresFutures = new ArrayList<>();
     Map<String, SingularitySlaveUsageWithCalculatedScores> currentSlaveUsagesBySlaveId = new ConcurrentHashMap<>();
     for (SingularitySlaveUsageWithId usage : currentSlaveUsages.values()) {
@@ -503,10 +584,10 @@ public class SingularityMesosOfferScheduler {
                 new SingularitySlaveUsageWithCalculatedScores(
                   usage,
                   mesosConfiguration.getScoreUsingSystemLoad(),
-                  getMaxProbableUsageForSlave(
-                    activeTaskIds,
+                  slaveUsageInventory.getMaxProbableUsage(
+                    offerHolders.get(usage.getSlaveId()).getSanitizedHost(),
                     requestUtilizations,
-                    offerHolders.get(usage.getSlaveId()).getSanitizedHost()
+                    inventoryStats
                   ),
                   mesosConfiguration.getLoad5OverloadedThreshold(),
                   mesosConfiguration.getLoad1OverloadedThreshold(),
@@ -520,111 +601,207 @@ public class SingularityMesosOfferScheduler {
 
     CompletableFutures.allOf(usagesWithScoresFutures).join();
 
+    offerRoundSlavesRescored.update(inventoryStats.getRescored());
+    offerRoundSlavesReused.update(inventoryStats.getReused());
+
     long startCheck = System.currentTimeMillis();
-    LOG.debug("Found slave usages and scores after {}ms", startCheck - start);
+    LOG.debug(
+      "Found slave usages and scores after {}ms ({} slaves rescored, {} reused from inventory)",
+      startCheck - start,
+      inventoryStats.getRescored(),
+      inventoryStats.getReused()
+    );
 
     Map<SingularityDeployKey, Optional<SingularityDeployStatistics>> deployStatsCache = new ConcurrentHashMap<>();
 
-    // We spend much of the offer check loop for request level locks. Wait for the locks in parallel, but ensure that actual offer checks
-    // are done in serial to not over commit a single offer
-    ReentrantLock offerCheckTempLock = new ReentrantLock(true);
-    CompletableFutures
-      .allOf(
-        sortedTaskRequestHolders
-          .stream()
-          .collect(Collectors.groupingBy(t -> t.getTaskRequest().getRequest().getId()))
-          .entrySet()
-          .stream()
-          .map(
-            entry ->
-              runAsync(
+    // Score every fittable task against its candidate offers in parallel, without accepting
+    // anything, so these scores only depend on the state at the start of the round. Like the
+    // commit below, a task's scoring stops at the first good enough offer. Without parallel
+    // scoring every score is left for the commit to calculate
+    final List<SingularityTaskRequestHolder> fittableTasks = taskRequestIndex.getFittableTasks();
+    final List<CompletableFuture<double[]>> scoringFutures = new ArrayList<>(
+      fittableTasks.size()
+    );
+    for (SingularityTaskRequestHolder taskRequestHolder : fittableTasks) {
+      List<SingularityOfferHolder> candidateOffers = taskRequestIndex.getCandidateOffers(
+        taskRequestHolder
+      );
+      scoringFutures.add(
+        mesosConfiguration.isParallelOfferScoring()
+          ? CompletableFuture.supplyAsync(
+            () ->
+              scoreCandidateOffers(
+                taskRequestHolder,
+                candidateOffers,
+                requestUtilizations,
+                currentSlaveUsagesBySlaveId,
+                deployStatsCache
+              ),
+            offerScoringExecutor
+          )
+          : CompletableFuture.completedFuture(unscored(candidateOffers.size()))
+      );
+    }
+    CompletableFutures.allOf(scoringFutures).join();
+
+    // Then commit one request at a time so a single offer is not over committed. Requests
+    // commit in the priority order of their first task and each request's tasks in priority
+    // order. A request's lock is only taken once the request before it has committed, so
+    // the commit never holds the locks of requests still waiting for their turn. Accepting a
+    // task changes the offer and usage scores of its agent, and the placement of later tasks
+    // for the same request, so only those pairs are rescored. Everything else uses the score
+    // from the parallel phase, and pairs it did not reach are scored now. Candidates are in
+    // agent id order and ties go to the lowest agent id, so the same input always produces
+    // the same assignments
+    final Map<String, List<Integer>> taskIndexesByRequestId = new LinkedHashMap<>();
+    for (int i = 0; i < fittableTasks.size(); i++) {
+      taskIndexesByRequestId
+        .computeIfAbsent(
+          fittableTasks.get(i).getTaskRequest().getRequest().getId(),
+          requestId -> new ArrayList<>()
+        )
+        .add(i);
+    }
+
+    final Set<String> committedSlaveIds = new HashSet<>();
+    final Set<String> committedRequestIds = new HashSet<>();
+    final AtomicInteger pairsRescored = new AtomicInteger(0);
+    final AtomicInteger pairsScored = new AtomicInteger(0);
+    final List<CompletableFuture<Void>> commitFutures = new ArrayList<>(
+      taskIndexesByRequestId.size()
+    );
+    // Submitted in commit order, so the request whose turn it is always has a thread
+    CompletableFuture<Void> previousCommit = CompletableFuture.completedFuture(null);
+    for (Map.Entry<String, List<Integer>> entry : taskIndexesByRequestId.entrySet()) {
+      final String requestId = entry.getKey();
+      final CompletableFuture<Void> turn = previousCommit;
+      final CompletableFuture<Void> committed = new CompletableFuture<>();
+      commitFutures.add(
+        runAsync(
+          () -> {
+            try {
+              turn.join();
+              lock.runWithRequestLock(
                 () -> {
-                  lock.runWithRequestLock(
-                    () -> {
-                      offerCheckTempLock.lock();
-                      try {
-                        for (SingularityTaskRequestHolder taskRequestHolder : entry.getValue()) {
-                          List<SingularityTaskId> activeTaskIdsForRequest = leaderCache.getActiveTaskIdsForRequest(
-                            taskRequestHolder.getTaskRequest().getRequest().getId()
-                          );
-                          if (
-                            isTooManyInstancesForRequest(
-                              taskRequestHolder.getTaskRequest(),
-                              activeTaskIdsForRequest
-                            )
-                          ) {
-                            LOG.debug(
-                              "Skipping pending task {}, too many instances already running",
-                              taskRequestHolder
-                                .getTaskRequest()
-                                .getPendingTask()
-                                .getPendingTaskId()
-                            );
-                            continue;
-                          }
-
-                          Map<String, Double> scorePerOffer = new ConcurrentHashMap<>();
-
-                          for (SingularityOfferHolder offerHolder : offerHolders.values()) {
-                            if (!isOfferFull(offerHolder)) {
-                              if (
-                                calculateScore(
-                                  requestUtilizations,
-                                  currentSlaveUsagesBySlaveId,
-                                  taskRequestHolder,
-                                  scorePerOffer,
-                                  activeTaskIdsForRequest,
-                                  offerHolder,
-                                  deployStatsCache
-                                ) >
-                                mesosConfiguration.getGoodEnoughScoreThreshold()
-                              ) {
-                                break;
-                              }
-                            }
-                          }
-
-                          if (!scorePerOffer.isEmpty()) {
-                            SingularityOfferHolder bestOffer = offerHolders.get(
-                              Collections
-                                .max(
-                                  scorePerOffer.entrySet(),
-                                  Map.Entry.comparingByValue()
-                                )
-                                .getKey()
-                            );
-                            LOG.info(
-                              "Best offer {}/1 is on {}",
-                              scorePerOffer.get(bestOffer.getSlaveId()),
-                              bestOffer.getSanitizedHost()
-                            );
-                            SingularityMesosTaskHolder taskHolder = acceptTask(
-                              bestOffer,
-                              taskRequestHolder
-                            );
-                            tasksScheduled.getAndIncrement();
-                            bestOffer.addMatchedTask(taskHolder);
-                            updateSlaveUsageScores(
-                              taskRequestHolder,
-                              currentSlaveUsagesBySlaveId,
-                              bestOffer.getSlaveId(),
-                              requestUtilizations
-                            );
-                          }
+                  for (int i : entry.getValue()) {
+                    final SingularityTaskRequestHolder taskRequestHolder = fittableTasks.get(
+                      i
+                    );
+                    final List<SingularityOfferHolder> candidateOffers = taskRequestIndex.getCandidateOffers(
+                      taskRequestHolder
+                    );
+                    final double[] scores = scoringFutures.get(i).join();
+                    if (scores == null) {
+                      continue;
+                    }
+                    pairsScored.addAndGet(
+                      (int) Arrays.stream(scores).filter(x -> !Double.isNaN(x)).count()
+                    );
+                    List<SingularityTaskId> activeTaskIdsForRequest = leaderCache.getActiveTaskIdsForRequest(
+                      requestId
+                    );
+                    if (
+                      isTooManyInstancesForRequest(
+                        taskRequestHolder.getTaskRequest(),
+                        activeTaskIdsForRequest
+                      )
+                    ) {
+                      LOG.debug(
+                        "Skipping pending task {}, too many instances already running",
+                        taskRequestHolder
+                          .getTaskRequest()
+                          .getPendingTask()
+                          .getPendingTaskId()
+                      );
+                      continue;
+                    }
+
+                    boolean requestChanged = committedRequestIds.contains(requestId);
+                    SingularityOfferHolder bestOffer = null;
+                    double bestScore = 0;
+                    for (int j = 0; j < candidateOffers.size(); j++) {
+                      SingularityOfferHolder offerHolder = candidateOffers.get(j);
+                      if (isOfferFull(offerHolder)) {
+                        continue;
+                      }
+                      double score = scores[j];
+                      boolean unscored = Double.isNaN(score);
+                      if (
+                        unscored ||
+                        requestChanged ||
+                        committedSlaveIds.contains(offerHolder.getSlaveId())
+                      ) {
+                        if (unscored) {
+                          pairsScored.getAndIncrement();
+                        } else {
+                          pairsRescored.getAndIncrement();
                         }
-                      } finally {
-                        offerCheckTempLock.unlock();
+                        score =
+                          calculateScore(
+                            offerHolder,
+                            currentSlaveUsagesBySlaveId,
+                            taskRequestHolder,
+                            activeTaskIdsForRequest,
+                            requestUtilizations.get(requestId),
+                            deployStatsCache
+                          );
                       }
-                    },
-                    entry.getKey(),
-                    String.format("%s#%s", getClass().getSimpleName(), "checkOffers")
-                  );
-                }
-              )
-          )
-          .collect(Collectors.toList())
-      )
-      .join();
+                      if (
+                        score != 0 &&
+                        (
+                          bestOffer == null ||
+                          score > bestScore ||
+                          (
+                            score == bestScore &&
+                            offerHolder.getSlaveId().compareTo(bestOffer.getSlaveId()) < 0
+                          )
+                        )
+                      ) {
+                        bestOffer = offerHolder;
+                        bestScore = score;
+                      }
+                      if (score > mesosConfiguration.getGoodEnoughScoreThreshold()) {
+                        break;
+                      }
+                    }
+
+                    if (bestOffer != null) {
+                      LOG.info(
+                        "Best offer {}/1 is on {}",
+                        bestScore,
+                        bestOffer.getSanitizedHost()
+                      );
+                      SingularityMesosTaskHolder taskHolder = acceptTask(
+                        bestOffer,
+                        taskRequestHolder
+                      );
+                      tasksScheduled.getAndIncrement();
+                      bestOffer.addMatchedTask(taskHolder);
+                      updateSlaveUsageScores(
+                        taskRequestHolder,
+                        currentSlaveUsagesBySlaveId,
+                        bestOffer.getSlaveId(),
+                        requestUtilizations
+                      );
+                      committedSlaveIds.add(bestOffer.getSlaveId());
+                      committedRequestIds.add(requestId);
+                    }
+                  }
+                },
+                requestId,
+                String.format("%s#%s", getClass().getSimpleName(), "checkOffers")
+              );
+            } finally {
+              committed.complete(null);
+            }
+          }
+        )
+      );
+      previousCommit = committed;
+    }
+    CompletableFutures.allOf(commitFutures).join();
+    offerRoundPairsScored.update(pairsScored.get());
+    offerRoundPairsRescored.update(pairsRescored.get());
 
     LOG.info(
       "{} tasks scheduled, {} tasks remaining after examining {} offers",
@@ -632,79 +809,61 @@ public class SingularityMesosOfferScheduler {
       numDueTasks - tasksScheduled.get(),
       offers.size()
     );
+    offerRoundTimer.update(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
 
     return offerHolders.values();
   }
 
-  private CompletableFuture<Void> runAsync(Runnable runnable) {
-    return CompletableFuture.runAsync(runnable, offerScoringExecutor);
-  }
-
-  private double calculateScore(
+  /**
+   * @return the score for each candidate offer, or null if the task should not be placed.
+   * Offers after the first good enough one are left unscored (NaN)
+   */
+  private double[] scoreCandidateOffers(
+    SingularityTaskRequestHolder taskRequestHolder,
+    List<SingularityOfferHolder> candidateOffers,
     Map<String, RequestUtilization> requestUtilizations,
     Map<String, SingularitySlaveUsageWithCalculatedScores> currentSlaveUsagesBySlaveId,
-    SingularityTaskRequestHolder taskRequestHolder,
-    Map<String, Double> scorePerOffer,
-    List<SingularityTaskId> activeTaskIdsForRequest,
-    SingularityOfferHolder offerHolder,
     Map<SingularityDeployKey, Optional<SingularityDeployStatistics>> deployStatsCache
   ) {
-    String slaveId = offerHolder.getSlaveId();
-
-    double score = calculateScore(
-      offerHolder,
-      currentSlaveUsagesBySlaveId,
-      taskRequestHolder,
-      activeTaskIdsForRequest,
-      requestUtilizations.get(taskRequestHolder.getTaskRequest().getRequest().getId()),
-      deployStatsCache
+    String requestId = taskRequestHolder.getTaskRequest().getRequest().getId();
+    List<SingularityTaskId> activeTaskIdsForRequest = leaderCache.getActiveTaskIdsForRequest(
+      requestId
     );
-    if (score != 0) {
-      scorePerOffer.put(slaveId, score);
+    if (
+      isTooManyInstancesForRequest(
+        taskRequestHolder.getTaskRequest(),
+        activeTaskIdsForRequest
+      )
+    ) {
+      return null;
     }
-    return score;
-  }
 
-  private MaxProbableUsage getMaxProbableUsageForSlave(
-    List<SingularityTaskId> activeTaskIds,
-    Map<String, RequestUtilization> requestUtilizations,
-    String sanitizedHostname
-  ) {
-    double cpu = 0;
-    double memBytes = 0;
-    double diskBytes = 0;
-    for (SingularityTaskId taskId : activeTaskIds) {
-      if (taskId.getSanitizedHost().equals(sanitizedHostname)) {
-        if (requestUtilizations.containsKey(taskId.getRequestId())) {
-          RequestUtilization utilization = requestUtilizations.get(taskId.getRequestId());
-          cpu += slaveAndRackHelper.getEstimatedCpuUsageForRequest(utilization);
-          memBytes += utilization.getMaxMemBytesUsed();
-          diskBytes += utilization.getMaxDiskBytesUsed();
-        } else {
-          Optional<SingularityTask> maybeTask = taskManager.getTask(taskId);
-          if (maybeTask.isPresent()) {
-            Resources resources = maybeTask
-              .get()
-              .getTaskRequest()
-              .getPendingTask()
-              .getResources()
-              .orElse(
-                maybeTask
-                  .get()
-                  .getTaskRequest()
-                  .getDeploy()
-                  .getResources()
-                  .orElse(defaultResources)
-              );
-            cpu += resources.getCpus();
-            memBytes +=
-              resources.getMemoryMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
-            diskBytes += resources.getDiskMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
-          }
-        }
+    double[] scores = unscored(candidateOffers.size());
+    for (int i = 0; i < candidateOffers.size(); i++) {
+      scores[i] =
+        calculateScore(
+          candidateOffers.get(i),
+          currentSlaveUsagesBySlaveId,
+          taskRequestHolder,
+          activeTaskIdsForRequest,
+          requestUtilizations.get(requestId),
+          deployStatsCache
+        );
+      if (scores[i] > mesosConfiguration.getGoodEnoughScoreThreshold()) {
+        break;
       }
     }
-    return new MaxProbableUsage(cpu, memBytes, diskBytes);
+    return scores;
+  }
+
+  private static double[] unscored(int numCandidateOffers) {
+    double[] scores = new double[numCandidateOffers];
+    Arrays.fill(scores, Double.NaN);
+    return scores;
+  }
+
+  private CompletableFuture<Void> runAsync(Runnable runnable) {
+    return CompletableFuture.runAsync(runnable, offerScoringExecutor);
   }
 
   private boolean isOfferFull(SingularityOfferHolder offerHolder) {
@@ -785,6 +944,15 @@ public class SingularityMesosOfferScheduler {
     return score;
   }
 
+  private static boolean couldFit(Resources needed, Resources available) {
+    return (
+      needed.getCpus() <= available.getCpus() &&
+      needed.getMemoryMb() <= available.getMemoryMb() &&
+      needed.getDiskMb() <= available.getDiskMb() &&
+      needed.getNumPorts() <= available.getNumPorts()
+    );
+  }
+
   private List<SingularityTaskRequestHolder> getSortedDueTaskRequests() {
     final List<SingularityTaskRequest> taskRequests = taskPrioritizer.getSortedDueTasks(
       scheduler.getDueTasks()
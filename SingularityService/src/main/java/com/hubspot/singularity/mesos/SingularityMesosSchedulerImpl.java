@@ -37,12 +37,12 @@ import java.net.ConnectException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -100,6 +100,11 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
 
   private final AtomicReference<MasterInfo> masterInfo = new AtomicReference<>();
   private final StatusUpdateQueue queuedUpdates;
+  // Held while deciding whether an update can go straight to its lane or has to queue
+  // behind the ones already in queuedUpdates, so updates are handed off in arrival order
+  private final Object queuedUpdatesLock = new Object();
+  private final AtomicBoolean drainingQueuedUpdates = new AtomicBoolean(false);
+  private final ExecutorService queuedUpdatesExecutor;
   private final ExecutorService reconnectExecutor;
   private final AtomicBoolean restartInProgress = new AtomicBoolean(false);
   private final AtomicReference<Throwable> reconnectException = new AtomicReference<>(
@@ -148,6 +153,8 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
     this.state = new SchedulerState();
     this.configuration = configuration;
     this.reconnectExecutor = threadPoolFactory.getSingleThreaded("reconnect-scheduler");
+    this.queuedUpdatesExecutor =
+      threadPoolFactory.getSingleThreaded("queued-status-updates");
   }
 
   @Override
@@ -287,7 +294,23 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
       }
     }
     try {
-      return handleStatusUpdateAsync(status).thenApply(r -> r == StatusUpdateResult.DONE);
+      synchronized (queuedUpdatesLock) {
+        if (queuedUpdates.size() == 0 && statusUpdateHandler.hasRoomForUpdate(status)) {
+          return handleStatusUpdateAsync(status)
+            .thenApply(r -> r == StatusUpdateResult.DONE);
+        }
+        // The lane is full or older updates are still queued. Not every update is resent
+        // if left unacknowledged (e.g. TASK_LOST from the master), so keep it until there
+        // is room rather than dropping it
+        LOG.debug(
+          "Status update lane is full, queueing {} behind {} queued updates",
+          status.getTaskId().getValue(),
+          queuedUpdates.size()
+        );
+        queuedUpdates.add(status);
+      }
+      drainQueuedUpdatesAsync();
+      return CompletableFuture.completedFuture(false);
     } catch (Throwable t) {
       LOG.error("Scheduler threw an uncaught exception", t);
       notifyStopping();
@@ -748,6 +771,18 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
       .whenCompleteAsync(
         (result, throwable) -> {
           if (throwable != null) {
+            if (
+              Throwables
+                .getCausalChain(throwable)
+                .stream()
+                .anyMatch(t -> t instanceof RejectedExecutionException)
+            ) {
+              LOG.info(
+                "Status update lane is full. Leaving status update unacked for {}",
+                status.getTaskId()
+              );
+              return;
+            }
             LOG.error(
               "Scheduler threw an uncaught exception processing status updates",
               throwable
@@ -802,34 +837,66 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
   }
 
   private void handleQueuedStatusUpdates() {
+    if (drainingQueuedUpdates.compareAndSet(false, true)) {
+      drainQueuedUpdates();
+    }
+  }
+
+  private void drainQueuedUpdatesAsync() {
+    if (drainingQueuedUpdates.compareAndSet(false, true)) {
+      try {
+        queuedUpdatesExecutor.execute(this::drainQueuedUpdates);
+      } catch (RejectedExecutionException ree) {
+        LOG.warn("Executor rejected draining queued status updates, shutting down");
+        drainingQueuedUpdates.set(false);
+      }
+    }
+  }
+
+  /**
+   * Hands queued updates to their lanes oldest first, waiting for room in each one's lane.
+   * Only this drain takes updates off of the queue, and nothing else is handed to a lane
+   * while the queue is not empty, so the room it waited for is still there.
+   */
+  private void drainQueuedUpdates() {
     try {
-      Iterator<TaskStatus> diskQueueIterator = queuedUpdates.diskQueueIterator();
-      while (diskQueueIterator.hasNext()) {
-        while (!statusUpdateHandler.hasRoomForMoreUpdates()) {
-          LOG.debug(
-            "Status update queue is full, waiting before processing additional updates"
-          );
-          Thread.sleep(2000);
+      while (true) {
+        TaskStatus next = state.isRunning() ? queuedUpdates.peek() : null;
+        if (next == null) {
+          drainingQueuedUpdates.set(false);
+          // An update queued after the peek but before the flag was cleared would otherwise
+          // wait for the next update to start a drain
+          if (
+            !state.isRunning() ||
+            queuedUpdates.size() == 0 ||
+            !drainingQueuedUpdates.compareAndSet(false, true)
+          ) {
+            return;
+          }
+          continue;
         }
-        TaskStatus status = diskQueueIterator.next();
-        handleStatusUpdateAsync(status);
-        diskQueueIterator.remove();
-      }
 
-      TaskStatus nextInMemory = queuedUpdates.nextInMemory();
-      while (nextInMemory != null) {
-        while (!statusUpdateHandler.hasRoomForMoreUpdates()) {
-          LOG.debug(
-            "Status update queue is full, waiting before processing additional updates"
-          );
-          Thread.sleep(2000);
+        waitForRoom(next);
+        synchronized (queuedUpdatesLock) {
+          handleStatusUpdateAsync(queuedUpdates.poll());
         }
-        handleStatusUpdateAsync(nextInMemory);
-        nextInMemory = queuedUpdates.nextInMemory();
       }
     } catch (Throwable t) {
+      drainingQueuedUpdates.set(false);
       LOG.error("Unable to process queued status updates", t);
       throw new RuntimeException(t);
     }
   }
+
+  private void waitForRoom(TaskStatus status) throws InterruptedException {
+    if (statusUpdateHandler.hasRoomForUpdate(status)) {
+      return;
+    }
+    LOG.debug(
+      "Status update lane is full, waiting before processing additional updates"
+    );
+    while (!statusUpdateHandler.hasRoomForUpdate(status)) {
+      Thread.sleep(50);
+    }
+  }
 }
@@ -1,7 +1,9 @@
 package com.hubspot.singularity.mesos;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multiset;
@@ -42,9 +44,13 @@ import com.hubspot.singularity.scheduler.SingularityLeaderCache;
 import com.hubspot.singularity.scheduler.SingularityNewTaskChecker;
 import com.hubspot.singularity.scheduler.SingularityScheduler;
 import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import org.apache.mesos.v1.Protos;
 import org.apache.mesos.v1.Protos.TaskState;
 import org.apache.mesos.v1.Protos.TaskStatus;
@@ -83,7 +89,8 @@ public class SingularityMesosStatusUpdateHandler {
   private final Meter lostTasksMeter;
   private final Histogram statusUpdateDeltas;
 
-  private final ExecutorAndQueue statusUpdatesExecutor;
+  private final List<StatusUpdateLane> lanes;
+  private final Meter backpressureMeter;
 
   @Inject
   public SingularityMesosStatusUpdateHandler(
@@ -103,6 +110,7 @@ public class SingularityMesosStatusUpdateHandler {
     SingularityLeaderCache leaderCache,
     MesosProtosUtils mesosProtosUtils,
     SingularityManagedThreadPoolFactory threadPoolFactory,
+    MetricRegistry metricRegistry,
     @Named(
       SingularityMesosModule.TASK_LOST_REASONS_COUNTER
     ) Multiset<Protos.TaskStatus.Reason> taskLostReasons,
@@ -127,12 +135,26 @@ public class SingularityMesosStatusUpdateHandler {
     this.taskLostReasons = taskLostReasons;
     this.lostTasksMeter = lostTasksMeter;
     this.statusUpdateDeltas = statusUpdateDeltas;
-    this.statusUpdatesExecutor =
-      threadPoolFactory.get(
-        "status-updates",
-        configuration.getMesosConfiguration().getStatusUpdateConcurrencyLimit(),
-        configuration.getMesosConfiguration().getMaxStatusUpdateQueueSize()
+    this.backpressureMeter = metricRegistry.meter("status.updates.backpressure");
+
+    int numLanes = Math.max(
+      1,
+      configuration.getMesosConfiguration().getStatusUpdateConcurrencyLimit()
+    );
+    int laneQueueSize = Math.max(
+      1,
+      configuration.getMesosConfiguration().getMaxStatusUpdateQueueSize() / numLanes
+    );
+    this.lanes = new ArrayList<>(numLanes);
+    for (int i = 0; i < numLanes; i++) {
+      lanes.add(
+        new StatusUpdateLane(
+          i,
+          threadPoolFactory.get("status-updates-lane-" + i, 1, laneQueueSize),
+          metricRegistry
+        )
       );
+    }
   }
 
   private boolean isRecoveryStatusUpdate(
@@ -505,31 +527,103 @@ public class SingularityMesosStatusUpdateHandler {
     );
   }
 
-  public boolean hasRoomForMoreUpdates() {
-    return (
-      statusUpdatesExecutor.getQueue().size() < statusUpdatesExecutor.getQueueLimit()
-    );
+  /**
+   * Whether the lane for this update's request has room for it, an update that can't be
+   * tied to a request never waits on a lane
+   */
+  public boolean hasRoomForUpdate(Protos.TaskStatus status) {
+    try {
+      SingularityTaskId taskId = taskIdTranscoder.fromString(
+        status.getTaskId().getValue()
+      );
+      return getLane(taskId.getRequestId()).permits.availablePermits() > 0;
+    } catch (InvalidSingularityTaskIdException | SingularityTranscoderException e) {
+      return true;
+    }
   }
 
+  /**
+   * Updates are partitioned onto single threaded lanes by request id, so updates for a
+   * request are processed in the order they were received while different requests
+   * proceed in parallel. This never blocks the caller, which is the mesos event
+   * subscriber. Callers check {@link #hasRoomForUpdate} first and queue updates that don't
+   * fit, if the lane for a request is full anyway the returned future fails with a
+   * {@link RejectedExecutionException}.
+   */
   public CompletableFuture<StatusUpdateResult> processStatusUpdateAsync(
     Protos.TaskStatus status
   ) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        final String taskId = status.getTaskId().getValue();
-        final Optional<SingularityTaskId> maybeTaskId = getTaskId(taskId);
+    final String taskId = status.getTaskId().getValue();
+    final Optional<SingularityTaskId> maybeTaskId = getTaskId(taskId);
 
-        if (!maybeTaskId.isPresent()) {
-          return StatusUpdateResult.INVALID_TASK_ID;
-        }
+    if (!maybeTaskId.isPresent()) {
+      return CompletableFuture.completedFuture(StatusUpdateResult.INVALID_TASK_ID);
+    }
 
-        return schedulerLock.runWithRequestLockAndReturn(
-          () -> unsafeProcessStatusUpdate(status, maybeTaskId.get()),
-          maybeTaskId.get().getRequestId(),
-          getClass().getSimpleName()
-        );
-      },
-      statusUpdatesExecutor.getExecutorService()
-    );
+    final StatusUpdateLane lane = getLane(maybeTaskId.get().getRequestId());
+    if (!lane.permits.tryAcquire()) {
+      backpressureMeter.mark();
+      LOG.debug(
+        "Status update lane {} is full, rejecting update for {}",
+        lane.index,
+        taskId
+      );
+      CompletableFuture<StatusUpdateResult> rejected = new CompletableFuture<>();
+      rejected.completeExceptionally(
+        new RejectedExecutionException(
+          String.format("Status update lane %s is full", lane.index)
+        )
+      );
+      return rejected;
+    }
+
+    try {
+      return CompletableFuture
+        .supplyAsync(
+          () -> {
+            long start = System.currentTimeMillis();
+            try {
+              return schedulerLock.runWithRequestLockAndReturn(
+                () -> unsafeProcessStatusUpdate(status, maybeTaskId.get()),
+                maybeTaskId.get().getRequestId(),
+                getClass().getSimpleName()
+              );
+            } finally {
+              lane.latency.update(System.currentTimeMillis() - start);
+            }
+          },
+          lane.executor.getExecutorService()
+        )
+        .whenComplete((result, throwable) -> lane.permits.release());
+    } catch (Throwable t) {
+      lane.permits.release();
+      throw t;
+    }
+  }
+
+  private StatusUpdateLane getLane(String requestId) {
+    return lanes.get(Math.floorMod(requestId.hashCode(), lanes.size()));
+  }
+
+  private static class StatusUpdateLane {
+    private final int index;
+    private final ExecutorAndQueue executor;
+    // Permits are released as an update completes, before the lane thread takes the next
+    // one off of the queue, so there can be no more permits than queue slots
+    private final Semaphore permits;
+    private final Histogram latency;
+
+    StatusUpdateLane(int index, ExecutorAndQueue executor, MetricRegistry registry) {
+      this.index = index;
+      this.executor = executor;
+      this.permits = new Semaphore(executor.getQueueLimit());
+      this.latency =
+        registry.histogram(String.format("status.updates.lane.%s.latency", index));
+      // gauge() returns the existing gauge rather than failing if the handler is built again
+      registry.gauge(
+        String.format("status.updates.lane.%s.queue", index),
+        () -> (Gauge<Integer>) () -> executor.getQueue().size()
+      );
+    }
   }
 }
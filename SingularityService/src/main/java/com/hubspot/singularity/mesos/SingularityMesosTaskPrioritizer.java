@@ -46,9 +46,15 @@ public class SingularityMesosTaskPrioritizer {
         )
       );
     }
+    // Due tasks come out of the pending task cache in no particular order, break ties by id
+    // so equally weighted tasks are always offered agents in the same order
     Collections.sort(
       taskRequestWithPriorities,
-      SingularityTaskRequestWithPriority.weightedPriorityComparator()
+      SingularityTaskRequestWithPriority
+        .weightedPriorityComparator()
+        .thenComparing(
+          t -> t.getTaskRequest().getPendingTask().getPendingTaskId().getId()
+        )
     );
     List<SingularityTaskRequest> taskRequests = new ArrayList<>();
     for (SingularityTaskRequestWithPriority taskRequestWithPriority : taskRequestWithPriorities) {
@@ -2,9 +2,11 @@ package com.hubspot.singularity.mesos;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.hubspot.mesos.Resources;
 import com.hubspot.singularity.mesos.SingularityOfferCache.CachedOffer;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.BiPredicate;
 import org.apache.mesos.v1.Protos.Offer;
 import org.apache.mesos.v1.Protos.OfferID;
 
@@ -37,6 +39,11 @@ public class SingularityNoOfferCache implements OfferCache {
     return Collections.emptyList();
   }
 
+  @Override
+  public List<CachedOffer> checkoutOffers(BiPredicate<String, Resources> shouldCheckOut) {
+    return Collections.emptyList();
+  }
+
   @Override
   public void returnOffer(CachedOffer cachedOffer) {
     // no-op
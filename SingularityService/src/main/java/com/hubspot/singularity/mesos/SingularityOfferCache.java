@@ -1,32 +1,45 @@
 package com.hubspot.singularity.mesos;
 
 import com.google.common.base.Preconditions;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalCause;
-import com.google.common.cache.RemovalListener;
-import com.google.common.cache.RemovalNotification;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.hubspot.mesos.JavaUtils;
+import com.hubspot.mesos.Resources;
 import com.hubspot.singularity.config.SingularityConfiguration;
-import com.hubspot.singularity.mesos.SingularityOfferCache.CachedOffer;
+import com.hubspot.singularity.helpers.MesosUtils;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
 import org.apache.mesos.v1.Protos.Offer;
 import org.apache.mesos.v1.Protos.OfferID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Cached offers pooled by agent. Each agent's offers are only ever modified inside a
+ * ConcurrentHashMap compute for that agent, so offers for different agents are cached,
+ * checked out and returned without contending on a shared lock. An agent's available
+ * offers are checked out together, and only when their combined resources pass the
+ * caller's filter, so agents that could not fit anything stay in the pool untouched.
+ * Offers expire offerTimeout after being cached and are declined if they are not
+ * checked out at the time. Once offerCacheSize offers are cached the oldest cached offer
+ * is evicted to make room for a new one, and declined the same way an expired offer is.
+ */
 @Singleton
-public class SingularityOfferCache
-  implements OfferCache, RemovalListener<String, CachedOffer> {
+public class SingularityOfferCache implements OfferCache {
   private static final Logger LOG = LoggerFactory.getLogger(SingularityOfferCache.class);
 
-  private final Cache<String, CachedOffer> offerCache;
+  private final Map<String, AgentOffers> offersByAgent;
+  private final Map<String, String> agentIdsByOfferId;
+  private final AtomicInteger size;
+  private final int maxSize;
   private final SingularityMesosSchedulerClient schedulerClient;
   private final SingularityConfiguration configuration;
   private final AtomicBoolean useOfferCache = new AtomicBoolean(true);
@@ -38,17 +51,10 @@ public class SingularityOfferCache
   ) {
     this.configuration = configuration;
     this.schedulerClient = schedulerClient;
-
-    offerCache =
-      CacheBuilder
-        .newBuilder()
-        .expireAfterWrite(
-          configuration.getMesosConfiguration().getOfferTimeout(),
-          TimeUnit.MILLISECONDS
-        )
-        .maximumSize(configuration.getOfferCacheSize())
-        .removalListener(this)
-        .build();
+    this.offersByAgent = new ConcurrentHashMap<>();
+    this.agentIdsByOfferId = new ConcurrentHashMap<>();
+    this.size = new AtomicInteger(0);
+    this.maxSize = configuration.getOfferCacheSize();
   }
 
   @Override
@@ -57,39 +63,42 @@ public class SingularityOfferCache
       schedulerClient.decline(Collections.singletonList(offer.getId()));
       return;
     }
+    while (size.incrementAndGet() > maxSize) {
+      size.decrementAndGet();
+      if (!evictOldest()) {
+        LOG.debug(
+          "Offer cache is full ({} offers), declining {}",
+          maxSize,
+          offer.getId().getValue()
+        );
+        schedulerClient.decline(Collections.singletonList(offer.getId()));
+        return;
+      }
+    }
     LOG.debug(
       "Caching offer {} for {}",
       offer.getId().getValue(),
       JavaUtils.durationFromMillis(configuration.getCacheOffersForMillis())
     );
 
-    offerCache.put(offer.getId().getValue(), new CachedOffer(offer));
-  }
-
-  @Override
-  public void onRemoval(RemovalNotification<String, CachedOffer> notification) {
-    if (notification.getCause() == RemovalCause.EXPLICIT) {
-      return;
-    }
-
-    LOG.debug(
-      "Cache removal for {} due to {}",
-      notification.getKey(),
-      notification.getCause()
-    );
-
-    synchronized (offerCache) {
-      if (notification.getValue().offerState == OfferState.AVAILABLE) {
-        declineOffer(notification.getValue());
-      } else {
-        notification.getValue().expire();
+    CachedOffer cachedOffer = new CachedOffer(offer);
+    String agentId = offer.getAgentId().getValue();
+    agentIdsByOfferId.put(cachedOffer.offerId, agentId);
+    offersByAgent.compute(
+      agentId,
+      (k, agentOffers) -> {
+        AgentOffers updated = agentOffers == null ? new AgentOffers() : agentOffers;
+        if (updated.offers.put(cachedOffer.offerId, cachedOffer) != null) {
+          size.decrementAndGet();
+        }
+        return updated;
       }
-    }
+    );
   }
 
   @Override
   public void rescindOffer(OfferID offerId) {
-    CachedOffer maybeCached = offerCache.getIfPresent(offerId.getValue());
+    CachedOffer maybeCached = remove(offerId.getValue());
     if (maybeCached != null) {
       LOG.info(
         "Offer {} on {} rescinded",
@@ -99,34 +108,63 @@ public class SingularityOfferCache
     } else {
       LOG.info("Offer {} rescinded (not in cache)", offerId.getValue());
     }
-    offerCache.invalidate(offerId.getValue());
   }
 
   @Override
   public void invalidateAll() {
-    offerCache.invalidateAll();
+    offersByAgent.keySet().forEach(offersByAgent::remove);
+    agentIdsByOfferId.clear();
+    size.set(0);
   }
 
   @Override
   public void useOffer(CachedOffer cachedOffer) {
-    offerCache.invalidate(cachedOffer.offerId);
+    remove(cachedOffer.offerId);
   }
 
   @Override
   public List<CachedOffer> checkoutOffers() {
+    return checkoutOffers((agentId, availableResources) -> true);
+  }
+
+  @Override
+  public List<CachedOffer> checkoutOffers(BiPredicate<String, Resources> shouldCheckOut) {
     if (!useOfferCache.get()) {
       return Collections.emptyList();
     }
 
-    // Force Guava cache to perform maintenance operations and reach a consistent state.
-    offerCache.cleanUp();
+    long expireBefore =
+      System.currentTimeMillis() -
+      configuration.getMesosConfiguration().getOfferTimeout();
+    List<CachedOffer> checkedOut = new ArrayList<>();
+    List<CachedOffer> expired = new ArrayList<>();
+    for (String agentId : offersByAgent.keySet()) {
+      offersByAgent.computeIfPresent(
+        agentId,
+        (k, agentOffers) -> {
+          expired.addAll(agentOffers.expire(expireBefore));
+          List<CachedOffer> available = agentOffers.getAvailable();
+          if (
+            !available.isEmpty() &&
+            shouldCheckOut.test(agentId, agentOffers.sumResources(available))
+          ) {
+            available.forEach(CachedOffer::checkOut);
+            checkedOut.addAll(available);
+          }
+          return agentOffers.offers.isEmpty() ? null : agentOffers;
+        }
+      );
+    }
 
-    List<CachedOffer> offers = new ArrayList<>((int) offerCache.size());
-    for (CachedOffer cachedOffer : offerCache.asMap().values()) {
-      cachedOffer.checkOut();
-      offers.add(cachedOffer);
+    for (CachedOffer cachedOffer : expired) {
+      agentIdsByOfferId.remove(cachedOffer.offerId);
+      size.decrementAndGet();
+      LOG.debug("Cached offer {} expired", cachedOffer.offerId);
+      if (cachedOffer.expire()) {
+        declineOffer(cachedOffer);
+      }
     }
-    return offers;
+    return checkedOut;
   }
 
   @Override
@@ -134,21 +172,23 @@ public class SingularityOfferCache
     if (!useOfferCache.get()) {
       return Collections.emptyList();
     }
-    List<Offer> offers = new ArrayList<>((int) offerCache.size());
-    for (CachedOffer cachedOffer : offerCache.asMap().values()) {
-      offers.add(cachedOffer.offer);
+    List<Offer> offers = new ArrayList<>(size.get());
+    for (String agentId : offersByAgent.keySet()) {
+      offersByAgent.computeIfPresent(
+        agentId,
+        (k, agentOffers) -> {
+          agentOffers.offers.values().forEach(o -> offers.add(o.offer));
+          return agentOffers;
+        }
+      );
     }
     return offers;
   }
 
   @Override
   public void returnOffer(CachedOffer cachedOffer) {
-    synchronized (offerCache) {
-      if (cachedOffer.offerState == OfferState.EXPIRED) {
-        declineOffer(cachedOffer);
-      } else {
-        cachedOffer.checkIn();
-      }
+    if (!cachedOffer.checkIn()) {
+      declineOffer(cachedOffer);
     }
   }
 
@@ -162,6 +202,66 @@ public class SingularityOfferCache
     useOfferCache.set(true);
   }
 
+  private CachedOffer remove(String offerId) {
+    String agentId = agentIdsByOfferId.remove(offerId);
+    if (agentId == null) {
+      return null;
+    }
+    CachedOffer[] removed = new CachedOffer[1];
+    offersByAgent.computeIfPresent(
+      agentId,
+      (k, agentOffers) -> {
+        removed[0] = agentOffers.offers.remove(offerId);
+        return agentOffers.offers.isEmpty() ? null : agentOffers;
+      }
+    );
+    if (removed[0] != null) {
+      size.decrementAndGet();
+    }
+    return removed[0];
+  }
+
+  /**
+   * @return false if there was no cached offer left to evict
+   */
+  private boolean evictOldest() {
+    while (true) {
+      CachedOffer[] oldest = new CachedOffer[1];
+      for (String agentId : offersByAgent.keySet()) {
+        offersByAgent.computeIfPresent(
+          agentId,
+          (k, agentOffers) -> {
+            CachedOffer agentOldest = agentOffers.getOldest();
+            if (
+              agentOldest != null &&
+              (oldest[0] == null || agentOldest.cachedAt < oldest[0].cachedAt)
+            ) {
+              oldest[0] = agentOldest;
+            }
+            return agentOffers;
+          }
+        );
+      }
+      if (oldest[0] == null) {
+        return false;
+      }
+
+      // Another thread may have used or evicted it since, in which case look again
+      CachedOffer evicted = remove(oldest[0].offerId);
+      if (evicted != null) {
+        LOG.debug(
+          "Offer cache is full ({} offers), evicting {}",
+          maxSize,
+          evicted.offerId
+        );
+        if (evicted.expire()) {
+          declineOffer(evicted);
+        }
+        return true;
+      }
+    }
+  }
+
   private void declineOffer(CachedOffer offer) {
     if (!schedulerClient.isRunning()) {
       LOG.error(
@@ -182,14 +282,65 @@ public class SingularityOfferCache
     EXPIRED
   }
 
+  /**
+   * Only accessed from within a compute for its agent
+   */
+  private static class AgentOffers {
+    private final Map<String, CachedOffer> offers = new LinkedHashMap<>();
+
+    List<CachedOffer> expire(long expireBefore) {
+      List<CachedOffer> expired = new ArrayList<>();
+      Iterator<CachedOffer> iterator = offers.values().iterator();
+      while (iterator.hasNext()) {
+        CachedOffer cachedOffer = iterator.next();
+        if (cachedOffer.cachedAt < expireBefore) {
+          iterator.remove();
+          expired.add(cachedOffer);
+        }
+      }
+      return expired;
+    }
+
+    CachedOffer getOldest() {
+      Iterator<CachedOffer> iterator = offers.values().iterator();
+      return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    List<CachedOffer> getAvailable() {
+      List<CachedOffer> available = new ArrayList<>(offers.size());
+      for (CachedOffer cachedOffer : offers.values()) {
+        if (cachedOffer.isAvailable()) {
+          available.add(cachedOffer);
+        }
+      }
+      return available;
+    }
+
+    Resources sumResources(List<CachedOffer> cachedOffers) {
+      double cpus = 0;
+      double memoryMb = 0;
+      double diskMb = 0;
+      int numPorts = 0;
+      for (CachedOffer cachedOffer : cachedOffers) {
+        cpus += MesosUtils.getNumCpus(cachedOffer.offer);
+        memoryMb += MesosUtils.getMemory(cachedOffer.offer);
+        diskMb += MesosUtils.getDisk(cachedOffer.offer);
+        numPorts += MesosUtils.getNumPorts(cachedOffer.offer);
+      }
+      return new Resources(cpus, memoryMb, numPorts, diskMb);
+    }
+  }
+
   public static class CachedOffer {
     private final String offerId;
     private final Offer offer;
+    private final long cachedAt;
     private OfferState offerState;
 
     public CachedOffer(Offer offer) {
       this.offerId = offer.getId().getValue();
       this.offer = offer;
+      this.cachedAt = System.currentTimeMillis();
       this.offerState = OfferState.AVAILABLE;
     }
 
@@ -201,7 +352,11 @@ public class SingularityOfferCache
       return offerId;
     }
 
-    private void checkOut() {
+    private synchronized boolean isAvailable() {
+      return offerState == OfferState.AVAILABLE;
+    }
+
+    private synchronized void checkOut() {
       Preconditions.checkState(
         offerState == OfferState.AVAILABLE,
         "Offer %s was in state %s",
@@ -211,7 +366,13 @@ public class SingularityOfferCache
       this.offerState = OfferState.CHECKED_OUT;
     }
 
-    private void checkIn() {
+    /**
+     * @return false if the offer expired while it was checked out
+     */
+    private synchronized boolean checkIn() {
+      if (offerState == OfferState.EXPIRED) {
+        return false;
+      }
       Preconditions.checkState(
         offerState == OfferState.CHECKED_OUT,
         "Offer %s was in state %s",
@@ -219,16 +380,17 @@ public class SingularityOfferCache
         offerState
       );
       this.offerState = OfferState.AVAILABLE;
+      return true;
     }
 
-    private void expire() {
-      Preconditions.checkState(
-        offerState == OfferState.CHECKED_OUT,
-        "Offer %s was in state %s",
-        offerId,
-        offerState
-      );
+    /**
+     * @return true if the offer was available and should be declined now, otherwise it
+     * is declined when it is returned
+     */
+    private synchronized boolean expire() {
+      boolean wasAvailable = offerState == OfferState.AVAILABLE;
       this.offerState = OfferState.EXPIRED;
+      return wasAvailable;
     }
   }
 }
@@ -479,7 +479,7 @@ public class SingularitySlaveAndRackManager {
     return true;
   }
 
-  private Map<String, String> getRequiredAttributes(SingularityTaskRequest taskRequest) {
+  Map<String, String> getRequiredAttributes(SingularityTaskRequest taskRequest) {
     if (!taskRequest.getPendingTask().getRequiredSlaveAttributeOverrides().isEmpty()) {
       return taskRequest.getPendingTask().getRequiredSlaveAttributeOverrides();
     } else if (
@@ -941,7 +941,7 @@ public class SingularitySlaveAndRackManager {
     SingularityTaskId taskId,
     SingularityLeaderCache leaderCache
   ) {
-    for (SingularityTaskId activeTaskId : leaderCache.getActiveTaskIds()) {
+    for (SingularityTaskId activeTaskId : leaderCache.getActiveTaskIdsSnapshot()) {
       if (
         !activeTaskId.equals(taskId) &&
         activeTaskId.getSanitizedRackId().equals(taskId.getSanitizedRackId())
@@ -0,0 +1,184 @@
+package com.hubspot.singularity.mesos;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.hubspot.mesos.Resources;
+import com.hubspot.singularity.RequestUtilization;
+import com.hubspot.singularity.SingularitySlaveUsage;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.config.MesosConfiguration;
+import com.hubspot.singularity.data.TaskManager;
+import com.hubspot.singularity.mesos.SingularitySlaveUsageWithCalculatedScores.MaxProbableUsage;
+import com.hubspot.singularity.scheduler.SingularityLeaderCache;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived, per-host view of the estimated usage of tasks on each slave. Entries are
+ * keyed by sanitized host and are only recomputed when the set of active tasks on that
+ * host (maintained by the leader cache as tasks launch and status updates arrive) or the
+ * request utilizations of those tasks (replaced on each usage poll) have changed since
+ * the last offer round.
+ */
+@Singleton
+public class SingularitySlaveUsageInventory {
+  private final TaskManager taskManager;
+  private final SingularityLeaderCache leaderCache;
+  private final SingularitySlaveAndRackHelper slaveAndRackHelper;
+  private final Resources defaultResources;
+
+  private final Map<String, SlaveInventoryEntry> entries;
+
+  private final Meter reusedMeter;
+  private final Meter rescoredMeter;
+
+  @Inject
+  public SingularitySlaveUsageInventory(
+    TaskManager taskManager,
+    SingularityLeaderCache leaderCache,
+    SingularitySlaveAndRackHelper slaveAndRackHelper,
+    MesosConfiguration mesosConfiguration,
+    MetricRegistry metricRegistry
+  ) {
+    this.taskManager = taskManager;
+    this.leaderCache = leaderCache;
+    this.slaveAndRackHelper = slaveAndRackHelper;
+    this.defaultResources =
+      new Resources(
+        mesosConfiguration.getDefaultCpus(),
+        mesosConfiguration.getDefaultMemory(),
+        0,
+        mesosConfiguration.getDefaultDisk()
+      );
+    this.entries = new ConcurrentHashMap<>();
+    this.reusedMeter = metricRegistry.meter("offers.inventory.reused");
+    this.rescoredMeter = metricRegistry.meter("offers.inventory.rescored");
+  }
+
+  public List<SingularityTaskId> getActiveTaskIdsOnHost(String sanitizedHost) {
+    return leaderCache.getActiveTaskIdsOnHost(sanitizedHost);
+  }
+
+  public MaxProbableUsage getMaxProbableUsage(
+    String sanitizedHost,
+    Map<String, RequestUtilization> requestUtilizations,
+    RoundStats roundStats
+  ) {
+    List<SingularityTaskId> taskIdsOnHost = getActiveTaskIdsOnHost(sanitizedHost);
+    if (taskIdsOnHost.isEmpty()) {
+      entries.remove(sanitizedHost);
+      return new MaxProbableUsage(0, 0, 0);
+    }
+
+    SlaveInventoryEntry existing = entries.get(sanitizedHost);
+    if (existing != null && existing.isCurrent(taskIdsOnHost, requestUtilizations)) {
+      reusedMeter.mark();
+      roundStats.reused.incrementAndGet();
+      return existing.maxProbableUsage;
+    }
+
+    SlaveInventoryEntry updated = computeEntry(taskIdsOnHost, requestUtilizations);
+    entries.put(sanitizedHost, updated);
+    rescoredMeter.mark();
+    roundStats.rescored.incrementAndGet();
+    return updated.maxProbableUsage;
+  }
+
+  private SlaveInventoryEntry computeEntry(
+    List<SingularityTaskId> taskIdsOnHost,
+    Map<String, RequestUtilization> requestUtilizations
+  ) {
+    Map<String, RequestUtilization> utilizationsUsed = new HashMap<>();
+    double cpu = 0;
+    double memBytes = 0;
+    double diskBytes = 0;
+    for (SingularityTaskId taskId : taskIdsOnHost) {
+      RequestUtilization utilization = requestUtilizations.get(taskId.getRequestId());
+      utilizationsUsed.put(taskId.getRequestId(), utilization);
+      if (utilization != null) {
+        cpu += slaveAndRackHelper.getEstimatedCpuUsageForRequest(utilization);
+        memBytes += utilization.getMaxMemBytesUsed();
+        diskBytes += utilization.getMaxDiskBytesUsed();
+      } else {
+        Optional<SingularityTask> maybeTask = taskManager.getTask(taskId);
+        if (maybeTask.isPresent()) {
+          Resources resources = maybeTask
+            .get()
+            .getTaskRequest()
+            .getPendingTask()
+            .getResources()
+            .orElse(
+              maybeTask
+                .get()
+                .getTaskRequest()
+                .getDeploy()
+                .getResources()
+                .orElse(defaultResources)
+            );
+          cpu += resources.getCpus();
+          memBytes += resources.getMemoryMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
+          diskBytes += resources.getDiskMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
+        }
+      }
+    }
+    return new SlaveInventoryEntry(
+      taskIdsOnHost,
+      utilizationsUsed,
+      new MaxProbableUsage(cpu, memBytes, diskBytes)
+    );
+  }
+
+  public static class RoundStats {
+    private final AtomicInteger reused = new AtomicInteger(0);
+    private final AtomicInteger rescored = new AtomicInteger(0);
+
+    public int getReused() {
+      return reused.get();
+    }
+
+    public int getRescored() {
+      return rescored.get();
+    }
+  }
+
+  private static class SlaveInventoryEntry {
+    private final List<SingularityTaskId> taskIds;
+    private final Map<String, RequestUtilization> utilizationsUsed;
+    private final MaxProbableUsage maxProbableUsage;
+
+    SlaveInventoryEntry(
+      List<SingularityTaskId> taskIds,
+      Map<String, RequestUtilization> utilizationsUsed,
+      MaxProbableUsage maxProbableUsage
+    ) {
+      this.taskIds = taskIds;
+      this.utilizationsUsed = utilizationsUsed;
+      this.maxProbableUsage = maxProbableUsage;
+    }
+
+    // The leader cache hands out the same host snapshot until that host's tasks change,
+    // and utilizations are replaced wholesale on each usage poll, so reference checks
+    // are enough to tell whether anything feeding the estimate has moved
+    boolean isCurrent(
+      List<SingularityTaskId> currentTaskIds,
+      Map<String, RequestUtilization> requestUtilizations
+    ) {
+      if (taskIds != currentTaskIds) {
+        return false;
+      }
+      for (Map.Entry<String, RequestUtilization> used : utilizationsUsed.entrySet()) {
+        if (requestUtilizations.get(used.getKey()) != used.getValue()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
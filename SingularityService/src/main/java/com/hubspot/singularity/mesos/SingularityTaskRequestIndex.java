@@ -0,0 +1,186 @@
+package com.hubspot.singularity.mesos;
+
+import com.hubspot.mesos.Resources;
+import com.hubspot.singularity.helpers.MesosUtils;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Index of due task requests for a single offer round. Tasks are bucketed by what they
+ * need from a slave (total resources, required role, literal host ports and required
+ * slave attributes). Each bucket is checked once against every offer holder, so the
+ * matcher only scores a task against offers that could possibly fit it and can skip
+ * tasks that no offer in the round can fit. Offers only shrink as tasks are accepted,
+ * so candidates computed up front are always a superset of the offers that still fit.
+ * Candidates keep the order the offer holders were given in.
+ */
+public class SingularityTaskRequestIndex {
+  private final Map<TaskFitKey, TaskBucket> buckets;
+  private final Map<SingularityTaskRequestHolder, TaskBucket> taskToBucket;
+  private final List<SingularityTaskRequestHolder> fittableTasks;
+  private final int numUnfittableTasks;
+
+  private SingularityTaskRequestIndex(
+    Map<TaskFitKey, TaskBucket> buckets,
+    Map<SingularityTaskRequestHolder, TaskBucket> taskToBucket,
+    List<SingularityTaskRequestHolder> fittableTasks,
+    int numUnfittableTasks
+  ) {
+    this.buckets = buckets;
+    this.taskToBucket = taskToBucket;
+    this.fittableTasks = fittableTasks;
+    this.numUnfittableTasks = numUnfittableTasks;
+  }
+
+  public static SingularityTaskRequestIndex build(
+    List<SingularityTaskRequestHolder> sortedTaskRequestHolders,
+    Collection<SingularityOfferHolder> offerHolders,
+    Function<SingularityTaskRequestHolder, Map<String, String>> requiredAttributes,
+    SingularitySlaveAndRackHelper slaveAndRackHelper
+  ) {
+    Map<TaskFitKey, TaskBucket> buckets = new HashMap<>();
+    Map<SingularityTaskRequestHolder, TaskBucket> taskToBucket = new IdentityHashMap<>();
+    List<SingularityTaskRequestHolder> fittableTasks = new ArrayList<>(
+      sortedTaskRequestHolders.size()
+    );
+    int numUnfittableTasks = 0;
+    for (SingularityTaskRequestHolder taskRequestHolder : sortedTaskRequestHolders) {
+      TaskFitKey key = new TaskFitKey(
+        taskRequestHolder.getTotalResources(),
+        taskRequestHolder.getTaskRequest().getRequest().getRequiredRole(),
+        taskRequestHolder.getRequestedPorts(),
+        requiredAttributes.apply(taskRequestHolder)
+      );
+      TaskBucket bucket = buckets.computeIfAbsent(
+        key,
+        k -> new TaskBucket(k, offerHolders, slaveAndRackHelper)
+      );
+      taskToBucket.put(taskRequestHolder, bucket);
+
+      // Tasks are visited in the prioritizer's order, so fittable tasks keep that order
+      if (bucket.candidateOffers.isEmpty()) {
+        numUnfittableTasks++;
+      } else {
+        fittableTasks.add(taskRequestHolder);
+      }
+    }
+
+    return new SingularityTaskRequestIndex(
+      buckets,
+      taskToBucket,
+      fittableTasks,
+      numUnfittableTasks
+    );
+  }
+
+  public List<SingularityTaskRequestHolder> getFittableTasks() {
+    return fittableTasks;
+  }
+
+  public List<SingularityOfferHolder> getCandidateOffers(
+    SingularityTaskRequestHolder taskRequestHolder
+  ) {
+    TaskBucket bucket = taskToBucket.get(taskRequestHolder);
+    return bucket == null ? Collections.emptyList() : bucket.candidateOffers;
+  }
+
+  public int getNumBuckets() {
+    return buckets.size();
+  }
+
+  public int getNumUnfittableTasks() {
+    return numUnfittableTasks;
+  }
+
+  private static class TaskBucket {
+    private final List<SingularityOfferHolder> candidateOffers;
+
+    TaskBucket(
+      TaskFitKey key,
+      Collection<SingularityOfferHolder> offerHolders,
+      SingularitySlaveAndRackHelper slaveAndRackHelper
+    ) {
+      this.candidateOffers = new ArrayList<>();
+      for (SingularityOfferHolder offerHolder : offerHolders) {
+        if (key.couldFit(offerHolder, slaveAndRackHelper)) {
+          candidateOffers.add(offerHolder);
+        }
+      }
+    }
+  }
+
+  private static class TaskFitKey {
+    private final Resources totalResources;
+    private final Optional<String> requiredRole;
+    private final List<Long> requestedPorts;
+    private final Map<String, String> requiredAttributes;
+
+    TaskFitKey(
+      Resources totalResources,
+      Optional<String> requiredRole,
+      List<Long> requestedPorts,
+      Map<String, String> requiredAttributes
+    ) {
+      this.totalResources = totalResources;
+      this.requiredRole = requiredRole;
+      this.requestedPorts = requestedPorts;
+      this.requiredAttributes = requiredAttributes;
+    }
+
+    boolean couldFit(
+      SingularityOfferHolder offerHolder,
+      SingularitySlaveAndRackHelper slaveAndRackHelper
+    ) {
+      if (
+        !requiredAttributes.isEmpty() &&
+        !slaveAndRackHelper.containsAllAttributes(
+          offerHolder.getTextAttributes(),
+          requiredAttributes
+        )
+      ) {
+        return false;
+      }
+      return MesosUtils.doesOfferMatchResources(
+        requiredRole,
+        totalResources,
+        offerHolder.getCurrentResources(),
+        requestedPorts
+      );
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      TaskFitKey that = (TaskFitKey) o;
+      return (
+        Objects.equals(totalResources, that.totalResources) &&
+        Objects.equals(requiredRole, that.requiredRole) &&
+        Objects.equals(requestedPorts, that.requestedPorts) &&
+        Objects.equals(requiredAttributes, that.requiredAttributes)
+      );
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+        totalResources,
+        requiredRole,
+        requestedPorts,
+        requiredAttributes
+      );
+    }
+  }
+}
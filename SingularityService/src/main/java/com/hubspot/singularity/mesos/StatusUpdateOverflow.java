@@ -0,0 +1,15 @@
+package com.hubspot.singularity.mesos;
+
+import java.io.Closeable;
+import java.io.IOException;
+import org.apache.mesos.v1.Protos.TaskStatus;
+
+/**
+ * Disk backed storage for status updates that do not fit in the in memory queue. The
+ * iterator drains updates in the order they were added as they are removed.
+ */
+interface StatusUpdateOverflow extends Iterable<TaskStatus>, Closeable {
+  int size();
+
+  void add(TaskStatus update) throws IOException;
+}
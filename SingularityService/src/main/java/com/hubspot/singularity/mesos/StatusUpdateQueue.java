@@ -1,9 +1,12 @@
 package com.hubspot.singularity.mesos;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.hubspot.singularity.Singularity;
+import com.hubspot.singularity.config.MesosConfiguration;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.squareup.tape2.ObjectQueue;
 import com.squareup.tape2.ObjectQueue.Converter;
@@ -16,18 +19,24 @@ import java.util.Iterator;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import org.apache.mesos.v1.Protos.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Singleton
 public class StatusUpdateQueue {
+  private static final Logger LOG = LoggerFactory.getLogger(StatusUpdateQueue.class);
+
   private final SingularityConfiguration configuration;
-  private final File queueFile;
   private final Queue<TaskStatus> inMemoryQueue;
-  private final ObjectQueue<TaskStatus> onDiskQueue;
+  private final StatusUpdateOverflow onDiskQueue;
+  private final Meter spilledMeter;
+  private final Meter drainedMeter;
 
   @Inject
   public StatusUpdateQueue(
     SingularityConfiguration configuration,
-    @Singularity ObjectMapper objectMapper
+    @Singularity ObjectMapper objectMapper,
+    MetricRegistry metricRegistry
   )
     throws IOException {
     this.configuration = configuration;
@@ -35,24 +44,76 @@ public class StatusUpdateQueue {
       new ArrayBlockingQueue<>(
         configuration.getMesosConfiguration().getMaxStatusUpdateQueueSize()
       );
-    File parent = Files.createTempDirectory("queues").toFile();
-    this.queueFile = new File(parent, "queue-file");
     this.onDiskQueue =
-      ObjectQueue.create(
-        new QueueFile.Builder(queueFile).build(),
-        new Converter<TaskStatus>() {
+      createOverflow(configuration.getMesosConfiguration(), objectMapper);
+    this.spilledMeter = metricRegistry.meter("status.updates.overflow.spilled");
+    this.drainedMeter = metricRegistry.meter("status.updates.overflow.drained");
+  }
+
+  private static StatusUpdateOverflow createOverflow(
+    MesosConfiguration mesosConfiguration,
+    ObjectMapper objectMapper
+  )
+    throws IOException {
+    File parent;
+    if (mesosConfiguration.getStatusUpdateOverflowDirectory().isPresent()) {
+      parent = new File(mesosConfiguration.getStatusUpdateOverflowDirectory().get());
+      Files.createDirectories(parent.toPath());
+    } else {
+      parent = Files.createTempDirectory("queues").toFile();
+    }
+    LOG.info(
+      "Using {} status update overflow in {}",
+      mesosConfiguration.getStatusUpdateOverflowType(),
+      parent
+    );
+
+    switch (mesosConfiguration.getStatusUpdateOverflowType()) {
+      case MAPPED_SEGMENTS:
+        return new MappedStatusUpdateOverflow(
+          parent,
+          mesosConfiguration.getStatusUpdateOverflowSegmentSizeBytes()
+        );
+      case TAPE:
+      default:
+        ObjectQueue<TaskStatus> tapeQueue = ObjectQueue.create(
+          new QueueFile.Builder(new File(parent, "queue-file")).build(),
+          new Converter<TaskStatus>() {
+
+            @Override
+            public TaskStatus from(byte[] source) throws IOException {
+              return objectMapper.readValue(source, TaskStatus.class);
+            }
+
+            @Override
+            public void toStream(TaskStatus value, OutputStream sink) throws IOException {
+              objectMapper.writeValue(sink, value);
+            }
+          }
+        );
+        return new StatusUpdateOverflow() {
 
           @Override
-          public TaskStatus from(byte[] source) throws IOException {
-            return objectMapper.readValue(source, TaskStatus.class);
+          public int size() {
+            return tapeQueue.size();
           }
 
           @Override
-          public void toStream(TaskStatus value, OutputStream sink) throws IOException {
-            objectMapper.writeValue(sink, value);
+          public void add(TaskStatus update) throws IOException {
+            tapeQueue.add(update);
           }
-        }
-      );
+
+          @Override
+          public Iterator<TaskStatus> iterator() {
+            return tapeQueue.iterator();
+          }
+
+          @Override
+          public void close() throws IOException {
+            tapeQueue.close();
+          }
+        };
+    }
   }
 
   public int onDiskSize() {
@@ -67,22 +128,57 @@ public class StatusUpdateQueue {
     return onDiskQueue.size() + inMemoryQueue.size();
   }
 
+  /**
+   * Updates only go to memory while nothing is on disk, so every update in memory is older
+   * than every update on disk and the queue drains in the order updates were added
+   */
   public synchronized void add(TaskStatus update) throws IOException {
     if (
+      onDiskQueue.size() == 0 &&
       inMemoryQueue.size() <
       configuration.getMesosConfiguration().getMaxStatusUpdateQueueSize()
     ) {
       inMemoryQueue.add(update);
     } else {
       onDiskQueue.add(update);
+      spilledMeter.mark();
     }
   }
 
-  public Iterator<TaskStatus> diskQueueIterator() {
-    return onDiskQueue.iterator();
+  /**
+   * @return the oldest update without removing it, or null if the queue is empty
+   */
+  public synchronized TaskStatus peek() {
+    refillFromDisk();
+    return inMemoryQueue.peek();
   }
 
-  public TaskStatus nextInMemory() {
+  /**
+   * @return the oldest update, or null if the queue is empty
+   */
+  public synchronized TaskStatus poll() {
+    refillFromDisk();
     return inMemoryQueue.poll();
   }
+
+  // Moves a batch of the oldest updates on disk into memory once memory has been drained
+  private void refillFromDisk() {
+    if (!inMemoryQueue.isEmpty() || onDiskQueue.size() == 0) {
+      return;
+    }
+    int maxInMemory = configuration.getMesosConfiguration().getMaxStatusUpdateQueueSize();
+    Iterator<TaskStatus> iterator = onDiskQueue.iterator();
+    while (inMemoryQueue.size() < maxInMemory && iterator.hasNext()) {
+      inMemoryQueue.add(iterator.next());
+      iterator.remove();
+      drainedMeter.mark();
+    }
+  }
+
+  /**
+   * Releases the files backing the overflow, anything still in it is kept on disk
+   */
+  public void close() throws IOException {
+    onDiskQueue.close();
+  }
 }
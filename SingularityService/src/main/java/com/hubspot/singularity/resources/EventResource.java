@@ -0,0 +1,92 @@
+package com.hubspot.singularity.resources;
+
+import com.google.inject.Inject;
+import com.hubspot.singularity.SingularityEventPage;
+import com.hubspot.singularity.SingularityUser;
+import com.hubspot.singularity.WebExceptions;
+import com.hubspot.singularity.auth.SingularityAuthorizer;
+import com.hubspot.singularity.config.ApiPaths;
+import com.hubspot.singularity.event.SingularityEventFeed;
+import io.dropwizard.auth.Auth;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.tags.Tags;
+import java.util.Optional;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.MediaType;
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+
+@Path(ApiPaths.EVENT_RESOURCE_PATH)
+@Produces({ MediaType.APPLICATION_JSON })
+@Schema(title = "Follow request, task and deploy changes as they happen")
+@Tags({ @Tag(name = "Events") })
+public class EventResource {
+  private final SingularityEventFeed eventFeed;
+  private final SingularityAuthorizer authorizationHelper;
+  private final LeaderLatch leaderLatch;
+
+  @Inject
+  public EventResource(
+    SingularityEventFeed eventFeed,
+    SingularityAuthorizer authorizationHelper,
+    LeaderLatch leaderLatch
+  ) {
+    this.eventFeed = eventFeed;
+    this.authorizationHelper = authorizationHelper;
+    this.leaderLatch = leaderLatch;
+  }
+
+  @GET
+  @Operation(
+    summary = "Retrieve the events after a sequence number, waiting for new events if there are none yet",
+    description = "Without an after parameter only the current sequence number is returned. Load a snapshot of the data you need, then follow the feed from that sequence number. If resetRequired is true the feed no longer holds the events after the given sequence and the snapshot must be reloaded.",
+    responses = {
+      @ApiResponse(
+        responseCode = "409",
+        description = "This instance is not the leader, events are only served by the leader"
+      )
+    }
+  )
+  public void getEvents(
+    @Parameter(hidden = true) @Auth SingularityUser user,
+    @Parameter(description = "Last sequence number the client has seen") @QueryParam(
+      "after"
+    ) Long after,
+    @Parameter(description = "Maximum number of events to return") @QueryParam(
+      "limit"
+    ) @DefaultValue("1000") int limit,
+    @Suspended AsyncResponse asyncResponse
+  ) {
+    authorizationHelper.checkGlobalReadAuthorization(user);
+    WebExceptions.checkConflict(
+      leaderLatch.hasLeadership(),
+      "Events are only served by the leader"
+    );
+
+    if (after == null) {
+      asyncResponse.resume(eventFeed.getEvents(Optional.empty(), limit));
+      return;
+    }
+
+    eventFeed
+      .awaitEvents(after, limit)
+      .whenComplete(
+        (SingularityEventPage page, Throwable t) -> {
+          if (t != null) {
+            asyncResponse.resume(t);
+          } else {
+            asyncResponse.resume(page);
+          }
+        }
+      );
+  }
+}
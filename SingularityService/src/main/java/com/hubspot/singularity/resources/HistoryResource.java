@@ -1,5 +1,6 @@
 package com.hubspot.singularity.resources;
 
+import static com.hubspot.singularity.WebExceptions.badRequest;
 import static com.hubspot.singularity.WebExceptions.checkBadRequest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -22,6 +23,7 @@ import com.hubspot.singularity.auth.SingularityAuthorizer;
 import com.hubspot.singularity.config.ApiPaths;
 import com.hubspot.singularity.data.DeployManager;
 import com.hubspot.singularity.data.TaskManager;
+import com.hubspot.singularity.data.history.BlendedHistoryHelper;
 import com.hubspot.singularity.data.history.DeployHistoryHelper;
 import com.hubspot.singularity.data.history.DeployTaskHistoryHelper;
 import com.hubspot.singularity.data.history.HistoryManager;
@@ -420,7 +422,10 @@ public class HistoryResource extends AbstractHistoryResource {
     ) Integer page,
     @Parameter(
       description = "Skip checking zookeeper, items that have not been persisted yet may not appear"
-    ) @QueryParam("skipZk") @DefaultValue("true") boolean skipZk
+    ) @QueryParam("skipZk") @DefaultValue("true") boolean skipZk,
+    @Parameter(
+      description = "Continue after the page that returned this nextCursor, replaces page"
+    ) @QueryParam("cursor") Optional<String> cursor
   ) {
     if (requestId.isPresent()) {
       authorizationHelper.checkForAuthorizationByRequestId(
@@ -432,46 +437,59 @@ public class HistoryResource extends AbstractHistoryResource {
       authorizationHelper.checkGlobalReadAuthorization(user);
     }
 
+    final SingularityTaskHistoryQuery query = new SingularityTaskHistoryQuery(
+      requestId,
+      deployId,
+      runId,
+      host,
+      lastTaskStatus,
+      startedBefore,
+      startedAfter,
+      updatedBefore,
+      updatedAfter,
+      orderDirection
+    );
     final Optional<Integer> dataCount = taskHistoryHelper.getBlendedHistoryCount(
-      new SingularityTaskHistoryQuery(
-        requestId,
-        deployId,
-        runId,
-        host,
-        lastTaskStatus,
-        startedBefore,
-        startedAfter,
-        updatedBefore,
-        updatedAfter,
-        orderDirection
-      ),
+      query,
       skipZk
     );
     final int limitCount = getLimitCount(count);
-    final List<SingularityTaskIdHistory> data =
-      this.getTaskHistory(
-          user,
-          requestId,
-          deployId,
-          runId,
-          host,
-          lastTaskStatus,
-          startedBefore,
-          startedAfter,
-          updatedBefore,
-          updatedAfter,
-          orderDirection,
-          count,
-          page,
+    final List<SingularityTaskIdHistory> data;
+    if (cursor.isPresent()) {
+      data =
+        taskHistoryHelper.getBlendedHistoryAfter(
+          query,
+          Optional.of(parseCursor(taskHistoryHelper, query, cursor.get())),
+          limitCount,
           skipZk
         );
+    } else {
+      data =
+        this.getTaskHistory(
+            user,
+            requestId,
+            deployId,
+            runId,
+            host,
+            lastTaskStatus,
+            startedBefore,
+            startedAfter,
+            updatedBefore,
+            updatedAfter,
+            orderDirection,
+            count,
+            page,
+            skipZk
+          );
+    }
     final Optional<Integer> pageCount = getPageCount(dataCount, limitCount);
 
     return new SingularityPaginatedResponse<>(
       dataCount,
       pageCount,
-      Optional.ofNullable(page),
-      data
+      cursor.isPresent() ? Optional.empty() : Optional.ofNullable(page),
+      data,
+      taskHistoryHelper.getNextCursor(query, data, limitCount)
     );
   }
 
@@ -595,7 +613,10 @@ public class HistoryResource extends AbstractHistoryResource {
     ) Integer page,
     @Parameter(
       description = "Skip checking zookeeper, items that have not been persisted yet may not appear"
-    ) @QueryParam("skipZk") @DefaultValue("true") boolean skipZk
+    ) @QueryParam("skipZk") @DefaultValue("true") boolean skipZk,
+    @Parameter(
+      description = "Continue after the page that returned this nextCursor, replaces page"
+    ) @QueryParam("cursor") Optional<String> cursor
   ) {
     authorizationHelper.checkForAuthorizationByRequestId(
       requestId,
@@ -603,49 +624,70 @@ public class HistoryResource extends AbstractHistoryResource {
       SingularityAuthorizationScope.READ
     );
 
+    final SingularityTaskHistoryQuery query = new SingularityTaskHistoryQuery(
+      Optional.of(requestId),
+      deployId,
+      runId,
+      host,
+      lastTaskStatus,
+      startedBefore,
+      startedAfter,
+      updatedBefore,
+      updatedAfter,
+      orderDirection
+    );
     final Optional<Integer> dataCount = taskHistoryHelper.getBlendedHistoryCount(
-      new SingularityTaskHistoryQuery(
-        Optional.of(requestId),
-        deployId,
-        runId,
-        host,
-        lastTaskStatus,
-        startedBefore,
-        startedAfter,
-        updatedBefore,
-        updatedAfter,
-        orderDirection
-      ),
+      query,
       skipZk
     );
     final int limitCount = getLimitCount(count);
-    final List<SingularityTaskIdHistory> data =
-      this.getTaskHistoryForRequest(
-          user,
-          requestId,
-          deployId,
-          runId,
-          host,
-          lastTaskStatus,
-          startedBefore,
-          startedAfter,
-          updatedBefore,
-          updatedAfter,
-          orderDirection,
-          count,
-          page,
+    final List<SingularityTaskIdHistory> data;
+    if (cursor.isPresent()) {
+      data =
+        taskHistoryHelper.getBlendedHistoryAfter(
+          query,
+          Optional.of(parseCursor(taskHistoryHelper, query, cursor.get())),
+          limitCount,
           skipZk
         );
+    } else {
+      data =
+        this.getTaskHistoryForRequest(
+            user,
+            requestId,
+            deployId,
+            runId,
+            host,
+            lastTaskStatus,
+            startedBefore,
+            startedAfter,
+            updatedBefore,
+            updatedAfter,
+            orderDirection,
+            count,
+            page,
+            skipZk
+          );
+    }
     final Optional<Integer> pageCount = getPageCount(dataCount, limitCount);
 
     return new SingularityPaginatedResponse<>(
       dataCount,
       pageCount,
-      Optional.ofNullable(page),
-      data
+      cursor.isPresent() ? Optional.empty() : Optional.ofNullable(page),
+      data,
+      taskHistoryHelper.getNextCursor(query, data, limitCount)
     );
   }
 
+  private <T, Q> T parseCursor(BlendedHistoryHelper<T, Q> helper, Q id, String cursor) {
+    try {
+      return helper.parseCursor(id, cursor);
+    } catch (IllegalArgumentException e) {
+      throw badRequest(e.getMessage());
+    }
+  }
+
   @GET
   @Path("/request/{requestId}/run/{runId}")
   @Operation(
@@ -726,7 +768,10 @@ public class HistoryResource extends AbstractHistoryResource {
     ) Integer page,
     @Parameter(
       description = "Skip checking zookeeper, items that have not been persisted yet may not appear"
-    ) @QueryParam("skipZk") @DefaultValue("true") boolean skipZk
+    ) @QueryParam("skipZk") @DefaultValue("true") boolean skipZk,
+    @Parameter(
+      description = "Continue after the page that returned this nextCursor, replaces page"
+    ) @QueryParam("cursor") Optional<String> cursor
   ) {
     authorizationHelper.checkForAuthorizationByRequestId(
       requestId,
@@ -739,15 +784,26 @@ public class HistoryResource extends AbstractHistoryResource {
       false
     );
     final int limitCount = getLimitCount(count);
-    final List<SingularityDeployHistory> data =
-      this.getDeploys(user, requestId, count, page, skipZk);
+    final List<SingularityDeployHistory> data;
+    if (cursor.isPresent()) {
+      data =
+        deployHistoryHelper.getBlendedHistoryAfter(
+          requestId,
+          Optional.of(parseCursor(deployHistoryHelper, requestId, cursor.get())),
+          limitCount,
+          skipZk
+        );
+    } else {
+      data = this.getDeploys(user, requestId, count, page, skipZk);
+    }
     final Optional<Integer> pageCount = getPageCount(dataCount, limitCount);
 
     return new SingularityPaginatedResponse<>(
       dataCount,
       pageCount,
-      Optional.ofNullable(page),
-      data
+      cursor.isPresent() ? Optional.empty() : Optional.ofNullable(page),
+      data,
+      deployHistoryHelper.getNextCursor(requestId, data, limitCount)
     );
   }
 
@@ -65,6 +65,7 @@ import com.hubspot.singularity.expiring.SingularityExpiringScale;
 import com.hubspot.singularity.expiring.SingularityExpiringSkipHealthchecks;
 import com.hubspot.singularity.helpers.RebalancingHelper;
 import com.hubspot.singularity.helpers.RequestHelper;
+import com.hubspot.singularity.helpers.StreamingJsonPage;
 import com.hubspot.singularity.mesos.SingularitySlaveAndRackManager;
 import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
 import com.hubspot.singularity.smtp.SingularityMailer;
@@ -79,6 +80,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.tags.Tags;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -1465,6 +1468,61 @@ public class RequestResource extends AbstractRequestResource {
     );
   }
 
+  @GET
+  @Path("/stream")
+  @Operation(
+    summary = "Retrieve all requests ordered by request id, a page at a time",
+    description = "Requests are written out as they are loaded rather than all at once. Pass the returned nextCursor as cursor to fetch the next page"
+  )
+  public Response streamRequests(
+    @Parameter(hidden = true) @Auth SingularityUser user,
+    @Parameter(
+      description = "Fetched a cached version of this data to limit expensive operations"
+    ) @QueryParam("useWebCache") Boolean useWebCache,
+    @Parameter(
+      description = "Only include requests that the user has operated on or is in a group for"
+    ) @QueryParam("filterRelevantForUser") Boolean filterRelevantForUser,
+    @Parameter(
+      description = "Return full data, including deploy data and active task ids"
+    ) @QueryParam("includeFullRequestData") Boolean includeFullRequestData,
+    @Parameter(description = "Only return requests of these types") @QueryParam(
+      "requestType"
+    ) List<RequestType> requestTypes,
+    @Parameter(
+      description = "Only return requests after this request id, the nextCursor of the previous page"
+    ) @QueryParam("cursor") String cursor,
+    @Parameter(
+      description = "The maximum number of results to return, all remaining requests if not set"
+    ) @QueryParam("limit") Integer limit
+  ) {
+    List<SingularityRequestWithState> requests = filterAutorized(
+        requestManager.getRequests(useWebCache(useWebCache)),
+        SingularityAuthorizationScope.READ,
+        user
+      )
+      .stream()
+      .filter(r -> cursor == null || r.getRequest().getId().compareTo(cursor) > 0)
+      .sorted(Comparator.comparing(r -> r.getRequest().getId()))
+      .collect(Collectors.toList());
+
+    return Response
+      .ok(
+        new StreamingJsonPage<>(
+          objectMapper,
+          requestHelper.streamDataForRequests(
+            requests,
+            user,
+            valueOrFalse(filterRelevantForUser),
+            valueOrFalse(includeFullRequestData),
+            requestTypes == null ? Collections.emptyList() : requestTypes
+          ),
+          r -> r.getRequest().getId(),
+          Optional.ofNullable(limit)
+        )
+      )
+      .build();
+  }
+
   private boolean valueOrFalse(Boolean input) {
     return input == null ? false : input;
   }
@@ -43,6 +43,7 @@ public class SingularityResourceModule extends AbstractModule {
     bind(ShuffleConfigurationResource.class);
     bind(TaskTrackerResource.class);
     bind(NotificationsResource.class);
+    bind(EventResource.class);
 
     bind(RebalancingHelper.class).in(Scopes.SINGLETON);
 
@@ -4,6 +4,7 @@ import com.google.inject.Inject;
 import com.hubspot.singularity.SingularityState;
 import com.hubspot.singularity.SingularityTaskReconciliationStatistics;
 import com.hubspot.singularity.config.ApiPaths;
+import com.hubspot.singularity.data.SingularityWebCache;
 import com.hubspot.singularity.data.StateManager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -24,10 +25,12 @@ import javax.ws.rs.core.MediaType;
 @Tags({ @Tag(name = "State") })
 public class StateResource {
   private final StateManager stateManager;
+  private final SingularityWebCache webCache;
 
   @Inject
-  public StateResource(StateManager stateManager) {
+  public StateResource(StateManager stateManager, SingularityWebCache webCache) {
     this.stateManager = stateManager;
+    this.webCache = webCache;
   }
 
   @GET
@@ -71,4 +74,13 @@ public class StateResource {
   public Optional<SingularityTaskReconciliationStatistics> getTaskReconciliationStatistics() {
     return stateManager.getTaskReconciliationStatistics();
   }
+
+  @GET
+  @Path("/web-cache-generation")
+  @Operation(
+    summary = "Retrieve the generation of the cached data this instance serves when useWebCache is set. It increases every time that data changes."
+  )
+  public long getWebCacheGeneration() {
+    return webCache.getGeneration();
+  }
 }
@@ -7,6 +7,7 @@ import static com.hubspot.singularity.WebExceptions.notFound;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.hubspot.jackson.jaxrs.PropertyFiltering;
@@ -57,6 +58,7 @@ import com.hubspot.singularity.data.SlaveManager;
 import com.hubspot.singularity.data.TaskManager;
 import com.hubspot.singularity.data.TaskRequestManager;
 import com.hubspot.singularity.helpers.RequestHelper;
+import com.hubspot.singularity.helpers.StreamingJsonPage;
 import com.hubspot.singularity.mesos.SingularityMesosSchedulerClient;
 import com.ning.http.client.AsyncHandler;
 import com.ning.http.client.AsyncHttpClient;
@@ -78,8 +80,11 @@ import java.io.OutputStream;
 import java.net.ConnectException;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
@@ -113,6 +118,7 @@ import org.slf4j.LoggerFactory;
 @Tags({ @Tag(name = "Tasks") })
 public class TaskResource extends AbstractLeaderAwareResource {
   private static final Logger LOG = LoggerFactory.getLogger(TaskResource.class);
+  private static final int STREAMING_BATCH_SIZE = 100;
 
   private final AsyncHttpClient httpClient;
   private final MesosConfiguration configuration;
@@ -422,10 +428,7 @@ public class TaskResource extends AbstractLeaderAwareResource {
 
     return authorizationHelper.filterByAuthorizedRequests(
       user,
-      taskManager.getTasksOnSlave(
-        taskManager.getActiveTaskIds(useWebCache(useWebCache)),
-        maybeSlave.get()
-      ),
+      taskManager.getTasksOnSlave(maybeSlave.get(), useWebCache(useWebCache)),
       SingularityTransformHelpers.TASK_TO_REQUEST_ID,
       SingularityAuthorizationScope.READ
     );
@@ -461,10 +464,7 @@ public class TaskResource extends AbstractLeaderAwareResource {
 
     return authorizationHelper.filterByAuthorizedRequests(
       user,
-      taskManager.getTaskIdsOnSlave(
-        taskManager.getActiveTaskIds(useWebCache(useWebCache)),
-        maybeSlave.get()
-      ),
+      taskManager.getTaskIdsOnSlave(maybeSlave.get(), useWebCache(useWebCache)),
       SingularityTransformHelpers.TASK_ID_TO_REQUEST_ID,
       SingularityAuthorizationScope.READ
     );
@@ -488,6 +488,56 @@ public class TaskResource extends AbstractLeaderAwareResource {
     );
   }
 
+  @GET
+  @Path("/active/stream")
+  @Operation(
+    summary = "Retrieve active tasks for all requests ordered by task id, a page at a time",
+    description = "Tasks are loaded and written out in small batches rather than all at once. Pass the returned nextCursor as cursor to fetch the next page"
+  )
+  public Response streamActiveTasks(
+    @Parameter(hidden = true) @Auth SingularityUser user,
+    @Parameter(
+      description = "Only return tasks after this task id, the nextCursor of the previous page"
+    ) @QueryParam("cursor") String cursor,
+    @Parameter(
+      description = "The maximum number of results to return, all remaining tasks if not set"
+    ) @QueryParam("limit") Integer limit
+  ) {
+    List<SingularityTaskId> taskIds = authorizationHelper
+      .filterByAuthorizedRequests(
+        user,
+        taskManager.getActiveTaskIds(),
+        SingularityTransformHelpers.TASK_ID_TO_REQUEST_ID,
+        SingularityAuthorizationScope.READ
+      )
+      .stream()
+      .filter(t -> cursor == null || t.getId().compareTo(cursor) > 0)
+      .sorted(Comparator.comparing(SingularityTaskId::getId))
+      .collect(Collectors.toList());
+
+    // Tasks which are no longer active by the time their batch is loaded are skipped
+    Iterator<SingularityTask> tasks = Iterators.concat(
+      Iterators.transform(
+        Iterators.partition(taskIds.iterator(), STREAMING_BATCH_SIZE),
+        batch -> {
+          Map<SingularityTaskId, SingularityTask> loaded = taskManager.getTasks(batch);
+          return batch.stream().map(loaded::get).filter(Objects::nonNull).iterator();
+        }
+      )
+    );
+
+    return Response
+      .ok(
+        new StreamingJsonPage<>(
+          objectMapper,
+          tasks,
+          t -> t.getTaskId().getId(),
+          Optional.ofNullable(limit)
+        )
+      )
+      .build();
+  }
+
   @GET
   @PropertyFiltering
   @Path("/active/ids")
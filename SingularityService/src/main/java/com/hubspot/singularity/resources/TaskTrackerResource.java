@@ -113,7 +113,7 @@ public class TaskTrackerResource {
         return maybeTaskState;
       }
     } else {
-      Optional<SingularityTaskHistory> maybeTaskHistory = historyManager.getTaskHistoryByRunId(
+      Optional<SingularityTaskHistory> maybeTaskHistory = historyManager.getTaskHistorySummaryByRunId(
         requestId,
         runId
       );
@@ -171,7 +171,8 @@ public class TaskTrackerResource {
       singularityTaskId
     );
     if (!maybeTaskHistory.isPresent()) {
-      maybeTaskHistory = historyManager.getTaskHistory(singularityTaskId.toString());
+      maybeTaskHistory =
+        historyManager.getTaskHistorySummary(singularityTaskId.toString());
     }
     if (
       maybeTaskHistory.isPresent() &&
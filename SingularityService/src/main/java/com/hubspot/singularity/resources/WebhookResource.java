@@ -15,6 +15,7 @@ import com.hubspot.singularity.auth.SingularityAuthorizer;
 import com.hubspot.singularity.config.ApiPaths;
 import com.hubspot.singularity.data.SingularityValidator;
 import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.data.WebhookQueueStore;
 import io.dropwizard.auth.Auth;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -40,16 +41,19 @@ import javax.ws.rs.core.MediaType;
 @Tags({ @Tag(name = "Webhooks") })
 public class WebhookResource {
   private final WebhookManager webhookManager;
+  private final WebhookQueueStore webhookQueueStore;
   private final SingularityAuthorizer authorizationHelper;
   private final SingularityValidator validator;
 
   @Inject
   public WebhookResource(
     WebhookManager webhookManager,
+    WebhookQueueStore webhookQueueStore,
     SingularityAuthorizer authorizationHelper,
     SingularityValidator validator
   ) {
     this.webhookManager = webhookManager;
+    this.webhookQueueStore = webhookQueueStore;
     this.authorizationHelper = authorizationHelper;
     this.validator = validator;
   }
@@ -70,7 +74,7 @@ public class WebhookResource {
     @Parameter(hidden = true) @Auth SingularityUser user
   ) {
     authorizationHelper.checkAdminAuthorization(user);
-    return webhookManager.getWebhooksWithQueueSize();
+    return webhookQueueStore.getWebhooksWithQueueSize();
   }
 
   @POST
@@ -132,7 +136,9 @@ public class WebhookResource {
     ) @PathParam("webhookId") String webhookId
   ) {
     authorizationHelper.checkAdminAuthorization(user);
-    return webhookManager.getQueuedDeployUpdatesForHook(JavaUtils.urlEncode(webhookId));
+    return webhookQueueStore.getQueuedDeployUpdatesForHook(
+      JavaUtils.urlEncode(webhookId)
+    );
   }
 
   @GET
@@ -147,7 +153,9 @@ public class WebhookResource {
     ) @PathParam("webhookId") String webhookId
   ) {
     authorizationHelper.checkAdminAuthorization(user);
-    return webhookManager.getQueuedRequestHistoryForHook(JavaUtils.urlEncode(webhookId));
+    return webhookQueueStore.getQueuedRequestHistoryForHook(
+      JavaUtils.urlEncode(webhookId)
+    );
   }
 
   @GET
@@ -162,7 +170,7 @@ public class WebhookResource {
     ) @PathParam("webhookId") String webhookId
   ) {
     authorizationHelper.checkAdminAuthorization(user);
-    return webhookManager.getQueuedTaskUpdatesForHook(JavaUtils.urlEncode(webhookId));
+    return webhookQueueStore.getQueuedTaskUpdatesForHook(JavaUtils.urlEncode(webhookId));
   }
 
   @DELETE
@@ -189,7 +197,9 @@ public class WebhookResource {
     ) @QueryParam("webhookId") String webhookId
   ) {
     authorizationHelper.checkAdminAuthorization(user);
-    return webhookManager.getQueuedDeployUpdatesForHook(JavaUtils.urlEncode(webhookId));
+    return webhookQueueStore.getQueuedDeployUpdatesForHook(
+      JavaUtils.urlEncode(webhookId)
+    );
   }
 
   @GET
@@ -204,7 +214,9 @@ public class WebhookResource {
     ) String webhookId
   ) {
     authorizationHelper.checkAdminAuthorization(user);
-    return webhookManager.getQueuedRequestHistoryForHook(JavaUtils.urlEncode(webhookId));
+    return webhookQueueStore.getQueuedRequestHistoryForHook(
+      JavaUtils.urlEncode(webhookId)
+    );
   }
 
   @GET
@@ -218,6 +230,6 @@ public class WebhookResource {
     ) @QueryParam("webhookId") String webhookId
   ) {
     authorizationHelper.checkAdminAuthorization(user);
-    return webhookManager.getQueuedTaskUpdatesForHook(JavaUtils.urlEncode(webhookId));
+    return webhookQueueStore.getQueuedTaskUpdatesForHook(JavaUtils.urlEncode(webhookId));
   }
 }
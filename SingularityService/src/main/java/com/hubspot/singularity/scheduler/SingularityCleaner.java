@@ -78,6 +78,8 @@ public class SingularityCleaner {
   private final SingularitySchedulerLock lock;
   private final UsageManager usageManager;
   private final RequestGroupManager requestGroupManager;
+  private final SingularityHealthchecker healthchecker;
+  private final SingularityNewTaskChecker newTaskChecker;
   private final ExecutorService cleanerExecutor;
 
   private final SingularityConfiguration configuration;
@@ -97,6 +99,8 @@ public class SingularityCleaner {
     SingularitySchedulerLock lock,
     UsageManager usageManager,
     RequestGroupManager requestGroupManager,
+    SingularityHealthchecker healthchecker,
+    SingularityNewTaskChecker newTaskChecker,
     SingularityManagedThreadPoolFactory threadPoolFactory
   ) {
     this.taskManager = taskManager;
@@ -110,6 +114,8 @@ public class SingularityCleaner {
     this.lock = lock;
     this.usageManager = usageManager;
     this.requestGroupManager = requestGroupManager;
+    this.healthchecker = healthchecker;
+    this.newTaskChecker = newTaskChecker;
 
     this.configuration = configuration;
     this.cleanerExecutor =
@@ -608,6 +614,10 @@ public class SingularityCleaner {
         }
         break;
       case DELETING:
+        // Tasks of a deleted request are killed regardless of their health
+        healthchecker.cancelHealthchecks(requestId, Optional.empty());
+        newTaskChecker.cancelNewTaskChecks(requestId);
+
         if (!Iterables.isEmpty(activeTaskIds)) {
           killActiveTasks = false;
           killScheduledTasks = false;
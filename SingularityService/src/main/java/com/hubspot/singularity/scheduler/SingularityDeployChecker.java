@@ -83,6 +83,7 @@ public class SingularityDeployChecker {
   private final LoadBalancerClient lbClient;
   private final SingularitySchedulerLock lock;
   private final UsageManager usageManager;
+  private final SingularityHealthchecker healthchecker;
   private final ExecutorService deployCheckExecutor;
 
   @Inject
@@ -95,6 +96,7 @@ public class SingularityDeployChecker {
     SingularityConfiguration configuration,
     SingularitySchedulerLock lock,
     UsageManager usageManager,
+    SingularityHealthchecker healthchecker,
     SingularityManagedThreadPoolFactory threadPoolFactory
   ) {
     this.configuration = configuration;
@@ -105,6 +107,7 @@ public class SingularityDeployChecker {
     this.taskManager = taskManager;
     this.lock = lock;
     this.usageManager = usageManager;
+    this.healthchecker = healthchecker;
     this.deployCheckExecutor =
       threadPoolFactory.get("deploy-checker", configuration.getCoreThreadpoolSize());
   }
@@ -518,6 +521,14 @@ public class SingularityDeployChecker {
 
     if (!request.isOneOff() && !(request.getRequestType() == RequestType.RUN_ONCE)) {
       cleanupTasks(pendingDeploy, request, deployResult, tasksToKill);
+
+      if (deployResult.getDeployState() != DeployState.SUCCEEDED) {
+        // Tasks of a failed or canceled deploy are being shut down, no need to keep checking them
+        healthchecker.cancelHealthchecks(
+          pendingDeploy.getDeployMarker().getRequestId(),
+          Optional.of(pendingDeploy.getDeployMarker().getDeployId())
+        );
+      }
     }
 
     if (deploy.isPresent() && deploy.get().getRunImmediately().isPresent()) {
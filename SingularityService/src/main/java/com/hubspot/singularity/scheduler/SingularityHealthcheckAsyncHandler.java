@@ -24,6 +24,7 @@ public class SingularityHealthcheckAsyncHandler {
   private final SingularityTask task;
   private final TaskManager taskManager;
   private final List<Integer> failureStatusCodes;
+  private final boolean inStartup;
   private String healthcheckUri = ""; // For logging purposes only
 
   public SingularityHealthcheckAsyncHandler(
@@ -32,13 +33,15 @@ public class SingularityHealthcheckAsyncHandler {
     SingularityHealthchecker healthchecker,
     SingularityNewTaskChecker newTaskChecker,
     TaskManager taskManager,
-    SingularityTask task
+    SingularityTask task,
+    boolean inStartup
   ) {
     this.exceptionNotifier = exceptionNotifier;
     this.taskManager = taskManager;
     this.newTaskChecker = newTaskChecker;
     this.healthchecker = healthchecker;
     this.task = task;
+    this.inStartup = inStartup;
     this.failureStatusCodes =
       task.getTaskRequest().getDeploy().getHealthcheck().isPresent()
         ? task
@@ -86,6 +89,38 @@ public class SingularityHealthcheckAsyncHandler {
     );
   }
 
+  /**
+   * The request was never sent because the agent already had too many healthchecks
+   * running, try again later without counting this against the task's retries. A task
+   * that keeps missing its turn is saved as a failed check after
+   * maxHealthcheckNotSentRetries attempts, so it still reaches its retry limit.
+   */
+  public void onNotSent(Throwable t) {
+    LOG.debug(
+      "Healthcheck for task {} was not sent: {}",
+      task.getTaskId(),
+      t.getMessage()
+    );
+
+    if (!taskManager.isActiveTask(task.getTaskId())) {
+      healthchecker.markHealthcheckFinished(task.getTaskId().getId());
+      return;
+    }
+    if (healthchecker.recordNotSent(task.getTaskId())) {
+      healthchecker.reEnqueueOrAbort(task, inStartup);
+      return;
+    }
+
+    saveResult(
+      Optional.<Integer>empty(),
+      Optional.<String>empty(),
+      Optional.of(
+        String.format("Healthcheck (%s) was not sent: %s", healthcheckUri, t.getMessage())
+      ),
+      Optional.<Throwable>empty()
+    );
+  }
+
   public void saveResult(
     Optional<Integer> statusCode,
     Optional<String> responseBody,
@@ -94,6 +129,7 @@ public class SingularityHealthcheckAsyncHandler {
   ) {
     boolean inStartup =
       throwable.isPresent() && throwable.get() instanceof ConnectException;
+    healthchecker.clearNotSent(task.getTaskId());
 
     try {
       SingularityTaskHealthcheckResult result = new SingularityTaskHealthcheckResult(
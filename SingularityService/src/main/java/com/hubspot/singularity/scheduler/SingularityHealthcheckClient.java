@@ -0,0 +1,361 @@
+package com.hubspot.singularity.scheduler;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import com.hubspot.singularity.HealthcheckProtocol;
+import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.async.AsyncSemaphore;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.ning.http.client.AsyncCompletionHandler;
+import com.ning.http.client.AsyncHttpClient;
+import com.ning.http.client.RequestBuilder;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Singleton;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends healthcheck requests so that a deploy starting many tasks at once does not open
+ * a connection per check. Checks to the same agent share a limit on how many run at
+ * once, and connections are reused through each client's pool. A check for a task that
+ * already has one in flight is dropped, the result of the running check is used instead.
+ * A check that could not start before its timeout is retried later without counting as
+ * a failure.
+ */
+@Singleton
+public class SingularityHealthcheckClient {
+  private static final Logger LOG = LoggerFactory.getLogger(
+    SingularityHealthcheckClient.class
+  );
+
+  private static final String REQUEST_METRIC_PREFIX = "healthchecks.requests.";
+  private static final long AGENT_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  private final AsyncHttpClient http;
+  private final OkHttpClient http2;
+  private final SingularityConfiguration configuration;
+  private final MetricRegistry metrics;
+  private final ScheduledExecutorService flushingExecutor;
+
+  private final Map<Integer, OkHttpClient> http2ClientsByTimeout;
+  private final Map<String, AgentHealthchecks> agentHealthchecks;
+  private final AtomicLong lastIdleEvictionAt;
+  private final Map<String, CompletableFuture<Void>> inFlightChecks;
+
+  @Inject
+  public SingularityHealthcheckClient(
+    AsyncHttpClient http,
+    OkHttpClient http2,
+    SingularityConfiguration configuration,
+    MetricRegistry metrics,
+    SingularityManagedScheduledExecutorServiceFactory executorServiceFactory
+  ) {
+    this.http = http;
+    this.http2 = http2;
+    this.configuration = configuration;
+    this.metrics = metrics;
+    this.flushingExecutor = executorServiceFactory.get("healthcheck-queue");
+
+    this.http2ClientsByTimeout = new ConcurrentHashMap<>();
+    this.agentHealthchecks = new ConcurrentHashMap<>();
+    this.lastIdleEvictionAt = new AtomicLong(System.currentTimeMillis());
+    this.inFlightChecks = new ConcurrentHashMap<>();
+
+    // The per agent limit below decides how many checks run, don't queue them twice
+    http2
+      .dispatcher()
+      .setMaxRequestsPerHost(configuration.getMaxConcurrentHealthchecksPerAgent());
+  }
+
+  /**
+   * The in flight check is cleared before the handler is called, so the handler can
+   * schedule the next check right away.
+   *
+   * @return false if this task already had a healthcheck in flight, in which case the
+   * handler is not called
+   */
+  public boolean check(
+    SingularityTask task,
+    String uri,
+    String method,
+    int timeoutSeconds,
+    HealthcheckProtocol protocol,
+    SingularityHealthcheckAsyncHandler handler
+  ) {
+    String taskId = task.getTaskId().getId();
+    CompletableFuture<Void> check = new CompletableFuture<>();
+    if (inFlightChecks.putIfAbsent(taskId, check) != null) {
+      LOG.debug("Healthcheck already in flight for {}, not sending another", taskId);
+      return false;
+    }
+    check.whenComplete((ignored, t) -> inFlightChecks.remove(taskId, check));
+
+    String host = task.getHostname();
+    startCheckOnAgent(host)
+      .callWithQueueTimeout(
+        () -> send(task, uri, method, timeoutSeconds, protocol, handler, check),
+        timeoutSeconds,
+        TimeUnit.SECONDS
+      )
+      .whenComplete(
+        (ignored, t) -> {
+          try {
+            check.complete(null);
+            if (t != null) {
+              Throwable cause = unwrap(t);
+              if (
+                cause instanceof TimeoutException ||
+                cause instanceof RejectedExecutionException
+              ) {
+                handler.onNotSent(cause);
+              } else {
+                handler.onFailed(cause);
+              }
+            }
+          } finally {
+            finishCheckOnAgent(host);
+          }
+        }
+      );
+    evictIdleAgents();
+    return true;
+  }
+
+  private AsyncSemaphore<Void> startCheckOnAgent(String host) {
+    AgentHealthchecks agent = agentHealthchecks.compute(
+      host,
+      (h, existing) -> {
+        AgentHealthchecks healthchecks = existing == null
+          ? new AgentHealthchecks(newAgentSemaphore(h))
+          : existing;
+        healthchecks.pending++;
+        return healthchecks;
+      }
+    );
+    return agent.semaphore;
+  }
+
+  private void finishCheckOnAgent(String host) {
+    agentHealthchecks.computeIfPresent(
+      host,
+      (h, healthchecks) -> {
+        healthchecks.pending--;
+        healthchecks.lastUsedAt = System.currentTimeMillis();
+        return healthchecks;
+      }
+    );
+  }
+
+  private AsyncSemaphore<Void> newAgentSemaphore(String host) {
+    return AsyncSemaphore
+      .newBuilder(configuration::getMaxConcurrentHealthchecksPerAgent, flushingExecutor)
+      .withTimeoutExceptionSupplier(
+        () ->
+          new TimeoutException(
+            String.format("Timed out waiting to healthcheck agent %s", host)
+          )
+      )
+      .build();
+  }
+
+  /**
+   * Agents keep their semaphore between checks, so every check to an agent counts
+   * against the same limit. Agents with nothing pending for a while are dropped here,
+   * checking pending inside computeIfPresent so a check starting at the same time
+   * keeps the entry.
+   */
+  private void evictIdleAgents() {
+    long now = System.currentTimeMillis();
+    long lastEviction = lastIdleEvictionAt.get();
+    if (
+      now - lastEviction < AGENT_IDLE_MILLIS ||
+      !lastIdleEvictionAt.compareAndSet(lastEviction, now)
+    ) {
+      return;
+    }
+    for (String host : agentHealthchecks.keySet()) {
+      agentHealthchecks.computeIfPresent(
+        host,
+        (h, healthchecks) ->
+          healthchecks.pending == 0 && now - healthchecks.lastUsedAt > AGENT_IDLE_MILLIS
+            ? null
+            : healthchecks
+      );
+    }
+  }
+
+  public void removeRequestMetrics(String requestId) {
+    metrics.remove(REQUEST_METRIC_PREFIX + requestId + ".latency");
+  }
+
+  private CompletableFuture<Void> send(
+    SingularityTask task,
+    String uri,
+    String method,
+    int timeoutSeconds,
+    HealthcheckProtocol protocol,
+    SingularityHealthcheckAsyncHandler handler,
+    CompletableFuture<Void> check
+  ) {
+    CompletableFuture<Void> response = new CompletableFuture<>();
+    long start = System.currentTimeMillis();
+    response.whenComplete(
+      (ignored, t) ->
+        metrics
+          .histogram(REQUEST_METRIC_PREFIX + task.getTaskId().getRequestId() + ".latency")
+          .update(System.currentTimeMillis() - start)
+    );
+
+    if (protocol == HealthcheckProtocol.HTTP2 || protocol == HealthcheckProtocol.HTTPS2) {
+      getHttp2Client(timeoutSeconds)
+        .newCall(new okhttp3.Request.Builder().method(method, null).url(uri).build())
+        .enqueue(wrappedHttp2Handler(handler, response, check));
+    } else {
+      RequestBuilder builder = new RequestBuilder("GET");
+      builder.setFollowRedirects(true);
+      builder.setUrl(uri);
+      builder.setRequestTimeout((int) TimeUnit.SECONDS.toMillis(timeoutSeconds));
+
+      http
+        .prepareRequest(builder.build())
+        .execute(wrappedHttp1Handler(handler, response, check));
+    }
+    return response;
+  }
+
+  private OkHttpClient getHttp2Client(int timeoutSeconds) {
+    // Clients built from the original share its connection pool and dispatcher
+    return http2ClientsByTimeout.computeIfAbsent(
+      timeoutSeconds,
+      timeout ->
+        http2
+          .newBuilder()
+          .retryOnConnectionFailure(false)
+          .followRedirects(true)
+          .connectTimeout(timeout, TimeUnit.SECONDS)
+          .readTimeout(timeout, TimeUnit.SECONDS)
+          .cache(null)
+          .build()
+    );
+  }
+
+  private static Throwable unwrap(Throwable t) {
+    return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+  }
+
+  private Callback wrappedHttp2Handler(
+    final SingularityHealthcheckAsyncHandler handler,
+    final CompletableFuture<Void> response,
+    final CompletableFuture<Void> check
+  ) {
+    return new Callback() {
+
+      @Override
+      public void onFailure(Call call, IOException e) {
+        try {
+          check.complete(null);
+          handler.onFailed(e);
+        } finally {
+          response.complete(null);
+        }
+      }
+
+      @Override
+      public void onResponse(Call call, okhttp3.Response httpResponse)
+        throws IOException {
+        try {
+          Optional<String> maybeResponseExcerpt = Optional.empty();
+
+          String responseExcerpt = httpResponse
+            .peekBody(configuration.getMaxHealthcheckResponseBodyBytes())
+            .string();
+          if (responseExcerpt.length() > 0) {
+            maybeResponseExcerpt = Optional.of(responseExcerpt);
+          }
+
+          check.complete(null);
+          handler.onCompleted(Optional.of(httpResponse.code()), maybeResponseExcerpt);
+        } finally {
+          httpResponse.close();
+          response.complete(null);
+        }
+      }
+    };
+  }
+
+  private AsyncCompletionHandler<com.ning.http.client.Response> wrappedHttp1Handler(
+    final SingularityHealthcheckAsyncHandler handler,
+    final CompletableFuture<Void> response,
+    final CompletableFuture<Void> check
+  ) {
+    return new AsyncCompletionHandler<com.ning.http.client.Response>() {
+
+      @Override
+      public void onThrowable(Throwable t) {
+        try {
+          check.complete(null);
+          handler.onFailed(t);
+        } finally {
+          response.complete(null);
+        }
+      }
+
+      @Override
+      public com.ning.http.client.Response onCompleted(
+        com.ning.http.client.Response httpResponse
+      )
+        throws Exception {
+        try {
+          Optional<String> maybeResponseExcerpt = Optional.empty();
+
+          if (httpResponse.hasResponseBody()) {
+            maybeResponseExcerpt =
+              Optional.of(
+                httpResponse.getResponseBodyExcerpt(
+                  configuration.getMaxHealthcheckResponseBodyBytes()
+                )
+              );
+          }
+
+          check.complete(null);
+          handler.onCompleted(
+            Optional.of(httpResponse.getStatusCode()),
+            maybeResponseExcerpt
+          );
+        } finally {
+          response.complete(null);
+        }
+
+        return httpResponse;
+      }
+    };
+  }
+
+  /**
+   * Only read or changed inside agentHealthchecks compute calls.
+   */
+  private static class AgentHealthchecks {
+    private final AsyncSemaphore<Void> semaphore;
+    private int pending;
+    private long lastUsedAt;
+
+    private AgentHealthchecks(AsyncSemaphore<Void> semaphore) {
+      this.semaphore = semaphore;
+      this.lastUsedAt = System.currentTimeMillis();
+    }
+  }
+}
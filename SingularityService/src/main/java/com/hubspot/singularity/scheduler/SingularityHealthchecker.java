@@ -1,9 +1,9 @@
 package com.hubspot.singularity.scheduler;
 
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.hubspot.deploy.HealthcheckOptions;
 import com.hubspot.singularity.ExtendedTaskState;
@@ -24,21 +24,14 @@ import com.hubspot.singularity.data.TaskManager;
 import com.hubspot.singularity.helpers.MesosProtosUtils;
 import com.hubspot.singularity.helpers.MesosUtils;
 import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
-import com.ning.http.client.AsyncCompletionHandler;
-import com.ning.http.client.AsyncHttpClient;
-import com.ning.http.client.RequestBuilder;
-import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import javax.inject.Singleton;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.OkHttpClient;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,16 +45,14 @@ public class SingularityHealthchecker {
     SingularityHealthchecker.class
   );
 
-  private final AsyncHttpClient http;
-  private final OkHttpClient http2;
+  private final SingularityHealthcheckClient healthcheckClient;
   private final SingularityConfiguration configuration;
   private final TaskManager taskManager;
   private final SingularityAbort abort;
   private final SingularityNewTaskChecker newTaskChecker;
 
-  private final Map<String, ScheduledFuture<?>> taskIdToHealthcheck;
-
-  private final ScheduledExecutorService executorService;
+  private final TaskTimerWheel healthchecks;
+  private final Map<String, Integer> notSentChecks;
 
   private final SingularityExceptionNotifier exceptionNotifier;
   private final DisasterManager disasterManager;
@@ -70,31 +61,33 @@ public class SingularityHealthchecker {
   @Inject
   public SingularityHealthchecker(
     SingularityManagedScheduledExecutorServiceFactory executorServiceFactory,
-    AsyncHttpClient http,
-    OkHttpClient http2,
+    SingularityHealthcheckClient healthcheckClient,
     SingularityConfiguration configuration,
     SingularityNewTaskChecker newTaskChecker,
     TaskManager taskManager,
     SingularityAbort abort,
     SingularityExceptionNotifier exceptionNotifier,
     DisasterManager disasterManager,
-    MesosProtosUtils mesosProtosUtils
+    MesosProtosUtils mesosProtosUtils,
+    MetricRegistry metrics
   ) {
-    this.http = http;
-    this.http2 = http2;
+    this.healthcheckClient = healthcheckClient;
     this.configuration = configuration;
     this.newTaskChecker = newTaskChecker;
     this.taskManager = taskManager;
     this.abort = abort;
     this.exceptionNotifier = exceptionNotifier;
 
-    this.taskIdToHealthcheck = Maps.newConcurrentMap();
-
-    this.executorService =
-      executorServiceFactory.get(
-        "health-checker",
-        configuration.getHealthcheckStartThreads()
+    this.healthchecks =
+      new TaskTimerWheel(
+        "healthchecks",
+        executorServiceFactory.get(
+          "health-checker",
+          configuration.getHealthcheckStartThreads()
+        ),
+        metrics
       );
+    this.notSentChecks = new ConcurrentHashMap<>();
     this.disasterManager = disasterManager;
     this.mesosProtosUtils = mesosProtosUtils;
   }
@@ -144,12 +137,12 @@ public class SingularityHealthchecker {
 
     ScheduledFuture<?> existing = null;
     try {
-      ScheduledFuture<?> future = enqueueHealthcheckWithDelay(
-        task,
-        getDelaySeconds(task.getTaskId(), options, inStartup, isFirstCheck),
-        inStartup
-      );
-      existing = taskIdToHealthcheck.put(task.getTaskId().getId(), future);
+      existing =
+        enqueueHealthcheckWithDelay(
+          task,
+          getDelaySeconds(task.getTaskId(), options, inStartup, isFirstCheck),
+          inStartup
+        );
     } catch (RejectedExecutionException ree) {
       LOG.warn(
         "Executor rejected execution, Singularity is shutting down, short circuiting"
@@ -230,7 +223,7 @@ public class SingularityHealthchecker {
   }
 
   public void checkHealthcheck(SingularityTask task) {
-    if (!taskIdToHealthcheck.containsKey(task.getTaskId().getId())) {
+    if (!healthchecks.contains(task.getTaskId().getId())) {
       LOG.info("Enqueueing expected healthcheck for task {}", task.getTaskId());
 
       Optional<SingularityTaskHealthcheckResult> lastHealthcheck = taskManager.getLastHealthcheck(
@@ -242,15 +235,33 @@ public class SingularityHealthchecker {
 
   @VisibleForTesting
   Collection<ScheduledFuture<?>> getHealthCheckFutures() {
-    return taskIdToHealthcheck.values();
+    return healthchecks.getAll();
   }
 
   public void markHealthcheckFinished(String taskId) {
-    taskIdToHealthcheck.remove(taskId);
+    healthchecks.remove(taskId);
+    notSentChecks.remove(taskId);
+  }
+
+  /**
+   * @return false once the task's checks have not been sent more than
+   * maxHealthcheckNotSentRetries times in a row, at which point it should count as a
+   * failed check instead of being retried for free
+   */
+  boolean recordNotSent(SingularityTaskId taskId) {
+    return (
+      notSentChecks.merge(taskId.getId(), 1, Integer::sum) <=
+      configuration.getMaxHealthcheckNotSentRetries()
+    );
+  }
+
+  void clearNotSent(SingularityTaskId taskId) {
+    notSentChecks.remove(taskId.getId());
   }
 
   public boolean cancelHealthcheck(String taskId) {
-    ScheduledFuture<?> future = taskIdToHealthcheck.remove(taskId);
+    notSentChecks.remove(taskId);
+    ScheduledFuture<?> future = healthchecks.remove(taskId);
 
     if (future == null) {
       return false;
@@ -263,6 +274,36 @@ public class SingularityHealthchecker {
     return canceled;
   }
 
+  public int cancelHealthchecks(String requestId, Optional<String> deployId) {
+    int canceled = healthchecks.cancelAll(requestId, deployId);
+    notSentChecks
+      .keySet()
+      .removeIf(
+        taskId -> {
+          SingularityTaskId id = SingularityTaskId.valueOf(taskId);
+          return (
+            id.getRequestId().equals(requestId) &&
+            (!deployId.isPresent() || id.getDeployId().equals(deployId.get()))
+          );
+        }
+      );
+    if (!deployId.isPresent()) {
+      healthcheckClient.removeRequestMetrics(requestId);
+    }
+
+    LOG.debug(
+      "Canceled {} healthchecks for request {} (deploy {})",
+      canceled,
+      requestId,
+      deployId.orElse("all")
+    );
+
+    return canceled;
+  }
+
+  /**
+   * @return the healthcheck this replaced for the task, if there was one
+   */
   private ScheduledFuture<?> enqueueHealthcheckWithDelay(
     final SingularityTask task,
     long delaySeconds,
@@ -274,13 +315,14 @@ public class SingularityHealthchecker {
       DurationFormatUtils.formatDurationHMS(TimeUnit.SECONDS.toMillis(delaySeconds))
     );
 
-    return executorService.schedule(
+    return healthchecks.schedule(
+      task.getTaskId(),
       new Runnable() {
 
         @Override
         public void run() {
           try {
-            asyncHealthcheck(task);
+            asyncHealthcheck(task, inStartup);
           } catch (Throwable t) {
             LOG.error("Uncaught throwable in async healthcheck", t);
             exceptionNotifier.notify(
@@ -436,65 +478,8 @@ public class SingularityHealthchecker {
     return true;
   }
 
-  private Callback wrappedHttp2Handler(final SingularityHealthcheckAsyncHandler handler) {
-    return new Callback() {
-
-      @Override
-      public void onFailure(Call call, IOException e) {
-        handler.onFailed(e);
-      }
-
-      @Override
-      public void onResponse(Call call, okhttp3.Response response) throws IOException {
-        Optional<String> maybeResponseExcerpt = Optional.empty();
-
-        String responseExcerpt = response
-          .peekBody(configuration.getMaxHealthcheckResponseBodyBytes())
-          .string();
-        if (responseExcerpt.length() > 0) {
-          maybeResponseExcerpt = Optional.of(responseExcerpt);
-        }
-
-        handler.onCompleted(Optional.of(response.code()), maybeResponseExcerpt);
-      }
-    };
-  }
-
-  private AsyncCompletionHandler<com.ning.http.client.Response> wrappedHttp1Handler(
-    final SingularityHealthcheckAsyncHandler handler
-  ) {
-    return new AsyncCompletionHandler<com.ning.http.client.Response>() {
-
-      @Override
-      public void onThrowable(Throwable t) {
-        handler.onFailed(t);
-      }
-
-      @Override
-      public com.ning.http.client.Response onCompleted(
-        com.ning.http.client.Response response
-      )
-        throws Exception {
-        Optional<String> maybeResponseExcerpt = Optional.empty();
-
-        if (response.hasResponseBody()) {
-          maybeResponseExcerpt =
-            Optional.of(
-              response.getResponseBodyExcerpt(
-                configuration.getMaxHealthcheckResponseBodyBytes()
-              )
-            );
-        }
-
-        handler.onCompleted(Optional.of(response.getStatusCode()), maybeResponseExcerpt);
-
-        return response;
-      }
-    };
-  }
-
   @VisibleForTesting
-  void asyncHealthcheck(final SingularityTask task) {
+  void asyncHealthcheck(final SingularityTask task, final boolean inStartup) {
     final Optional<String> uri = getHealthcheckUri(task);
     final SingularityHealthcheckAsyncHandler handler = new SingularityHealthcheckAsyncHandler(
       exceptionNotifier,
@@ -502,7 +487,8 @@ public class SingularityHealthchecker {
       this,
       newTaskChecker,
       taskManager,
-      task
+      task,
+      inStartup
     );
 
     if (!uri.isPresent()) {
@@ -548,28 +534,18 @@ public class SingularityHealthchecker {
       );
 
       if (
-        protocol == HealthcheckProtocol.HTTP2 || protocol == HealthcheckProtocol.HTTPS2
+        !healthcheckClient.check(
+          task,
+          uri.get(),
+          method,
+          timeoutSeconds,
+          protocol,
+          handler
+        )
       ) {
-        // Creates a lightweight new client which shares the underlying resource pools of the original instance.
-        http2
-          .newBuilder()
-          .retryOnConnectionFailure(false)
-          .followRedirects(true)
-          .connectTimeout(timeoutSeconds, TimeUnit.SECONDS)
-          .readTimeout(timeoutSeconds, TimeUnit.SECONDS)
-          .cache(null)
-          .build()
-          .newCall(
-            new okhttp3.Request.Builder().method(method, null).url(uri.get()).build()
-          )
-          .enqueue(wrappedHttp2Handler(handler));
-      } else {
-        RequestBuilder builder = new RequestBuilder("GET");
-        builder.setFollowRedirects(true);
-        builder.setUrl(uri.get());
-        builder.setRequestTimeout((int) TimeUnit.SECONDS.toMillis(timeoutSeconds));
-
-        http.prepareRequest(builder.build()).execute(wrappedHttp1Handler(handler));
+        // The running check schedules the next one when it finishes, stop tracking this
+        // one so a task whose checks stop there can be enqueued again
+        markHealthcheckFinished(task.getTaskId().getId());
       }
     } catch (Throwable t) {
       LOG.debug(
@@ -1,9 +1,12 @@
 package com.hubspot.singularity.scheduler;
 
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.hubspot.singularity.ExtendedTaskState;
+import com.hubspot.singularity.RequestState;
 import com.hubspot.singularity.RequestUtilization;
+import com.hubspot.singularity.SingularityDeployKey;
 import com.hubspot.singularity.SingularityKilledTaskIdRecord;
 import com.hubspot.singularity.SingularityPendingTask;
 import com.hubspot.singularity.SingularityPendingTaskId;
@@ -18,6 +21,7 @@ import com.hubspot.singularity.SingularityTaskId;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -25,6 +29,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -35,7 +41,11 @@ public class SingularityLeaderCache {
   private static final Logger LOG = LoggerFactory.getLogger(SingularityLeaderCache.class);
 
   private Map<SingularityPendingTaskId, SingularityPendingTask> pendingTaskIdToPendingTask;
+  private SnapshotIndex<String, SingularityPendingTaskId> pendingTaskIdsByRequest;
   private Set<SingularityTaskId> activeTaskIds;
+  private SnapshotIndex<String, SingularityTaskId> activeTaskIdsByRequest;
+  private SnapshotIndex<SingularityDeployKey, SingularityTaskId> activeTaskIdsByDeploy;
+  private SnapshotIndex<String, SingularityTaskId> activeTaskIdsByHost;
   private Map<String, SingularityRequestWithState> requests;
   private Map<SingularityTaskId, SingularityTaskCleanup> cleanupTasks;
   private Map<String, SingularityRequestDeployState> requestIdToDeployState;
@@ -47,11 +57,34 @@ public class SingularityLeaderCache {
   private Map<String, RequestUtilization> requestUtilizations;
   private Map<String, SingularitySlaveUsageWithId> slaveUsages;
 
+  // Kept up to date as the cache changes so the published state doesn't need to recount
+  private final SnapshotIndex<String, SingularityTaskId> cleanupTaskIdsByRequest;
+  private final Map<RequestState, AtomicInteger> numRequestsByState;
+  private final Set<String> requestIdsWithChangedInstances;
+  private volatile Set<SingularityTaskId> launchingTaskIds;
+
+  // Guards writes to activeTaskIds and rebuilds of the snapshot handed to readers
+  private final Object activeTaskIdsLock = new Object();
+  private volatile List<SingularityTaskId> activeTaskIdsSnapshot;
+  private final AtomicLong activeTaskIdsVersion = new AtomicLong();
+
   private volatile boolean active;
 
   @Inject
   public SingularityLeaderCache() {
     this.active = false;
+    this.pendingTaskIdsByRequest =
+      new SnapshotIndex<>(SingularityPendingTaskId::getRequestId);
+    this.activeTaskIdsByRequest = new SnapshotIndex<>(SingularityTaskId::getRequestId);
+    this.activeTaskIdsByDeploy = new SnapshotIndex<>(SingularityDeployKey::fromTaskId);
+    this.activeTaskIdsByHost = new SnapshotIndex<>(SingularityTaskId::getSanitizedHost);
+    this.cleanupTaskIdsByRequest = new SnapshotIndex<>(SingularityTaskId::getRequestId);
+    this.numRequestsByState = new EnumMap<>(RequestState.class);
+    for (RequestState state : RequestState.values()) {
+      numRequestsByState.put(state, new AtomicInteger());
+    }
+    this.requestIdsWithChangedInstances = ConcurrentHashMap.newKeySet();
+    this.launchingTaskIds = ConcurrentHashMap.newKeySet();
   }
 
   public void activate() {
@@ -61,16 +94,30 @@ public class SingularityLeaderCache {
   // Only for unit testing
   public void clear() {
     if (pendingTaskIdToPendingTask != null) {
+      pendingTaskIdToPendingTask.keySet().forEach(this::markInstancesChanged);
       pendingTaskIdToPendingTask.clear();
     }
+    pendingTaskIdsByRequest.clear();
     if (activeTaskIds != null) {
-      activeTaskIds.clear();
+      synchronized (activeTaskIdsLock) {
+        activeTaskIds.forEach(this::markInstancesChanged);
+        activeTaskIds.clear();
+        activeTaskIdsByRequest.clear();
+        activeTaskIdsByDeploy.clear();
+        activeTaskIdsByHost.clear();
+        launchingTaskIds.clear();
+        invalidateActiveTaskIdsSnapshot();
+      }
     }
     if (requests != null) {
+      requestIdsWithChangedInstances.addAll(requests.keySet());
       requests.clear();
+      numRequestsByState.values().forEach(count -> count.set(0));
     }
     if (cleanupTasks != null) {
+      cleanupTasks.keySet().forEach(this::markInstancesChanged);
       cleanupTasks.clear();
+      cleanupTaskIdsByRequest.clear();
     }
     if (requestIdToDeployState != null) {
       requestIdToDeployState.clear();
@@ -99,8 +146,14 @@ public class SingularityLeaderCache {
   }
 
   public void cachePendingTasks(List<SingularityPendingTask> pendingTasks) {
+    if (pendingTaskIdToPendingTask != null) {
+      pendingTaskIdToPendingTask.keySet().forEach(this::markInstancesChanged);
+    }
     this.pendingTaskIdToPendingTask = new ConcurrentHashMap<>(pendingTasks.size());
     pendingTasks.forEach(t -> pendingTaskIdToPendingTask.put(t.getPendingTaskId(), t));
+    pendingTaskIdsByRequest.clear();
+    pendingTaskIdsByRequest.addAll(pendingTaskIdToPendingTask.keySet());
+    pendingTaskIdToPendingTask.keySet().forEach(this::markInstancesChanged);
   }
 
   public void cachePendingTasksToDelete(List<SingularityPendingTaskId> pendingTaskIds) {
@@ -109,19 +162,46 @@ public class SingularityLeaderCache {
   }
 
   public void cacheActiveTaskIds(List<SingularityTaskId> activeTaskIds) {
-    this.activeTaskIds =
-      Collections.synchronizedSet(new HashSet<SingularityTaskId>(activeTaskIds.size()));
-    activeTaskIds.forEach(this.activeTaskIds::add);
+    synchronized (activeTaskIdsLock) {
+      if (this.activeTaskIds != null) {
+        this.activeTaskIds.forEach(this::markInstancesChanged);
+      }
+      this.activeTaskIds = ConcurrentHashMap.newKeySet(activeTaskIds.size());
+      this.activeTaskIds.addAll(activeTaskIds);
+      activeTaskIdsByRequest.clear();
+      activeTaskIdsByDeploy.clear();
+      activeTaskIdsByHost.clear();
+      this.activeTaskIds.forEach(this::addToActiveTaskIndexes);
+      this.activeTaskIds.forEach(this::markInstancesChanged);
+      rebuildLaunchingTaskIds();
+      invalidateActiveTaskIdsSnapshot();
+    }
   }
 
   public void cacheRequests(List<SingularityRequestWithState> requestsWithState) {
+    if (requests != null) {
+      requestIdsWithChangedInstances.addAll(requests.keySet());
+    }
     this.requests = new ConcurrentHashMap<>(requestsWithState.size());
-    requestsWithState.forEach(r -> requests.put(r.getRequest().getId(), r));
+    numRequestsByState.values().forEach(count -> count.set(0));
+    requestsWithState.forEach(
+      r -> {
+        requests.put(r.getRequest().getId(), r);
+        numRequestsByState.get(r.getState()).incrementAndGet();
+      }
+    );
+    requestIdsWithChangedInstances.addAll(requests.keySet());
   }
 
   public void cacheCleanupTasks(List<SingularityTaskCleanup> cleanups) {
+    if (cleanupTasks != null) {
+      cleanupTasks.keySet().forEach(this::markInstancesChanged);
+    }
     this.cleanupTasks = new ConcurrentHashMap<>(cleanups.size());
     cleanups.forEach(c -> cleanupTasks.put(c.getTaskId(), c));
+    cleanupTaskIdsByRequest.clear();
+    cleanupTaskIdsByRequest.addAll(cleanupTasks.keySet());
+    cleanupTasks.keySet().forEach(this::markInstancesChanged);
   }
 
   public void cacheRequestDeployStates(
@@ -153,6 +233,9 @@ public class SingularityLeaderCache {
                 .collect(Collectors.toMap(u -> u.getTaskState(), u -> u))
             )
       );
+    synchronized (activeTaskIdsLock) {
+      rebuildLaunchingTaskIds();
+    }
   }
 
   public void cacheSlaves(List<SingularitySlave> slaves) {
@@ -197,14 +280,12 @@ public class SingularityLeaderCache {
     return new ArrayList<>(pendingTaskIdToPendingTask.keySet());
   }
 
+  /**
+   * Returns an immutable snapshot of the pending task ids for a request. The same
+   * snapshot is handed out until a pending task for that request is saved or deleted.
+   */
   public List<SingularityPendingTaskId> getPendingTaskIdsForRequest(String requestId) {
-    Set<SingularityPendingTaskId> allPendingTaskIds = new HashSet<>(
-      pendingTaskIdToPendingTask.keySet()
-    );
-    return allPendingTaskIds
-      .stream()
-      .filter(t -> t.getRequestId().equals(requestId))
-      .collect(Collectors.toList());
+    return pendingTaskIdsByRequest.get(requestId);
   }
 
   public List<SingularityPendingTaskId> getPendingTaskIdsToDelete() {
@@ -226,6 +307,8 @@ public class SingularityLeaderCache {
       pendingTaskIdsToDelete.remove(pendingTaskId);
     }
     pendingTaskIdToPendingTask.remove(pendingTaskId);
+    pendingTaskIdsByRequest.remove(pendingTaskId);
+    markInstancesChanged(pendingTaskId);
   }
 
   public Optional<SingularityPendingTask> getPendingTask(
@@ -241,6 +324,8 @@ public class SingularityLeaderCache {
     }
 
     pendingTaskIdToPendingTask.put(pendingTask.getPendingTaskId(), pendingTask);
+    pendingTaskIdsByRequest.add(pendingTask.getPendingTaskId());
+    markInstancesChanged(pendingTask.getPendingTaskId());
   }
 
   public void deleteActiveTaskId(SingularityTaskId taskId) {
@@ -249,7 +334,16 @@ public class SingularityLeaderCache {
       return;
     }
 
-    activeTaskIds.remove(taskId);
+    synchronized (activeTaskIdsLock) {
+      if (activeTaskIds.remove(taskId)) {
+        activeTaskIdsByRequest.remove(taskId);
+        activeTaskIdsByDeploy.remove(taskId);
+        activeTaskIdsByHost.remove(taskId);
+        launchingTaskIds.remove(taskId);
+        markInstancesChanged(taskId);
+        invalidateActiveTaskIdsSnapshot();
+      }
+    }
   }
 
   public List<SingularityTaskId> exists(List<SingularityTaskId> taskIds) {
@@ -263,22 +357,50 @@ public class SingularityLeaderCache {
   }
 
   public List<SingularityTaskId> getActiveTaskIds() {
-    return new ArrayList<>(activeTaskIds);
+    return new ArrayList<>(getActiveTaskIdsSnapshot());
   }
 
-  public List<SingularityTaskId> getActiveTaskIdsForRequest(String requestId) {
-    Set<SingularityTaskId> allActiveTaskIds;
-    synchronized (activeTaskIds) {
-      allActiveTaskIds = new HashSet<>(activeTaskIds);
+  /**
+   * Returns an immutable snapshot of all active task ids. The snapshot is rebuilt at most
+   * once per change to the active task set, no matter how many callers read it.
+   */
+  public List<SingularityTaskId> getActiveTaskIdsSnapshot() {
+    List<SingularityTaskId> snapshot = activeTaskIdsSnapshot;
+    if (snapshot != null) {
+      return snapshot;
+    }
+    synchronized (activeTaskIdsLock) {
+      if (activeTaskIdsSnapshot == null) {
+        activeTaskIdsSnapshot = ImmutableList.copyOf(activeTaskIds);
+      }
+      return activeTaskIdsSnapshot;
     }
-    return allActiveTaskIds
-      .stream()
-      .filter(t -> t.getRequestId().equals(requestId))
-      .collect(Collectors.toList());
+  }
+
+  /**
+   * Incremented on every change to the active task set, so callers holding derived state
+   * can cheaply tell whether it needs to be recomputed.
+   */
+  public long getActiveTaskIdsVersion() {
+    return activeTaskIdsVersion.get();
+  }
+
+  public List<SingularityTaskId> getActiveTaskIdsForRequest(String requestId) {
+    return activeTaskIdsByRequest.get(requestId);
+  }
+
+  public List<SingularityTaskId> getActiveTaskIdsForDeploy(
+    SingularityDeployKey deployKey
+  ) {
+    return activeTaskIdsByDeploy.get(deployKey);
+  }
+
+  public List<SingularityTaskId> getActiveTaskIdsOnHost(String sanitizedHost) {
+    return activeTaskIdsByHost.get(sanitizedHost);
   }
 
   public List<String> getActiveTaskIdsAsStrings() {
-    List<SingularityTaskId> localActiveTaskIds = getActiveTaskIds();
+    List<SingularityTaskId> localActiveTaskIds = getActiveTaskIdsSnapshot();
     List<String> strings = new ArrayList<>(localActiveTaskIds.size());
     for (SingularityTaskId taskId : localActiveTaskIds) {
       strings.add(taskId.getId());
@@ -304,6 +426,13 @@ public class SingularityLeaderCache {
     return pendingTaskIdToPendingTask.size();
   }
 
+  /**
+   * Active tasks which have not had a TASK_RUNNING update yet
+   */
+  public int getNumLaunchingTasks() {
+    return launchingTaskIds.size();
+  }
+
   public boolean isActiveTask(SingularityTaskId taskId) {
     return activeTaskIds.contains(taskId);
   }
@@ -314,7 +443,50 @@ public class SingularityLeaderCache {
       return;
     }
 
-    activeTaskIds.add(taskId);
+    synchronized (activeTaskIdsLock) {
+      if (activeTaskIds.add(taskId)) {
+        addToActiveTaskIndexes(taskId);
+        if (!hasRunningUpdate(taskId)) {
+          launchingTaskIds.add(taskId);
+        }
+        markInstancesChanged(taskId);
+        invalidateActiveTaskIdsSnapshot();
+      }
+    }
+  }
+
+  private void addToActiveTaskIndexes(SingularityTaskId taskId) {
+    activeTaskIdsByRequest.add(taskId);
+    activeTaskIdsByDeploy.add(taskId);
+    activeTaskIdsByHost.add(taskId);
+  }
+
+  // Only called while holding activeTaskIdsLock, after active tasks or history updates are cached
+  private void rebuildLaunchingTaskIds() {
+    Set<SingularityTaskId> rebuilt = ConcurrentHashMap.newKeySet();
+    if (activeTaskIds != null) {
+      for (SingularityTaskId taskId : activeTaskIds) {
+        if (!hasRunningUpdate(taskId)) {
+          rebuilt.add(taskId);
+        }
+      }
+    }
+    launchingTaskIds = rebuilt;
+  }
+
+  private boolean hasRunningUpdate(SingularityTaskId taskId) {
+    if (historyUpdates == null) {
+      return false;
+    }
+    Map<ExtendedTaskState, SingularityTaskHistoryUpdate> updates = historyUpdates.get(
+      taskId
+    );
+    return updates != null && updates.containsKey(ExtendedTaskState.TASK_RUNNING);
+  }
+
+  private void invalidateActiveTaskIdsSnapshot() {
+    activeTaskIdsSnapshot = null;
+    activeTaskIdsVersion.incrementAndGet();
   }
 
   public List<SingularityRequestWithState> getRequests() {
@@ -331,7 +503,15 @@ public class SingularityLeaderCache {
       return;
     }
 
-    requests.put(requestWithState.getRequest().getId(), requestWithState);
+    SingularityRequestWithState previous = requests.put(
+      requestWithState.getRequest().getId(),
+      requestWithState
+    );
+    if (previous != null) {
+      numRequestsByState.get(previous.getState()).decrementAndGet();
+    }
+    numRequestsByState.get(requestWithState.getState()).incrementAndGet();
+    requestIdsWithChangedInstances.add(requestWithState.getRequest().getId());
   }
 
   public void deleteRequest(String reqeustId) {
@@ -340,7 +520,40 @@ public class SingularityLeaderCache {
       return;
     }
 
-    requests.remove(reqeustId);
+    SingularityRequestWithState previous = requests.remove(reqeustId);
+    if (previous != null) {
+      numRequestsByState.get(previous.getState()).decrementAndGet();
+    }
+    requestIdsWithChangedInstances.add(reqeustId);
+  }
+
+  public Map<RequestState, Integer> getNumRequestsByState() {
+    Map<RequestState, Integer> counts = new EnumMap<>(RequestState.class);
+    numRequestsByState.forEach((state, count) -> counts.put(state, count.get()));
+    return counts;
+  }
+
+  /**
+   * Returns and resets the ids of requests whose definition, state, active, pending or
+   * cleaning tasks changed since the last call, so callers can keep derived per-request
+   * state up to date without looking at every request.
+   */
+  public Set<String> drainRequestIdsWithChangedInstances() {
+    Set<String> changed = new HashSet<>();
+    for (String requestId : requestIdsWithChangedInstances) {
+      if (requestIdsWithChangedInstances.remove(requestId)) {
+        changed.add(requestId);
+      }
+    }
+    return changed;
+  }
+
+  private void markInstancesChanged(SingularityTaskId taskId) {
+    requestIdsWithChangedInstances.add(taskId.getRequestId());
+  }
+
+  private void markInstancesChanged(SingularityPendingTaskId pendingTaskId) {
+    requestIdsWithChangedInstances.add(pendingTaskId.getRequestId());
   }
 
   public List<SingularityTaskCleanup> getCleanupTasks() {
@@ -351,6 +564,10 @@ public class SingularityLeaderCache {
     return new ArrayList<>(cleanupTasks.keySet());
   }
 
+  public List<SingularityTaskId> getCleanupTaskIdsForRequest(String requestId) {
+    return cleanupTaskIdsByRequest.get(requestId);
+  }
+
   public Optional<SingularityTaskCleanup> getTaskCleanup(SingularityTaskId taskId) {
     return Optional.ofNullable(cleanupTasks.get(taskId));
   }
@@ -361,7 +578,10 @@ public class SingularityLeaderCache {
       return;
     }
 
-    cleanupTasks.remove(taskId);
+    if (cleanupTasks.remove(taskId) != null) {
+      cleanupTaskIdsByRequest.remove(taskId);
+      markInstancesChanged(taskId);
+    }
   }
 
   public void saveTaskCleanup(SingularityTaskCleanup cleanup) {
@@ -370,7 +590,10 @@ public class SingularityLeaderCache {
       return;
     }
 
-    cleanupTasks.put(cleanup.getTaskId(), cleanup);
+    if (cleanupTasks.put(cleanup.getTaskId(), cleanup) == null) {
+      cleanupTaskIdsByRequest.add(cleanup.getTaskId());
+      markInstancesChanged(cleanup.getTaskId());
+    }
   }
 
   public void createTaskCleanupIfNotExists(SingularityTaskCleanup cleanup) {
@@ -379,7 +602,10 @@ public class SingularityLeaderCache {
       return;
     }
 
-    cleanupTasks.putIfAbsent(cleanup.getTaskId(), cleanup);
+    if (cleanupTasks.putIfAbsent(cleanup.getTaskId(), cleanup) == null) {
+      cleanupTaskIdsByRequest.add(cleanup.getTaskId());
+      markInstancesChanged(cleanup.getTaskId());
+    }
   }
 
   public Optional<SingularityRequestDeployState> getRequestDeployState(String requestId) {
@@ -493,6 +719,9 @@ public class SingularityLeaderCache {
         .get(taskHistoryUpdate.getTaskId())
         .putIfAbsent(taskHistoryUpdate.getTaskState(), taskHistoryUpdate);
     }
+    if (taskHistoryUpdate.getTaskState() == ExtendedTaskState.TASK_RUNNING) {
+      launchingTaskIds.remove(taskHistoryUpdate.getTaskId());
+    }
   }
 
   public void deleteTaskHistoryUpdate(SingularityTaskId taskId, ExtendedTaskState state) {
@@ -501,6 +730,9 @@ public class SingularityLeaderCache {
       return;
     }
     historyUpdates.getOrDefault(taskId, new HashMap<>()).remove(state);
+    if (state == ExtendedTaskState.TASK_RUNNING && activeTaskIds.contains(taskId)) {
+      launchingTaskIds.add(taskId);
+    }
   }
 
   public void deleteTaskHistory(SingularityTaskId taskId) {
@@ -0,0 +1,33 @@
+package com.hubspot.singularity.scheduler;
+
+import com.google.inject.Inject;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.MetadataManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets followers tell how current their watched copy of ZooKeeper is, see
+ * SingularityWebCache.
+ */
+public class SingularityLeaderHeartbeatPoller extends SingularityLeaderOnlyPoller {
+  private final MetadataManager metadataManager;
+
+  @Inject
+  SingularityLeaderHeartbeatPoller(
+    SingularityConfiguration configuration,
+    MetadataManager metadataManager
+  ) {
+    super(configuration.getLeaderHeartbeatIntervalMillis(), TimeUnit.MILLISECONDS);
+    this.metadataManager = metadataManager;
+  }
+
+  @Override
+  public void runActionOnPoll() {
+    metadataManager.saveLeaderHeartbeat(System.currentTimeMillis());
+  }
+
+  @Override
+  protected boolean abortsOnError() {
+    return false;
+  }
+}
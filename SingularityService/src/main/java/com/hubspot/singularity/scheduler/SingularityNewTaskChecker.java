@@ -1,9 +1,9 @@
 package com.hubspot.singularity.scheduler;
 
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.hubspot.baragon.models.BaragonRequestState;
 import com.hubspot.mesos.JavaUtils;
@@ -35,11 +35,9 @@ import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
 import com.hubspot.singularity.smtp.SingularityMailer;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import javax.inject.Singleton;
@@ -63,9 +61,7 @@ public class SingularityNewTaskChecker {
   private final RequestManager requestManager;
   private final LoadBalancerClient lbClient;
 
-  private final Map<String, Future<?>> taskIdToCheck;
-
-  private final ScheduledExecutorService executorService;
+  private final TaskTimerWheel taskChecks;
 
   private final SingularityAbort abort;
   private final SingularityExceptionNotifier exceptionNotifier;
@@ -82,7 +78,8 @@ public class SingularityNewTaskChecker {
     SingularityExceptionNotifier exceptionNotifier,
     SingularityAbort abort,
     SingularityDeployHealthHelper deployHealthHelper,
-    DisasterManager disasterManager
+    DisasterManager disasterManager,
+    MetricRegistry metrics
   ) {
     this.configuration = configuration;
     this.requestManager = requestManager;
@@ -90,12 +87,14 @@ public class SingularityNewTaskChecker {
     this.lbClient = lbClient;
     this.abort = abort;
 
-    this.taskIdToCheck = Maps.newConcurrentMap();
-
-    this.executorService =
-      executorServiceFactory.get(
-        "new-task-checker",
-        configuration.getCheckNewTasksScheduledThreads()
+    this.taskChecks =
+      new TaskTimerWheel(
+        "newTaskChecks",
+        executorServiceFactory.get(
+          "new-task-checker",
+          configuration.getCheckNewTasksScheduledThreads()
+        ),
+        metrics
       );
 
     this.exceptionNotifier = exceptionNotifier;
@@ -185,7 +184,7 @@ public class SingularityNewTaskChecker {
     Optional<SingularityRequestWithState> requestWithState,
     SingularityHealthchecker healthchecker
   ) {
-    if (taskIdToCheck.containsKey(task.getTaskId().getId())) {
+    if (taskChecks.contains(task.getTaskId().getId())) {
       LOG.trace("Already had a newTaskCheck for task {}", task.getTaskId());
       return;
     }
@@ -196,8 +195,8 @@ public class SingularityNewTaskChecker {
   }
 
   @VisibleForTesting
-  Collection<Future<?>> getTaskCheckFutures() {
-    return taskIdToCheck.values();
+  Collection<ScheduledFuture<?>> getTaskCheckFutures() {
+    return taskChecks.getAll();
   }
 
   public void runNewTaskCheckImmediately(
@@ -222,8 +221,12 @@ public class SingularityNewTaskChecker {
     }
 
     try {
-      Future<?> future = executorService.submit(getTaskCheck(task, healthchecker));
-      taskIdToCheck.put(taskId, future);
+      taskChecks.schedule(
+        task.getTaskId(),
+        getTaskCheck(task, healthchecker),
+        0,
+        TimeUnit.SECONDS
+      );
     } catch (RejectedExecutionException ree) {
       LOG.warn(
         "Executor rejected execution, Singularity is shutting down, short circuiting"
@@ -238,7 +241,7 @@ public class SingularityNewTaskChecker {
   }
 
   public CancelState cancelNewTaskCheck(String taskId) {
-    Future<?> future = taskIdToCheck.remove(taskId);
+    Future<?> future = taskChecks.remove(taskId);
 
     if (future == null) {
       return CancelState.NOT_PRESENT;
@@ -255,6 +258,14 @@ public class SingularityNewTaskChecker {
     }
   }
 
+  public int cancelNewTaskChecks(String requestId) {
+    int canceled = taskChecks.cancelAll(requestId, Optional.empty());
+
+    LOG.debug("Canceled {} new task checks for request {}", canceled, requestId);
+
+    return canceled;
+  }
+
   private Runnable getTaskCheck(
     final SingularityTask task,
     final SingularityHealthchecker healthchecker
@@ -279,7 +290,7 @@ public class SingularityNewTaskChecker {
         if (shouldReschedule) {
           reEnqueueCheck(task, healthchecker);
         } else {
-          taskIdToCheck.remove(task.getTaskId().getId());
+          taskChecks.remove(task.getTaskId().getId());
         }
       } catch (Throwable t) {
         LOG.error(
@@ -320,7 +331,7 @@ public class SingularityNewTaskChecker {
   }
 
   public Future<?> getTaskCheck(SingularityTaskId taskId) {
-    return taskIdToCheck.get(taskId.getId());
+    return taskChecks.get(taskId.getId());
   }
 
   private void reEnqueueCheck(
@@ -346,12 +357,12 @@ public class SingularityNewTaskChecker {
     );
 
     try {
-      ScheduledFuture<?> future = executorService.schedule(
+      taskChecks.schedule(
+        task.getTaskId(),
         getTaskCheck(task, healthchecker),
         delaySeconds,
         TimeUnit.SECONDS
       );
-      taskIdToCheck.put(task.getTaskId().getId(), future);
     } catch (RejectedExecutionException ree) {
       LOG.warn(
         "Executor rejected execution, Singularity is shutting down, short circuiting"
@@ -197,7 +197,7 @@ public class SingularityScheduler {
     final Map<String, Optional<String>> requestIdsToUserToReschedule = Maps.newHashMap();
     final Set<SingularityTaskId> matchingTaskIds = Sets.newHashSet();
 
-    final Collection<SingularityTaskId> activeTaskIds = leaderCache.getActiveTaskIds();
+    final Collection<SingularityTaskId> activeTaskIds = leaderCache.getActiveTaskIdsSnapshot();
 
     final Map<SingularitySlave, MachineState> slaves = getDefaultMap(
       slaveManager.getObjectsFiltered(MachineState.STARTING_DECOMMISSION)
@@ -206,10 +206,7 @@ public class SingularityScheduler {
     for (SingularitySlave slave : slaves.keySet()) {
       boolean foundTask = false;
 
-      for (SingularityTask activeTask : taskManager.getTasksOnSlave(
-        activeTaskIds,
-        slave
-      )) {
+      for (SingularityTask activeTask : taskManager.getTasksOnSlave(slave, false)) {
         cleanupTaskDueToDecomission(
           requestIdsToUserToReschedule,
           matchingTaskIds,
@@ -12,6 +12,7 @@ public class SingularitySchedulerModule extends AbstractModule {
   @Override
   protected void configure() {
     bind(SingularityHealthchecker.class).in(Scopes.SINGLETON);
+    bind(SingularityHealthcheckClient.class).in(Scopes.SINGLETON);
     bind(SingularityNewTaskChecker.class).in(Scopes.SINGLETON);
     bind(SingularityCleanupPoller.class).in(Scopes.SINGLETON);
     bind(SingularityExpiringUserActionPoller.class).in(Scopes.SINGLETON);
@@ -36,6 +37,7 @@ public class SingularitySchedulerModule extends AbstractModule {
     bind(SingularityDisasterDetectionPoller.class).in(Scopes.SINGLETON);
     bind(SingularityPriorityKillPoller.class).in(Scopes.SINGLETON);
     bind(SingularityUsageCleanerPoller.class).in(Scopes.SINGLETON);
+    bind(SingularityLeaderHeartbeatPoller.class).in(Scopes.SINGLETON);
     bind(SingularityUsagePoller.class).in(Scopes.SINGLETON);
     bind(SingularityTaskShuffler.class).in(Scopes.SINGLETON);
     bind(SingularityMesosTaskPrioritizer.class).in(Scopes.SINGLETON);
@@ -97,10 +97,21 @@ public class SingularityUsageHelper {
     return mesosClient.getSlaveMetricsSnapshot(host, true);
   }
 
-  public void collectSlaveUsage(
+  SlaveResourceUsage fetchSlaveUsage(SingularitySlave slave, boolean useShortTimeout) {
+    return new SlaveResourceUsage(
+      mesosClient.getSlaveResourceUsage(slave.getHost(), useShortTimeout),
+      mesosClient.getSlaveMetricsSnapshot(slave.getHost())
+    );
+  }
+
+  /**
+   * @return false if usage could not be collected for this slave
+   */
+  boolean collectSlaveUsage(
     SingularitySlave slave,
+    SlaveResourceUsage resourceUsage,
     long now,
-    Map<String, RequestUtilization> utilizationPerRequestId,
+    UtilizationAggregator utilizationAggregator,
     Map<String, RequestUtilization> previousUtilizations,
     Map<SingularitySlaveUsage, List<TaskIdWithUsage>> overLoadedHosts,
     AtomicLong totalMemBytesUsed,
@@ -108,8 +119,7 @@ public class SingularityUsageHelper {
     AtomicDouble totalCpuUsed,
     AtomicDouble totalCpuAvailable,
     AtomicLong totalDiskBytesUsed,
-    AtomicLong totalDiskBytesAvailable,
-    boolean useShortTimeout
+    AtomicLong totalDiskBytesAvailable
   ) {
     Optional<Long> memoryMbTotal = Optional.empty();
     Optional<Double> cpusTotal = Optional.empty();
@@ -124,13 +134,8 @@ public class SingularityUsageHelper {
     long diskMbUsedOnSlave = 0;
 
     try {
-      List<MesosTaskMonitorObject> allTaskUsage = mesosClient.getSlaveResourceUsage(
-        slave.getHost(),
-        useShortTimeout
-      );
-      MesosSlaveMetricsSnapshotObject slaveMetricsSnapshot = mesosClient.getSlaveMetricsSnapshot(
-        slave.getHost()
-      );
+      List<MesosTaskMonitorObject> allTaskUsage = resourceUsage.getTaskUsages();
+      MesosSlaveMetricsSnapshotObject slaveMetricsSnapshot = resourceUsage.getMetricsSnapshot();
       double systemMemTotalBytes = 0;
       double systemMemFreeBytes = 0;
       double systemLoad1Min = 0;
@@ -218,7 +223,7 @@ public class SingularityUsageHelper {
             diskMbReservedOnSlave += diskMbReservedForTask;
 
             updateRequestUtilization(
-              utilizationPerRequestId,
+              utilizationAggregator,
               previousUtilizations.get(
                 maybeTask.get().getTaskRequest().getRequest().getId()
               ),
@@ -360,6 +365,7 @@ public class SingularityUsageHelper {
       usageManager.saveCurrentSlaveUsage(
         new SingularitySlaveUsageWithId(slaveUsage, slave.getId())
       );
+      return true;
     } catch (Throwable t) {
       String message = String.format(
         "Could not get slave usage for host %s",
@@ -367,6 +373,7 @@ public class SingularityUsageHelper {
       );
       LOG.error(message, t);
       exceptionNotifier.notify(message, t);
+      return false;
     }
   }
 
@@ -466,7 +473,7 @@ public class SingularityUsageHelper {
   }
 
   private void updateRequestUtilization(
-    Map<String, RequestUtilization> utilizationPerRequestId,
+    UtilizationAggregator utilizationAggregator,
     RequestUtilization previous,
     List<SingularityTaskUsage> pastTaskUsages,
     SingularityTaskUsage latestUsage,
@@ -476,9 +483,10 @@ public class SingularityUsageHelper {
     double diskMbReservedForTask
   ) {
     String requestId = task.getRequestId();
-    RequestUtilization newRequestUtilization = utilizationPerRequestId.getOrDefault(
+    // Computed outside the aggregator's lock, only merging it in is serialized
+    RequestUtilization newRequestUtilization = new RequestUtilization(
       requestId,
-      new RequestUtilization(requestId, task.getDeployId())
+      task.getDeployId()
     );
     // Take the previous request utilization into account to better measure 24 hour max/min values
     if (previous != null) {
@@ -614,6 +622,6 @@ public class SingularityUsageHelper {
       )
       .setCpuBurstRating(cpuBurstRating);
 
-    utilizationPerRequestId.put(requestId, newRequestUtilization);
+    utilizationAggregator.add(newRequestUtilization);
   }
 }
@@ -1,69 +1,89 @@
 package com.hubspot.singularity.scheduler;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.util.concurrent.AtomicDouble;
 import com.google.inject.Inject;
+import com.hubspot.mesos.JavaUtils;
 import com.hubspot.singularity.RequestUtilization;
 import com.hubspot.singularity.SingularityAction;
-import com.hubspot.singularity.SingularityClusterUtilization;
-import com.hubspot.singularity.SingularityDeploy;
 import com.hubspot.singularity.SingularityManagedThreadPoolFactory;
+import com.hubspot.singularity.SingularitySlave;
 import com.hubspot.singularity.SingularitySlaveUsage;
 import com.hubspot.singularity.async.CompletableFutures;
 import com.hubspot.singularity.config.SingularityConfiguration;
-import com.hubspot.singularity.data.DeployManager;
 import com.hubspot.singularity.data.DisasterManager;
 import com.hubspot.singularity.data.usage.UsageManager;
+import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class SingularityUsagePoller extends SingularityLeaderOnlyPoller {
   private static final Logger LOG = LoggerFactory.getLogger(SingularityUsagePoller.class);
 
+  private static final String SLAVE_METRIC_PREFIX = "usage.slaves.";
+
   private final SingularityConfiguration configuration;
   private final UsageManager usageManager;
   private final SingularityUsageHelper usageHelper;
-  private final DeployManager deployManager;
   private final DisasterManager disasterManager;
   private final ExecutorService usageExecutor;
   private final SingularityTaskShuffler taskShuffler;
+  private final MetricRegistry metrics;
+  private final SingularityExceptionNotifier exceptionNotifier;
+
+  private final Map<String, CompletableFuture<SlaveResourceUsage>> inFlightFetches;
+  private final Set<String> trackedHosts;
 
   @Inject
   SingularityUsagePoller(
     SingularityConfiguration configuration,
     SingularityUsageHelper usageHelper,
     UsageManager usageManager,
-    DeployManager deployManager,
     DisasterManager disasterManager,
     SingularityManagedThreadPoolFactory threadPoolFactory,
-    SingularityTaskShuffler taskShuffler
+    SingularityTaskShuffler taskShuffler,
+    MetricRegistry metrics,
+    SingularityExceptionNotifier exceptionNotifier
   ) {
     super(configuration.getCheckUsageEveryMillis(), TimeUnit.MILLISECONDS);
     this.configuration = configuration;
     this.usageHelper = usageHelper;
     this.usageManager = usageManager;
-    this.deployManager = deployManager;
     this.disasterManager = disasterManager;
     this.taskShuffler = taskShuffler;
+    this.metrics = metrics;
+    this.exceptionNotifier = exceptionNotifier;
 
     this.usageExecutor =
       threadPoolFactory.get(
         "usage-collection",
         configuration.getMaxConcurrentUsageCollections()
       );
+    this.inFlightFetches = new ConcurrentHashMap<>();
+    this.trackedHosts = new HashSet<>();
   }
 
   @Override
   public void runActionOnPoll() {
-    Map<String, RequestUtilization> utilizationPerRequestId = new ConcurrentHashMap<>();
+    UtilizationAggregator utilizationAggregator = new UtilizationAggregator();
     Map<String, RequestUtilization> previousUtilizations = usageManager.getRequestUtilizations(
       false
     );
@@ -78,19 +98,75 @@ public class SingularityUsagePoller extends SingularityLeaderOnlyPoller {
 
     Map<SingularitySlaveUsage, List<TaskIdWithUsage>> overLoadedHosts = new ConcurrentHashMap<>();
 
+    // Responses are added to the totals as they arrive. Once this round is published
+    // the write lock is taken and anything arriving later is dropped
+    ReadWriteLock collectionLock = new ReentrantReadWriteLock();
+    AtomicBoolean accepting = new AtomicBoolean(true);
+    AtomicInteger numSlavesReported = new AtomicInteger(0);
+    AtomicInteger numSlavesFailed = new AtomicInteger(0);
+    int numSlavesSkipped = 0;
+
+    List<SingularitySlave> slaves = usageHelper.getSlavesToTrackUsageFor();
+    updateTrackedHosts(slaves);
+
     List<CompletableFuture<Void>> usageFutures = new ArrayList<>();
 
-    usageHelper
-      .getSlavesToTrackUsageFor()
-      .forEach(
-        slave -> {
-          usageFutures.add(
-            CompletableFuture.runAsync(
-              () -> {
-                usageHelper.collectSlaveUsage(
+    for (SingularitySlave slave : slaves) {
+      CompletableFuture<SlaveResourceUsage> previousFetch = inFlightFetches.get(
+        slave.getId()
+      );
+      if (previousFetch != null && !previousFetch.isDone()) {
+        LOG.debug(
+          "Previous usage fetch for {} has not finished, skipping it this round",
+          slave.getHost()
+        );
+        numSlavesSkipped++;
+        continue;
+      }
+
+      CompletableFuture<Void> started = new CompletableFuture<>();
+      CompletableFuture<SlaveResourceUsage> fetch = CompletableFuture.supplyAsync(
+        () -> {
+          started.complete(null);
+          return fetchSlaveUsage(slave);
+        },
+        usageExecutor
+      );
+      inFlightFetches.put(slave.getId(), fetch);
+      fetch.whenComplete((usage, t) -> inFlightFetches.remove(slave.getId(), fetch));
+
+      usageFutures.add(
+        started
+          .thenCompose(
+            ignored ->
+              CompletableFutures.enforceTimeout(
+                fetch,
+                configuration.getUsageCollectionTimeoutMillis(),
+                TimeUnit.MILLISECONDS
+              )
+          )
+          .handle(
+            (resourceUsage, throwable) -> {
+              if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException
+                  ? throwable.getCause()
+                  : throwable;
+                if (!(cause instanceof TimeoutException)) {
+                  numSlavesFailed.incrementAndGet();
+                }
+                return null;
+              }
+
+              collectionLock.readLock().lock();
+              try {
+                if (!accepting.get()) {
+                  return null;
+                }
+                boolean collected = usageHelper.collectSlaveUsage(
                   slave,
+                  resourceUsage,
                   now,
-                  utilizationPerRequestId,
+                  utilizationAggregator,
                   previousUtilizations,
                   overLoadedHosts,
                   totalMemBytesUsed,
@@ -98,31 +174,81 @@ public class SingularityUsagePoller extends SingularityLeaderOnlyPoller {
                   totalCpuUsed,
                   totalCpuAvailable,
                   totalDiskBytesUsed,
-                  totalDiskBytesAvailable,
-                  false
+                  totalDiskBytesAvailable
                 );
-              },
-              usageExecutor
-            )
-          );
-        }
+                if (collected) {
+                  numSlavesReported.incrementAndGet();
+                } else {
+                  numSlavesFailed.incrementAndGet();
+                }
+              } finally {
+                collectionLock.readLock().unlock();
+              }
+              return null;
+            }
+          )
       );
+    }
+
+    // Fetches still queued behind others have not started their own deadline yet
+    long maxWaitMillis = Math.max(
+      configuration.getCheckUsageEveryMillis(),
+      configuration.getUsageCollectionTimeoutMillis()
+    );
+    try {
+      CompletableFutures.allOf(usageFutures).get(maxWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException te) {
+      LOG.warn(
+        "Not all slaves reported usage within {}ms, publishing partial results",
+        maxWaitMillis
+      );
+    } catch (InterruptedException | ExecutionException e) {
+      LOG.error("Error waiting for slave usage", e);
+    }
 
-    CompletableFutures.allOf(usageFutures).join();
+    collectionLock.writeLock().lock();
+    try {
+      accepting.set(false);
+    } finally {
+      collectionLock.writeLock().unlock();
+    }
+
+    int numSlavesTracked = slaves.size();
+    int numSlavesTimedOut =
+      numSlavesTracked -
+      numSlavesReported.get() -
+      numSlavesFailed.get() -
+      numSlavesSkipped;
+    if (numSlavesReported.get() < numSlavesTracked) {
+      LOG.info(
+        "Usage collected from {} of {} slaves ({} timed out, {} failed, {} skipped)",
+        numSlavesReported.get(),
+        numSlavesTracked,
+        numSlavesTimedOut,
+        numSlavesFailed.get(),
+        numSlavesSkipped
+      );
+    }
 
     usageManager.saveClusterUtilization(
-      getClusterUtilization(
-        utilizationPerRequestId,
+      utilizationAggregator.toClusterUtilization(
         totalMemBytesUsed.get(),
         totalMemBytesAvailable.get(),
         totalCpuUsed.get(),
         totalCpuAvailable.get(),
         totalDiskBytesUsed.get(),
         totalDiskBytesAvailable.get(),
+        numSlavesTracked,
+        numSlavesReported.get(),
+        numSlavesTimedOut,
+        numSlavesFailed.get(),
+        numSlavesSkipped,
         now
       )
     );
-    utilizationPerRequestId.values().forEach(usageManager::saveRequestUtilization);
+    utilizationAggregator
+      .getRequestUtilizations()
+      .forEach(usageManager::saveRequestUtilization);
 
     if (
       configuration.isShuffleTasksForOverloadedSlaves() &&
@@ -132,164 +258,40 @@ public class SingularityUsagePoller extends SingularityLeaderOnlyPoller {
     }
   }
 
-  private SingularityClusterUtilization getClusterUtilization(
-    Map<String, RequestUtilization> utilizationPerRequestId,
-    long totalMemBytesUsed,
-    long totalMemBytesAvailable,
-    double totalCpuUsed,
-    double totalCpuAvailable,
-    long totalDiskBytesUsed,
-    long totalDiskBytesAvailable,
-    long now
-  ) {
-    int numRequestsWithUnderUtilizedCpu = 0;
-    int numRequestsWithOverUtilizedCpu = 0;
-    int numRequestsWithUnderUtilizedMemBytes = 0;
-    int numRequestsWithUnderUtilizedDiskBytes = 0;
-
-    double totalUnderUtilizedCpu = 0;
-    double totalOverUtilizedCpu = 0;
-    long totalUnderUtilizedMemBytes = 0;
-    long totalUnderUtilizedDiskBytes = 0;
-
-    double maxUnderUtilizedCpu = 0;
-    double maxOverUtilizedCpu = 0;
-    long maxUnderUtilizedMemBytes = 0;
-    long maxUnderUtilizedDiskBytes = 0;
-
-    String maxUnderUtilizedCpuRequestId = null;
-    String maxOverUtilizedCpuRequestId = null;
-    String maxUnderUtilizedMemBytesRequestId = null;
-    String maxUnderUtilizedDiskBytesRequestId = null;
-
-    double minUnderUtilizedCpu = Double.MAX_VALUE;
-    double minOverUtilizedCpu = Double.MAX_VALUE;
-    long minUnderUtilizedMemBytes = Long.MAX_VALUE;
-    long minUnderUtilizedDiskBytes = Long.MAX_VALUE;
-
-    for (RequestUtilization utilization : utilizationPerRequestId.values()) {
-      Optional<SingularityDeploy> maybeDeploy = deployManager.getDeploy(
-        utilization.getRequestId(),
-        utilization.getDeployId()
+  private SlaveResourceUsage fetchSlaveUsage(SingularitySlave slave) {
+    long start = System.currentTimeMillis();
+    try {
+      return usageHelper.fetchSlaveUsage(slave, false);
+    } catch (Throwable t) {
+      String message = String.format(
+        "Could not fetch slave usage for host %s",
+        slave.getHost()
       );
-
-      if (maybeDeploy.isPresent() && maybeDeploy.get().getResources().isPresent()) {
-        String requestId = utilization.getRequestId();
-        long memoryBytesReserved = (long) (
-          maybeDeploy.get().getResources().get().getMemoryMb() *
-          SingularitySlaveUsage.BYTES_PER_MEGABYTE
-        );
-        double cpuReserved = maybeDeploy.get().getResources().get().getCpus();
-        long diskBytesReserved = (long) maybeDeploy
-          .get()
-          .getResources()
-          .get()
-          .getDiskMb() *
-        SingularitySlaveUsage.BYTES_PER_MEGABYTE;
-
-        double unusedCpu = cpuReserved - utilization.getAvgCpuUsed();
-        long unusedMemBytes = (long) (
-          memoryBytesReserved - utilization.getAvgMemBytesUsed()
-        );
-        long unusedDiskBytes = (long) (
-          diskBytesReserved - utilization.getAvgDiskBytesUsed()
-        );
-
-        if (unusedCpu > 0) {
-          numRequestsWithUnderUtilizedCpu++;
-          totalUnderUtilizedCpu += unusedCpu;
-          if (unusedCpu > maxUnderUtilizedCpu) {
-            maxUnderUtilizedCpu = unusedCpu;
-            maxUnderUtilizedCpuRequestId = requestId;
-          }
-          minUnderUtilizedCpu = Math.min(unusedCpu, minUnderUtilizedCpu);
-        } else if (unusedCpu < 0) {
-          double overusedCpu = Math.abs(unusedCpu);
-
-          numRequestsWithOverUtilizedCpu++;
-          totalOverUtilizedCpu += overusedCpu;
-          if (overusedCpu > maxOverUtilizedCpu) {
-            maxOverUtilizedCpu = overusedCpu;
-            maxOverUtilizedCpuRequestId = requestId;
-          }
-          minOverUtilizedCpu = Math.min(overusedCpu, minOverUtilizedCpu);
-        }
-
-        if (unusedMemBytes > 0) {
-          numRequestsWithUnderUtilizedMemBytes++;
-          totalUnderUtilizedMemBytes += unusedMemBytes;
-          if (unusedMemBytes > maxUnderUtilizedMemBytes) {
-            maxUnderUtilizedMemBytes = unusedMemBytes;
-            maxUnderUtilizedMemBytesRequestId = requestId;
-          }
-          minUnderUtilizedMemBytes = Math.min(unusedMemBytes, minUnderUtilizedMemBytes);
-        }
-
-        if (unusedDiskBytes > 0) {
-          numRequestsWithUnderUtilizedDiskBytes++;
-          totalUnderUtilizedDiskBytes += unusedDiskBytes;
-          if (unusedDiskBytes > maxUnderUtilizedDiskBytes) {
-            maxUnderUtilizedDiskBytes = unusedDiskBytes;
-            maxUnderUtilizedDiskBytesRequestId = requestId;
-          }
-          minUnderUtilizedDiskBytes = Math.min(unusedDiskBytes, minUnderUtilizedMemBytes);
-        }
-      }
+      LOG.error(message, t);
+      exceptionNotifier.notify(message, t);
+      throw t;
+    } finally {
+      getLatencyHistogram(slave.getHost()).update(System.currentTimeMillis() - start);
     }
+  }
 
-    double avgUnderUtilizedCpu = numRequestsWithUnderUtilizedCpu != 0
-      ? totalUnderUtilizedCpu / numRequestsWithUnderUtilizedCpu
-      : 0;
-    double avgOverUtilizedCpu = numRequestsWithOverUtilizedCpu != 0
-      ? totalOverUtilizedCpu / numRequestsWithOverUtilizedCpu
-      : 0;
-    long avgUnderUtilizedMemBytes = numRequestsWithUnderUtilizedMemBytes != 0
-      ? totalUnderUtilizedMemBytes / numRequestsWithUnderUtilizedMemBytes
-      : 0;
-    long avgUnderUtilizedDiskBytes = numRequestsWithUnderUtilizedDiskBytes != 0
-      ? totalUnderUtilizedDiskBytes / numRequestsWithUnderUtilizedDiskBytes
-      : 0;
-
-    return new SingularityClusterUtilization(
-      numRequestsWithUnderUtilizedCpu,
-      numRequestsWithOverUtilizedCpu,
-      numRequestsWithUnderUtilizedMemBytes,
-      numRequestsWithUnderUtilizedDiskBytes,
-      totalUnderUtilizedCpu,
-      totalOverUtilizedCpu,
-      totalUnderUtilizedMemBytes,
-      totalUnderUtilizedDiskBytes,
-      avgUnderUtilizedCpu,
-      avgOverUtilizedCpu,
-      avgUnderUtilizedMemBytes,
-      avgUnderUtilizedDiskBytes,
-      maxUnderUtilizedCpu,
-      maxOverUtilizedCpu,
-      maxUnderUtilizedMemBytes,
-      maxUnderUtilizedDiskBytes,
-      maxUnderUtilizedCpuRequestId,
-      maxOverUtilizedCpuRequestId,
-      maxUnderUtilizedMemBytesRequestId,
-      maxUnderUtilizedDiskBytesRequestId,
-      getMin(minUnderUtilizedCpu),
-      getMin(minOverUtilizedCpu),
-      getMin(minUnderUtilizedMemBytes),
-      getMin(minUnderUtilizedDiskBytes),
-      totalMemBytesUsed,
-      totalMemBytesAvailable,
-      totalDiskBytesUsed,
-      totalDiskBytesAvailable,
-      totalCpuUsed,
-      totalCpuAvailable,
-      now
-    );
+  private Histogram getLatencyHistogram(String host) {
+    return metrics.histogram(getLatencyMetricName(host));
   }
 
-  private double getMin(double value) {
-    return value == Double.MAX_VALUE ? 0 : value;
+  private static String getLatencyMetricName(String host) {
+    return SLAVE_METRIC_PREFIX + JavaUtils.getMetricNameSegment(host) + ".latency";
   }
 
-  private long getMin(long value) {
-    return value == Long.MAX_VALUE ? 0 : value;
+  private synchronized void updateTrackedHosts(List<SingularitySlave> slaves) {
+    Set<String> hosts = new HashSet<>();
+    slaves.forEach(slave -> hosts.add(slave.getHost()));
+    for (String host : trackedHosts) {
+      if (!hosts.contains(host)) {
+        metrics.remove(getLatencyMetricName(host));
+      }
+    }
+    trackedHosts.clear();
+    trackedHosts.addAll(hosts);
   }
 }
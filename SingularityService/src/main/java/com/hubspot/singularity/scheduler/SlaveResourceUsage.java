@@ -0,0 +1,30 @@
+package com.hubspot.singularity.scheduler;
+
+import com.hubspot.mesos.json.MesosSlaveMetricsSnapshotObject;
+import com.hubspot.mesos.json.MesosTaskMonitorObject;
+import java.util.List;
+
+/**
+ * Raw responses from a single agent's monitor and metrics endpoints, fetched before
+ * any usage is calculated from them.
+ */
+class SlaveResourceUsage {
+  private final List<MesosTaskMonitorObject> taskUsages;
+  private final MesosSlaveMetricsSnapshotObject metricsSnapshot;
+
+  SlaveResourceUsage(
+    List<MesosTaskMonitorObject> taskUsages,
+    MesosSlaveMetricsSnapshotObject metricsSnapshot
+  ) {
+    this.taskUsages = taskUsages;
+    this.metricsSnapshot = metricsSnapshot;
+  }
+
+  public List<MesosTaskMonitorObject> getTaskUsages() {
+    return taskUsages;
+  }
+
+  public MesosSlaveMetricsSnapshotObject getMetricsSnapshot() {
+    return metricsSnapshot;
+  }
+}
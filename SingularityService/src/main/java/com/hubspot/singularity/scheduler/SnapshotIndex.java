@@ -0,0 +1,93 @@
+package com.hubspot.singularity.scheduler;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Secondary index for leader cache collections. Values are grouped by key and each group
+ * hands out an immutable snapshot that is reused by every reader until that group is
+ * next modified, so repeated reads of an unchanged group neither copy nor filter.
+ * A new snapshot instance is only built after a mutation, which also lets callers use
+ * reference equality on snapshots as a cheap "has this group changed" check.
+ */
+class SnapshotIndex<K, V> {
+  private final Function<V, K> keyFunction;
+  private final Map<K, Group<V>> groups;
+
+  SnapshotIndex(Function<V, K> keyFunction) {
+    this.keyFunction = keyFunction;
+    this.groups = new ConcurrentHashMap<>();
+  }
+
+  void add(V value) {
+    groups.compute(
+      keyFunction.apply(value),
+      (key, group) -> {
+        Group<V> updated = group == null ? new Group<>() : group;
+        updated.add(value);
+        return updated;
+      }
+    );
+  }
+
+  void addAll(Collection<V> values) {
+    values.forEach(this::add);
+  }
+
+  void remove(V value) {
+    groups.computeIfPresent(
+      keyFunction.apply(value),
+      (key, group) -> group.remove(value) ? null : group
+    );
+  }
+
+  void clear() {
+    groups.clear();
+  }
+
+  List<V> get(K key) {
+    Group<V> group = groups.get(key);
+    if (group == null) {
+      return ImmutableList.of();
+    }
+    return group.snapshot();
+  }
+
+  private static class Group<V> {
+    private final Set<V> values = new HashSet<>();
+    private volatile List<V> snapshot;
+
+    synchronized void add(V value) {
+      if (values.add(value)) {
+        snapshot = null;
+      }
+    }
+
+    // Returns true when the group is empty and can be dropped from the index
+    synchronized boolean remove(V value) {
+      if (values.remove(value)) {
+        snapshot = null;
+      }
+      return values.isEmpty();
+    }
+
+    List<V> snapshot() {
+      List<V> current = snapshot;
+      if (current != null) {
+        return current;
+      }
+      synchronized (this) {
+        if (snapshot == null) {
+          snapshot = ImmutableList.copyOf(values);
+        }
+        return snapshot;
+      }
+    }
+  }
+}
@@ -0,0 +1,258 @@
+package com.hubspot.singularity.scheduler;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hubspot.singularity.SingularityTaskId;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One pending check per task, kept on a hashed timer wheel rather than in a scheduled
+ * executor's delay queue. Scheduling and cancelling are constant time, so rescheduling
+ * checks for many tasks does not churn a heap, and all checks for a request or deploy
+ * can be cancelled together. The wheel is shared and only hands checks off to the
+ * supplied executor once they are due.
+ */
+class TaskTimerWheel {
+  private static final Logger LOG = LoggerFactory.getLogger(TaskTimerWheel.class);
+
+  private static final HashedWheelTimer TIMER = new HashedWheelTimer(
+    new ThreadFactoryBuilder()
+      .setDaemon(true)
+      .setNameFormat("task-timer-wheel-%s")
+      .build(),
+    100,
+    TimeUnit.MILLISECONDS
+  );
+
+  private final ExecutorService executor;
+
+  private final Map<String, TaskTimeout> taskIdToTimeout;
+  private final Map<String, Map<String, TaskTimeout>> requestIdToTimeouts;
+
+  private final Histogram lag;
+  private final Counter inFlight;
+
+  TaskTimerWheel(String name, ExecutorService executor, MetricRegistry metrics) {
+    this.executor = executor;
+    this.taskIdToTimeout = new HashMap<>();
+    this.requestIdToTimeouts = new HashMap<>();
+
+    this.lag = metrics.histogram(name + ".timer.lag");
+    this.inFlight = metrics.counter(name + ".inflight");
+    metrics.gauge(name + ".pending", () -> (Gauge<Integer>) this::size);
+  }
+
+  /**
+   * @return the check this one replaced for the same task, which is not cancelled
+   */
+  synchronized ScheduledFuture<?> schedule(
+    SingularityTaskId taskId,
+    Runnable check,
+    long delay,
+    TimeUnit unit
+  ) {
+    if (executor.isShutdown()) {
+      throw new RejectedExecutionException("Executor for " + taskId + " is shut down");
+    }
+    TaskTimeout timeout = new TaskTimeout(taskId, check, unit.toNanos(delay));
+    TaskTimeout existing = put(timeout);
+    if (delay <= 0) {
+      timeout.run(null);
+    } else {
+      timeout.timeout = TIMER.newTimeout(timeout::run, delay, unit);
+    }
+    return existing;
+  }
+
+  synchronized ScheduledFuture<?> get(String taskId) {
+    return taskIdToTimeout.get(taskId);
+  }
+
+  synchronized boolean contains(String taskId) {
+    return taskIdToTimeout.containsKey(taskId);
+  }
+
+  synchronized int size() {
+    return taskIdToTimeout.size();
+  }
+
+  synchronized Collection<ScheduledFuture<?>> getAll() {
+    return Collections.unmodifiableCollection(new ArrayList<>(taskIdToTimeout.values()));
+  }
+
+  /**
+   * Stops tracking the check for a task without cancelling it
+   */
+  synchronized ScheduledFuture<?> remove(String taskId) {
+    TaskTimeout timeout = taskIdToTimeout.remove(taskId);
+    if (timeout != null) {
+      unindex(timeout);
+    }
+    return timeout;
+  }
+
+  /**
+   * Cancels and stops tracking every check for a request, or only those for one of its
+   * deploys when a deployId is given
+   */
+  int cancelAll(String requestId, Optional<String> deployId) {
+    List<TaskTimeout> toCancel = new ArrayList<>();
+    synchronized (this) {
+      Map<String, TaskTimeout> timeouts = requestIdToTimeouts.get(requestId);
+      if (timeouts == null) {
+        return 0;
+      }
+      for (TaskTimeout timeout : new ArrayList<>(timeouts.values())) {
+        if (
+          !deployId.isPresent() || deployId.get().equals(timeout.taskId.getDeployId())
+        ) {
+          taskIdToTimeout.remove(timeout.taskId.getId());
+          unindex(timeout);
+          toCancel.add(timeout);
+        }
+      }
+    }
+
+    int canceled = 0;
+    for (TaskTimeout timeout : toCancel) {
+      if (timeout.cancel(false)) {
+        canceled++;
+      }
+    }
+    return canceled;
+  }
+
+  private TaskTimeout put(TaskTimeout timeout) {
+    TaskTimeout existing = taskIdToTimeout.put(timeout.taskId.getId(), timeout);
+    requestIdToTimeouts
+      .computeIfAbsent(timeout.taskId.getRequestId(), id -> new HashMap<>())
+      .put(timeout.taskId.getId(), timeout);
+    return existing;
+  }
+
+  private void unindex(TaskTimeout timeout) {
+    Map<String, TaskTimeout> timeouts = requestIdToTimeouts.get(
+      timeout.taskId.getRequestId()
+    );
+    if (timeouts != null && timeouts.remove(timeout.taskId.getId(), timeout)) {
+      if (timeouts.isEmpty()) {
+        requestIdToTimeouts.remove(timeout.taskId.getRequestId());
+      }
+    }
+  }
+
+  private class TaskTimeout implements ScheduledFuture<Void> {
+    private final SingularityTaskId taskId;
+    private final Runnable check;
+    private final long deadlineNanos;
+    private final AtomicBoolean started;
+    private final CompletableFuture<Void> result;
+
+    private volatile Timeout timeout;
+
+    private TaskTimeout(SingularityTaskId taskId, Runnable check, long delayNanos) {
+      this.taskId = taskId;
+      this.check = check;
+      this.deadlineNanos = System.nanoTime() + delayNanos;
+      this.started = new AtomicBoolean(false);
+      this.result = new CompletableFuture<>();
+    }
+
+    private void run(Timeout ignored) {
+      if (!started.compareAndSet(false, true)) {
+        return;
+      }
+      lag.update(
+        Math.max(0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - deadlineNanos))
+      );
+      try {
+        executor.execute(
+          () -> {
+            // cancelled while queued on the executor
+            if (result.isDone()) {
+              return;
+            }
+            inFlight.inc();
+            try {
+              check.run();
+              result.complete(null);
+            } catch (Throwable t) {
+              result.completeExceptionally(t);
+            } finally {
+              inFlight.dec();
+            }
+          }
+        );
+      } catch (RejectedExecutionException ree) {
+        LOG.warn("Executor rejected check for {}, shutting down", taskId);
+        result.cancel(false);
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      started.set(true);
+      Timeout current = timeout;
+      if (current != null) {
+        current.cancel();
+      }
+      return result.cancel(false);
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return result.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+      return result.isDone();
+    }
+
+    @Override
+    public Void get() throws InterruptedException, ExecutionException {
+      return result.get();
+    }
+
+    @Override
+    public Void get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+      return result.get(timeout, unit);
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return Long.compare(
+        getDelay(TimeUnit.NANOSECONDS),
+        other.getDelay(TimeUnit.NANOSECONDS)
+      );
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package com.hubspot.singularity.scheduler;
+
+import com.hubspot.singularity.RequestUtilization;
+import com.hubspot.singularity.SingularityClusterUtilization;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Per request utilization for one usage poll, along with the cluster wide over and
+ * under utilization derived from it. Each request's contribution is replaced as its
+ * task usages are folded in, so the cluster utilization is available as soon as the
+ * last agent reports, without another pass over every request.
+ */
+class UtilizationAggregator {
+  private final Map<String, RequestUtilization> requestUtilizations = new HashMap<>();
+
+  private final UtilizationHeap underUtilizedCpu = new UtilizationHeap();
+  private final UtilizationHeap overUtilizedCpu = new UtilizationHeap();
+  private final UtilizationHeap underUtilizedMemBytes = new UtilizationHeap();
+  private final UtilizationHeap underUtilizedDiskBytes = new UtilizationHeap();
+
+  /**
+   * Merges the utilization of one task, computed by the caller, into its request's
+   * running totals and keeps the request's place in the utilization heaps current.
+   */
+  synchronized void add(RequestUtilization contribution) {
+    RequestUtilization utilization = requestUtilizations.putIfAbsent(
+      contribution.getRequestId(),
+      contribution
+    );
+    if (utilization == null) {
+      refresh(contribution);
+      return;
+    }
+
+    utilization
+      .addCpuUsed(contribution.getCpuUsed())
+      .addCpuReserved(contribution.getCpuReserved())
+      .addMemBytesUsed(contribution.getMemBytesUsed())
+      .addMemBytesReserved(contribution.getMemBytesReserved())
+      .addDiskBytesUsed(contribution.getDiskBytesUsed())
+      .addDiskBytesReserved(contribution.getDiskBytesReserved())
+      .addPercentCpuTimeThrottled(contribution.getPercentCpuTimeThrottled())
+      .setCpuBurstRating(contribution.getCpuBurstRating());
+    for (int i = 0; i < contribution.getNumTasks(); i++) {
+      utilization.incrementTaskCount();
+    }
+
+    if (contribution.getMaxCpuUsed() > utilization.getMaxCpuUsed()) {
+      utilization.setMaxCpuUsed(contribution.getMaxCpuUsed());
+      utilization.setMaxCpusTimestamp(contribution.getMaxCpusTimestamp());
+    }
+    if (contribution.getMinCpuUsed() < utilization.getMinCpuUsed()) {
+      utilization.setMinCpuUsed(contribution.getMinCpuUsed());
+      utilization.setMinCpusTimestamp(contribution.getMinCpusTimestamp());
+    }
+    if (contribution.getMaxMemBytesUsed() > utilization.getMaxMemBytesUsed()) {
+      utilization.setMaxMemBytesUsed(contribution.getMaxMemBytesUsed());
+      utilization.setMaxMemTimestamp(contribution.getMaxMemTimestamp());
+    }
+    if (contribution.getMinMemBytesUsed() < utilization.getMinMemBytesUsed()) {
+      utilization.setMinMemBytesUsed(contribution.getMinMemBytesUsed());
+      utilization.setMinMemTimestamp(contribution.getMinMemTimestamp());
+    }
+    if (contribution.getMaxDiskBytesUsed() > utilization.getMaxDiskBytesUsed()) {
+      utilization.setMaxDiskBytesUsed(contribution.getMaxDiskBytesUsed());
+      utilization.setMaxDiskTimestamp(contribution.getMaxDiskTimestamp());
+    }
+    if (contribution.getMinDiskBytesUsed() < utilization.getMinDiskBytesUsed()) {
+      utilization.setMinDiskBytesUsed(contribution.getMinDiskBytesUsed());
+      utilization.setMinDiskTimestamp(contribution.getMinDiskTimestamp());
+    }
+    if (
+      contribution.getMaxPercentCpuTimeThrottled() >
+      utilization.getMaxPercentCpuTimeThrottled()
+    ) {
+      utilization.setMaxPercentCpuTimeThrottled(
+        contribution.getMaxPercentCpuTimeThrottled()
+      );
+      utilization.setMaxCpuThrottledTimestamp(contribution.getMaxCpuThrottledTimestamp());
+    }
+    if (
+      contribution.getMinPercentCpuTimeThrottled() <
+      utilization.getMinPercentCpuTimeThrottled()
+    ) {
+      utilization.setMinPercentCpuTimeThrottled(
+        contribution.getMinPercentCpuTimeThrottled()
+      );
+      utilization.setMinCpuThrottledTimestamp(contribution.getMinCpuThrottledTimestamp());
+    }
+
+    refresh(utilization);
+  }
+
+  synchronized List<RequestUtilization> getRequestUtilizations() {
+    return new ArrayList<>(requestUtilizations.values());
+  }
+
+  private void refresh(RequestUtilization utilization) {
+    String requestId = utilization.getRequestId();
+    int numTasks = utilization.getNumTasks();
+    if (numTasks == 0) {
+      underUtilizedCpu.remove(requestId);
+      overUtilizedCpu.remove(requestId);
+      underUtilizedMemBytes.remove(requestId);
+      underUtilizedDiskBytes.remove(requestId);
+      return;
+    }
+
+    // Reserved totals are added once per usage sample, the same as the used totals
+    double cpuReserved = utilization.getCpuReserved() / numTasks;
+    long memBytesReserved = (long) (
+      utilization.getMemBytesReserved() / (double) numTasks
+    );
+    long diskBytesReserved = (long) (
+      utilization.getDiskBytesReserved() / (double) numTasks
+    );
+
+    double unusedCpu = cpuReserved - utilization.getAvgCpuUsed();
+    long unusedMemBytes = (long) (memBytesReserved - utilization.getAvgMemBytesUsed());
+    long unusedDiskBytes = (long) (diskBytesReserved - utilization.getAvgDiskBytesUsed());
+
+    underUtilizedCpu.set(requestId, unusedCpu);
+    overUtilizedCpu.set(requestId, -unusedCpu);
+    underUtilizedMemBytes.set(requestId, unusedMemBytes);
+    underUtilizedDiskBytes.set(requestId, unusedDiskBytes);
+  }
+
+  synchronized SingularityClusterUtilization toClusterUtilization(
+    long totalMemBytesUsed,
+    long totalMemBytesAvailable,
+    double totalCpuUsed,
+    double totalCpuAvailable,
+    long totalDiskBytesUsed,
+    long totalDiskBytesAvailable,
+    int numSlavesTracked,
+    int numSlavesReported,
+    int numSlavesTimedOut,
+    int numSlavesFailed,
+    int numSlavesSkipped,
+    long now
+  ) {
+    return new SingularityClusterUtilization(
+      underUtilizedCpu.size(),
+      overUtilizedCpu.size(),
+      underUtilizedMemBytes.size(),
+      underUtilizedDiskBytes.size(),
+      underUtilizedCpu.getTotal(),
+      overUtilizedCpu.getTotal(),
+      (long) underUtilizedMemBytes.getTotal(),
+      (long) underUtilizedDiskBytes.getTotal(),
+      underUtilizedCpu.getAverage(),
+      overUtilizedCpu.getAverage(),
+      (long) underUtilizedMemBytes.getAverage(),
+      (long) underUtilizedDiskBytes.getAverage(),
+      underUtilizedCpu.getMax(),
+      overUtilizedCpu.getMax(),
+      (long) underUtilizedMemBytes.getMax(),
+      (long) underUtilizedDiskBytes.getMax(),
+      underUtilizedCpu.getMaxRequestId(),
+      overUtilizedCpu.getMaxRequestId(),
+      underUtilizedMemBytes.getMaxRequestId(),
+      underUtilizedDiskBytes.getMaxRequestId(),
+      underUtilizedCpu.getMin(),
+      overUtilizedCpu.getMin(),
+      (long) underUtilizedMemBytes.getMin(),
+      (long) underUtilizedDiskBytes.getMin(),
+      totalMemBytesUsed,
+      totalMemBytesAvailable,
+      totalDiskBytesUsed,
+      totalDiskBytesAvailable,
+      totalCpuUsed,
+      totalCpuAvailable,
+      numSlavesTracked,
+      numSlavesReported,
+      numSlavesTimedOut,
+      numSlavesFailed,
+      numSlavesSkipped,
+      now
+    );
+  }
+
+  /**
+   * Positive values per request, ordered so the smallest and largest are available
+   * without scanning every request
+   */
+  private static class UtilizationHeap {
+    private final Map<String, Double> values = new HashMap<>();
+    private final TreeSet<String> ordered = new TreeSet<>(
+      Comparator
+        .<String>comparingDouble(values::get)
+        .thenComparing(Comparator.naturalOrder())
+    );
+    private double total = 0;
+
+    void set(String requestId, double value) {
+      remove(requestId);
+      if (value > 0) {
+        values.put(requestId, value);
+        ordered.add(requestId);
+        total += value;
+      }
+    }
+
+    void remove(String requestId) {
+      Double previous = values.get(requestId);
+      if (previous != null) {
+        ordered.remove(requestId);
+        values.remove(requestId);
+        total = values.isEmpty() ? 0 : total - previous;
+      }
+    }
+
+    int size() {
+      return values.size();
+    }
+
+    double getTotal() {
+      return total;
+    }
+
+    double getAverage() {
+      return values.isEmpty() ? 0 : total / values.size();
+    }
+
+    double getMax() {
+      return values.isEmpty() ? 0 : values.get(ordered.last());
+    }
+
+    double getMin() {
+      return values.isEmpty() ? 0 : values.get(ordered.first());
+    }
+
+    String getMaxRequestId() {
+      return values.isEmpty() ? null : ordered.last();
+    }
+  }
+}
@@ -0,0 +1,286 @@
+package com.hubspot.singularity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.hubspot.singularity.data.history.HistoryJDBI;
+import com.hubspot.singularity.data.history.HistoryManager;
+import com.hubspot.singularity.data.history.JDBIHistoryManager;
+import com.hubspot.singularity.data.history.SingularityTaskHistoryPersister;
+import com.hubspot.singularity.data.history.TaskHistoryHelper;
+import com.hubspot.singularity.data.transcoders.Transcoder;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.apache.mesos.v1.Protos.TaskState;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SingularityCompressedHistoryTest extends SingularitySchedulerTestBase {
+  @Inject
+  protected Provider<Jdbi> dbiProvider;
+
+  @Inject
+  protected HistoryManager historyManager;
+
+  @Inject
+  protected SingularityTaskHistoryPersister taskHistoryPersister;
+
+  @Inject
+  protected TaskHistoryHelper taskHistoryHelper;
+
+  @Inject
+  protected HistoryJDBI historyJDBI;
+
+  @Inject
+  protected Transcoder<SingularityTaskHistory> taskHistoryTranscoder;
+
+  @Inject
+  protected Transcoder<SingularityDeployHistory> deployHistoryTranscoder;
+
+  @Inject
+  @Singularity
+  protected ObjectMapper objectMapper;
+
+  public SingularityCompressedHistoryTest() {
+    super(
+      true,
+      configuration -> {
+        configuration.setSqlCompressTaskHistory(true);
+        return null;
+      }
+    );
+  }
+
+  @Test
+  public void testTaskHistoryIsStoredCompressed() {
+    initRequest();
+    initFirstDeploy();
+
+    SingularityTask task = launchTask(
+      request,
+      firstDeploy,
+      System.currentTimeMillis(),
+      1,
+      TaskState.TASK_RUNNING
+    );
+    statusUpdate(task, TaskState.TASK_FINISHED);
+    SingularityTaskHistory taskHistory = taskManager
+      .getTaskHistory(task.getTaskId())
+      .get();
+
+    taskHistoryPersister.runActionOnPoll();
+
+    Assertions.assertEquals(
+      1,
+      countRows(task, "json IS NULL AND compressedJson IS NOT NULL")
+    );
+    Assertions.assertEquals(
+      taskHistory,
+      historyManager.getTaskHistory(task.getTaskId().getId()).get()
+    );
+  }
+
+  @Test
+  public void testCompressedTaskHistoryIsReadAfterDisablingCompression() {
+    initRequest();
+    initFirstDeploy();
+
+    SingularityTask task = launchTask(
+      request,
+      firstDeploy,
+      System.currentTimeMillis(),
+      1,
+      TaskState.TASK_RUNNING
+    );
+    statusUpdate(task, TaskState.TASK_FINISHED);
+    SingularityTaskHistory taskHistory = taskManager
+      .getTaskHistory(task.getTaskId())
+      .get();
+    taskHistoryPersister.runActionOnPoll();
+
+    configuration.setSqlCompressTaskHistory(false);
+    try {
+      HistoryManager uncompressed = new JDBIHistoryManager(
+        historyJDBI,
+        configuration,
+        taskHistoryTranscoder,
+        deployHistoryTranscoder,
+        objectMapper
+      );
+      Assertions.assertEquals(
+        taskHistory,
+        uncompressed.getTaskHistory(task.getTaskId().getId()).get()
+      );
+
+      uncompressed.saveTaskHistory(taskHistory);
+      Assertions.assertEquals(1, countRows(task, "1 = 1"));
+    } finally {
+      configuration.setSqlCompressTaskHistory(true);
+    }
+  }
+
+  @Test
+  public void testTaskHistorySummarySkipsTaskMetadata() {
+    initRequest();
+    initFirstDeploy();
+
+    SingularityTask compressedTask = launchTask(
+      request,
+      firstDeploy,
+      System.currentTimeMillis(),
+      1,
+      TaskState.TASK_FINISHED
+    );
+    SingularityTask jsonTask = launchTask(
+      request,
+      firstDeploy,
+      System.currentTimeMillis(),
+      2,
+      TaskState.TASK_FINISHED
+    );
+
+    configuration.setSqlCompressTaskHistory(false);
+    try {
+      HistoryManager uncompressed = new JDBIHistoryManager(
+        historyJDBI,
+        configuration,
+        taskHistoryTranscoder,
+        deployHistoryTranscoder,
+        objectMapper
+      );
+      historyManager.saveTaskHistory(withMetadata(compressedTask));
+      uncompressed.saveTaskHistory(withMetadata(jsonTask));
+    } finally {
+      configuration.setSqlCompressTaskHistory(true);
+    }
+    Assertions.assertEquals(1, countRows(compressedTask, "compressedJson IS NOT NULL"));
+    Assertions.assertEquals(1, countRows(jsonTask, "json IS NOT NULL"));
+
+    for (SingularityTask task : Arrays.asList(compressedTask, jsonTask)) {
+      SingularityTaskHistory full = historyManager
+        .getTaskHistory(task.getTaskId().getId())
+        .get();
+      SingularityTaskHistory summary = historyManager
+        .getTaskHistorySummary(task.getTaskId().getId())
+        .get();
+
+      Assertions.assertEquals(1, full.getTaskMetadata().size());
+      Assertions.assertTrue(summary.getTaskMetadata().isEmpty());
+      Assertions.assertEquals(full.getTask(), summary.getTask());
+      Assertions.assertEquals(full.getTaskUpdates(), summary.getTaskUpdates());
+    }
+  }
+
+  @Test
+  public void testRunIdLookupDoesNotNeedTheTask() {
+    initScheduledRequest();
+    initFirstDeploy();
+
+    String runId = "my-run-id";
+    requestResource.scheduleImmediately(
+      singularityUser,
+      requestId,
+      new SingularityRunNowRequestBuilder().setRunId(runId).build()
+    );
+    scheduler.drainPendingQueue();
+    resourceOffers();
+
+    SingularityTaskId taskId = taskManager.getActiveTaskIds().get(0);
+    statusUpdate(taskManager.getTask(taskId).get(), TaskState.TASK_FINISHED);
+    taskHistoryPersister.runActionOnPoll();
+
+    Optional<SingularityTaskIdHistory> taskIdHistory = taskHistoryHelper.getByRunId(
+      requestId,
+      runId
+    );
+    Assertions.assertTrue(taskIdHistory.isPresent());
+    Assertions.assertEquals(taskId, taskIdHistory.get().getTaskId());
+    Assertions.assertEquals(Optional.of(runId), taskIdHistory.get().getRunId());
+    Assertions.assertEquals(
+      Optional.of(ExtendedTaskState.TASK_FINISHED),
+      taskIdHistory.get().getLastTaskState()
+    );
+  }
+
+  @Test
+  public void testPurgeClearsCompressedTaskHistory() {
+    initRequest();
+    initFirstDeploy();
+
+    SingularityTask task = launchTask(
+      request,
+      firstDeploy,
+      System.currentTimeMillis() - TimeUnit.DAYS.toMillis(3),
+      1,
+      TaskState.TASK_RUNNING
+    );
+    statusUpdate(
+      task,
+      TaskState.TASK_FINISHED,
+      Optional.of(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(3))
+    );
+    taskHistoryPersister.runActionOnPoll();
+    Assertions.assertEquals(1, countRows(task, "compressedJson IS NOT NULL"));
+
+    historyManager.purgeTaskHistory(
+      requestId,
+      1,
+      Optional.empty(),
+      Optional.of(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1))),
+      false,
+      100
+    );
+
+    Assertions.assertEquals(
+      1,
+      countRows(task, "json IS NULL AND compressedJson IS NULL AND purged = true")
+    );
+    Assertions.assertFalse(
+      historyManager.getTaskHistory(task.getTaskId().getId()).isPresent()
+    );
+  }
+
+  private SingularityTaskHistory withMetadata(SingularityTask task) {
+    SingularityTaskHistory taskHistory = taskManager
+      .getTaskHistory(task.getTaskId())
+      .get();
+    return new SingularityTaskHistory(
+      taskHistory.getTaskUpdates(),
+      taskHistory.getDirectory(),
+      taskHistory.getContainerId(),
+      taskHistory.getHealthcheckResults(),
+      taskHistory.getTask(),
+      taskHistory.getLoadBalancerUpdates(),
+      taskHistory.getShellCommandHistory(),
+      Collections.singletonList(
+        new SingularityTaskMetadata(
+          task.getTaskId(),
+          System.currentTimeMillis(),
+          "test",
+          "title",
+          Optional.of("message"),
+          Optional.empty(),
+          Optional.empty()
+        )
+      )
+    );
+  }
+
+  private int countRows(SingularityTask task, String condition) {
+    try (Handle handle = dbiProvider.get().open()) {
+      return handle
+        .createQuery(
+          "SELECT COUNT(*) FROM taskHistory WHERE taskId = :taskId AND " + condition
+        )
+        .bind("taskId", task.getTaskId().getId())
+        .mapTo(Integer.class)
+        .one();
+    }
+  }
+}
@@ -119,7 +119,8 @@ public class SingularityCuratorTestBase {
       if (useDBTests) {
         Handle handle = dbiProvider.get().open();
         handle.execute(
-          "DELETE FROM taskHistory;DELETE FROM requestHistory;DELETE FROM deployHistory;"
+          "DELETE FROM taskHistory;DELETE FROM requestHistory;DELETE FROM deployHistory;" +
+          "DELETE FROM webhookUpdates;DELETE FROM webhookOffsets;"
         );
         handle.close();
       }
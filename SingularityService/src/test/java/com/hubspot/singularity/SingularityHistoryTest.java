@@ -23,6 +23,7 @@ import com.hubspot.singularity.mesos.SingularitySchedulerLock;
 import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
 import java.io.IOException;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -1272,6 +1273,120 @@ public class SingularityHistoryTest extends SingularitySchedulerTestBase {
     }
   }
 
+  @Test
+  public void testBatchPersist() {
+    initRequest();
+    initFirstDeploy();
+
+    long now = System.currentTimeMillis();
+    List<SingularityTaskHistory> taskHistories = Arrays.asList(
+      buildTask(now - 3),
+      buildTask(now - 2),
+      buildTask(now - 1)
+    );
+    historyManager.saveTaskHistory(taskHistories.get(0));
+
+    // Already persisted tasks and duplicates within a batch are skipped
+    historyManager.saveTaskHistories(
+      Arrays.asList(
+        taskHistories.get(0),
+        taskHistories.get(1),
+        taskHistories.get(2),
+        taskHistories.get(2)
+      )
+    );
+    Assertions.assertEquals(3, getTaskHistoryForRequest(requestId, 0, 100).size());
+    Assertions.assertEquals(
+      taskHistories.get(2).getTask(),
+      historyManager
+        .getTaskHistory(taskHistories.get(2).getTask().getTaskId().getId())
+        .get()
+        .getTask()
+    );
+
+    for (int i = 1; i <= 3; i++) {
+      SingularityTask task = launchTask(
+        request,
+        firstDeploy,
+        now + i,
+        i,
+        TaskState.TASK_RUNNING
+      );
+      statusUpdate(task, TaskState.TASK_FINISHED);
+    }
+    Assertions.assertEquals(
+      3,
+      taskManager.getInactiveTaskIdsForRequest(requestId).size()
+    );
+
+    taskHistoryPersister.runActionOnPoll();
+
+    Assertions.assertTrue(taskManager.getInactiveTaskIdsForRequest(requestId).isEmpty());
+    Assertions.assertEquals(6, getTaskHistoryForRequest(requestId, 0, 100).size());
+  }
+
+  @Test
+  public void testTaskHistoryCursorPagination() {
+    initRequest();
+    initFirstDeploy();
+
+    long now = System.currentTimeMillis();
+    saveTasks(7, now - 100);
+    for (int i = 1; i <= 3; i++) {
+      SingularityTask task = launchTask(
+        request,
+        firstDeploy,
+        now + i,
+        i,
+        TaskState.TASK_RUNNING
+      );
+      statusUpdate(task, TaskState.TASK_FINISHED, Optional.of(now + i));
+    }
+
+    SingularityTaskHistoryQuery query = new SingularityTaskHistoryQuery(
+      Optional.of(requestId),
+      Optional.empty(),
+      Optional.empty(),
+      Optional.empty(),
+      Optional.empty(),
+      Optional.empty(),
+      Optional.empty(),
+      Optional.empty(),
+      Optional.empty(),
+      Optional.empty()
+    );
+    List<SingularityTaskIdHistory> expected = taskHistoryHelper.getBlendedHistory(
+      query,
+      0,
+      100,
+      false
+    );
+    Assertions.assertEquals(10, expected.size());
+
+    List<SingularityTaskIdHistory> paged = new ArrayList<>();
+    Optional<SingularityTaskIdHistory> after = Optional.empty();
+    for (int pages = 0; pages < 10; pages++) {
+      List<SingularityTaskIdHistory> page = taskHistoryHelper.getBlendedHistoryAfter(
+        query,
+        after,
+        3,
+        false
+      );
+      paged.addAll(page);
+      Optional<String> cursor = taskHistoryHelper.getNextCursor(query, page, 3);
+      if (!cursor.isPresent()) {
+        break;
+      }
+      after = Optional.of(taskHistoryHelper.parseCursor(query, cursor.get()));
+    }
+
+    Assertions.assertEquals(expected, paged);
+    Assertions.assertThrows(
+      IllegalArgumentException.class,
+      () -> taskHistoryHelper.parseCursor(query, "not a cursor")
+    );
+  }
+
   @Test
   public void testDuplicatePersist() {
     initRequest();
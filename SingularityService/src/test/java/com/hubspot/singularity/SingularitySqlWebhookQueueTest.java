@@ -0,0 +1,320 @@
+package com.hubspot.singularity;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.hubspot.singularity.SingularityRequestHistory.RequestHistoryType;
+import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.data.history.SingularityMappers.SingularityWebhookQueueEntry;
+import com.hubspot.singularity.data.transcoders.Transcoder;
+import com.hubspot.singularity.data.webhooks.MySQLWebhookQueueJDBI;
+import com.hubspot.singularity.data.webhooks.PostgresWebhookQueueJDBI;
+import com.hubspot.singularity.data.webhooks.SqlWebhookQueue;
+import com.hubspot.singularity.data.webhooks.WebhookQueueJDBI;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SingularitySqlWebhookQueueTest extends SingularitySchedulerTestBase {
+  private static final long SETTLED = TimeUnit.MINUTES.toMillis(5);
+
+  @Inject
+  protected Provider<Jdbi> dbiProvider;
+
+  @Inject
+  protected WebhookQueueJDBI webhookQueueJDBI;
+
+  @Inject
+  protected WebhookManager webhookManager;
+
+  @Inject
+  protected Transcoder<SingularityRequestHistory> requestHistoryTranscoder;
+
+  @Inject
+  protected Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder;
+
+  @Inject
+  protected Transcoder<SingularityDeployUpdate> deployWebhookTranscoder;
+
+  @Inject
+  protected Transcoder<CrashLoopInfo> crashLoopUpdateTranscoder;
+
+  private final SingularityWebhook webhook = new SingularityWebhook(
+    "http://localhost/hook",
+    Optional.of(0L),
+    Optional.empty(),
+    WebhookType.REQUEST
+  );
+
+  public SingularitySqlWebhookQueueTest() {
+    super(true);
+  }
+
+  @BeforeEach
+  public void addWebhook() {
+    webhookManager.addWebhook(webhook);
+  }
+
+  @Test
+  public void testDeliveredUpdatesAreCommittedAndPurged() {
+    SqlWebhookQueue queue = newQueue();
+    append("first", SETTLED);
+    append("second", SETTLED);
+    append("third", SETTLED);
+
+    List<SingularityRequestHistory> queued = queue.getQueuedRequestHistoryForHook(
+      webhook.getId()
+    );
+    Assertions.assertEquals(3, queued.size());
+
+    // Acked out of order, the offset stops before the oldest update still in flight
+    queue.deleteRequestUpdate(webhook, queued.get(0));
+    queue.deleteRequestUpdate(webhook, queued.get(2));
+    queue.commitDeliveredUpdates();
+    Assertions.assertEquals(2, getUpdates(webhookQueueJDBI, WebhookType.REQUEST).size());
+
+    List<SingularityRequestHistory> remaining = queue.getQueuedRequestHistoryForHook(
+      webhook.getId()
+    );
+    Assertions.assertEquals(1, remaining.size());
+    Assertions.assertEquals("second", remaining.get(0).getRequest().getId());
+
+    queue.deleteRequestUpdate(webhook, remaining.get(0));
+    queue.commitDeliveredUpdates();
+    Assertions.assertTrue(getUpdates(webhookQueueJDBI, WebhookType.REQUEST).isEmpty());
+    Assertions.assertTrue(
+      queue.getQueuedRequestHistoryForHook(webhook.getId()).isEmpty()
+    );
+  }
+
+  @Test
+  public void testOffsetIsPersisted() {
+    SqlWebhookQueue queue = newQueue();
+    append("first", SETTLED);
+    append("second", SETTLED);
+
+    List<SingularityRequestHistory> queued = queue.getQueuedRequestHistoryForHook(
+      webhook.getId()
+    );
+    queue.deleteRequestUpdate(webhook, queued.get(0));
+    queue.commitDeliveredUpdates();
+
+    List<SingularityRequestHistory> afterRestart = newQueue()
+      .getQueuedRequestHistoryForHook(webhook.getId());
+    Assertions.assertEquals(1, afterRestart.size());
+    Assertions.assertEquals("second", afterRestart.get(0).getRequest().getId());
+  }
+
+  @Test
+  public void testOffsetDoesNotSkipAnUpdateThatBecomesVisibleLate() {
+    SqlWebhookQueue queue = newQueue();
+    append("first", SETTLED);
+    deliverAll(queue);
+
+    append("second", 0);
+    append("third", 0);
+    append("fourth", 0);
+
+    // Simulate the insert of the second update not having committed yet
+    List<SingularityWebhookQueueEntry> entries = getUpdates(
+      webhookQueueJDBI,
+      WebhookType.REQUEST
+    );
+    SingularityWebhookQueueEntry late = entries.get(0);
+    try (Handle handle = dbiProvider.get().open()) {
+      handle.execute("DELETE FROM webhookUpdates WHERE id = ?", late.getId());
+    }
+
+    Assertions.assertEquals(2, deliverAll(queue));
+    Assertions.assertEquals(2, getUpdates(webhookQueueJDBI, WebhookType.REQUEST).size());
+
+    try (Handle handle = dbiProvider.get().open()) {
+      handle.execute(
+        "INSERT INTO webhookUpdates (id, type, createdAt, bytes) VALUES (?, ?, ?, ?)",
+        late.getId(),
+        WebhookType.REQUEST.name(),
+        new Date(late.getCreatedAt()),
+        late.getBytes()
+      );
+    }
+
+    List<SingularityRequestHistory> queued = queue.getQueuedRequestHistoryForHook(
+      webhook.getId()
+    );
+    Assertions.assertEquals(1, queued.size());
+    Assertions.assertEquals("second", queued.get(0).getRequest().getId());
+    queue.deleteRequestUpdate(webhook, queued.get(0));
+    queue.commitDeliveredUpdates();
+    Assertions.assertTrue(getUpdates(webhookQueueJDBI, WebhookType.REQUEST).isEmpty());
+  }
+
+  @Test
+  public void testOffsetMovesPastAGapOnceSettled() {
+    SqlWebhookQueue queue = newQueue();
+    append("first", SETTLED);
+    append("second", SETTLED);
+    append("third", SETTLED);
+
+    List<SingularityWebhookQueueEntry> entries = getUpdates(
+      webhookQueueJDBI,
+      WebhookType.REQUEST
+    );
+    try (Handle handle = dbiProvider.get().open()) {
+      handle.execute("DELETE FROM webhookUpdates WHERE id = ?", entries.get(1).getId());
+    }
+
+    Assertions.assertEquals(2, deliverAll(queue));
+    Assertions.assertTrue(getUpdates(webhookQueueJDBI, WebhookType.REQUEST).isEmpty());
+  }
+
+  @Test
+  public void testOffsetKeepsMovingPastUpdatesOfOtherTypes() {
+    SqlWebhookQueue queue = newQueue();
+    append("first", SETTLED);
+    Assertions.assertEquals(1, deliverAll(queue));
+
+    for (int round = 0; round < 3; round++) {
+      append("request-" + round + "-a", 0);
+      appendOtherType(WebhookType.TASK);
+      append("request-" + round + "-b", 0);
+      appendOtherType(WebhookType.DEPLOY);
+      append("request-" + round + "-c", 0);
+
+      List<SingularityRequestHistory> queued = queue.getQueuedRequestHistoryForHook(
+        webhook.getId()
+      );
+      Assertions.assertEquals(3, queued.size());
+      for (SingularityRequestHistory update : queued) {
+        queue.deleteRequestUpdate(webhook, update);
+      }
+
+      // Acknowledged updates are not read again while waiting for the commit
+      Assertions.assertTrue(
+        queue.getQueuedRequestHistoryForHook(webhook.getId()).isEmpty()
+      );
+
+      queue.commitDeliveredUpdates();
+      Assertions.assertTrue(getUpdates(webhookQueueJDBI, WebhookType.REQUEST).isEmpty());
+    }
+  }
+
+  @Test
+  public void testQueueSizeIsReadFromTheDatabase() {
+    SqlWebhookQueue leader = newQueue();
+    SqlWebhookQueue follower = newQueue();
+    append("first", SETTLED);
+    append("second", SETTLED);
+
+    Assertions.assertEquals(2, getQueueSize(follower));
+    Assertions.assertEquals(2, deliverAll(leader));
+    Assertions.assertEquals(0, getQueueSize(follower));
+
+    append("third", SETTLED);
+    Assertions.assertEquals(1, getQueueSize(follower));
+  }
+
+  @Test
+  public void testMySQLDeletesInBatches() {
+    testDeletesInBatches(dbiProvider.get().onDemand(MySQLWebhookQueueJDBI.class));
+  }
+
+  @Test
+  public void testPostgresDeletesInBatches() {
+    testDeletesInBatches(dbiProvider.get().onDemand(PostgresWebhookQueueJDBI.class));
+  }
+
+  private void testDeletesInBatches(WebhookQueueJDBI jdbi) {
+    for (int i = 0; i < 3; i++) {
+      jdbi.appendUpdate(WebhookType.REQUEST.name(), new Date(), new byte[] { 1 });
+    }
+    jdbi.appendUpdate(WebhookType.TASK.name(), new Date(), new byte[] { 1 });
+
+    List<SingularityWebhookQueueEntry> requestUpdates = getUpdates(
+      jdbi,
+      WebhookType.REQUEST
+    );
+    long lastId = requestUpdates.get(1).getId();
+
+    Assertions.assertEquals(
+      1,
+      jdbi.deleteUpdatesThrough(WebhookType.REQUEST.name(), lastId, 1)
+    );
+    Assertions.assertEquals(
+      1,
+      jdbi.deleteUpdatesThrough(WebhookType.REQUEST.name(), lastId, 10)
+    );
+    Assertions.assertEquals(
+      0,
+      jdbi.deleteUpdatesThrough(WebhookType.REQUEST.name(), lastId, 10)
+    );
+
+    Assertions.assertEquals(1, getUpdates(jdbi, WebhookType.REQUEST).size());
+    Assertions.assertEquals(1, getUpdates(jdbi, WebhookType.TASK).size());
+  }
+
+  private SqlWebhookQueue newQueue() {
+    return new SqlWebhookQueue(
+      webhookQueueJDBI,
+      webhookManager,
+      configuration,
+      requestHistoryTranscoder,
+      taskHistoryUpdateTranscoder,
+      deployWebhookTranscoder,
+      crashLoopUpdateTranscoder
+    );
+  }
+
+  private void append(String requestId, long ageMillis) {
+    long createdAt = System.currentTimeMillis() - ageMillis;
+    SingularityRequestHistory update = new SingularityRequestHistory(
+      createdAt,
+      Optional.empty(),
+      RequestHistoryType.CREATED,
+      new SingularityRequestBuilder(requestId, RequestType.WORKER).build(),
+      Optional.empty()
+    );
+    webhookQueueJDBI.appendUpdate(
+      WebhookType.REQUEST.name(),
+      new Date(createdAt),
+      requestHistoryTranscoder.toBytes(update)
+    );
+  }
+
+  private void appendOtherType(WebhookType type) {
+    webhookQueueJDBI.appendUpdate(type.name(), new Date(), new byte[] { 1 });
+  }
+
+  private int deliverAll(SqlWebhookQueue queue) {
+    List<SingularityRequestHistory> queued = queue.getQueuedRequestHistoryForHook(
+      webhook.getId()
+    );
+    for (SingularityRequestHistory update : queued) {
+      queue.deleteRequestUpdate(webhook, update);
+    }
+    queue.commitDeliveredUpdates();
+    return queued.size();
+  }
+
+  private int getQueueSize(SqlWebhookQueue queue) {
+    return queue
+      .getWebhooksWithQueueSize()
+      .stream()
+      .filter(summary -> summary.getWebhook().getId().equals(webhook.getId()))
+      .findFirst()
+      .get()
+      .getQueueSize();
+  }
+
+  private static List<SingularityWebhookQueueEntry> getUpdates(
+    WebhookQueueJDBI jdbi,
+    WebhookType type
+  ) {
+    return jdbi.getUpdatesAfter(type.name(), 0, 100);
+  }
+}
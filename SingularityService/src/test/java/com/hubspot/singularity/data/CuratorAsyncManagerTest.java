@@ -0,0 +1,111 @@
+package com.hubspot.singularity.data;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.transcoders.StringTranscoder;
+import com.hubspot.singularity.data.transcoders.Transcoder;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.utils.ZKPaths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class CuratorAsyncManagerTest extends SingularitySchedulerTestBase {
+  private static final String PARENT = "/requests/async-window-test";
+
+  @Inject
+  protected MetricRegistry metricRegistry;
+
+  public CuratorAsyncManagerTest() {
+    super(
+      false,
+      cfg -> {
+        cfg.setZookeeperAsyncMaxInFlight(3);
+        return null;
+      }
+    );
+  }
+
+  @Test
+  public void itPipelinesBatchesLargerThanTheInFlightWindow() throws Exception {
+    Set<String> expected = new HashSet<>();
+    for (int i = 0; i < 50; i++) {
+      String value = "value-" + i;
+      cf
+        .create()
+        .creatingParentsIfNeeded()
+        .forPath(ZKPaths.makePath(PARENT, "node-" + i), value.getBytes());
+      expected.add(value);
+    }
+
+    TestAsyncManager manager = new TestAsyncManager(cf, configuration, metricRegistry);
+    long batchesBefore = metricRegistry
+      .histogram("zk.async.get_data.batch.latency")
+      .getCount();
+    List<String> results = manager.getAsyncChildren(PARENT, StringTranscoder.INSTANCE);
+
+    Assertions.assertEquals(expected, new HashSet<>(results));
+    Assertions.assertEquals(
+      batchesBefore + 1,
+      metricRegistry.histogram("zk.async.get_data.batch.latency").getCount()
+    );
+    Assertions.assertEquals(
+      50,
+      metricRegistry.histogram("zk.async.get_data.batch.size").getSnapshot().getMax()
+    );
+  }
+
+  @Test
+  @Timeout(30)
+  public void itNeverHasMoreRequestsOutstandingThanTheWindow() throws Exception {
+    String parent = PARENT + "-slow";
+    for (int i = 0; i < 30; i++) {
+      cf
+        .create()
+        .creatingParentsIfNeeded()
+        .forPath(ZKPaths.makePath(parent, "node-" + i), ("value-" + i).getBytes());
+    }
+
+    // Handling each response slowly keeps the window full while the batch is sent
+    Transcoder<String> slowTranscoder = new Transcoder<String>() {
+
+      @Override
+      public String fromBytes(byte[] data) {
+        try {
+          Thread.sleep(5);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return StringTranscoder.INSTANCE.fromBytes(data);
+      }
+
+      @Override
+      public byte[] toBytes(String object) {
+        return StringTranscoder.INSTANCE.toBytes(object);
+      }
+    };
+
+    TestAsyncManager manager = new TestAsyncManager(cf, configuration, metricRegistry);
+    Assertions.assertEquals(30, manager.getAsyncChildren(parent, slowTranscoder).size());
+    Assertions.assertEquals(
+      3,
+      metricRegistry.histogram("zk.async.get_data.window.peak").getSnapshot().getMax()
+    );
+  }
+
+  private static class TestAsyncManager extends CuratorAsyncManager {
+
+    TestAsyncManager(
+      CuratorFramework curator,
+      SingularityConfiguration configuration,
+      MetricRegistry metricRegistry
+    ) {
+      super(curator, configuration, metricRegistry);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package com.hubspot.singularity.data;
+
+import com.google.inject.Inject;
+import com.hubspot.singularity.SingularityDeployMarker;
+import com.hubspot.singularity.SingularityRequestDeployState;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.scheduler.SingularityLeaderHeartbeatPoller;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+import org.apache.mesos.v1.Protos.TaskState;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SingularityWebCacheWatcherTest extends SingularitySchedulerTestBase {
+  @Inject
+  private SingularityWebCache webCache;
+
+  @Inject
+  private SingularityLeaderHeartbeatPoller leaderHeartbeatPoller;
+
+  @Inject
+  private SingularityWebCacheWatcher webCacheWatcher;
+
+  @Inject
+  private LeaderLatch leaderLatch;
+
+  public SingularityWebCacheWatcherTest() {
+    super(
+      false,
+      configuration -> {
+        configuration.setWatchZkForWebCache(true);
+        configuration.setCacheForWebForMillis(0);
+        return null;
+      }
+    );
+  }
+
+  @Test
+  public void itFollowsRequestAndTaskChangesWithoutExpiring() throws Exception {
+    long generation = webCache.getGeneration();
+
+    initRequest();
+    initFirstDeploy();
+    awaitWebCache(
+      () -> webCache.useCachedRequests() && webCache.getRequest(requestId).isPresent()
+    );
+    Assertions.assertTrue(webCache.getGeneration() > generation);
+
+    SingularityTask task = launchTask(request, firstDeploy, 1, TaskState.TASK_RUNNING);
+    awaitWebCache(
+      () -> webCache.useCachedActiveTasks() && webCache.getActiveTasks().contains(task)
+    );
+
+    statusUpdate(task, TaskState.TASK_FINISHED);
+    awaitWebCache(() -> !webCache.getActiveTaskIds().contains(task.getTaskId()));
+  }
+
+  @Test
+  public void itMirrorsTaskHistoryUpdatesForFollowerReads() throws Exception {
+    webCacheWatcher.notLeader();
+    initRequest();
+    initFirstDeploy();
+    SingularityTask task = launchTask(request, firstDeploy, 1, TaskState.TASK_RUNNING);
+    List<SingularityTaskHistoryUpdate> updates = taskManager.getTaskHistoryUpdates(
+      task.getTaskId()
+    );
+    Assertions.assertFalse(updates.isEmpty());
+
+    awaitWebCache(() -> webCache.getTaskHistoryUpdates(task.getTaskId()).equals(updates));
+    Assertions.assertEquals(-1, webCache.getStalenessMillis());
+    Assertions.assertFalse(webCache.useMirroredTaskHistoryUpdates());
+
+    // Give up leadership and the leader cache so this instance reads as a follower
+    leaderLatch.close();
+    leaderCacheCoordinator.stopLeaderCache();
+    try {
+      Assertions.assertFalse(leaderLatch.hasLeadership());
+
+      leaderHeartbeatPoller.runActionOnPoll();
+      awaitWebCache(() -> webCache.getStalenessMillis() >= 0);
+      Assertions.assertTrue(webCache.useMirroredTaskHistoryUpdates());
+
+      // Diverge the mirror from zk, reads must only see the mirrored value
+      webCache.taskHistoryUpdates().put(task.getTaskId(), Collections.emptyList());
+      Assertions.assertTrue(taskManager.getTaskHistoryUpdates(task.getTaskId()).isEmpty());
+      Assertions.assertTrue(
+        taskManager
+          .getTaskHistoryUpdates(Collections.singletonList(task.getTaskId()))
+          .get(task.getTaskId())
+          .isEmpty()
+      );
+    } finally {
+      leaderCacheCoordinator.activateLeaderCache();
+    }
+  }
+
+  @Test
+  public void itMirrorsDeploysForFollowerReads() throws Exception {
+    initRequest();
+    initFirstDeploy();
+    awaitWebCache(
+      () ->
+        webCache
+          .getRequestDeployState(requestId)
+          .flatMap(SingularityRequestDeployState::getActiveDeploy)
+          .map(SingularityDeployMarker::getDeployId)
+          .equals(Optional.of(firstDeployId))
+    );
+
+    initSecondDeploy();
+    awaitWebCache(
+      () ->
+        webCache.getPendingDeploy(requestId).isPresent() &&
+        webCache.getDeployMarker(requestId, secondDeployId).isPresent()
+    );
+    Assertions.assertEquals(
+      secondDeployMarker,
+      webCache.getPendingDeploy(requestId).get().getDeployMarker()
+    );
+    Assertions.assertEquals(
+      secondDeployMarker,
+      webCache.getDeployMarker(requestId, secondDeployId).get()
+    );
+
+    deployManager.deletePendingDeploy(requestId);
+    awaitWebCache(() -> !webCache.getPendingDeploy(requestId).isPresent());
+  }
+
+  @Test
+  public void itOnlyWatchesTaskHistoryUpdatesAsAFollower() throws Exception {
+    webCacheWatcher.isLeader();
+    try {
+      initRequest();
+      initFirstDeploy();
+      SingularityTask task = launchTask(request, firstDeploy, 1, TaskState.TASK_RUNNING);
+      awaitWebCache(
+        () -> webCache.useCachedActiveTasks() && webCache.getActiveTasks().contains(task)
+      );
+      Assertions.assertTrue(webCache.getTaskHistoryUpdates(task.getTaskId()).isEmpty());
+
+      webCacheWatcher.notLeader();
+      awaitWebCache(
+        () ->
+          webCache
+            .getTaskHistoryUpdates(task.getTaskId())
+            .equals(taskManager.getTaskHistoryUpdates(task.getTaskId()))
+      );
+    } finally {
+      if (leaderLatch.hasLeadership()) {
+        webCacheWatcher.isLeader();
+      }
+    }
+  }
+
+  private static void awaitWebCache(BooleanSupplier condition) throws Exception {
+    long start = System.currentTimeMillis();
+    while (!condition.getAsBoolean()) {
+      Assertions.assertTrue(
+        System.currentTimeMillis() - start < 10000,
+        "Web cache did not catch up"
+      );
+      Thread.sleep(50);
+    }
+  }
+}
@@ -86,6 +86,34 @@ public class StateManagerTest extends SingularitySchedulerTestBase {
     );
   }
 
+  @Test
+  public void itKeepsCountsUpToDateFromTheLeaderCache() {
+    initRequest();
+    initFirstDeploy();
+
+    SingularityRequest request = requestResource
+      .getRequest(requestId, singularityUser)
+      .getRequest();
+    saveAndSchedule(request.toBuilder().setInstances(Optional.of(2)));
+    resourceOffers();
+
+    SingularityState state = stateManager.getState(true, false);
+    Assertions.assertEquals(2, state.getLaunchingTasks());
+    Assertions.assertEquals(0, state.getActiveTasks());
+    Assertions.assertEquals(1, state.getActiveRequests());
+    Assertions.assertEquals(0, state.getOverProvisionedRequests());
+    Assertions.assertTrue(leaderCache.drainRequestIdsWithChangedInstances().isEmpty());
+
+    statusUpdate(taskManager.getActiveTasks().get(0), TaskState.TASK_RUNNING);
+    launchTask(request, firstDeploy, 3, TaskState.TASK_RUNNING);
+
+    state = stateManager.getState(true, false);
+    Assertions.assertEquals(1, state.getLaunchingTasks());
+    Assertions.assertEquals(2, state.getActiveTasks());
+    Assertions.assertEquals(1, state.getOverProvisionedRequests());
+    Assertions.assertEquals(0, state.getUnderProvisionedRequests());
+  }
+
   @Test
   public void itDoesntFlagPendingRequestsForUnderOrOverProvisioning() {
     initRequest();
@@ -0,0 +1,143 @@
+package com.hubspot.singularity.data;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import com.hubspot.singularity.SingularityCreateResult;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.curator.utils.ZKPaths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ZkWriteBatcherTest extends SingularitySchedulerTestBase {
+  private static final String PARENT = "/requests/write-batch-test";
+
+  @Inject
+  protected ZkWriteBatcher zkWriteBatcher;
+
+  @Inject
+  protected MetricRegistry metricRegistry;
+
+  public ZkWriteBatcherTest() {
+    super(
+      false,
+      cfg -> {
+        cfg.setZookeeperWriteBatchingEnabled(true);
+        return null;
+      }
+    );
+  }
+
+  @Test
+  public void itGroupsConcurrentWritesIntoOneTransaction() throws Exception {
+    int numWrites = 10;
+    for (int i = 0; i < numWrites; i++) {
+      cf.create().creatingParentsIfNeeded().forPath(path(i), "initial".getBytes());
+    }
+
+    long batchesBefore = metricRegistry.histogram("zk.batch.writes").getCount();
+    ExecutorService executor = Executors.newFixedThreadPool(numWrites);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<CompletableFuture<SingularityCreateResult>> results = new ArrayList<>();
+      for (int i = 0; i < numWrites; i++) {
+        final int n = i;
+        results.add(
+          CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                start.await();
+              } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+              }
+              return zkWriteBatcher.save(path(n), ("value-" + n).getBytes());
+            },
+            executor
+          )
+        );
+      }
+      start.countDown();
+
+      for (CompletableFuture<SingularityCreateResult> result : results) {
+        Assertions.assertEquals(SingularityCreateResult.EXISTED, result.join());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (int i = 0; i < numWrites; i++) {
+      Assertions.assertEquals("value-" + i, new String(cf.getData().forPath(path(i))));
+    }
+    Assertions.assertTrue(
+      metricRegistry.histogram("zk.batch.writes").getCount() - batchesBefore < numWrites
+    );
+  }
+
+  @Test
+  public void itFallsBackToIndividualWritesWhenTheTransactionFails() throws Exception {
+    String missingParentPath = ZKPaths.makePath(PARENT, "missing", "child");
+
+    Assertions.assertEquals(
+      SingularityCreateResult.CREATED,
+      zkWriteBatcher.create(missingParentPath, "created".getBytes())
+    );
+    Assertions.assertEquals(
+      SingularityCreateResult.EXISTED,
+      zkWriteBatcher.create(missingParentPath, "again".getBytes())
+    );
+    Assertions.assertEquals(
+      "created",
+      new String(cf.getData().forPath(missingParentPath))
+    );
+
+    String newPath = ZKPaths.makePath(PARENT, "saved");
+    zkWriteBatcher.save(newPath, "saved".getBytes());
+    Assertions.assertEquals("saved", new String(cf.getData().forPath(newPath)));
+  }
+
+  @Test
+  public void itCreatesOrSetsWithoutFallingBackWhenANodeIsMissingOrExists()
+    throws Exception {
+    String parent = ZKPaths.makePath(PARENT, "create-or-set");
+    cf.create().creatingParentsIfNeeded().forPath(ZKPaths.makePath(parent, "existing"));
+    long fallbacksBefore = metricRegistry.meter("zk.batch.fallback").getCount();
+    long reconciledBefore = metricRegistry.meter("zk.batch.reconciled").getCount();
+
+    String newPath = ZKPaths.makePath(parent, "new");
+    Assertions.assertEquals(
+      SingularityCreateResult.CREATED,
+      zkWriteBatcher.save(newPath, "first".getBytes())
+    );
+    Assertions.assertEquals(
+      SingularityCreateResult.EXISTED,
+      zkWriteBatcher.save(newPath, "second".getBytes())
+    );
+    Assertions.assertEquals(
+      SingularityCreateResult.EXISTED,
+      zkWriteBatcher.create(ZKPaths.makePath(parent, "existing"), "ignored".getBytes())
+    );
+
+    Assertions.assertEquals("second", new String(cf.getData().forPath(newPath)));
+    Assertions.assertEquals(
+      0,
+      cf.getData().forPath(ZKPaths.makePath(parent, "existing")).length
+    );
+    Assertions.assertEquals(
+      fallbacksBefore,
+      metricRegistry.meter("zk.batch.fallback").getCount()
+    );
+    Assertions.assertEquals(
+      reconciledBefore + 2,
+      metricRegistry.meter("zk.batch.reconciled").getCount()
+    );
+  }
+
+  private static String path(int i) {
+    return ZKPaths.makePath(PARENT, "node-" + i);
+  }
+}
@@ -0,0 +1,146 @@
+package com.hubspot.singularity.event;
+
+import com.google.inject.Inject;
+import com.hubspot.singularity.RequestType;
+import com.hubspot.singularity.SingularityEvent;
+import com.hubspot.singularity.SingularityEventPage;
+import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
+import com.hubspot.singularity.SingularityManagedThreadPoolFactory;
+import com.hubspot.singularity.SingularityRequestBuilder;
+import com.hubspot.singularity.SingularityRequestHistory;
+import com.hubspot.singularity.SingularityRequestHistory.RequestHistoryType;
+import com.hubspot.singularity.WebhookType;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.mesos.v1.Protos.TaskState;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SingularityEventFeedTest extends SingularitySchedulerTestBase {
+  @Inject
+  private SingularityEventFeed eventFeed;
+
+  @Inject
+  private SingularityManagedScheduledExecutorServiceFactory scheduledExecutorServiceFactory;
+
+  @Inject
+  private SingularityManagedThreadPoolFactory threadPoolFactory;
+
+  public SingularityEventFeedTest() {
+    super(false);
+  }
+
+  @Test
+  public void itReturnsChangesAfterTheGivenSequence() {
+    long start = eventFeed.getEvents(Optional.empty(), 100).getLastSequence();
+
+    initRequest();
+    initFirstDeploy();
+    launchTask(request, firstDeploy, 1, TaskState.TASK_RUNNING);
+
+    SingularityEventPage page = eventFeed.getEvents(Optional.of(start), 1000);
+    Assertions.assertFalse(page.isResetRequired());
+    Assertions.assertTrue(
+      page.getEvents().stream().anyMatch(e -> e.getType() == WebhookType.REQUEST)
+    );
+    Assertions.assertTrue(
+      page.getEvents().stream().anyMatch(e -> e.getType() == WebhookType.TASK)
+    );
+
+    long expected = start;
+    for (SingularityEvent event : page.getEvents()) {
+      Assertions.assertEquals(++expected, event.getSequence());
+    }
+    Assertions.assertEquals(expected, page.getLastSequence());
+
+    SingularityEventPage limited = eventFeed.getEvents(Optional.of(start), 1);
+    Assertions.assertEquals(1, limited.getEvents().size());
+    Assertions.assertEquals(start + 1, limited.getLastSequence());
+  }
+
+  @Test
+  public void itRequiresAResetForUnknownSequences() {
+    long start = eventFeed.getEvents(Optional.empty(), 100).getLastSequence();
+
+    Assertions.assertTrue(
+      eventFeed.getEvents(Optional.of(start + 1), 100).isResetRequired()
+    );
+    Assertions.assertTrue(eventFeed.getEvents(Optional.of(0L), 100).isResetRequired());
+    Assertions.assertFalse(
+      eventFeed.getEvents(Optional.of(start), 100).isResetRequired()
+    );
+  }
+
+  @Test
+  public void itRequiresAResetForSequencesBeforeTheFirstEvent() {
+    // Nothing has been appended to a new feed, so its ring has no events yet
+    SingularityEventFeed newFeed = new SingularityEventFeed(
+      configuration,
+      scheduledExecutorServiceFactory,
+      threadPoolFactory
+    );
+    long start = newFeed.getEvents(Optional.empty(), 100).getLastSequence();
+
+    Assertions.assertTrue(
+      newFeed.getEvents(Optional.of(start - 1), 100).isResetRequired()
+    );
+    SingularityEventPage page = newFeed.getEvents(Optional.of(start), 100);
+    Assertions.assertFalse(page.isResetRequired());
+    Assertions.assertTrue(page.getEvents().isEmpty());
+  }
+
+  @Test
+  public void itCompletesWaitingClientsOnTheNextEvent() throws Exception {
+    long start = eventFeed.getEvents(Optional.empty(), 100).getLastSequence();
+    CompletableFuture<SingularityEventPage> waiting = eventFeed.awaitEvents(start, 100);
+    Assertions.assertFalse(waiting.isDone());
+    CompletableFuture<Thread> completedOn = waiting.thenApply(
+      p -> Thread.currentThread()
+    );
+
+    initRequest();
+
+    SingularityEventPage page = waiting.get(5, TimeUnit.SECONDS);
+    // The thread that published the event does not write the waiting response
+    Assertions.assertNotEquals(
+      Thread.currentThread(),
+      completedOn.get(5, TimeUnit.SECONDS)
+    );
+    Assertions.assertFalse(page.getEvents().isEmpty());
+    Assertions.assertEquals(start + 1, page.getEvents().get(0).getSequence());
+  }
+
+  @Test
+  public void itSequencesEventsInTheOrderTheyWerePublished() {
+    long start = eventFeed.getEvents(Optional.empty(), 100).getLastSequence();
+
+    List<String> published = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      String requestId = "request-" + i;
+      published.add(requestId);
+      eventListener.requestHistoryEvent(
+        new SingularityRequestHistory(
+          System.currentTimeMillis(),
+          Optional.empty(),
+          RequestHistoryType.CREATED,
+          new SingularityRequestBuilder(requestId, RequestType.WORKER).build(),
+          Optional.empty()
+        )
+      );
+    }
+
+    // Appended before the listener pool runs, so they are in the feed as soon as it returns
+    List<String> sequenced = eventFeed
+      .getEvents(Optional.of(start), 100)
+      .getEvents()
+      .stream()
+      .map(e -> e.getRequestUpdate().get().getRequest().getId())
+      .collect(Collectors.toList());
+    Assertions.assertEquals(published, sequenced);
+  }
+}
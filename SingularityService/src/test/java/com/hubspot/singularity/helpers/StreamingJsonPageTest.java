@@ -0,0 +1,98 @@
+package com.hubspot.singularity.helpers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hubspot.singularity.RequestType;
+import com.hubspot.singularity.SingularityRequestBuilder;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.apache.mesos.v1.Protos.TaskState;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StreamingJsonPageTest extends SingularitySchedulerTestBase {
+  private final ObjectMapper reader = new ObjectMapper();
+
+  public StreamingJsonPageTest() {
+    super(false);
+  }
+
+  @Test
+  public void itPagesThroughRequestsInIdOrder() throws Exception {
+    for (String id : Arrays.asList("c-request", "a-request", "b-request")) {
+      requestResource.postRequest(
+        new SingularityRequestBuilder(id, RequestType.WORKER).build(),
+        singularityUser
+      );
+    }
+
+    JsonNode first = read(
+      requestResource.streamRequests(
+        singularityUser,
+        false,
+        false,
+        false,
+        Collections.emptyList(),
+        null,
+        2
+      )
+    );
+    Assertions.assertEquals(Arrays.asList("a-request", "b-request"), requestIds(first));
+    Assertions.assertEquals("b-request", first.get("nextCursor").asText());
+
+    JsonNode second = read(
+      requestResource.streamRequests(
+        singularityUser,
+        false,
+        false,
+        false,
+        Collections.emptyList(),
+        first.get("nextCursor").asText(),
+        2
+      )
+    );
+    Assertions.assertEquals(Collections.singletonList("c-request"), requestIds(second));
+    Assertions.assertTrue(second.get("nextCursor").isNull());
+  }
+
+  @Test
+  public void itStreamsAllActiveTasksWithoutALimit() throws Exception {
+    initRequest();
+    initFirstDeploy();
+    for (int i = 1; i <= 3; i++) {
+      launchTask(request, firstDeploy, i, TaskState.TASK_RUNNING);
+    }
+
+    JsonNode page = read(taskResource.streamActiveTasks(singularityUser, null, null));
+    Assertions.assertEquals(3, page.get("objects").size());
+    Assertions.assertTrue(page.get("nextCursor").isNull());
+
+    String firstTaskId = page.get("objects").get(0).get("taskId").get("id").asText();
+    JsonNode afterFirst = read(
+      taskResource.streamActiveTasks(singularityUser, firstTaskId, 1)
+    );
+    Assertions.assertEquals(1, afterFirst.get("objects").size());
+    Assertions.assertEquals(
+      page.get("objects").get(1).get("taskId").get("id").asText(),
+      afterFirst.get("nextCursor").asText()
+    );
+  }
+
+  private JsonNode read(Response response) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(output);
+    return reader.readTree(output.toByteArray());
+  }
+
+  private static List<String> requestIds(JsonNode page) {
+    List<String> ids = new ArrayList<>();
+    page.get("objects").forEach(r -> ids.add(r.get("request").get("id").asText()));
+    return ids;
+  }
+}
@@ -0,0 +1,110 @@
+package com.hubspot.singularity.hooks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import com.google.inject.Inject;
+import com.hubspot.singularity.SingularityWebhook;
+import com.hubspot.singularity.WebhookType;
+import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.data.WebhookQueueStore;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SingularityWebhookSenderTest extends SingularitySchedulerTestBase {
+  @Inject
+  private AbstractWebhookChecker webhookChecker;
+
+  @Inject
+  private WebhookManager webhookManager;
+
+  @Inject
+  private WebhookQueueStore webhookQueueStore;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final List<JsonNode> received = new CopyOnWriteArrayList<>();
+
+  private HttpServer server;
+
+  public SingularityWebhookSenderTest() {
+    super(false);
+  }
+
+  @BeforeEach
+  public void startServer() throws Exception {
+    received.clear();
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+      "/hook",
+      exchange -> {
+        received.add(
+          objectMapper.readTree(
+            new String(ByteStreams.toByteArray(exchange.getRequestBody()), UTF_8)
+          )
+        );
+        exchange.sendResponseHeaders(200, -1);
+        exchange.close();
+      }
+    );
+    server.start();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void itSendsUpdatesForTheSameUriInBatches() throws Exception {
+    SingularityWebhook webhook = new SingularityWebhook(
+      String.format("http://localhost:%d/hook", server.getAddress().getPort()),
+      Optional.empty(),
+      Optional.empty(),
+      WebhookType.REQUEST,
+      Optional.of(2)
+    );
+    webhookManager.addWebhook(webhook);
+
+    createRequest("batch-1");
+    createRequest("batch-2");
+    createRequest("batch-3");
+    Assertions.assertEquals(
+      3,
+      webhookQueueStore.getQueuedRequestHistoryForHook(webhook.getId()).size()
+    );
+
+    webhookChecker.checkWebhooks();
+    await(() -> received.size() == 2);
+
+    for (JsonNode batch : received) {
+      Assertions.assertTrue(batch.isArray());
+    }
+    Assertions.assertEquals(3, received.stream().mapToInt(JsonNode::size).sum());
+    Assertions.assertTrue(received.stream().allMatch(batch -> batch.size() <= 2));
+    await(
+      () -> webhookQueueStore.getQueuedRequestHistoryForHook(webhook.getId()).isEmpty()
+    );
+  }
+
+  private static void await(BooleanSupplier condition) throws Exception {
+    long start = System.currentTimeMillis();
+    while (!condition.getAsBoolean()) {
+      Assertions.assertTrue(
+        System.currentTimeMillis() - start < 10000,
+        "Webhooks were not delivered"
+      );
+      Thread.sleep(50);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.hubspot.singularity.hooks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hubspot.singularity.async.AsyncSemaphore;
+import com.ning.http.client.Response;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WebhookDeliveryQueueTest {
+  private static final String WEBHOOK_ID = "TASK-http%3A%2F%2Fexample.com%2Fhook";
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+  private final MetricRegistry metrics = new MetricRegistry();
+
+  @AfterEach
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void itBacksOffExponentiallyUpToTheMaximum() {
+    WebhookDeliveryQueue queue = newQueue(2);
+
+    queue.recordFailure(1, 1000);
+    Assertions.assertTrue(queue.isBackingOff(1099));
+    Assertions.assertFalse(queue.isBackingOff(1100));
+
+    queue.recordFailure(1, 1000);
+    Assertions.assertTrue(queue.isBackingOff(1199));
+    Assertions.assertFalse(queue.isBackingOff(1200));
+
+    queue.recordFailure(1, 1000);
+    queue.recordFailure(1, 1000);
+    Assertions.assertTrue(queue.isBackingOff(1249));
+    Assertions.assertFalse(queue.isBackingOff(1250));
+
+    queue.recordSuccess(1, 900, 1000);
+    Assertions.assertFalse(queue.isBackingOff(1000));
+
+    queue.recordFailure(1, 2000);
+    Assertions.assertTrue(queue.isBackingOff(2099));
+    Assertions.assertFalse(queue.isBackingOff(2100));
+  }
+
+  @Test
+  public void itIsOnlyReadyOnceThePreviousCheckHasFinished() {
+    WebhookDeliveryQueue queue = newQueue(2);
+    Assertions.assertTrue(queue.isReady(0));
+
+    CompletableFuture<Response> first = new CompletableFuture<>();
+    CompletableFuture<Response> second = new CompletableFuture<>();
+    List<CompletableFuture<Response>> futures = new ArrayList<>();
+    futures.add(first);
+    futures.add(second);
+    queue.startCheck(2, futures);
+    Assertions.assertFalse(queue.isReady(0));
+
+    first.complete(null);
+    Assertions.assertFalse(queue.isReady(0));
+
+    second.completeExceptionally(new RuntimeException("failed"));
+    Assertions.assertTrue(queue.isReady(0));
+
+    queue.startCheck(0, Collections.emptyList());
+    Assertions.assertTrue(queue.isReady(0));
+
+    queue.recordFailure(1, 0);
+    Assertions.assertFalse(queue.isReady(0));
+    Assertions.assertTrue(queue.isReady(100));
+  }
+
+  @Test
+  public void itLimitsConcurrentDeliveriesToTheEndpoint() {
+    WebhookDeliveryQueue queue = newQueue(2);
+    AsyncSemaphore<Response> semaphore = queue.getSemaphore();
+
+    List<CompletableFuture<Response>> deliveries = new ArrayList<>();
+    List<CompletableFuture<Response>> results = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      CompletableFuture<Response> delivery = new CompletableFuture<>();
+      deliveries.add(delivery);
+      results.add(semaphore.call(() -> delivery));
+    }
+
+    Assertions.assertEquals(2, semaphore.getConcurrentRequests());
+    Assertions.assertEquals(1, semaphore.getQueueSize());
+
+    deliveries.get(0).complete(null);
+    Assertions.assertTrue(results.get(0).isDone());
+    Assertions.assertEquals(2, semaphore.getConcurrentRequests());
+    Assertions.assertEquals(0, semaphore.getQueueSize());
+
+    deliveries.get(1).complete(null);
+    deliveries.get(2).complete(null);
+    Assertions.assertTrue(results.stream().allMatch(CompletableFuture::isDone));
+    Assertions.assertEquals(0, semaphore.getConcurrentRequests());
+  }
+
+  @Test
+  public void itKeepsEachEndpointInOneMetricNameSegment() {
+    WebhookDeliveryQueue queue = newQueue(2);
+    queue.recordSuccess(3, 900, 1000);
+
+    String prefix = "webhooks.endpoints.TASK-http_3A_2F_2Fexample_com_2Fhook.";
+    Assertions.assertEquals(3, metrics.meter(prefix + "delivered").getCount());
+    Assertions.assertTrue(metrics.getGauges().containsKey(prefix + "queued"));
+
+    queue.removeMetrics();
+    Assertions.assertTrue(metrics.getMetrics().isEmpty());
+  }
+
+  private WebhookDeliveryQueue newQueue(int maxConcurrentDeliveries) {
+    return new WebhookDeliveryQueue(
+      WEBHOOK_ID,
+      metrics,
+      () -> maxConcurrentDeliveries,
+      executor,
+      100,
+      () -> 250L
+    );
+  }
+}
@@ -5,7 +5,9 @@ import com.hubspot.singularity.SingularityLeaderController;
 import com.hubspot.singularity.SingularityManagedScheduledExecutorServiceFactory;
 import com.hubspot.singularity.SingularityManagedThreadPoolFactory;
 import com.hubspot.singularity.data.ExecutorIdGenerator;
+import com.hubspot.singularity.data.SingularityWebCacheWatcher;
 import com.hubspot.singularity.mesos.SingularityMesosExecutorInfoSupport;
+import com.hubspot.singularity.mesos.StatusUpdateQueue;
 import com.hubspot.singularity.metrics.SingularityGraphiteReporter;
 import com.hubspot.singularity.scheduler.SingularityLeaderOnlyPoller;
 import com.ning.http.client.AsyncHttpClient;
@@ -26,7 +28,9 @@ public class SingularityLifecycleManagedTest extends SingularityLifecycleManaged
     SingularityMesosExecutorInfoSupport executorInfoSupport,
     SingularityGraphiteReporter graphiteReporter,
     ExecutorIdGenerator executorIdGenerator,
-    Set<SingularityLeaderOnlyPoller> leaderOnlyPollers
+    Set<SingularityLeaderOnlyPoller> leaderOnlyPollers,
+    SingularityWebCacheWatcher webCacheWatcher,
+    StatusUpdateQueue statusUpdateQueue
   ) {
     super(
       cachedThreadPoolFactory,
@@ -38,7 +42,9 @@ public class SingularityLifecycleManagedTest extends SingularityLifecycleManaged
       executorInfoSupport,
       graphiteReporter,
       executorIdGenerator,
-      leaderOnlyPollers
+      leaderOnlyPollers,
+      webCacheWatcher,
+      statusUpdateQueue
     );
   }
 
@@ -0,0 +1,89 @@
+package com.hubspot.singularity.mesos;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.mesos.v1.Protos.TaskID;
+import org.apache.mesos.v1.Protos.TaskState;
+import org.apache.mesos.v1.Protos.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedStatusUpdateOverflowTest {
+  // Small enough that a few hundred updates roll over many segments
+  private static final int SEGMENT_SIZE = 1024;
+
+  @TempDir
+  File directory;
+
+  @Test
+  public void itDrainsUpdatesInOrderAcrossSegments() throws Exception {
+    MappedStatusUpdateOverflow overflow = new MappedStatusUpdateOverflow(
+      directory,
+      SEGMENT_SIZE
+    );
+    for (int i = 0; i < 300; i++) {
+      overflow.add(status(i));
+    }
+    Assertions.assertEquals(300, overflow.size());
+    Assertions.assertTrue(directory.listFiles().length > 1);
+
+    List<String> drained = drain(overflow, Integer.MAX_VALUE);
+    Assertions.assertEquals(300, drained.size());
+    for (int i = 0; i < 300; i++) {
+      Assertions.assertEquals("task-" + i, drained.get(i));
+    }
+    Assertions.assertEquals(0, overflow.size());
+    Assertions.assertEquals(1, directory.listFiles().length);
+  }
+
+  @Test
+  public void itResumesUndrainedUpdatesAfterReopening() throws Exception {
+    MappedStatusUpdateOverflow overflow = new MappedStatusUpdateOverflow(
+      directory,
+      SEGMENT_SIZE
+    );
+    for (int i = 0; i < 100; i++) {
+      overflow.add(status(i));
+    }
+    drain(overflow, 40);
+    overflow.close();
+    Assertions.assertThrows(IOException.class, () -> overflow.add(status(100)));
+    Assertions.assertFalse(overflow.iterator().hasNext());
+
+    MappedStatusUpdateOverflow reopened = new MappedStatusUpdateOverflow(
+      directory,
+      SEGMENT_SIZE
+    );
+    Assertions.assertEquals(60, reopened.size());
+    reopened.add(status(100));
+
+    List<String> remaining = drain(reopened, Integer.MAX_VALUE);
+    Assertions.assertEquals(61, remaining.size());
+    Assertions.assertEquals("task-40", remaining.get(0));
+    Assertions.assertEquals("task-100", remaining.get(60));
+  }
+
+  private static List<String> drain(MappedStatusUpdateOverflow overflow, int max) {
+    List<String> drained = new ArrayList<>();
+    Iterator<TaskStatus> iterator = overflow.iterator();
+    while (drained.size() < max && iterator.hasNext()) {
+      TaskStatus next = iterator.next();
+      drained.add(next.getTaskId().getValue());
+      iterator.remove();
+    }
+    return drained;
+  }
+
+  private static TaskStatus status(int i) {
+    return TaskStatus
+      .newBuilder()
+      .setTaskId(TaskID.newBuilder().setValue("task-" + i))
+      .setState(TaskState.TASK_LOST)
+      .setMessage("Agent removed")
+      .build();
+  }
+}
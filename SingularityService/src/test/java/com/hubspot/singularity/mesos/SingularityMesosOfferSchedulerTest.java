@@ -2,6 +2,7 @@ package com.hubspot.singularity.mesos;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
+import com.hubspot.mesos.Resources;
 import com.hubspot.mesos.json.MesosTaskMonitorObject;
 import com.hubspot.singularity.MachineLoadMetric;
 import com.hubspot.singularity.RequestType;
@@ -13,6 +14,7 @@ import com.hubspot.singularity.SingularityPendingTaskId;
 import com.hubspot.singularity.SingularityRequest;
 import com.hubspot.singularity.SingularitySlaveUsage;
 import com.hubspot.singularity.SingularitySlaveUsageWithId;
+import com.hubspot.singularity.SingularityTask;
 import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.SingularityTaskRequest;
 import com.hubspot.singularity.SingularityUser;
@@ -21,13 +23,18 @@ import com.hubspot.singularity.api.SingularityScaleRequest;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DeployManager;
 import com.hubspot.singularity.data.usage.UsageManager;
+import com.hubspot.singularity.helpers.SingularityMesosTaskHolder;
+import com.hubspot.singularity.mesos.SingularitySlaveUsageInventory.RoundStats;
 import com.hubspot.singularity.mesos.SingularitySlaveUsageWithCalculatedScores.MaxProbableUsage;
 import com.hubspot.singularity.scheduler.SingularityScheduler;
 import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
 import com.hubspot.singularity.scheduler.SingularityUsagePoller;
 import com.hubspot.singularity.scheduler.TestingMesosClient;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import org.apache.mesos.v1.Protos.Offer;
 import org.junit.jupiter.api.Assertions;
@@ -63,6 +70,12 @@ public class SingularityMesosOfferSchedulerTest extends SingularitySchedulerTest
   @Inject
   protected SingularityUsagePoller usagePoller;
 
+  @Inject
+  protected SingularitySlaveUsageInventory slaveUsageInventory;
+
+  @Inject
+  protected SingularitySlaveAndRackHelper slaveAndRackHelper;
+
   private static final String SLAVE_ID = "slave";
 
   private SingularityTaskRequest taskRequest = Mockito.mock(SingularityTaskRequest.class);
@@ -510,6 +523,209 @@ public class SingularityMesosOfferSchedulerTest extends SingularitySchedulerTest
     }
   }
 
+  @Test
+  public void itOnlyRescoresSlavesWhoseTasksChanged() {
+    initRequest();
+    initFirstDeploy();
+    SingularityTask first = startTask(firstDeploy, 1);
+    String host = first.getTaskId().getSanitizedHost();
+
+    RoundStats firstRound = new RoundStats();
+    MaxProbableUsage initial = slaveUsageInventory.getMaxProbableUsage(
+      host,
+      usageManager.getRequestUtilizations(),
+      firstRound
+    );
+    Assertions.assertEquals(1, firstRound.getRescored());
+    Assertions.assertEquals(0, firstRound.getReused());
+
+    RoundStats secondRound = new RoundStats();
+    Assertions.assertSame(
+      initial,
+      slaveUsageInventory.getMaxProbableUsage(
+        host,
+        usageManager.getRequestUtilizations(),
+        secondRound
+      )
+    );
+    Assertions.assertEquals(0, secondRound.getRescored());
+    Assertions.assertEquals(1, secondRound.getReused());
+
+    startTask(firstDeploy, 2);
+
+    RoundStats thirdRound = new RoundStats();
+    MaxProbableUsage updated = slaveUsageInventory.getMaxProbableUsage(
+      host,
+      usageManager.getRequestUtilizations(),
+      thirdRound
+    );
+    Assertions.assertEquals(1, thirdRound.getRescored());
+    Assertions.assertEquals(2 * initial.getCpu(), updated.getCpu(), 0.001);
+  }
+
+  @Test
+  public void itOnlyMatchesTasksAgainstOffersThatCouldFitThem() {
+    SingularityOfferHolder smallOffer = offerHolder(
+      createOffer(2, 1024, 1024, "small", "small")
+    );
+    SingularityOfferHolder bigOffer = offerHolder(
+      createOffer(
+        10,
+        10000,
+        10000,
+        "big",
+        "big",
+        Optional.empty(),
+        ImmutableMap.of("zone", "a")
+      )
+    );
+
+    SingularityTaskRequestHolder bigTask = taskRequestHolder(8, 4096);
+    SingularityTaskRequestHolder smallTask = taskRequestHolder(1, 512);
+    SingularityTaskRequestHolder hugeTask = taskRequestHolder(50, 512);
+    SingularityTaskRequestHolder zoneBTask = taskRequestHolder(1, 512);
+
+    SingularityTaskRequestIndex index = SingularityTaskRequestIndex.build(
+      Arrays.asList(bigTask, smallTask, hugeTask, zoneBTask),
+      Arrays.asList(smallOffer, bigOffer),
+      t -> t == zoneBTask ? ImmutableMap.of("zone", "b") : Collections.emptyMap(),
+      slaveAndRackHelper
+    );
+
+    Assertions.assertEquals(4, index.getNumBuckets());
+    Assertions.assertEquals(2, index.getNumUnfittableTasks());
+    Assertions.assertEquals(Arrays.asList(bigTask, smallTask), index.getFittableTasks());
+    Assertions.assertEquals(
+      Collections.singletonList(bigOffer),
+      index.getCandidateOffers(bigTask)
+    );
+    Assertions.assertEquals(
+      Arrays.asList(smallOffer, bigOffer),
+      index.getCandidateOffers(smallTask)
+    );
+    Assertions.assertTrue(index.getCandidateOffers(hugeTask).isEmpty());
+  }
+
+  @Test
+  public void itMakesTheSameAssignmentsWithParallelAndSequentialScoring() {
+    Map<Integer, String> parallel = placeTasksOnAgents();
+    Assertions.assertTrue(parallel.size() > 1);
+
+    clearData();
+    configuration.getMesosConfiguration().setParallelOfferScoring(false);
+    try {
+      Assertions.assertEquals(parallel, placeTasksOnAgents());
+    } finally {
+      configuration.getMesosConfiguration().setParallelOfferScoring(true);
+    }
+  }
+
+  private Map<Integer, String> placeTasksOnAgents() {
+    initRequest();
+    initFirstDeployWithResources(1, 1000);
+    saveAndSchedule(
+      requestManager
+        .getRequest(requestId)
+        .get()
+        .getRequest()
+        .toBuilder()
+        .setInstances(Optional.of(8))
+    );
+
+    // A busy agent that is never good enough, two identical agents and an idle one
+    Map<String, Double> cpusUsedByAgent = ImmutableMap.of(
+      "agent-a",
+      9.0,
+      "agent-b",
+      4.0,
+      "agent-c",
+      4.0,
+      "agent-d",
+      1.0
+    );
+    Map<String, Offer> offers = new HashMap<>();
+    cpusUsedByAgent.forEach(
+      (agent, cpusUsed) -> {
+        usageManager.saveCurrentSlaveUsage(
+          new SingularitySlaveUsageWithId(
+            new SingularitySlaveUsage(
+              cpusUsed,
+              cpusUsed,
+              Optional.of(10.0),
+              1,
+              1,
+              Optional.of(30000L),
+              1,
+              1,
+              Optional.of(1024L),
+              1,
+              System.currentTimeMillis(),
+              1,
+              30000,
+              10,
+              cpusUsed,
+              cpusUsed,
+              cpusUsed,
+              0,
+              107374182
+            ),
+            agent
+          )
+        );
+        Offer offer = createOffer(4, 30000, 107374182, agent, agent);
+        slaveAndRackManager.checkOffer(offer);
+        offers.put(offer.getId().getValue(), offer);
+      }
+    );
+
+    singularityScheduler.drainPendingQueue();
+    Map<Integer, String> hostByInstance = new HashMap<>();
+    for (SingularityOfferHolder offerHolder : offerScheduler.checkOffers(
+      offers,
+      System.currentTimeMillis()
+    )) {
+      for (SingularityMesosTaskHolder taskHolder : offerHolder.getAcceptedTasks()) {
+        SingularityTaskId taskId = taskHolder.getTask().getTaskId();
+        hostByInstance.put(taskId.getInstanceNo(), taskId.getSanitizedHost());
+      }
+    }
+    return hostByInstance;
+  }
+
+  private SingularityOfferHolder offerHolder(Offer offer) {
+    return new SingularityOfferHolder(
+      Collections.singletonList(offer),
+      1,
+      slaveAndRackHelper.getRackIdOrDefault(offer),
+      offer.getAgentId().getValue(),
+      offer.getHostname(),
+      slaveAndRackHelper.getTextAttributes(offer),
+      Collections.emptyMap()
+    );
+  }
+
+  private SingularityTaskRequestHolder taskRequestHolder(double cpus, double memoryMb) {
+    SingularityTaskRequest taskRequest = Mockito.mock(SingularityTaskRequest.class);
+    SingularityRequest request = Mockito.mock(SingularityRequest.class);
+    SingularityDeploy deploy = Mockito.mock(SingularityDeploy.class);
+    SingularityPendingTask pendingTask = Mockito.mock(SingularityPendingTask.class);
+    Mockito.when(taskRequest.getRequest()).thenReturn(request);
+    Mockito.when(taskRequest.getDeploy()).thenReturn(deploy);
+    Mockito.when(taskRequest.getPendingTask()).thenReturn(pendingTask);
+    Mockito.when(request.getRequiredRole()).thenReturn(Optional.empty());
+    Mockito.when(pendingTask.getResources()).thenReturn(Optional.empty());
+    Mockito.when(deploy.getCustomExecutorCmd()).thenReturn(Optional.empty());
+    Mockito.when(deploy.getContainerInfo()).thenReturn(Optional.empty());
+    Mockito
+      .when(deploy.getResources())
+      .thenReturn(Optional.of(new Resources(cpus, memoryMb, 0)));
+    return new SingularityTaskRequestHolder(
+      taskRequest,
+      Resources.EMPTY_RESOURCES,
+      Resources.EMPTY_RESOURCES
+    );
+  }
+
   private void assertValueIs(double expectedValue, double actualValue) {
     actualValue = Math.round(actualValue * 1000.0) / 1000.0;
     Assertions.assertEquals(
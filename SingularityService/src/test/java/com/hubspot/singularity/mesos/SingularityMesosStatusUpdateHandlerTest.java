@@ -0,0 +1,178 @@
+package com.hubspot.singularity.mesos;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import com.hubspot.singularity.ExtendedTaskState;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.helpers.MesosProtosUtils;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+import com.jayway.awaitility.Awaitility;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.mesos.v1.Protos.TaskState;
+import org.apache.mesos.v1.Protos.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SingularityMesosStatusUpdateHandlerTest
+  extends SingularitySchedulerTestBase {
+  @Inject
+  SingularityMesosStatusUpdateHandler updateHandler;
+
+  @Inject
+  MetricRegistry metricRegistry;
+
+  @Inject
+  SingularitySchedulerLock schedulerLock;
+
+  @Inject
+  StatusUpdateQueue statusUpdateQueue;
+
+  public SingularityMesosStatusUpdateHandlerTest() {
+    super(
+      false,
+      cfg -> {
+        cfg.getMesosConfiguration().setStatusUpdateConcurrencyLimit(2);
+        cfg.getMesosConfiguration().setMaxStatusUpdateQueueSize(6);
+        return null;
+      }
+    );
+  }
+
+  @Test
+  public void itProcessesUpdatesForARequestInOrder() {
+    initRequest();
+    initFirstDeploy();
+    SingularityTask task = launchTask(request, firstDeploy, 1, TaskState.TASK_STAGING);
+
+    long processedBefore = totalLaneLatencyCount();
+    List<CompletableFuture<StatusUpdateResult>> results = new ArrayList<>();
+    for (TaskState state : new TaskState[] {
+      TaskState.TASK_STARTING,
+      TaskState.TASK_RUNNING,
+      TaskState.TASK_FINISHED
+    }) {
+      results.add(updateHandler.processStatusUpdateAsync(status(task, state)));
+    }
+    results.forEach(CompletableFuture::join);
+
+    // Had the finished update been processed first, the earlier ones would have been ignored
+    List<ExtendedTaskState> states = taskManager
+      .getTaskHistoryUpdates(task.getTaskId())
+      .stream()
+      .map(SingularityTaskHistoryUpdate::getTaskState)
+      .collect(Collectors.toList());
+    Assertions.assertTrue(states.contains(ExtendedTaskState.TASK_RUNNING));
+    Assertions.assertTrue(states.contains(ExtendedTaskState.TASK_FINISHED));
+    Assertions.assertFalse(taskManager.isActiveTask(task.getTaskId()));
+    Assertions.assertEquals(processedBefore + 3, totalLaneLatencyCount());
+    Assertions.assertTrue(
+      updateHandler.hasRoomForUpdate(status(task, TaskState.TASK_RUNNING))
+    );
+  }
+
+  @Test
+  public void itRejectsUpdatesInsteadOfWaitingForAFullLane() {
+    initRequest();
+    initFirstDeploy();
+    SingularityTask task = launchTask(request, firstDeploy, 1, TaskState.TASK_STAGING);
+
+    List<CompletableFuture<StatusUpdateResult>> accepted = new ArrayList<>();
+    // The lane thread waits on the request lock, so each slot in the lane stays taken
+    schedulerLock.runWithRequestLock(
+      () -> {
+        TaskStatus running = status(task, TaskState.TASK_RUNNING);
+        while (updateHandler.hasRoomForUpdate(running)) {
+          accepted.add(updateHandler.processStatusUpdateAsync(running));
+        }
+        Assertions.assertEquals(3, accepted.size());
+
+        TaskStatus finished = status(task, TaskState.TASK_FINISHED);
+        Assertions.assertFalse(updateHandler.hasRoomForUpdate(finished));
+
+        CompletableFuture<StatusUpdateResult> rejected = updateHandler.processStatusUpdateAsync(
+          finished
+        );
+        Assertions.assertTrue(rejected.isCompletedExceptionally());
+        CompletionException e = Assertions.assertThrows(
+          CompletionException.class,
+          rejected::join
+        );
+        Assertions.assertTrue(e.getCause() instanceof RejectedExecutionException);
+      },
+      request.getId(),
+      getClass().getSimpleName()
+    );
+
+    accepted.forEach(CompletableFuture::join);
+    Assertions.assertTrue(taskManager.isActiveTask(task.getTaskId()));
+    Assertions.assertTrue(
+      updateHandler.hasRoomForUpdate(status(task, TaskState.TASK_FINISHED))
+    );
+  }
+
+  @Test
+  public void itQueuesUpdatesForAFullLaneInsteadOfDroppingThem() {
+    initRequest();
+    initFirstDeploy();
+    List<SingularityTask> tasks = new ArrayList<>();
+    for (int instanceNo = 1; instanceNo <= 10; instanceNo++) {
+      tasks.add(launchTask(request, firstDeploy, instanceNo, TaskState.TASK_RUNNING));
+    }
+
+    // Lost tasks are reported by the master without a uuid, so mesos never resends them
+    schedulerLock.runWithRequestLock(
+      () -> {
+        for (SingularityTask task : tasks) {
+          sms.statusUpdate(status(task, TaskState.TASK_LOST));
+        }
+        Assertions.assertTrue(statusUpdateQueue.size() > 0);
+      },
+      request.getId(),
+      getClass().getSimpleName()
+    );
+
+    Awaitility
+      .await()
+      .atMost(10, TimeUnit.SECONDS)
+      .until(() -> statusUpdateQueue.size() == 0);
+    Awaitility
+      .await()
+      .atMost(10, TimeUnit.SECONDS)
+      .until(
+        () -> tasks.stream().noneMatch(task -> taskManager.isActiveTask(task.getTaskId()))
+      );
+    for (SingularityTask task : tasks) {
+      Assertions.assertTrue(
+        taskManager
+          .getTaskHistoryUpdates(task.getTaskId())
+          .stream()
+          .anyMatch(update -> update.getTaskState() == ExtendedTaskState.TASK_LOST)
+      );
+    }
+  }
+
+  private long totalLaneLatencyCount() {
+    return metricRegistry
+      .getHistograms((name, metric) -> name.startsWith("status.updates.lane."))
+      .values()
+      .stream()
+      .mapToLong(h -> h.getCount())
+      .sum();
+  }
+
+  private TaskStatus status(SingularityTask task, TaskState state) {
+    return TaskStatus
+      .newBuilder()
+      .setTaskId(MesosProtosUtils.toTaskId(task.getMesosTask().getTaskId()))
+      .setAgentId(MesosProtosUtils.toAgentId(task.getAgentId()))
+      .setState(state)
+      .build();
+  }
+}
@@ -1,5 +1,10 @@
 package com.hubspot.singularity.scheduler;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.hubspot.mesos.Resources;
@@ -8,6 +13,9 @@ import com.hubspot.singularity.SingularityPendingRequest;
 import com.hubspot.singularity.SingularityPendingRequest.PendingType;
 import com.hubspot.singularity.SlavePlacement;
 import com.hubspot.singularity.mesos.OfferCache;
+import com.hubspot.singularity.mesos.SingularityMesosSchedulerClient;
+import com.hubspot.singularity.mesos.SingularityOfferCache;
+import com.hubspot.singularity.mesos.SingularityOfferCache.CachedOffer;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -174,4 +182,73 @@ public class SingularityCachedOffersTest extends SingularitySchedulerTestBase {
 
     Assertions.assertEquals(2, taskManager.getActiveTasks().get(0).getOffers().size());
   }
+
+  @Test
+  public void testOnlyAgentsThatCanFitAreCheckedOut() {
+    configuration.setCacheOffers(true);
+
+    Offer smallOffer = createOffer(1, 128, 1024, "slave1", "host1");
+    Offer largeOffer1 = createOffer(2, 128, 1024, "slave2", "host2");
+    Offer largeOffer2 = createOffer(2, 128, 1024, "slave2", "host2");
+    offerCache.cacheOffer(System.currentTimeMillis(), smallOffer);
+    offerCache.cacheOffer(System.currentTimeMillis(), largeOffer1);
+    offerCache.cacheOffer(System.currentTimeMillis(), largeOffer2);
+
+    // Only the combined offers on slave2 have enough cpus
+    List<CachedOffer> checkedOut = offerCache.checkoutOffers(
+      (agentId, resources) -> resources.getCpus() >= 3
+    );
+    Assertions.assertEquals(2, checkedOut.size());
+    Assertions.assertTrue(
+      checkedOut
+        .stream()
+        .allMatch(o -> o.getOffer().getAgentId().getValue().equals("slave2"))
+    );
+
+    // Checked out offers are not available again until they are returned
+    Assertions.assertEquals(1, offerCache.checkoutOffers().size());
+    Assertions.assertEquals(3, offerCache.peekOffers().size());
+
+    offerCache.useOffer(checkedOut.get(0));
+    offerCache.returnOffer(checkedOut.get(1));
+    Assertions.assertEquals(2, offerCache.peekOffers().size());
+  }
+
+  @Test
+  public void testOldestOfferIsEvictedWhenFull() throws Exception {
+    int offerCacheSize = configuration.getOfferCacheSize();
+    configuration.setOfferCacheSize(2);
+    SingularityMesosSchedulerClient schedulerClient = mock(
+      SingularityMesosSchedulerClient.class
+    );
+    when(schedulerClient.isRunning()).thenReturn(true);
+    OfferCache fullCache = new SingularityOfferCache(configuration, schedulerClient);
+    configuration.setOfferCacheSize(offerCacheSize);
+
+    Offer oldest = createOffer(1, 128, 1024, "slave1", "host1");
+    Offer checkedOut = createOffer(1, 128, 1024, "slave2", "host2");
+    Offer newer = createOffer(1, 128, 1024, "slave2", "host2");
+    Offer newest = createOffer(1, 128, 1024, "slave3", "host3");
+
+    fullCache.cacheOffer(System.currentTimeMillis(), oldest);
+    Thread.sleep(5);
+    fullCache.cacheOffer(System.currentTimeMillis(), checkedOut);
+    fullCache.cacheOffer(System.currentTimeMillis(), newer);
+    verify(schedulerClient).decline(Collections.singletonList(oldest.getId()));
+    Assertions.assertEquals(ImmutableList.of(checkedOut, newer), fullCache.peekOffers());
+
+    // An evicted offer that is checked out is only declined once it is returned
+    List<CachedOffer> agentOffers = fullCache.checkoutOffers(
+      (agentId, resources) -> agentId.equals("slave2")
+    );
+    fullCache.cacheOffer(System.currentTimeMillis(), newest);
+    verify(schedulerClient, never())
+      .decline(Collections.singletonList(checkedOut.getId()));
+    Assertions.assertEquals(2, fullCache.peekOffers().size());
+
+    agentOffers.forEach(fullCache::returnOffer);
+    verify(schedulerClient).decline(Collections.singletonList(checkedOut.getId()));
+    verify(schedulerClient, never()).decline(Collections.singletonList(newer.getId()));
+    verify(schedulerClient, never()).decline(Collections.singletonList(newest.getId()));
+  }
 }
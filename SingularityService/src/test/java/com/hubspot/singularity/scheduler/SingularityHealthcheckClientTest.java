@@ -0,0 +1,253 @@
+package com.hubspot.singularity.scheduler;
+
+import com.google.inject.Inject;
+import com.hubspot.singularity.HealthcheckProtocol;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
+import com.jayway.awaitility.Awaitility;
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SingularityHealthcheckClientTest extends SingularitySchedulerTestBase {
+  @Inject
+  private SingularityHealthcheckClient healthcheckClient;
+
+  @Inject
+  private SingularityExceptionNotifier exceptionNotifier;
+
+  @Inject
+  private SingularityNewTaskChecker newTaskChecker;
+
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger maxRunning = new AtomicInteger();
+  private final AtomicInteger received = new AtomicInteger();
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private CountDownLatch release;
+  private int maxConcurrentHealthchecksPerAgent;
+
+  public SingularityHealthcheckClientTest() {
+    super(false);
+  }
+
+  @BeforeEach
+  public void startServer() throws Exception {
+    running.set(0);
+    maxRunning.set(0);
+    received.set(0);
+    release = new CountDownLatch(1);
+    maxConcurrentHealthchecksPerAgent =
+      configuration.getMaxConcurrentHealthchecksPerAgent();
+
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    serverExecutor = Executors.newCachedThreadPool();
+    server.setExecutor(serverExecutor);
+    server.createContext(
+      "/health",
+      exchange -> {
+        received.incrementAndGet();
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+        exchange.sendResponseHeaders(200, -1);
+        exchange.close();
+      }
+    );
+    server.start();
+
+    initRequest();
+    initFirstDeploy();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    release.countDown();
+    server.stop(0);
+    serverExecutor.shutdownNow();
+    configuration.setMaxConcurrentHealthchecksPerAgent(maxConcurrentHealthchecksPerAgent);
+  }
+
+  @Test
+  public void itLimitsConcurrentChecksPerAgent() {
+    configuration.setMaxConcurrentHealthchecksPerAgent(2);
+
+    List<RecordingHandler> handlers = new CopyOnWriteArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      SingularityTask task = prepTask("limited", i);
+      RecordingHandler handler = new RecordingHandler(task);
+      handlers.add(handler);
+      Assertions.assertTrue(check(task, handler, 5));
+    }
+
+    Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> received.get() == 2);
+    Assertions.assertEquals(2, running.get());
+
+    release.countDown();
+    Awaitility
+      .await()
+      .atMost(5, TimeUnit.SECONDS)
+      .until(() -> handlers.stream().allMatch(h -> h.completed.get() == 1));
+    Assertions.assertEquals(3, received.get());
+    Assertions.assertEquals(2, maxRunning.get());
+  }
+
+  @Test
+  public void itCoalescesChecksForATaskAlreadyInFlight() {
+    SingularityTask task = prepTask("coalesced", 1);
+    AtomicInteger checksSent = new AtomicInteger();
+    RecordingHandler next = new RecordingHandler(task);
+
+    // Like a 0s interval, the handler schedules the next check as soon as it is called
+    RecordingHandler handler = new RecordingHandler(
+      task,
+      h -> {
+        if (h.completed.get() == 1 && check(task, next, 5)) {
+          checksSent.incrementAndGet();
+        }
+      }
+    );
+    Assertions.assertTrue(check(task, handler, 5));
+    Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> received.get() == 1);
+
+    Assertions.assertFalse(check(task, new RecordingHandler(task), 5));
+
+    release.countDown();
+    Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> checksSent.get() == 1);
+    Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> next.completed.get() == 1);
+    Assertions.assertEquals(2, received.get());
+    Assertions.assertEquals(0, handler.failed.get());
+  }
+
+  @Test
+  public void itRetriesChecksThatTimeOutWaitingForTheAgent() {
+    configuration.setMaxConcurrentHealthchecksPerAgent(1);
+
+    SingularityTask first = prepTask("queued", 1);
+    SingularityTask second = prepTask("queued", 2);
+    RecordingHandler firstHandler = new RecordingHandler(first);
+    RecordingHandler secondHandler = new RecordingHandler(second);
+
+    Assertions.assertTrue(check(first, firstHandler, 5));
+    Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> received.get() == 1);
+    Assertions.assertTrue(check(second, secondHandler, 1));
+
+    try {
+      Thread.sleep(1500);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    release.countDown();
+
+    Awaitility
+      .await()
+      .atMost(5, TimeUnit.SECONDS)
+      .until(() -> secondHandler.notSent.get() == 1);
+    Assertions.assertEquals(0, secondHandler.failed.get());
+    Assertions.assertEquals(0, secondHandler.completed.get());
+    Assertions.assertEquals(1, received.get());
+    Assertions.assertFalse(
+      taskManager.getLastHealthcheck(second.getTaskId()).isPresent()
+    );
+
+    // Nothing is left in flight for the task that timed out
+    RecordingHandler retry = new RecordingHandler(second);
+    Assertions.assertTrue(check(second, retry, 5));
+    Awaitility
+      .await()
+      .atMost(5, TimeUnit.SECONDS)
+      .until(() -> retry.completed.get() == 1);
+  }
+
+  /**
+   * Each test uses its own agent, the semaphore for an agent keeps its limit for a minute
+   */
+  private SingularityTask prepTask(String host, int instanceNo) {
+    return prepTask(
+      request,
+      firstDeploy,
+      System.currentTimeMillis(),
+      instanceNo,
+      false,
+      Optional.empty(),
+      Optional.of(host)
+    );
+  }
+
+  private boolean check(
+    SingularityTask task,
+    RecordingHandler handler,
+    int timeoutSeconds
+  ) {
+    return healthcheckClient.check(
+      task,
+      String.format("http://localhost:%d/health", server.getAddress().getPort()),
+      "GET",
+      timeoutSeconds,
+      HealthcheckProtocol.HTTP,
+      handler
+    );
+  }
+
+  private class RecordingHandler extends SingularityHealthcheckAsyncHandler {
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger notSent = new AtomicInteger();
+    private final Consumer<RecordingHandler> onResult;
+
+    RecordingHandler(SingularityTask task) {
+      this(task, h -> {});
+    }
+
+    RecordingHandler(SingularityTask task, Consumer<RecordingHandler> onResult) {
+      super(
+        exceptionNotifier,
+        configuration,
+        healthchecker,
+        newTaskChecker,
+        taskManager,
+        task,
+        false
+      );
+      this.onResult = onResult;
+    }
+
+    @Override
+    public void onCompleted(
+      Optional<Integer> statusCode,
+      Optional<String> responseBodyExcerpt
+    ) {
+      completed.incrementAndGet();
+      onResult.accept(this);
+    }
+
+    @Override
+    public void onFailed(Throwable t) {
+      failed.incrementAndGet();
+      onResult.accept(this);
+    }
+
+    @Override
+    public void onNotSent(Throwable t) {
+      notSent.incrementAndGet();
+      onResult.accept(this);
+    }
+  }
+}
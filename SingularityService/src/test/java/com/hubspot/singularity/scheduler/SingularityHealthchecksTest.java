@@ -14,12 +14,14 @@ import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.api.SingularityBounceRequest;
 import com.hubspot.singularity.api.SingularitySkipHealthchecksRequest;
 import com.hubspot.singularity.scheduler.SingularityNewTaskChecker.CheckTaskState;
+import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
 import com.jayway.awaitility.Awaitility;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.apache.mesos.v1.Protos.TaskState;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
@@ -31,6 +33,9 @@ public class SingularityHealthchecksTest extends SingularitySchedulerTestBase {
   @Inject
   SingularityDeployHealthHelper deployHealthHelper;
 
+  @Inject
+  SingularityExceptionNotifier exceptionNotifier;
+
   public SingularityHealthchecksTest() {
     super(false);
   }
@@ -728,6 +733,43 @@ public class SingularityHealthchecksTest extends SingularitySchedulerTestBase {
     );
   }
 
+  @Test
+  public void testChecksNotSentTooOftenCountAsFailures() {
+    try {
+      configuration.setMaxHealthcheckNotSentRetries(2);
+      initRequest();
+      initHCDeploy();
+
+      SingularityTask firstTask = startTask(firstDeploy, 1);
+      healthchecker.cancelHealthcheck(firstTask.getTaskId().getId());
+
+      SingularityHealthcheckAsyncHandler handler = new SingularityHealthcheckAsyncHandler(
+        exceptionNotifier,
+        configuration,
+        healthchecker,
+        newTaskChecker,
+        taskManager,
+        firstTask,
+        false
+      );
+      handler.onNotSent(new TimeoutException("agent busy"));
+      handler.onNotSent(new TimeoutException("agent busy"));
+      Assertions.assertFalse(
+        taskManager.getLastHealthcheck(firstTask.getTaskId()).isPresent()
+      );
+
+      handler.onNotSent(new TimeoutException("agent busy"));
+      Optional<SingularityTaskHealthcheckResult> result = taskManager.getLastHealthcheck(
+        firstTask.getTaskId()
+      );
+      Assertions.assertTrue(result.isPresent());
+      Assertions.assertTrue(result.get().isFailed());
+      Assertions.assertTrue(result.get().getErrorMessage().get().contains("not sent"));
+    } finally {
+      configuration.setMaxHealthcheckNotSentRetries(5);
+    }
+  }
+
   @Test
   public void testPortIndices() {
     try {
@@ -777,7 +819,7 @@ public class SingularityHealthchecksTest extends SingularitySchedulerTestBase {
       SingularityTask firstTask = taskManager.getTask(firstTaskId).get();
       statusUpdate(firstTask, TaskState.TASK_RUNNING);
 
-      healthchecker.asyncHealthcheck(firstTask);
+      healthchecker.asyncHealthcheck(firstTask, false);
 
       Awaitility
         .await("healthcheck present")
@@ -846,7 +888,7 @@ public class SingularityHealthchecksTest extends SingularitySchedulerTestBase {
       SingularityTask firstTask = taskManager.getTask(firstTaskId).get();
       statusUpdate(firstTask, TaskState.TASK_RUNNING);
 
-      healthchecker.asyncHealthcheck(firstTask);
+      healthchecker.asyncHealthcheck(firstTask, false);
 
       Awaitility
         .await("healthcheck present")
@@ -922,6 +964,65 @@ public class SingularityHealthchecksTest extends SingularitySchedulerTestBase {
     );
   }
 
+  @Test
+  public void testCancelHealthchecksForDeploy() {
+    initRequest();
+    initHCDeploy();
+
+    SingularityTask firstTask = startTask(firstDeploy, 1);
+    SingularityTask secondTask = startTask(firstDeploy, 2);
+
+    Assertions.assertEquals(
+      0,
+      healthchecker.cancelHealthchecks(requestId, Optional.of("otherDeploy"))
+    );
+    Assertions.assertEquals(2, healthchecker.getHealthCheckFutures().size());
+
+    Assertions.assertEquals(
+      2,
+      healthchecker.cancelHealthchecks(requestId, Optional.of(firstDeployId))
+    );
+    Assertions.assertTrue(healthchecker.getHealthCheckFutures().isEmpty());
+    Assertions.assertFalse(
+      healthchecker.cancelHealthcheck(firstTask.getTaskId().getId())
+    );
+    Assertions.assertFalse(
+      healthchecker.cancelHealthcheck(secondTask.getTaskId().getId())
+    );
+  }
+
+  @Test
+  public void testCancelNewTaskChecksForRequest() {
+    initRequest();
+    initFirstDeploy();
+
+    configuration.setNewTaskCheckerBaseDelaySeconds(60);
+    try {
+      SingularityTask firstTask = startTask(firstDeploy, 1);
+      SingularityTask secondTask = startTask(firstDeploy, 2);
+
+      newTaskChecker.enqueueNewTaskCheck(
+        firstTask,
+        requestManager.getRequest(requestId),
+        healthchecker
+      );
+      newTaskChecker.enqueueNewTaskCheck(
+        secondTask,
+        requestManager.getRequest(requestId),
+        healthchecker
+      );
+      Assertions.assertEquals(2, newTaskChecker.getTaskCheckFutures().size());
+
+      Assertions.assertEquals(0, newTaskChecker.cancelNewTaskChecks("otherRequest"));
+      Assertions.assertEquals(2, newTaskChecker.cancelNewTaskChecks(requestId));
+      Assertions.assertTrue(newTaskChecker.getTaskCheckFutures().isEmpty());
+      Assertions.assertNull(newTaskChecker.getTaskCheck(firstTask.getTaskId()));
+      Assertions.assertNull(newTaskChecker.getTaskCheck(secondTask.getTaskId()));
+    } finally {
+      configuration.setNewTaskCheckerBaseDelaySeconds(1);
+    }
+  }
+
   private void setConfigurationForNoDelay() {
     configuration.setNewTaskCheckerBaseDelaySeconds(0);
     configuration.setHealthcheckIntervalSeconds(0);
@@ -0,0 +1,101 @@
+package com.hubspot.singularity.scheduler;
+
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.singularity.SingularityDeployKey;
+import com.hubspot.singularity.SingularityTaskId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class SingularityLeaderCachePerformanceTestRunner {
+
+  //@Test
+  public void testActiveTaskLookupPerformance() {
+    int numTasks = 50000;
+    int numRequests = 5000;
+    int numHosts = 2500;
+    int numLookups = 20000;
+
+    Random r = new Random();
+    List<SingularityTaskId> taskIds = new ArrayList<>(numTasks);
+    for (int i = 0; i < numTasks; i++) {
+      taskIds.add(
+        new SingularityTaskId(
+          "request-" + (i % numRequests),
+          "deploy-" + (i % 2),
+          System.currentTimeMillis(),
+          i,
+          "host-" + r.nextInt(numHosts),
+          "rack-" + r.nextInt(10)
+        )
+      );
+    }
+
+    SingularityLeaderCache leaderCache = new SingularityLeaderCache();
+    leaderCache.cacheActiveTaskIds(taskIds);
+    leaderCache.activate();
+
+    // Mirrors the previous copy-and-filter reads over a synchronized set
+    Set<SingularityTaskId> copied = new HashSet<>(taskIds);
+    long start = System.currentTimeMillis();
+    int found = 0;
+    for (int i = 0; i < numLookups; i++) {
+      String requestId = "request-" + r.nextInt(numRequests);
+      found +=
+        new HashSet<>(copied)
+          .stream()
+          .filter(t -> t.getRequestId().equals(requestId))
+          .collect(Collectors.toList())
+          .size();
+    }
+    System.out.println(
+      String.format(
+        "Copy and filter: %s lookups (%s tasks found) in %s",
+        numLookups,
+        found,
+        JavaUtils.duration(start)
+      )
+    );
+
+    // Only the index lookups are timed, a full getActiveTaskIds() copy is O(n) either way
+    start = System.currentTimeMillis();
+    found = 0;
+    for (int i = 0; i < numLookups; i++) {
+      String requestId = "request-" + r.nextInt(numRequests);
+      found += leaderCache.getActiveTaskIdsForRequest(requestId).size();
+      found +=
+        leaderCache
+          .getActiveTaskIdsForDeploy(new SingularityDeployKey(requestId, "deploy-0"))
+          .size();
+      found += leaderCache.getActiveTaskIdsOnHost("host-" + r.nextInt(numHosts)).size();
+    }
+    System.out.println(
+      String.format(
+        "Indexed snapshots: %s lookups (%s tasks found) in %s",
+        numLookups * 3,
+        found,
+        JavaUtils.duration(start)
+      )
+    );
+
+    // Interleave writes with reads so snapshots are rebuilt as they would be under churn
+    start = System.currentTimeMillis();
+    for (int i = 0; i < numLookups; i++) {
+      SingularityTaskId taskId = taskIds.get(r.nextInt(numTasks));
+      leaderCache.deleteActiveTaskId(taskId);
+      leaderCache.putActiveTask(taskId);
+      leaderCache.getActiveTaskIdsForRequest(taskId.getRequestId());
+      leaderCache.getActiveTaskIdsOnHost(taskId.getSanitizedHost());
+    }
+    System.out.println(
+      String.format(
+        "Indexed snapshots with churn: %s updates in %s",
+        numLookups,
+        JavaUtils.duration(start)
+      )
+    );
+  }
+}
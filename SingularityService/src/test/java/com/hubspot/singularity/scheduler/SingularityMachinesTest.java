@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -208,6 +209,68 @@ public class SingularityMachinesTest extends SingularitySchedulerTestBase {
     Assertions.assertTrue(slaveManager.getHistory("slave1").isEmpty());
   }
 
+  @Test
+  public void testIndexedTaskLookupsMatchFilteredLookups() {
+    initRequest();
+    initFirstDeploy();
+
+    saveAndSchedule(
+      request
+        .toBuilder()
+        .setInstances(Optional.of(3))
+        .setSlavePlacement(Optional.of(SlavePlacement.GREEDY))
+    );
+
+    scheduler.drainPendingQueue();
+
+    sms
+      .resourceOffers(
+        Arrays.asList(
+          createOffer(2, 258, 2050, "slave1", "host1", Optional.of("rack1")),
+          createOffer(1, 129, 1025, "slave2", "host2", Optional.of("rack1"))
+        )
+      )
+      .join();
+
+    Assertions.assertEquals(3, taskManager.getNumActiveTasks());
+
+    List<SingularityTaskId> activeTaskIds = taskManager.getActiveTaskIds();
+    for (String slaveId : Arrays.asList("slave1", "slave2")) {
+      SingularitySlave slave = slaveManager.getObject(slaveId).get();
+      Assertions.assertEquals(
+        new HashSet<>(taskManager.getTaskIdsOnSlave(activeTaskIds, slave)),
+        new HashSet<>(taskManager.getTaskIdsOnSlave(slave, false))
+      );
+      Assertions.assertEquals(
+        new HashSet<>(taskManager.getTasksOnSlave(activeTaskIds, slave)),
+        new HashSet<>(taskManager.getTasksOnSlave(slave, false))
+      );
+    }
+
+    Assertions.assertEquals(
+      new HashSet<>(activeTaskIds),
+      new HashSet<>(taskManager.getActiveTaskIdsForRequest(requestId))
+    );
+    Assertions.assertEquals(
+      new HashSet<>(activeTaskIds),
+      new HashSet<>(taskManager.getActiveTaskIdsForDeploy(requestId, firstDeployId))
+    );
+
+    SingularityTaskId killed = activeTaskIds.get(0);
+    statusUpdate(taskManager.getTask(killed).get(), TaskState.TASK_KILLED);
+
+    Assertions.assertFalse(
+      taskManager.getActiveTaskIdsForRequest(requestId).contains(killed)
+    );
+    Assertions.assertFalse(
+      taskManager.getActiveTaskIdsForDeploy(requestId, firstDeployId).contains(killed)
+    );
+    Assertions.assertEquals(
+      2,
+      taskManager.getActiveTaskIdsForDeploy(requestId, firstDeployId).size()
+    );
+  }
+
   @Test
   public void testDecommissioning() {
     initRequest();
@@ -322,6 +322,7 @@ public class SingularityTestModule implements Module {
 
     config.setZooKeeperConfiguration(zookeeperConfiguration);
     config.setConsiderTaskHealthyAfterRunningForSeconds(0);
+    config.setWatchZkForWebCache(false);
 
     return config;
   }
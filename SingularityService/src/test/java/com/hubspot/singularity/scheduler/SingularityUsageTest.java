@@ -28,6 +28,7 @@ import com.hubspot.singularity.SingularityTaskUsage;
 import com.hubspot.singularity.TaskCleanupType;
 import com.hubspot.singularity.data.ShuffleConfigurationManager;
 import com.hubspot.singularity.data.TaskManager;
+import com.hubspot.singularity.data.usage.TaskUsageManager;
 import com.hubspot.singularity.data.usage.UsageManager;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -36,6 +37,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import org.apache.mesos.v1.Protos.TaskState;
 import org.junit.jupiter.api.Assertions;
@@ -54,6 +56,9 @@ public class SingularityUsageTest extends SingularitySchedulerTestBase {
   @Inject
   protected UsageManager usageManager;
 
+  @Inject
+  protected TaskUsageManager taskUsageManager;
+
   @Inject
   protected TestingMesosClient mesosClient;
 
@@ -258,6 +263,86 @@ public class SingularityUsageTest extends SingularitySchedulerTestBase {
     Assertions.assertEquals(2, usageManager.countTasksWithUsage());
   }
 
+  @Test
+  public void itOnlyCheckpointsTaskUsagePeriodically() {
+    initRequest();
+    initFirstDeploy();
+    saveAndSchedule(request.toBuilder().setInstances(Optional.of(1)));
+    resourceOffers(1);
+
+    configuration.setNumUsageToKeep(3);
+    configuration.setTaskUsageCheckpointIntervalMillis(TimeUnit.SECONDS.toMillis(10));
+
+    SingularityTaskId taskId = taskManager.getActiveTaskIds().get(0);
+    String host = slaveManager.getObjects().get(0).getHost();
+
+    for (int i = 1; i <= 5; i++) {
+      mesosClient.setSlaveResourceUsage(
+        host,
+        Collections.singletonList(getTaskMonitor(taskId.getId(), i * 5, i * 5, 100))
+      );
+      usagePoller.runActionOnPoll();
+    }
+
+    List<SingularityTaskUsage> usages = usageManager.getTaskUsage(taskId);
+    Assertions.assertEquals(3, usages.size());
+    Assertions.assertEquals(15, usages.get(0).getCpuSeconds(), 0);
+    Assertions.assertEquals(25, usages.get(2).getCpuSeconds(), 0);
+
+    // samples at 5, 15 and 25 seconds are at least 10 seconds apart
+    List<SingularityTaskUsage> checkpoints = taskUsageManager.getTaskUsage(taskId);
+    Assertions.assertEquals(3, checkpoints.size());
+    Assertions.assertEquals(5, checkpoints.get(0).getCpuSeconds(), 0);
+    Assertions.assertEquals(15, checkpoints.get(1).getCpuSeconds(), 0);
+  }
+
+  @Test
+  public void itSavesPartialResultsWhenAnAgentMissesItsDeadline() {
+    long checkUsageEveryMillis = configuration.getCheckUsageEveryMillis();
+    long usageCollectionTimeoutMillis = configuration.getUsageCollectionTimeoutMillis();
+    CountDownLatch slowAgent = mesosClient.blockSlaveResourceUsage("host2");
+    try {
+      configuration.setCheckUsageEveryMillis(200);
+      configuration.setUsageCollectionTimeoutMillis(200);
+
+      initRequest();
+      initFirstDeploy();
+      saveAndSchedule(request.toBuilder().setInstances(Optional.of(1)));
+      resourceOffers(2);
+
+      SingularityTask task = taskManager.getActiveTasks().get(0);
+      mesosClient.setSlaveResourceUsage(
+        task.getHostname(),
+        Collections.singletonList(getTaskMonitor(task.getTaskId().getId(), 2, 5, 100))
+      );
+
+      usagePoller.runActionOnPoll();
+
+      SingularityClusterUtilization utilization = usageManager
+        .getClusterUtilization()
+        .get();
+      Assertions.assertEquals(2, utilization.getNumSlavesTracked());
+      Assertions.assertEquals(1, utilization.getNumSlavesReported());
+      Assertions.assertEquals(1, utilization.getNumSlavesTimedOut());
+      Assertions.assertEquals(0, utilization.getNumSlavesFailed());
+      Assertions.assertEquals(0, utilization.getNumSlavesSkipped());
+      Assertions.assertTrue(usageManager.getSlaveUsage("slave1").isPresent());
+      Assertions.assertFalse(usageManager.getSlaveUsage("slave2").isPresent());
+
+      // The slow agent's fetch from the last round is still running
+      usagePoller.runActionOnPoll();
+
+      utilization = usageManager.getClusterUtilization().get();
+      Assertions.assertEquals(1, utilization.getNumSlavesReported());
+      Assertions.assertEquals(0, utilization.getNumSlavesTimedOut());
+      Assertions.assertEquals(1, utilization.getNumSlavesSkipped());
+    } finally {
+      slowAgent.countDown();
+      configuration.setCheckUsageEveryMillis(checkUsageEveryMillis);
+      configuration.setUsageCollectionTimeoutMillis(usageCollectionTimeoutMillis);
+    }
+  }
+
   @Test
   public void itTracksClusterUtilizationSimple() {
     initRequest();
@@ -326,6 +411,12 @@ public class SingularityUsageTest extends SingularitySchedulerTestBase {
       requestId,
       utilization.getMaxUnderUtilizedMemBytesRequestId()
     );
+
+    Assertions.assertEquals(1, utilization.getNumSlavesTracked());
+    Assertions.assertEquals(1, utilization.getNumSlavesReported());
+    Assertions.assertEquals(0, utilization.getNumSlavesTimedOut());
+    Assertions.assertEquals(0, utilization.getNumSlavesFailed());
+    Assertions.assertEquals(0, utilization.getNumSlavesSkipped());
   }
 
   @Test
@@ -0,0 +1,61 @@
+package com.hubspot.singularity.scheduler;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hubspot.singularity.SingularityTaskId;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TaskTimerWheelTest {
+
+  @Test
+  public void itDoesNotRunACheckCancelledWhileQueuedOnTheExecutor() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      TaskTimerWheel wheel = new TaskTimerWheel(
+        "test",
+        executor,
+        new MetricRegistry()
+      );
+      SingularityTaskId taskId = new SingularityTaskId(
+        "request",
+        "deploy",
+        1,
+        1,
+        "host",
+        "rack"
+      );
+
+      // keep the only executor thread busy so the due check stays queued
+      CountDownLatch release = new CountDownLatch(1);
+      executor.execute(
+        () -> {
+          try {
+            release.await();
+          } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      );
+
+      AtomicBoolean ran = new AtomicBoolean(false);
+      wheel.schedule(taskId, () -> ran.set(true), 0, TimeUnit.MILLISECONDS);
+      ScheduledFuture<?> check = wheel.remove(taskId.getId());
+
+      Assertions.assertTrue(check.cancel(false));
+      release.countDown();
+
+      executor.shutdown();
+      Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+      Assertions.assertFalse(ran.get());
+      Assertions.assertTrue(check.isCancelled());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -10,14 +10,25 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 
 public class TestingMesosClient implements MesosClient {
   private Map<String, List<MesosTaskMonitorObject>> slaveResourceUsage;
   private Map<String, MesosSlaveMetricsSnapshotObject> slaveMetrics;
+  private Map<String, CountDownLatch> blockedSlaves;
 
   public TestingMesosClient() {
     this.slaveResourceUsage = new HashMap<>();
     this.slaveMetrics = new HashMap<>();
+    this.blockedSlaves = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Resource usage requests to this host wait until the returned latch is counted down
+   */
+  public CountDownLatch blockSlaveResourceUsage(String hostname) {
+    return blockedSlaves.computeIfAbsent(hostname, h -> new CountDownLatch(1));
   }
 
   public void setSlaveResourceUsage(
@@ -77,6 +88,15 @@ public class TestingMesosClient implements MesosClient {
     String hostname,
     boolean useShortTimeout
   ) {
+    CountDownLatch blocked = blockedSlaves.get(hostname);
+    if (blocked != null) {
+      try {
+        blocked.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      blockedSlaves.remove(hostname, blocked);
+    }
     return slaveResourceUsage.getOrDefault(hostname, Collections.emptyList());
   }
 }
@@ -0,0 +1,86 @@
+package com.hubspot.singularity.scheduler;
+
+import com.hubspot.singularity.RequestUtilization;
+import com.hubspot.singularity.SingularityClusterUtilization;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class UtilizationAggregatorTest {
+
+  @Test
+  public void itKeepsClusterUtilizationCurrentAsRequestsChange() {
+    UtilizationAggregator aggregator = new UtilizationAggregator();
+    aggregator.add(taskUtilization("a", 4, 1));
+    aggregator.add(taskUtilization("b", 2, 1));
+
+    SingularityClusterUtilization utilization = toClusterUtilization(aggregator);
+    Assertions.assertEquals(2, utilization.getNumRequestsWithUnderUtilizedCpu());
+    Assertions.assertEquals(0, utilization.getNumRequestsWithOverUtilizedCpu());
+    Assertions.assertEquals(4, utilization.getTotalUnderUtilizedCpu(), 0.001);
+    Assertions.assertEquals(2, utilization.getAvgUnderUtilizedCpu(), 0.001);
+    Assertions.assertEquals(3, utilization.getMaxUnderUtilizedCpu(), 0.001);
+    Assertions.assertEquals(1, utilization.getMinUnderUtilizedCpu(), 0.001);
+    Assertions.assertEquals("a", utilization.getMaxUnderUtilizedCpuRequestId());
+
+    // a now averages 2.4 of its 4 cpus and b 0.6 of its 2
+    aggregator.add(taskUtilization("a", 4, 3.8));
+    aggregator.add(taskUtilization("b", 2, 0.2));
+
+    utilization = toClusterUtilization(aggregator);
+    Assertions.assertEquals(2, utilization.getNumRequestsWithUnderUtilizedCpu());
+    Assertions.assertEquals(3, utilization.getTotalUnderUtilizedCpu(), 0.001);
+    Assertions.assertEquals(1.5, utilization.getAvgUnderUtilizedCpu(), 0.001);
+    Assertions.assertEquals(1.6, utilization.getMaxUnderUtilizedCpu(), 0.001);
+    Assertions.assertEquals(1.4, utilization.getMinUnderUtilizedCpu(), 0.001);
+    Assertions.assertEquals("a", utilization.getMaxUnderUtilizedCpuRequestId());
+
+    // b now uses more than it reserves
+    aggregator.add(taskUtilization("b", 2, 6.6));
+
+    utilization = toClusterUtilization(aggregator);
+    Assertions.assertEquals(1, utilization.getNumRequestsWithUnderUtilizedCpu());
+    Assertions.assertEquals(1.6, utilization.getTotalUnderUtilizedCpu(), 0.001);
+    Assertions.assertEquals(1.6, utilization.getMinUnderUtilizedCpu(), 0.001);
+    Assertions.assertEquals("a", utilization.getMaxUnderUtilizedCpuRequestId());
+    Assertions.assertEquals(1, utilization.getNumRequestsWithOverUtilizedCpu());
+    Assertions.assertEquals(0.6, utilization.getMaxOverUtilizedCpu(), 0.001);
+    Assertions.assertEquals("b", utilization.getMaxOverUtilizedCpuRequestId());
+  }
+
+  @Test
+  public void itMergesTaskUtilizationIntoItsRequest() {
+    UtilizationAggregator aggregator = new UtilizationAggregator();
+    aggregator.add(taskUtilization("a", 4, 1));
+    aggregator.add(taskUtilization("a", 4, 3));
+
+    RequestUtilization utilization = aggregator.getRequestUtilizations().get(0);
+    Assertions.assertEquals(2, utilization.getNumTasks());
+    Assertions.assertEquals(2, utilization.getAvgCpuUsed(), 0.001);
+    Assertions.assertEquals(3, utilization.getMaxCpuUsed(), 0.001);
+    Assertions.assertEquals(3000, utilization.getMaxCpusTimestamp());
+    Assertions.assertEquals(1, utilization.getMinCpuUsed(), 0.001);
+    Assertions.assertEquals(1000, utilization.getMinCpusTimestamp());
+  }
+
+  private static RequestUtilization taskUtilization(
+    String requestId,
+    double cpuReserved,
+    double cpuUsed
+  ) {
+    long timestamp = (long) (cpuUsed * 1000);
+    return new RequestUtilization(requestId, "deploy")
+      .addCpuReserved(cpuReserved)
+      .addCpuUsed(cpuUsed)
+      .setMaxCpuUsed(cpuUsed)
+      .setMaxCpusTimestamp(timestamp)
+      .setMinCpuUsed(cpuUsed)
+      .setMinCpusTimestamp(timestamp)
+      .incrementTaskCount();
+  }
+
+  private static SingularityClusterUtilization toClusterUtilization(
+    UtilizationAggregator aggregator
+  ) {
+    return aggregator.toClusterUtilization(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+  }
+}
@@ -178,3 +178,24 @@ ALTER TABLE `deployHistory`
   MODIFY COLUMN `message` varchar(280) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci DEFAULT NULL,
   MODIFY COLUMN `deployState` ENUM ('SUCCEEDED', 'FAILED_INTERNAL_STATE', 'CANCELING', 'WAITING', 'OVERDUE', 'FAILED', 'CANCELED') NOT NULL,
   ADD COLUMN `json` JSON DEFAULT NULL;
+
+--changeset singularity:22 dbms:mysql
+ALTER TABLE `taskHistory`
+  ADD COLUMN `compressedJson` MEDIUMBLOB DEFAULT NULL;
+
+--changeset singularity:23 dbms:mysql
+CREATE TABLE `webhookUpdates` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `type` varchar(25) CHARACTER SET ascii COLLATE ascii_bin NOT NULL,
+  `createdAt` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `bytes` MEDIUMBLOB NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `typeId` (`type`, `id`),
+  KEY `typeCreatedAt` (`type`, `createdAt`)
+) ENGINE=InnoDB;
+
+CREATE TABLE `webhookOffsets` (
+  `webhookId` varchar(500) CHARACTER SET ascii COLLATE ascii_bin NOT NULL,
+  `lastId` BIGINT NOT NULL,
+  PRIMARY KEY (`webhookId`)
+) ENGINE=InnoDB;
@@ -88,3 +88,22 @@ ALTER TABLE deployHistory
   MODIFY COLUMN message varchar(280) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci DEFAULT NULL,
   MODIFY COLUMN deployState ENUM ('SUCCEEDED', 'FAILED_INTERNAL_STATE', 'CANCELING', 'WAITING', 'OVERDUE', 'FAILED', 'CANCELED') NOT NULL,
   ADD COLUMN json JSON DEFAULT NULL;
+
+--changeset singularity:6 dbms:postgresql
+ALTER TABLE taskHistory
+  ADD COLUMN compressedJson bytea DEFAULT NULL;
+
+--changeset singularity:7 dbms:postgresql
+CREATE TABLE webhookUpdates (
+  id BIGSERIAL PRIMARY KEY,
+  type varchar(25) NOT NULL,
+  createdAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  bytes bytea NOT NULL
+);
+CREATE INDEX webhookUpdatesTypeId ON webhookUpdates (type, id);
+CREATE INDEX webhookUpdatesTypeCreatedAt ON webhookUpdates (type, createdAt);
+
+CREATE TABLE webhookOffsets (
+  webhookId varchar(500) PRIMARY KEY,
+  lastId BIGINT NOT NULL
+);